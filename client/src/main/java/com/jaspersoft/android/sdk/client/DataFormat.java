@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client;
+
+/**
+ * Representation requested from the REST v2 services of JasperReports Server.
+ *
+ * @author Ivan Gadzhega
+ * @see JsRestClient#setDataFormat(DataFormat)
+ * @since 1.8
+ */
+public enum DataFormat {
+
+    /** XML, supported by all services of all server versions. */
+    XML,
+
+    /**
+     * JSON, smaller and faster to parse. Used for the REST v2 resource lookups, input controls and report
+     * executions of servers that support it, all other calls fall back to XML.
+     */
+    JSON
+
+}
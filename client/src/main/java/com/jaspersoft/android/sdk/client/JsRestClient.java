@@ -25,35 +25,60 @@
 package com.jaspersoft.android.sdk.client;
 
 import android.util.Base64;
+import com.jaspersoft.android.sdk.client.download.BatchDownloadException;
+import com.jaspersoft.android.sdk.client.download.DownloadBatch;
+import com.jaspersoft.android.sdk.client.download.DownloadListener;
+import com.jaspersoft.android.sdk.client.download.FileDownloader;
+import com.jaspersoft.android.sdk.client.download.ParallelDownloader;
+import com.jaspersoft.android.sdk.client.download.PartialDownload;
+import com.jaspersoft.android.sdk.client.download.SegmentedDownloader;
+import com.jaspersoft.android.sdk.client.export.AttachmentStore;
+import com.jaspersoft.android.sdk.client.http.CompressionInterceptor;
+import com.jaspersoft.android.sdk.client.http.DefaultHttpTransportFactory;
+import com.jaspersoft.android.sdk.client.http.HttpTransport;
+import com.jaspersoft.android.sdk.client.http.HttpTransportFactory;
+import com.jaspersoft.android.sdk.client.http.RequestCoalescer;
+import com.jaspersoft.android.sdk.client.http.SessionAuthenticationInterceptor;
+import com.jaspersoft.android.sdk.client.http.TransferStatistics;
+import com.jaspersoft.android.sdk.client.http.ValidatorCache;
+import com.jaspersoft.android.sdk.client.ic.InputControlValuesCache;
 import com.jaspersoft.android.sdk.client.oxm.*;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.json.JsonHttpMessageConverter;
 import com.jaspersoft.android.sdk.client.oxm.report.*;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupHandler;
 import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsParser;
 import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
 import org.springframework.http.*;
 import org.springframework.http.client.ClientHttpRequest;
-import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
-import org.springframework.util.FileCopyUtils;
+import org.springframework.http.converter.xml.SimpleXmlHttpMessageConverter;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriTemplate;
+import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.*;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.singletonList;
 
@@ -77,19 +102,51 @@ public class JsRestClient {
     public static final String REST_SERVER_INFO_URI = "/serverInfo";
     public static final String REST_REPORT_EXECUTIONS= "/reportExecutions";
 
+    // JSON, with XML as the fallback of services that can't produce it
+    private static final List<MediaType> JSON_MEDIA_TYPES = MediaType.parseMediaTypes("application/json, application/xml;q=0.9");
+    // how long XML is used without asking again after the server info couldn't be fetched
+    private static final long SERVER_INFO_RETRY_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
     // the timeout in milliseconds until a connection is established
     private int connectTimeout = 15 * 1000;
     // the socket timeout in milliseconds for waiting for data
     private int readTimeout = 120 * 1000;
-
+    // negotiate gzip/deflate compression of response bodies
+    private boolean compressionEnabled = true;
+    // share one network exchange between concurrent identical calls (opt-in, the results are shared)
+    private volatile boolean requestCoalescingEnabled = false;
+    // continue interrupted downloads of report outputs and attachments with range requests
+    private volatile boolean resumableDownloadsEnabled = true;
+    // representation requested from the REST v2 services
+    private volatile DataFormat dataFormat = DataFormat.XML;
+
+    private final TransferStatistics transferStatistics = new TransferStatistics();
+    private volatile FileDownloader fileDownloader = new FileDownloader();
+    private volatile ParallelDownloader parallelDownloader = new ParallelDownloader();
+    private volatile SegmentedDownloader segmentedDownloader;
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private ValidatorCache validatorCache;
+    private InputControlValuesCache inputControlValuesCache;
+    private HttpTransportFactory transportFactory = new DefaultHttpTransportFactory();
     private RestTemplate restTemplate;
-    private JsServerProfile jsServerProfile;
-    private String restServicesUrl;
-    private ServerInfo serverInfo;
+    private HttpTransport transport;
+    private volatile JsServerProfile jsServerProfile;
+    private volatile String restServicesUrl;
+    private volatile ServerInfo serverInfo;
+    // when the server info couldn't be fetched to choose the data format, 0 if it could
+    private volatile long serverInfoFailureTime;
 
 
     public JsRestClient() {
         this.restTemplate = new RestTemplate(true);
+        // generated marshallers, falling back to one shared pre-warmable serializer
+        List<HttpMessageConverter<?>> messageConverters = restTemplate.getMessageConverters();
+        for (int i = 0; i < messageConverters.size(); i++) {
+            if (messageConverters.get(i) instanceof SimpleXmlHttpMessageConverter) {
+                messageConverters.set(i, new MarshallingXmlHttpMessageConverter());
+            }
+        }
+        messageConverters.add(new JsonHttpMessageConverter());
     }
 
     //---------------------------------------------------------------------
@@ -119,6 +176,260 @@ public class JsRestClient {
         updateReadTimeout();
     }
 
+    //---------------------------------------------------------------------
+    // Transport
+    //---------------------------------------------------------------------
+
+    /**
+     * Sets the factory of the HTTP transport. The transport is created when a server profile is set,
+     * so this method must be called before {@link #setServerProfile(JsServerProfile)} to take effect.
+     * By default, a pooled keep-alive transport is used if enabled in the server profile,
+     * or an <code>HttpURLConnection</code> based transport otherwise.
+     *
+     * @param transportFactory the transport factory
+     *
+     * @since 1.8
+     */
+    public void setTransportFactory(HttpTransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public HttpTransportFactory getTransportFactory() {
+        return transportFactory;
+    }
+
+    /**
+     * @return the transport of the current server profile, or <code>null</code> if no profile has been set
+     *
+     * @since 1.8
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    //---------------------------------------------------------------------
+    // Compression
+    //---------------------------------------------------------------------
+
+    /**
+     * Enables or disables the negotiated <code>gzip</code>/<code>deflate</code> compression of response bodies.
+     * Compressed bodies are decoded as a stream. Compression is enabled by default.
+     *
+     * @param enabled <code>true</code> to send <code>Accept-Encoding</code> with every request
+     *
+     * @since 1.8
+     */
+    public void setCompressionEnabled(boolean enabled) {
+        compressionEnabled = enabled;
+        if (jsServerProfile != null) {
+            restTemplate.setInterceptors(createInterceptors(jsServerProfile, transport));
+        }
+    }
+
+    /**
+     * @since 1.8
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Returns the counters of transferred and decoded response bytes, e.g. to verify the compression savings.
+     *
+     * @return the transfer statistics of this client
+     *
+     * @since 1.8
+     */
+    public TransferStatistics getTransferStatistics() {
+        return transferStatistics;
+    }
+
+    /**
+     * Sets the downloader that saves report outputs and attachments to files, e.g. to change the chunk size
+     * of the writes. By default, all the clients share one pool of buffers.
+     *
+     * @since 1.8
+     */
+    public void setFileDownloader(FileDownloader fileDownloader) {
+        this.fileDownloader = fileDownloader;
+    }
+
+    /**
+     * Returns the downloader that saves report outputs and attachments to files, along with its throughput.
+     *
+     * @since 1.8
+     */
+    public FileDownloader getFileDownloader() {
+        return fileDownloader;
+    }
+
+    /**
+     * Sets the downloader that runs the downloads of report attachments in parallel,
+     * e.g. to change the concurrency limits.
+     *
+     * @since 1.8
+     */
+    public void setParallelDownloader(ParallelDownloader parallelDownloader) {
+        this.parallelDownloader = parallelDownloader;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public ParallelDownloader getParallelDownloader() {
+        return parallelDownloader;
+    }
+
+    /**
+     * Sets the downloader that fetches large export outputs over several connections at once, in byte ranges.
+     * The ranges run on the parallel downloader of this client and are subject to its limits.
+     * Outputs too small to be split, or served by a server without range support, are downloaded
+     * as a single stream.
+     *
+     * @param segmentedDownloader the downloader, or <code>null</code> to download the outputs
+     *                            as a single stream (default)
+     *
+     * @since 1.8
+     */
+    public void setSegmentedDownloader(SegmentedDownloader segmentedDownloader) {
+        this.segmentedDownloader = segmentedDownloader;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public SegmentedDownloader getSegmentedDownloader() {
+        return segmentedDownloader;
+    }
+
+    /**
+     * Enables or disables resumable downloads of report outputs and attachments. An interrupted download keeps
+     * its partial file and continues with a <code>Range</code> request the next time the same file is downloaded
+     * from the same URL, even after a restart. If the resource was modified or the server ignores the range,
+     * the download starts over.
+     *
+     * @since 1.8
+     */
+    public void setResumableDownloadsEnabled(boolean resumableDownloadsEnabled) {
+        this.resumableDownloadsEnabled = resumableDownloadsEnabled;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public boolean isResumableDownloadsEnabled() {
+        return resumableDownloadsEnabled;
+    }
+
+    //---------------------------------------------------------------------
+    // Conditional Requests
+    //---------------------------------------------------------------------
+
+    /**
+     * Sets the cache of HTTP validators used to revalidate resource metadata with conditional GET requests.
+     * When the server responds with <code>304 Not Modified</code>, the previously parsed object is returned
+     * without downloading and parsing the response body again. Applies to {@link #getResource(String)},
+     * <code>getResources(...)</code> and <code>getResourceLookups(...)</code>.
+     *
+     * @param validatorCache the validator cache, or <code>null</code> to disable conditional requests (default)
+     *
+     * @since 1.8
+     */
+    public void setValidatorCache(ValidatorCache validatorCache) {
+        this.validatorCache = validatorCache;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public ValidatorCache getValidatorCache() {
+        return validatorCache;
+    }
+
+    /**
+     * Sets the memo cache of the input control states resolved for a selection. When a master control is toggled
+     * back to a selection that was already resolved, <code>getInputControlsValues(...)</code> returns the cached
+     * states without a server round trip. The master dependencies of the controls returned by
+     * <code>getInputControlsList(...)</code> are registered with the cache automatically.
+     *
+     * @param inputControlValuesCache the memo cache, or <code>null</code> to disable it (default)
+     *
+     * @since 1.8
+     */
+    public void setInputControlValuesCache(InputControlValuesCache inputControlValuesCache) {
+        this.inputControlValuesCache = inputControlValuesCache;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public InputControlValuesCache getInputControlValuesCache() {
+        return inputControlValuesCache;
+    }
+
+    //---------------------------------------------------------------------
+    // Request Coalescing
+    //---------------------------------------------------------------------
+
+    /**
+     * Enables or disables the coalescing of concurrent identical calls. When enabled, calls that read
+     * resources, server info or input controls and arrive while an identical call is in flight
+     * share its network exchange and its parsed result. Coalescing is disabled by default.
+     * <p/>
+     * <strong>All the coalesced callers get the same result instance.</strong> Enable coalescing only if
+     * no caller modifies the returned objects, e.g. sets the states of input controls or edits returned lists.
+     *
+     * @param enabled <code>true</code> to coalesce concurrent identical calls
+     *
+     * @since 1.8
+     */
+    public void setRequestCoalescingEnabled(boolean enabled) {
+        requestCoalescingEnabled = enabled;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public boolean isRequestCoalescingEnabled() {
+        return requestCoalescingEnabled;
+    }
+
+    /**
+     * Returns the coalescer of this client, e.g. to check how many calls were coalesced.
+     *
+     * @since 1.8
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Sets the representation requested from the REST v2 services. With {@link DataFormat#JSON} the resource
+     * lookups, input controls and report executions are received as JSON and parsed with a streaming tokenizer,
+     * if the server version supports it according to its {@link ServerInfo}. The REST v1 services and older
+     * servers keep using XML. The default format is {@link DataFormat#XML}.
+     * <p>
+     * The server info is fetched once per server profile. If that fails, XML is used for a minute before
+     * the server info is requested again.
+     *
+     * @param dataFormat the requested representation
+     *
+     * @since 1.8
+     */
+    public void setDataFormat(DataFormat dataFormat) {
+        this.dataFormat = dataFormat;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
     //---------------------------------------------------------------------
     // Server Profiles & Info
     //---------------------------------------------------------------------
@@ -128,24 +439,29 @@ public class JsRestClient {
     }
 
     public void setServerProfile(final JsServerProfile serverProfile) {
-        this.serverInfo = null;
-        this.jsServerProfile = serverProfile;
-        this.restServicesUrl = serverProfile.getServerUrl() + REST_SERVICES_URI;
-
-        ClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory() {
-            @Override
-            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
-                super.prepareConnection(connection, httpMethod);
-                // Basic Authentication
-                String authorisation = serverProfile.getUsernameWithOrgId() + ":" + serverProfile.getPassword();
-                byte[] encodedAuthorisation = Base64.encode(authorisation.getBytes(), Base64.NO_WRAP);
-                connection.setRequestProperty("Authorization", "Basic " + new String(encodedAuthorisation));
-                // disable buggy keep-alive
-                connection.setRequestProperty("Connection", "close");
-            }
-        };
-        restTemplate.setRequestFactory(factory);
-        updateRequestFactoryTimeouts();
+        synchronized (this) {
+            this.serverInfo = null;
+            this.serverInfoFailureTime = 0;
+            this.jsServerProfile = serverProfile;
+            this.restServicesUrl = serverProfile.getServerUrl() + REST_SERVICES_URI;
+        }
+
+        // Basic Authentication, unless the session cookie is used instead
+        final String authorisationHeader;
+        if (serverProfile.isSessionAuthenticationEnabled()) {
+            authorisationHeader = null;
+        } else {
+            String authorisation = serverProfile.getUsernameWithOrgId() + ":" + serverProfile.getPassword();
+            byte[] encodedAuthorisation = Base64.encode(authorisation.getBytes(), Base64.NO_WRAP);
+            authorisationHeader = "Basic " + new String(encodedAuthorisation);
+        }
+
+        HttpTransport newTransport = transportFactory.createTransport(serverProfile, authorisationHeader);
+        releaseTransport();
+        transport = newTransport;
+        restTemplate.setRequestFactory(newTransport);
+        restTemplate.setInterceptors(createInterceptors(serverProfile, newTransport));
+        updateTransportTimeouts();
     }
 
     /**
@@ -170,21 +486,33 @@ public class JsRestClient {
      * @since 1.4
      */
     public ServerInfo getServerInfo(boolean forceUpdate) throws RestClientException {
-        if(forceUpdate || serverInfo == null) {
-            String uri = getServerProfile().getServerUrl() + REST_SERVICES_V2_URI + REST_SERVER_INFO_URI;
-            try {
-                serverInfo = restTemplate.getForObject(uri, ServerInfo.class);
-            } catch (HttpStatusCodeException ex) {
-                HttpStatus statusCode = ex.getStatusCode();
-                if (statusCode == HttpStatus.NOT_FOUND) {
-                    serverInfo = new ServerInfo();
-                } else {
-                    throw ex;
+        final JsServerProfile serverProfile = jsServerProfile;
+        ServerInfo info = serverInfo;
+        if(forceUpdate || info == null) {
+            final String uri = serverProfile.getServerUrl() + REST_SERVICES_V2_URI + REST_SERVER_INFO_URI;
+            info = coalesce("GET", uri, null, null, new RequestCoalescer.Call<ServerInfo>() {
+                public ServerInfo execute() {
+                    try {
+                        return restTemplate.getForObject(uri, ServerInfo.class);
+                    } catch (HttpStatusCodeException ex) {
+                        HttpStatus statusCode = ex.getStatusCode();
+                        if (statusCode == HttpStatus.NOT_FOUND) {
+                            return new ServerInfo();
+                        } else {
+                            throw ex;
+                        }
+                    }
+                }
+            });
+            synchronized (this) {
+                // don't cache the info of a profile that has been replaced in the meantime
+                if (serverProfile == jsServerProfile) {
+                    serverInfo = info;
                 }
             }
         }
 
-        return serverInfo;
+        return info;
     }
 
     //---------------------------------------------------------------------
@@ -200,7 +528,7 @@ public class JsRestClient {
      */
     public ResourceDescriptor getResource(String uri) throws RestClientException {
         String fullUri = restServicesUrl + REST_RESOURCE_URI + uri;
-        return restTemplate.getForObject(fullUri, ResourceDescriptor.class);
+        return getForObjectRevalidated(fullUri, ResourceDescriptor.class);
     }
 
     /**
@@ -249,7 +577,7 @@ public class JsRestClient {
      */
     public ResourcesList getResources(String uri) throws RestClientException {
         String fullUri = restServicesUrl + REST_RESOURCES_URI + uri;
-        return restTemplate.getForObject(fullUri, ResourcesList.class);
+        return getForObjectRevalidated(fullUri, ResourcesList.class);
     }
 
     /**
@@ -285,7 +613,7 @@ public class JsRestClient {
     public ResourcesList getResources(String uri, String query, Boolean recursive, Integer limit) throws RestClientException {
         String uriVariablesTemplate = "?q={query}&recursive={recursive}&limit={limit}";
         String fullUri = restServicesUrl + REST_RESOURCES_URI + uri + uriVariablesTemplate;
-        return restTemplate.getForObject(fullUri, ResourcesList.class, query, recursive, limit);
+        return getForObjectRevalidated(fullUri, ResourcesList.class, query, recursive, limit);
     }
 
     /**
@@ -324,7 +652,7 @@ public class JsRestClient {
     public ResourcesList getResources(String uri, String query, String type, Boolean recursive, Integer limit) throws RestClientException {
         String uriVariablesTemplate = "?q={query}&type={type}&recursive={recursive}&limit={limit}";
         String fullUri = restServicesUrl + REST_RESOURCES_URI + uri + uriVariablesTemplate;
-        return restTemplate.getForObject(fullUri, ResourcesList.class, query, type, recursive, limit);
+        return getForObjectRevalidated(fullUri, ResourcesList.class, query, type, recursive, limit);
     }
 
     /**
@@ -369,7 +697,7 @@ public class JsRestClient {
                 fullUri.append("&type=").append(type);
             }
         }
-        return restTemplate.getForObject(fullUri.toString(), ResourcesList.class, query, recursive, limit);
+        return getForObjectRevalidated(fullUri.toString(), ResourcesList.class, query, recursive, limit);
     }
 
     //---------------------------------------------------------------------
@@ -408,24 +736,9 @@ public class JsRestClient {
      */
     public ResourceLookupsList getResourceLookups(String folderUri, String query, List<String> types, boolean recursive,
                                                   int offset, int limit) throws RestClientException {
-        StringBuilder fullUri = new StringBuilder();
-        fullUri.append(getServerProfile().getServerUrl())
-                .append(REST_SERVICES_V2_URI)
-                .append(REST_RESOURCES_URI)
-                .append("?folderUri={folderUri}")
-                .append("&q={query}")
-                .append("&recursive={recursive}")
-                .append("&offset={offset}")
-                .append("&limit={limit}");
-
-        if (types != null) {
-            for (String type : types) {
-                fullUri.append("&type=").append(type);
-            }
-        }
-
-        ResponseEntity<ResourceLookupsList> responseEntity = restTemplate.exchange(fullUri.toString(), HttpMethod.GET,
-                null, ResourceLookupsList.class, folderUri, query, recursive, offset, limit);
+        String fullUri = generateResourceLookupsUrl(types);
+        ResponseEntity<ResourceLookupsList> responseEntity = exchangeRevalidated(fullUri, createV2RequestHeaders(),
+                ResourceLookupsList.class, folderUri, query, recursive, offset, limit);
 
         if (responseEntity.getStatusCode() == HttpStatus.NO_CONTENT) {
             return new ResourceLookupsList();
@@ -437,6 +750,58 @@ public class JsRestClient {
         }
     }
 
+    /**
+     * Retrieves the resource lookup objects for the resources contained in the given parent folder
+     * and matching the specified parameters, and passes them to the handler one by one while the response
+     * is being downloaded. The lookups are never held in memory all at once.
+     *
+     * @param folderUri parent folder URI (e.g. /reports/samples/)
+     * @param query     Match only resources having the specified text in the name or description.
+     *                  (can be <code>null</code>)
+     * @param types     Match only resources of the given types. Multiple resource types allowed.
+     *                  (can be <code>null</code>)
+     * @param recursive Get resources recursively
+     * @param offset    Pagination. Start index for requested page.
+     * @param limit     Pagination. Resources count per page.
+     * @param handler   the handler of parsed lookups, called on the current thread
+     * @return the ResourceLookupsList value with the result and total counts, but without the lookups
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     *
+     * @since 1.8
+     */
+    public ResourceLookupsList getResourceLookups(String folderUri, String query, List<String> types, boolean recursive,
+                                                  int offset, int limit, final ResourceLookupHandler handler)
+            throws RestClientException {
+        RequestCallback requestCallback = new RequestCallback() {
+            public void doWithRequest(ClientHttpRequest request) throws IOException {
+                request.getHeaders().setAccept(singletonList(MediaType.APPLICATION_XML));
+            }
+        };
+        ResponseExtractor<ResourceLookupsList> responseExtractor = new ResponseExtractor<ResourceLookupsList>() {
+            public ResourceLookupsList extractData(ClientHttpResponse response) throws IOException {
+                ResourceLookupsList resourceLookupsList = new ResourceLookupsList();
+                if (response.getStatusCode() == HttpStatus.NO_CONTENT) {
+                    return resourceLookupsList;
+                }
+                resourceLookupsList.setResultCount(response.getHeaders().getFirst("Result-Count"));
+                resourceLookupsList.setTotalCount(response.getHeaders().getFirst("Total-Count"));
+
+                MediaType contentType = response.getHeaders().getContentType();
+                String encoding = (contentType != null && contentType.getCharSet() != null)
+                        ? contentType.getCharSet().name() : null;
+                try {
+                    new ResourceLookupsParser().parse(response.getBody(), encoding, handler);
+                } catch (XmlPullParserException ex) {
+                    throw new HttpMessageNotReadableException("Could not read resource lookups: " + ex.getMessage(), ex);
+                }
+                return resourceLookupsList;
+            }
+        };
+
+        return restTemplate.execute(generateResourceLookupsUrl(types), HttpMethod.GET, requestCallback,
+                responseExtractor, folderUri, query, recursive, offset, limit);
+    }
+
     //---------------------------------------------------------------------
     // The Report Service
     //---------------------------------------------------------------------
@@ -489,11 +854,89 @@ public class JsRestClient {
      * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
      */
     public void saveReportAttachmentToFile(String uuid, String name, File file) throws RestClientException {
+        downloadFile(getReportAttachmentURI(uuid, name), file);
+    }
+
+    /**
+     * Downloads specified report attachments in parallel, once a report has been generated,
+     * and saves them in the specified directory. A failed attachment doesn't stop the others.
+     *
+     * @param uuid        Universally Unique Identifier of the report output.
+     * @param attachments List of the file names specified in the report descriptor.
+     * @param outputDir   The directory in which the attachments will be saved.
+     * @param listener    The callback of the downloads (can be <code>null</code>).
+     * @return the batch of the downloads
+     * @throws BatchDownloadException if some attachments have failed, the others are saved nevertheless
+     * @throws RestClientException    thrown by RestTemplate whenever it encounters client-side HTTP errors
+     *
+     * @since 1.8
+     */
+    public DownloadBatch saveReportAttachmentsToFiles(final String uuid, List<ReportAttachment> attachments,
+                                                      final File outputDir, DownloadListener listener)
+            throws RestClientException {
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
+        for (ReportAttachment attachment : attachments) {
+            final String name = attachment.getName();
+            downloads.add(new ParallelDownloader.Download(name, getReportAttachmentURI(uuid, name)) {
+                @Override
+                protected void execute() {
+                    saveReportAttachmentToFile(uuid, name, new File(outputDir, name));
+                }
+            });
+        }
+        return downloadInParallel(downloads, listener);
+    }
+
+    /**
+     * Downloads specified report attachment, once a report has been generated and puts it in the attachment store.
+     *
+     * @param uuid         Universally Unique Identifier of the report output.
+     * @param name         One of the file names specified in the report xml.
+     * @param store        The store in which the attachment will be saved.
+     * @param validatorKey The key of the attachment that is stable across executions of the report, used to skip
+     *                     the download of an attachment the server reports as not modified
+     *                     (can be <code>null</code>).
+     * @return the digest of the attachment, with a reference to its blob acquired for the caller
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     *
+     * @since 1.8
+     */
+    public String saveReportAttachmentToStore(String uuid, String name, AttachmentStore store, String validatorKey)
+            throws RestClientException {
+        return downloadToStore(getReportAttachmentURI(uuid, name), store, validatorKey);
+    }
+
+    /**
+     * @return the URI of the report attachment, once a report has been generated
+     *
+     * @since 1.8
+     */
+    public URI getReportAttachmentURI(String uuid, String name) {
         String fullUri = restServicesUrl + REST_REPORT_URI + "/{uuid}?file={name}";
         UriTemplate uriTemplate = new UriTemplate(fullUri);
-        URI expandedUri = uriTemplate.expand(uuid, name);
+        return uriTemplate.expand(uuid, name);
+    }
 
-        downloadFile(expandedUri, file);
+    /**
+     * Runs the downloads with the parallel downloader of this client.
+     *
+     * @throws BatchDownloadException if some downloads have failed, the others are kept nevertheless
+     *
+     * @since 1.8
+     */
+    public DownloadBatch downloadInParallel(List<? extends ParallelDownloader.Download> downloads,
+                                            DownloadListener listener) throws RestClientException {
+        DownloadBatch batch;
+        try {
+            batch = parallelDownloader.download(downloads, listener);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Downloads interrupted");
+        }
+        if (!batch.isSuccessful()) {
+            throw new BatchDownloadException(batch);
+        }
+        return batch;
     }
 
     //---------------------------------------------------------------------
@@ -593,7 +1036,7 @@ public class JsRestClient {
 
     public ReportExecutionResponse runReportExecution(ReportExecutionRequest request) throws RestClientException {
         String url = jsServerProfile.getServerUrl() + REST_SERVICES_V2_URI + REST_REPORT_EXECUTIONS;
-        return restTemplate.postForObject(url, request, ReportExecutionResponse.class);
+        return postForV2Object(url, request, ReportExecutionResponse.class);
     }
 
     public URI getExportOuptutResourceURI(String executionId, String exportOutput) {
@@ -606,7 +1049,9 @@ public class JsRestClient {
 
     public void saveExportOutputToFile(String executionId, String exportOutput, File file) throws RestClientException {
         URI outputResourceUri = getExportOuptutResourceURI(executionId, exportOutput);
-        downloadFile(outputResourceUri, file);
+        if (segmentedDownloader == null || !downloadFileSegmented(outputResourceUri, file)) {
+            downloadFile(outputResourceUri, file);
+        }
     }
 
     public URI getExportAttachmentURI(String executionId, String exportOutput, String attachmentName) {
@@ -623,6 +1068,22 @@ public class JsRestClient {
         downloadFile(attachmentUri, file);
     }
 
+    /**
+     * Downloads the attachment of the export and puts it in the attachment store.
+     *
+     * @param validatorKey the key of the attachment that is stable across executions of the report, used to skip
+     *                     the download of an attachment the server reports as not modified (can be <code>null</code>)
+     * @return the digest of the attachment, with a reference to its blob acquired for the caller
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     *
+     * @since 1.8
+     */
+    public String saveExportAttachmentToStore(String executionId, String exportOutput, String attachmentName,
+                                              AttachmentStore store, String validatorKey) throws RestClientException {
+        URI attachmentUri = getExportAttachmentURI(executionId, exportOutput, attachmentName);
+        return downloadToStore(attachmentUri, store, validatorKey);
+    }
+
     //---------------------------------------------------------------------
     // Input Controls
     //---------------------------------------------------------------------
@@ -749,14 +1210,25 @@ public class JsRestClient {
     public InputControlsList getInputControlsList(String reportUri, List<String> controlsIds,
             List<ReportParameter> selectedValues) throws RestClientException {
         // generate full url
-        String url = generateInputControlsUrl(reportUri, controlsIds, false);
+        final String url = generateInputControlsUrl(reportUri, controlsIds, false);
         // add selected values to request
-        ReportParametersList parametersList = new ReportParametersList();
+        final ReportParametersList parametersList = new ReportParametersList();
         parametersList.setReportParameters(selectedValues);
         // execute POST request
-        InputControlsList controlsList =
-                restTemplate.postForObject(url, parametersList, InputControlsList.class);
-        return (controlsList != null) ? controlsList : new InputControlsList();
+        InputControlsList controlsList = coalesce("POST", url, null, toCanonicalString(selectedValues),
+                new RequestCoalescer.Call<InputControlsList>() {
+                    public InputControlsList execute() {
+                        return postForV2Object(url, parametersList, InputControlsList.class);
+                    }
+                });
+        if (controlsList == null) {
+            return new InputControlsList();
+        }
+        InputControlValuesCache valuesCache = inputControlValuesCache;
+        if (valuesCache != null) {
+            valuesCache.setMasterDependencies(getAccountKey(), reportUri, controlsList.getInputControls());
+        }
+        return controlsList;
     }
 
     /**
@@ -816,17 +1288,32 @@ public class JsRestClient {
      */
     public InputControlStatesList getInputControlsValuesList(String reportUri, List<String> controlsIds,
             List<ReportParameter> selectedValues) throws RestClientException {
+        InputControlValuesCache valuesCache = inputControlValuesCache;
+        if (valuesCache != null) {
+            InputControlStatesList cachedStates = valuesCache.get(getAccountKey(), reportUri, controlsIds, selectedValues);
+            if (cachedStates != null) return cachedStates;
+        }
         // generate full url
-        String url = generateInputControlsUrl(reportUri, controlsIds, true);
+        final String url = generateInputControlsUrl(reportUri, controlsIds, true);
         // add selected values to request
-        ReportParametersList parametersList = new ReportParametersList();
+        final ReportParametersList parametersList = new ReportParametersList();
         parametersList.setReportParameters(selectedValues);
         // execute POST request
-        try {
-            return  restTemplate.postForObject(url, parametersList, InputControlStatesList.class);
-        } catch (HttpMessageNotReadableException exception) {
-             return new InputControlStatesList();
+        InputControlStatesList statesList = coalesce("POST", url, null, toCanonicalString(selectedValues),
+                new RequestCoalescer.Call<InputControlStatesList>() {
+                    public InputControlStatesList execute() {
+                        try {
+                            return postForV2Object(url, parametersList, InputControlStatesList.class);
+                        } catch (HttpMessageNotReadableException exception) {
+                            return new InputControlStatesList();
+                        }
+                    }
+                });
+        // empty lists are returned for unreadable responses, which aren't worth remembering
+        if (valuesCache != null && statesList != null && !statesList.getInputControlStates().isEmpty()) {
+            valuesCache.put(getAccountKey(), reportUri, controlsIds, selectedValues, statesList);
         }
+        return statesList;
     }
 
     /**
@@ -896,14 +1383,16 @@ public class JsRestClient {
     public InputControlStatesList validateInputControlsValuesList(String reportUri, List<String> controlsIds,
             List<ReportParameter> selectedValues) throws RestClientException {
         InputControlStatesList statesList = getInputControlsValuesList(reportUri, controlsIds, selectedValues);
-        // remove states without validation errors
-        Iterator<InputControlState> iterator = statesList.getInputControlStates().iterator();
-        while(iterator.hasNext()) {
-            if(iterator.next().getError() == null) {
-                iterator.remove();
+        // keep states with validation errors only, without modifying the list that may be cached
+        List<InputControlState> invalidStates = new ArrayList<InputControlState>();
+        for (InputControlState state : statesList.getInputControlStates()) {
+            if (state.getError() != null) {
+                invalidStates.add(state);
             }
         }
-        return statesList;
+        InputControlStatesList result = new InputControlStatesList();
+        result.setInputControlStates(invalidStates);
+        return result;
     }
 
     //---------------------------------------------------------------------
@@ -911,6 +1400,10 @@ public class JsRestClient {
     //---------------------------------------------------------------------
 
     private void downloadFile(URI uri, File file) throws RestClientException {
+        if (resumableDownloadsEnabled) {
+            downloadFileResumable(uri, file);
+            return;
+        }
         ClientHttpResponse response = null;
         try {
             ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
@@ -926,27 +1419,250 @@ public class JsRestClient {
         }
     }
 
+    private boolean downloadFileSegmented(URI uri, File file) throws RestClientException {
+        try {
+            return segmentedDownloader.download(restTemplate.getRequestFactory(), uri, file, parallelDownloader) >= 0;
+        } catch (IOException ex) {
+            throw new ResourceAccessException("I/O error: " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Download interrupted");
+        }
+    }
+
+    private void downloadFileResumable(URI uri, File file) throws RestClientException {
+        String url = uri.toString();
+        PartialDownload partialDownload = fileDownloader.getPartialDownload(file, url);
+        ClientHttpResponse response = null;
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            if (partialDownload != null) {
+                request.getHeaders().set("Range", partialDownload.getRangeHeader());
+                // the offset counts decoded bytes, so the range must not be compressed
+                request.getHeaders().set("Accept-Encoding", "identity");
+                if (partialDownload.getValidator() != null) {
+                    request.getHeaders().set("If-Range", partialDownload.getValidator());
+                }
+            }
+            response = request.execute();
+            HttpHeaders headers = response.getHeaders();
+
+            if (partialDownload != null) {
+                HttpStatus status = response.getStatusCode();
+                if (status == HttpStatus.PARTIAL_CONTENT
+                        && partialDownload.matchesContentRange(headers.getFirst("Content-Range"))) {
+                    fileDownloader.download(response.getBody(), file, partialDownload);
+                    return;
+                }
+                if (status == HttpStatus.PARTIAL_CONTENT || status == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    // the range doesn't fit the partial file, start over
+                    response.close();
+                    response = null;
+                    fileDownloader.discardPartialDownload(file);
+                    downloadFileResumable(uri, file);
+                    return;
+                }
+            }
+            if (restTemplate.getErrorHandler().hasError(response)) {
+                restTemplate.getErrorHandler().handleError(response);
+            }
+            // a full body, either the first attempt or the resource changed or the server ignored the range
+            String eTag = headers.getETag();
+            String validator = (eTag != null && !eTag.startsWith("W/")) ? eTag : headers.getFirst("Last-Modified");
+            fileDownloader.download(response.getBody(), file,
+                    new PartialDownload(url, validator, headers.getContentLength()));
+        } catch (IOException ex) {
+            throw new ResourceAccessException("I/O error: " + ex.getMessage(), ex);
+        } finally {
+            if (response != null) response.close();
+        }
+    }
+
+    private String downloadToStore(URI uri, AttachmentStore store, String validatorKey) throws RestClientException {
+        AttachmentStore.Validator validator = (validatorKey != null) ? store.getValidator(validatorKey) : null;
+        ClientHttpResponse response = null;
+        try {
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            if (validator != null) {
+                if (validator.getETag() != null) {
+                    request.getHeaders().setIfNoneMatch(validator.getETag());
+                }
+                if (validator.getLastModified() > 0) {
+                    request.getHeaders().setIfModifiedSince(validator.getLastModified());
+                }
+            }
+            response = request.execute();
+            if (validator != null && response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                if (store.retain(validator.getDigest())) {
+                    return validator.getDigest();
+                }
+                // the blob was released in the meantime, so is its validator
+                response.close();
+                response = null;
+                return downloadToStore(uri, store, validatorKey);
+            }
+            if (restTemplate.getErrorHandler().hasError(response)) {
+                restTemplate.getErrorHandler().handleError(response);
+            }
+            String digest = store.put(response.getBody());
+            if (validatorKey != null) {
+                HttpHeaders headers = response.getHeaders();
+                store.putValidator(validatorKey, headers.getETag(), headers.getLastModified(), digest);
+            }
+            return digest;
+        } catch (IOException ex) {
+            throw new ResourceAccessException("I/O error: " + ex.getMessage(), ex);
+        } finally {
+            if (response != null) response.close();
+        }
+    }
+
     protected int copyResponseToFile(ClientHttpResponse response, File file) throws IOException {
-        File parentFolder = file.getParentFile();
-        if (parentFolder != null && !parentFolder.exists() && !parentFolder.mkdirs()) {
-            throw new IllegalStateException("Unable to create folder: " + parentFolder);
+        return (int) fileDownloader.download(response.getBody(), file);
+    }
+
+    private <T> T getForObjectRevalidated(final String url, final Class<T> responseType, final Object... urlVariables) {
+        if (validatorCache == null) {
+            return coalesce("GET", url, urlVariables, null, new RequestCoalescer.Call<T>() {
+                public T execute() {
+                    return restTemplate.getForObject(url, responseType, urlVariables);
+                }
+            });
+        }
+        return exchangeRevalidated(url, null, responseType, urlVariables).getBody();
+    }
+
+    private <T> ResponseEntity<T> exchangeRevalidated(final String url, final HttpHeaders requestHeaders,
+                                                      final Class<T> responseType, final Object... urlVariables) {
+        // entities and plain objects must never be coalesced under the same key
+        return coalesce("GET", url, urlVariables, "entity", new RequestCoalescer.Call<ResponseEntity<T>>() {
+            public ResponseEntity<T> execute() {
+                if (validatorCache == null) {
+                    HttpEntity<?> requestEntity = (requestHeaders != null) ? new HttpEntity<Object>(requestHeaders) : null;
+                    return restTemplate.exchange(url, HttpMethod.GET, requestEntity, responseType, urlVariables);
+                }
+                return validatorCache.exchange(restTemplate, getAccountKey(), url, requestHeaders, responseType, urlVariables);
+            }
+        });
+    }
+
+    private <T> T postForV2Object(String url, Object request, Class<T> responseType) {
+        HttpEntity<Object> requestEntity = new HttpEntity<Object>(request, createV2RequestHeaders());
+        return restTemplate.exchange(url, HttpMethod.POST, requestEntity, responseType).getBody();
+    }
+
+    // asks for JSON if the client prefers it and the server supports it, otherwise keeps the default
+    private HttpHeaders createV2RequestHeaders() {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        if (dataFormat == DataFormat.JSON && isJsonSupported()) {
+            requestHeaders.setAccept(JSON_MEDIA_TYPES);
+        }
+        return requestHeaders;
+    }
+
+    // a failed server info request is not repeated before every call, but only once the retry interval elapsed
+    private boolean isJsonSupported() {
+        ServerInfo info = serverInfo;
+        if (info == null) {
+            long failureTime = serverInfoFailureTime;
+            if (failureTime != 0 && System.nanoTime() - failureTime < SERVER_INFO_RETRY_INTERVAL) {
+                return false;
+            }
+            try {
+                info = getServerInfo();
+            } catch (RestClientException ex) {
+                serverInfoFailureTime = System.nanoTime();
+                return false;
+            }
+            serverInfoFailureTime = 0;
         }
-        return FileCopyUtils.copy(response.getBody(), new FileOutputStream(file));
+        return info.getVersionCode() >= ServerInfo.VERSION_CODES.EMERALD;
     }
 
-    private void updateRequestFactoryTimeouts() {
+    private <T> T coalesce(String method, String url, Object[] urlVariables, String body,
+                           RequestCoalescer.Call<T> call) {
+        if (!requestCoalescingEnabled) {
+            return call.execute();
+        }
+        String expandedUrl = (urlVariables != null) ? new UriTemplate(url).expand(urlVariables).toString() : url;
+        String key = RequestCoalescer.createKey(method, getAccountKey() + " " + expandedUrl, body);
+        return requestCoalescer.execute(key, call);
+    }
+
+    // responses may differ per account, so they are never shared between them
+    private String getAccountKey() {
+        JsServerProfile serverProfile = jsServerProfile;
+        return serverProfile.getServerUrl() + "|" + serverProfile.getUsernameWithOrgId();
+    }
+
+    private String toCanonicalString(List<ReportParameter> parameters) {
+        if (parameters == null) return "";
+        StringBuilder result = new StringBuilder();
+        for (ReportParameter parameter : parameters) {
+            result.append(parameter.getName()).append('=');
+            Set<String> values = parameter.getValues();
+            if (values != null) {
+                // the order of values in a set is not defined
+                result.append(new TreeSet<String>(values));
+            }
+            result.append(';');
+        }
+        return result.toString();
+    }
+
+    private void updateTransportTimeouts() {
         updateConnectTimeout();
         updateReadTimeout();
     }
 
     private void updateConnectTimeout() {
-        SimpleClientHttpRequestFactory factory = (SimpleClientHttpRequestFactory) getRestTemplate().getRequestFactory();
-        factory.setConnectTimeout(connectTimeout);
+        if (transport != null) {
+            transport.setConnectTimeout(connectTimeout);
+        }
     }
 
     private void updateReadTimeout() {
-        SimpleClientHttpRequestFactory factory = (SimpleClientHttpRequestFactory) getRestTemplate().getRequestFactory();
-        factory.setReadTimeout(readTimeout);
+        if (transport != null) {
+            transport.setReadTimeout(readTimeout);
+        }
+    }
+
+    private void releaseTransport() {
+        if (transport != null) {
+            transport.destroy();
+        }
+    }
+
+    private List<ClientHttpRequestInterceptor> createInterceptors(JsServerProfile serverProfile,
+                                                                  HttpTransport transport) {
+        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<ClientHttpRequestInterceptor>();
+        if (compressionEnabled) {
+            interceptors.add(new CompressionInterceptor(transferStatistics));
+        }
+        // repeats requests on expired sessions, so it must be the last one
+        if (serverProfile.isSessionAuthenticationEnabled()) {
+            interceptors.add(new SessionAuthenticationInterceptor(serverProfile, transport));
+        }
+        return interceptors;
+    }
+
+    private String generateResourceLookupsUrl(List<String> types) {
+        StringBuilder fullUri = new StringBuilder();
+        fullUri.append(getServerProfile().getServerUrl())
+                .append(REST_SERVICES_V2_URI)
+                .append(REST_RESOURCES_URI)
+                .append("?folderUri={folderUri}")
+                .append("&q={query}")
+                .append("&recursive={recursive}")
+                .append("&offset={offset}")
+                .append("&limit={limit}");
+
+        if (types != null) {
+            for (String type : types) {
+                fullUri.append("&type=").append(type);
+            }
+        }
+        return fullUri.toString();
     }
 
     private String generateInputControlsUrl(String reportUri, List<String> controlsIds, boolean valuesOnly) {
@@ -33,12 +33,25 @@ package com.jaspersoft.android.sdk.client;
  * @since 1.0
  */
 public class JsServerProfile {
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 12;
+    public static final long DEFAULT_CONNECTION_IDLE_TIMEOUT = 30 * 1000;
+
     private long id;
     private String alias;
     private String serverUrl;
     private String organization;
     private String username;
     private String password;
+    private boolean sessionAuthenticationEnabled = false;
+
+    // connection pooling
+    private boolean keepAliveEnabled = false;
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private long connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    private boolean staleConnectionCheckEnabled = true;
 
     /**
      * Creates an empty JsServerProfile entity.
@@ -139,4 +152,115 @@ public class JsServerProfile {
         this.password = password;
     }
 
+    /**
+     * @return <code>true</code> if the client logs in once and authenticates further requests
+     *         with the session cookie, <code>false</code> if every request sends Basic credentials.
+     *
+     * @since 1.8
+     */
+    public boolean isSessionAuthenticationEnabled() {
+        return sessionAuthenticationEnabled;
+    }
+
+    /**
+     * Enables the session cookie authentication for this server. Disabled by default.
+     *
+     * @param sessionAuthenticationEnabled <code>true</code> to reuse the server session instead of
+     *                                     sending Basic credentials with every request
+     *
+     * @since 1.8
+     */
+    public void setSessionAuthenticationEnabled(boolean sessionAuthenticationEnabled) {
+        this.sessionAuthenticationEnabled = sessionAuthenticationEnabled;
+    }
+
+    //---------------------------------------------------------------------
+    // Connection pooling
+    //---------------------------------------------------------------------
+
+    /**
+     * @return <code>true</code> if connections to this server are kept alive and reused
+     *         from a shared pool, <code>false</code> if every request opens a new connection.
+     *
+     * @since 1.8
+     */
+    public boolean isKeepAliveEnabled() {
+        return keepAliveEnabled;
+    }
+
+    /**
+     * Enables the pooled keep-alive transport for this server. Disabled by default.
+     *
+     * @param keepAliveEnabled <code>true</code> to reuse persistent connections
+     *
+     * @since 1.8
+     */
+    public void setKeepAliveEnabled(boolean keepAliveEnabled) {
+        this.keepAliveEnabled = keepAliveEnabled;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections to a single host.
+     *
+     * @since 1.8
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections in total.
+     *
+     * @since 1.8
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public long getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds after which an unused pooled connection is evicted.
+     *
+     * @since 1.8
+     */
+    public void setConnectionIdleTimeout(long connectionIdleTimeout) {
+        this.connectionIdleTimeout = connectionIdleTimeout;
+    }
+
+    /**
+     * @since 1.8
+     */
+    public boolean isStaleConnectionCheckEnabled() {
+        return staleConnectionCheckEnabled;
+    }
+
+    /**
+     * Enables the health check of a pooled connection before it is reused. Enabled by default.
+     *
+     * @since 1.8
+     */
+    public void setStaleConnectionCheckEnabled(boolean staleConnectionCheckEnabled) {
+        this.staleConnectionCheckEnabled = staleConnectionCheckEnabled;
+    }
+
 }
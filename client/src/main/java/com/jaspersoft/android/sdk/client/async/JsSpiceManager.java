@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async;
+
+import com.jaspersoft.android.sdk.client.async.cache.RequestCacheKey;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.CacheableRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.FreshnessPolicy;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.RevalidationListener;
+import com.octo.android.robospice.SpiceManager;
+import com.octo.android.robospice.SpiceService;
+import com.octo.android.robospice.persistence.DurationInMillis;
+import com.octo.android.robospice.persistence.exception.SpiceException;
+import com.octo.android.robospice.request.listener.RequestListener;
+
+/**
+ * {@link SpiceManager} that can execute a {@link CacheableRequest} according to its {@link FreshnessPolicy},
+ * serving stale data at once while it is revalidated in background.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class JsSpiceManager extends SpiceManager {
+
+    public JsSpiceManager() {
+        this(JsXmlSpiceService.class);
+    }
+
+    public JsSpiceManager(Class<? extends SpiceService> spiceServiceClass) {
+        super(spiceServiceClass);
+    }
+
+    /**
+     * Executes the request according to its freshness policy. Fresh cached data is passed to the
+     * listener without a network request. Stale cached data is passed to the listener at once, then the request
+     * is executed and the fresher data is passed to {@link RevalidationListener#onRequestRevalidated}, or
+     * once more to {@link RequestListener#onRequestSuccess} if the listener doesn't implement
+     * {@link RevalidationListener}. Otherwise the data is loaded from the network.
+     *
+     * @param request  the request to execute
+     * @param listener the listener of the results
+     */
+    public <T> void executeWithFreshnessPolicy(final CacheableRequest<T> request, final RequestListener<T> listener) {
+        final FreshnessPolicy policy = request.getFreshnessPolicy();
+        final RequestCacheKey cacheKey = request.createRequestCacheKey();
+
+        if (policy.getFreshDuration() == DurationInMillis.ALWAYS_EXPIRED) {
+            loadStaleOrFromNetwork(request, cacheKey, policy, listener);
+            return;
+        }
+        getFromCache(request.getResultType(), cacheKey, policy.getFreshDuration(), new RequestListener<T>() {
+            public void onRequestSuccess(T result) {
+                if (result != null) {
+                    listener.onRequestSuccess(result);
+                } else {
+                    loadStaleOrFromNetwork(request, cacheKey, policy, listener);
+                }
+            }
+
+            public void onRequestFailure(SpiceException exception) {
+                loadStaleOrFromNetwork(request, cacheKey, policy, listener);
+            }
+        });
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private <T> void loadStaleOrFromNetwork(final CacheableRequest<T> request, final RequestCacheKey cacheKey,
+                                            FreshnessPolicy policy, final RequestListener<T> listener) {
+        if (!policy.isServingStale()) {
+            loadFromNetwork(request, cacheKey, listener);
+            return;
+        }
+        getFromCache(request.getResultType(), cacheKey, policy.getStaleDuration(), new RequestListener<T>() {
+            public void onRequestSuccess(T result) {
+                if (result != null) {
+                    listener.onRequestSuccess(result);
+                    revalidate(request, cacheKey, listener);
+                } else {
+                    loadFromNetwork(request, cacheKey, listener);
+                }
+            }
+
+            public void onRequestFailure(SpiceException exception) {
+                loadFromNetwork(request, cacheKey, listener);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void revalidate(CacheableRequest<T> request, RequestCacheKey cacheKey,
+                                final RequestListener<T> listener) {
+        loadFromNetwork(request, cacheKey, new RequestListener<T>() {
+            public void onRequestSuccess(T result) {
+                if (listener instanceof RevalidationListener) {
+                    ((RevalidationListener<T>) listener).onRequestRevalidated(result);
+                } else {
+                    listener.onRequestSuccess(result);
+                }
+            }
+
+            public void onRequestFailure(SpiceException exception) {
+                if (listener instanceof RevalidationListener) {
+                    ((RevalidationListener<T>) listener).onRevalidationFailure(exception);
+                }
+            }
+        });
+    }
+
+    private <T> void loadFromNetwork(CacheableRequest<T> request, RequestCacheKey cacheKey,
+                                     RequestListener<T> listener) {
+        // expired duration skips the cache lookup, the result is still saved to the cache
+        execute(request, cacheKey, DurationInMillis.ALWAYS_EXPIRED, listener);
+    }
+
+}
@@ -25,25 +25,160 @@
 package com.jaspersoft.android.sdk.client.async;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryObjectPersisterFactory;
+import com.jaspersoft.android.sdk.client.async.cache.CacheInvalidationIndex;
+import com.jaspersoft.android.sdk.client.async.cache.CacheInvalidator;
+import com.jaspersoft.android.sdk.client.async.cache.MemoryCache;
+import com.jaspersoft.android.sdk.client.async.cache.MemoryCachedPersisterFactory;
+import com.jaspersoft.android.sdk.client.async.request.BaseRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.CacheableRequest;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
 import com.octo.android.robospice.SpiceService;
 import com.octo.android.robospice.persistence.CacheManager;
 import com.octo.android.robospice.persistence.exception.CacheCreationException;
 import com.octo.android.robospice.persistence.springandroid.xml.SimpleSerializerObjectPersisterFactory;
+import com.octo.android.robospice.request.CachedSpiceRequest;
+import com.octo.android.robospice.request.SpiceRequest;
+import com.octo.android.robospice.request.listener.RequestListener;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This class offers a {@link SpiceService} dedicated to xml web services. Provides
- * caching.
+ * caching in a bounded memory tier in front of the disk, the memory tier is dropped on low memory signals.
+ * The frequently cached lists and server info are stored on disk in a compact binary format, other classes as XML.
+ * Cached results are removed as soon as a request modifies or deletes a resource they depend on.
+ * <p>
+ * <b>Results served from the memory tier are not copied: all requests hitting the same cache entry receive
+ * the same instance. Treat cached results as read-only and copy them before making changes.</b>
  *
  * @author Ivan Gadzhega
  * @since 1.6
  */
 public class JsXmlSpiceService extends SpiceService {
 
+    private static final String INVALIDATION_INDEX_FILE_NAME = "jasperserver-invalidation-index";
+
+    private MemoryCache memoryCache;
+    private CacheInvalidationIndex invalidationIndex;
+
+    private final CacheInvalidator cacheInvalidator = new CacheInvalidator() {
+        public int invalidate(String uri) {
+            List<CacheInvalidationIndex.Entry> entries = invalidationIndex.invalidate(uri);
+            removeDataFromCache(entries);
+            return entries.size();
+        }
+    };
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // resolve the XML mappings before the first request needs them
+        SharedXmlSerializer.warmUpInBackground();
+    }
+
     @Override
     public CacheManager createCacheManager(Application application) throws CacheCreationException {
+        memoryCache = new MemoryCache(getMemoryCacheSize());
+        invalidationIndex = new CacheInvalidationIndex(new File(application.getCacheDir(), INVALIDATION_INDEX_FILE_NAME));
         CacheManager cacheManager = new CacheManager();
-        cacheManager.addPersister(new SimpleSerializerObjectPersisterFactory(application));
+        // the first factory that can handle a class is used
+        cacheManager.addPersister(new MemoryCachedPersisterFactory(application,
+                new BinaryObjectPersisterFactory(application), memoryCache));
+        cacheManager.addPersister(new MemoryCachedPersisterFactory(application,
+                new SimpleSerializerObjectPersisterFactory(application), memoryCache));
         return cacheManager;
     }
 
+    @Override
+    public void addRequest(CachedSpiceRequest<?> request, Set<RequestListener<?>> listRequestListener) {
+        SpiceRequest<?> spiceRequest = request.getSpiceRequest();
+        if (spiceRequest instanceof BaseRequest) {
+            ((BaseRequest<?>) spiceRequest).setCacheInvalidator(cacheInvalidator);
+        }
+        // registered before the result is cached, so a concurrent modification can't be missed
+        if (spiceRequest instanceof CacheableRequest && request.getRequestCacheKey() != null) {
+            // results dropped from the bounded index couldn't be invalidated anymore
+            removeDataFromCache(invalidationIndex.register(request.getResultType(), request.getRequestCacheKey(),
+                    ((CacheableRequest<?>) spiceRequest).getCacheDependencies()));
+        }
+        super.addRequest(request, listRequestListener);
+    }
+
+    @Override
+    public boolean removeDataFromCache(Class<?> clazz, Object cacheKey) {
+        boolean removed = super.removeDataFromCache(clazz, cacheKey);
+        invalidationIndex.remove(clazz, cacheKey);
+        return removed;
+    }
+
+    @Override
+    public void removeAllDataFromCache(Class<?> clazz) {
+        super.removeAllDataFromCache(clazz);
+        invalidationIndex.removeAll(clazz);
+    }
+
+    @Override
+    public void removeAllDataFromCache() {
+        super.removeAllDataFromCache();
+        invalidationIndex.clear();
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        if (memoryCache != null) {
+            memoryCache.evictAll();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (memoryCache == null) return;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memoryCache.trimToSize(memoryCache.getMaxSize() / 2);
+        }
+    }
+
+    /**
+     * Allows to invalidate the cached results after a resource was modified other than by a request of this service.
+     */
+    public CacheInvalidator getCacheInvalidator() {
+        return cacheInvalidator;
+    }
+
+    /**
+     * @return the memory tier of the cache, or <code>null</code> before the cache manager is created
+     */
+    public MemoryCache getMemoryCache() {
+        return memoryCache;
+    }
+
+    /**
+     * Returns the maximum size of the memory tier in bytes. Defaults to a sixteenth of the heap.
+     */
+    protected long getMemoryCacheSize() {
+        return Runtime.getRuntime().maxMemory() / 16;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void removeDataFromCache(List<CacheInvalidationIndex.Entry> entries) {
+        for (CacheInvalidationIndex.Entry entry : entries) {
+            Class<?> dataClass = entry.getDataClass();
+            if (dataClass != null) {
+                removeDataFromCache(dataClass, entry.getCacheKey());
+            }
+        }
+    }
+
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an object from the binary cache format written by {@link BinaryCacheWriter}, usually from
+ * a memory-mapped file. Strings of the table are decoded on first use only.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BinaryCacheReader {
+
+    private final ByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final int[] stringLengths;
+    private final String[] strings;
+
+    /**
+     * @param buffer       the whole file
+     * @param codecVersion the version of the codec that is going to read the fields
+     * @throws IOException if the file isn't in the current format or was written by another codec version
+     */
+    public BinaryCacheReader(ByteBuffer buffer, int codecVersion) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt() != BinaryCacheWriter.MAGIC) {
+                throw new IOException("Not a binary cache file");
+            }
+            int formatVersion = buffer.getShort();
+            int fileCodecVersion = buffer.getShort();
+            if (formatVersion != BinaryCacheWriter.FORMAT_VERSION || fileCodecVersion != codecVersion) {
+                throw new IOException("Unsupported cache format " + formatVersion + "." + fileCodecVersion);
+            }
+
+            int count = readVarInt();
+            stringOffsets = new int[count];
+            stringLengths = new int[count];
+            strings = new String[count];
+            for (int i = 0; i < count; i++) {
+                stringLengths[i] = readVarInt();
+                stringOffsets[i] = buffer.position();
+                buffer.position(buffer.position() + stringLengths[i]);
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated cache file");
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Truncated cache file");
+        }
+    }
+
+    /**
+     * Memory-maps the file. The mapping stays valid after the file is closed.
+     *
+     * @throws java.io.FileNotFoundException if the file doesn't exist
+     * @throws IOException                   if the file isn't in the current format or was written by another
+     *                                       codec version
+     */
+    public static BinaryCacheReader map(File file, int codecVersion) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            return new BinaryCacheReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), codecVersion);
+        } finally {
+            input.close();
+        }
+    }
+
+    public String readString() throws IOException {
+        int index = readVarInt() - 1;
+        if (index < 0) return null;
+        if (index >= strings.length) {
+            throw new IOException("Invalid string index: " + index);
+        }
+        String value = strings[index];
+        if (value == null) {
+            byte[] bytes = new byte[stringLengths[index]];
+            ByteBuffer source = buffer.duplicate();
+            source.position(stringOffsets[index]);
+            source.get(bytes);
+            value = new String(bytes, BinaryCacheWriter.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    public String readUri() throws IOException {
+        String parent = readString();
+        return (parent != null) ? parent + readString() : null;
+    }
+
+    public int readInt() throws IOException {
+        checkRemaining(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        checkRemaining(8);
+        return buffer.getLong();
+    }
+
+    public Integer readNullableInt() throws IOException {
+        return readBoolean() ? readInt() : null;
+    }
+
+    public boolean readBoolean() throws IOException {
+        checkRemaining(1);
+        return buffer.get() != 0;
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        int ordinal = readVarInt() - 1;
+        if (ordinal < 0) return null;
+        E[] values = type.getEnumConstants();
+        if (ordinal >= values.length) {
+            throw new IOException("Invalid " + type.getSimpleName() + " ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * @return the size of the collection written next, or -1 if it is <code>null</code>
+     */
+    public int readSize() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    public List<String> readStringList() throws IOException {
+        int size = readSize();
+        if (size < 0) return null;
+        List<String> values = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            checkRemaining(1);
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void checkRemaining(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            throw new IOException("Truncated cache file");
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an object to the binary cache format read by {@link BinaryCacheReader}.
+ * Strings aren't written inline, but as indexes into a table of distinct strings that precedes the fields,
+ * so repeated values like resource types are stored once. URIs are split into the parent folder and
+ * the name, which shares the folder of sibling resources as well.
+ * <p/>
+ * The file consists of the magic number, the format and codec versions, the string table
+ * of length-prefixed UTF-8 strings and the fields. Counts, indexes and lengths are unsigned varints.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BinaryCacheWriter {
+
+    static final int MAGIC = 0x4A534243;
+    static final int FORMAT_VERSION = 1;
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteArrayOutputStream fields = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(fields);
+    private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+    private final List<String> strings = new ArrayList<String>();
+
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndexes.put(value, index);
+        }
+        writeVarInt(index + 1);
+    }
+
+    public void writeUri(String uri) throws IOException {
+        if (uri == null) {
+            writeString(null);
+            return;
+        }
+        int nameStart = uri.lastIndexOf('/') + 1;
+        writeString(uri.substring(0, nameStart));
+        writeString(uri.substring(nameStart));
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    public void writeNullableInt(Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    public void writeEnum(Enum<?> value) throws IOException {
+        writeVarInt(value != null ? value.ordinal() + 1 : 0);
+    }
+
+    /**
+     * Writes the size of a collection whose elements are written next.
+     *
+     * @return <code>false</code> if the collection is <code>null</code>
+     */
+    public boolean writeSize(Collection<?> collection) throws IOException {
+        writeVarInt(collection != null ? collection.size() + 1 : 0);
+        return collection != null;
+    }
+
+    public void writeStringList(List<String> values) throws IOException {
+        if (writeSize(values)) {
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+    }
+
+    public void writeVarInt(int value) throws IOException {
+        writeVarInt(out, value);
+    }
+
+    /**
+     * Writes the header, the string table and the fields written so far.
+     */
+    public void writeTo(OutputStream stream, int codecVersion) throws IOException {
+        DataOutputStream file = new DataOutputStream(stream);
+        file.writeInt(MAGIC);
+        file.writeShort(FORMAT_VERSION);
+        file.writeShort(codecVersion);
+        writeVarInt(file, strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarInt(file, bytes.length);
+            file.write(bytes);
+        }
+        out.flush();
+        fields.writeTo(file);
+        file.flush();
+    }
+
+    /**
+     * Writes the file to a temporary file that replaces the given one when complete,
+     * so readers never see a partially written file.
+     */
+    public void writeTo(File file, int codecVersion) throws IOException {
+        // the dot keeps the partial file out of the cache keys
+        File tempFile = new File(file.getParentFile(), "." + file.getName() + "." + Thread.currentThread().getId());
+        FileOutputStream output = new FileOutputStream(tempFile);
+        try {
+            writeTo(output, codecVersion);
+        } finally {
+            output.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            file.delete();
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+                throw new IOException("Couldn't replace " + file);
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private static void writeVarInt(DataOutputStream stream, int value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative varint: " + value);
+        }
+        while ((value & ~0x7F) != 0) {
+            stream.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.writeByte(value);
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlOption;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.DateTimeFormatValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.MandatoryValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.ValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link BinaryCodec}s of the cached <code>oxm</code> classes.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public final class BinaryCodecs {
+
+    private static final Map<Class<?>, BinaryCodec<?>> codecs = new HashMap<Class<?>, BinaryCodec<?>>();
+    private static final BinaryCodec<InputControlsList> STRUCTURE_CODEC = new InputControlsListCodec(false);
+
+    static {
+        codecs.put(ResourceLookupsList.class, new ResourceLookupsListCodec());
+        codecs.put(InputControlsList.class, new InputControlsListCodec(true));
+        codecs.put(ServerInfo.class, new ServerInfoCodec());
+    }
+
+    private BinaryCodecs() {}
+
+    /**
+     * @return the codec of the class, or <code>null</code> if it isn't cached in the binary format
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BinaryCodec<T> get(Class<T> type) {
+        return (BinaryCodec<T>) codecs.get(type);
+    }
+
+    /**
+     * @return the codec of the input controls that writes them without their states,
+     *         which are read back as <code>null</code>
+     */
+    public static BinaryCodec<InputControlsList> getInputControlsStructureCodec() {
+        return STRUCTURE_CODEC;
+    }
+
+    public static List<Class<?>> getSupportedClasses() {
+        return Collections.unmodifiableList(new ArrayList<Class<?>>(codecs.keySet()));
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class ResourceLookupsListCodec implements BinaryCodec<ResourceLookupsList> {
+
+        public int getVersion() {
+            return 1;
+        }
+
+        public void write(BinaryCacheWriter out, ResourceLookupsList data) throws IOException {
+            out.writeInt(data.getResultCount());
+            out.writeInt(data.getTotalCount());
+            List<ResourceLookup> lookups = data.getResourceLookups();
+            if (out.writeSize(lookups)) {
+                for (ResourceLookup lookup : lookups) {
+                    out.writeString(lookup.getLabel());
+                    out.writeString(lookup.getDescription());
+                    out.writeUri(lookup.getUri());
+                    out.writeEnum(lookup.getResourceType());
+                    out.writeNullableInt(lookup.getVersion());
+                    out.writeNullableInt(lookup.getPermissionMask());
+                    out.writeString(lookup.getCreationDate());
+                    out.writeString(lookup.getUpdateDate());
+                }
+            }
+        }
+
+        public ResourceLookupsList read(BinaryCacheReader in) throws IOException {
+            ResourceLookupsList data = new ResourceLookupsList();
+            data.setResultCount(in.readInt());
+            data.setTotalCount(in.readInt());
+            int size = in.readSize();
+            if (size < 0) {
+                data.setResourceLookups(null);
+                return data;
+            }
+            List<ResourceLookup> lookups = new ArrayList<ResourceLookup>(size);
+            for (int i = 0; i < size; i++) {
+                ResourceLookup lookup = new ResourceLookup();
+                lookup.setLabel(in.readString());
+                lookup.setDescription(in.readString());
+                lookup.setUri(in.readUri());
+                ResourceLookup.ResourceType resourceType = in.readEnum(ResourceLookup.ResourceType.class);
+                if (resourceType != null) {
+                    lookup.setResourceType(resourceType);
+                }
+                lookup.setVersion(in.readNullableInt());
+                lookup.setPermissionMask(in.readNullableInt());
+                lookup.setCreationDate(in.readString());
+                lookup.setUpdateDate(in.readString());
+                lookups.add(lookup);
+            }
+            data.setResourceLookups(lookups);
+            return data;
+        }
+    }
+
+    private static class InputControlsListCodec implements BinaryCodec<InputControlsList> {
+
+        private static final int RULE_BASE = 0;
+        private static final int RULE_MANDATORY = 1;
+        private static final int RULE_DATE_TIME_FORMAT = 2;
+
+        private final boolean withStates;
+
+        InputControlsListCodec(boolean withStates) {
+            this.withStates = withStates;
+        }
+
+        public int getVersion() {
+            return 1;
+        }
+
+        public void write(BinaryCacheWriter out, InputControlsList data) throws IOException {
+            List<InputControl> inputControls = data.getInputControls();
+            if (!out.writeSize(inputControls)) return;
+            for (InputControl control : inputControls) {
+                out.writeString(control.getId());
+                out.writeString(control.getLabel());
+                out.writeUri(control.getUri());
+                out.writeBoolean(control.isMandatory());
+                out.writeBoolean(control.isReadOnly());
+                out.writeBoolean(control.isVisible());
+                out.writeEnum(control.getType());
+                writeState(out, withStates ? control.getState() : null);
+                writeValidationRules(out, control.getValidationRules());
+                out.writeStringList(control.getMasterDependencies());
+                out.writeStringList(control.getSlaveDependencies());
+            }
+        }
+
+        public InputControlsList read(BinaryCacheReader in) throws IOException {
+            InputControlsList data = new InputControlsList();
+            int size = in.readSize();
+            if (size < 0) {
+                data.setInputControls(null);
+                return data;
+            }
+            List<InputControl> inputControls = new ArrayList<InputControl>(size);
+            for (int i = 0; i < size; i++) {
+                InputControl control = new InputControl();
+                control.setId(in.readString());
+                control.setLabel(in.readString());
+                control.setUri(in.readUri());
+                control.setMandatory(in.readBoolean());
+                control.setReadOnly(in.readBoolean());
+                control.setVisible(in.readBoolean());
+                control.setType(in.readEnum(InputControl.Type.class));
+                control.setState(readState(in));
+                List<ValidationRule> rules = readValidationRules(in);
+                if (rules != null) {
+                    control.setValidationRules(rules);
+                }
+                control.setMasterDependencies(in.readStringList());
+                control.setSlaveDependencies(in.readStringList());
+                inputControls.add(control);
+            }
+            data.setInputControls(inputControls);
+            return data;
+        }
+
+        private void writeState(BinaryCacheWriter out, InputControlState state) throws IOException {
+            out.writeBoolean(state != null);
+            if (state == null) return;
+            out.writeString(state.getId());
+            out.writeUri(state.getUri());
+            out.writeString(state.getValue());
+            out.writeString(state.getError());
+            List<InputControlOption> options = state.getOptions();
+            if (out.writeSize(options)) {
+                for (InputControlOption option : options) {
+                    out.writeString(option.getLabel());
+                    out.writeString(option.getValue());
+                    out.writeBoolean(option.isSelected());
+                }
+            }
+        }
+
+        private InputControlState readState(BinaryCacheReader in) throws IOException {
+            if (!in.readBoolean()) return null;
+            InputControlState state = new InputControlState();
+            state.setId(in.readString());
+            state.setUri(in.readUri());
+            state.setValue(in.readString());
+            state.setError(in.readString());
+            int size = in.readSize();
+            if (size >= 0) {
+                List<InputControlOption> options = new ArrayList<InputControlOption>(size);
+                for (int i = 0; i < size; i++) {
+                    String label = in.readString();
+                    String value = in.readString();
+                    options.add(new InputControlOption(label, value, in.readBoolean()));
+                }
+                state.setOptions(options);
+            } else {
+                state.setOptions(null);
+            }
+            return state;
+        }
+
+        private void writeValidationRules(BinaryCacheWriter out, List<ValidationRule> rules) throws IOException {
+            if (!out.writeSize(rules)) return;
+            for (ValidationRule rule : rules) {
+                if (rule instanceof DateTimeFormatValidationRule) {
+                    out.writeVarInt(RULE_DATE_TIME_FORMAT);
+                    out.writeString(((DateTimeFormatValidationRule) rule).getFormat());
+                } else if (rule instanceof MandatoryValidationRule) {
+                    out.writeVarInt(RULE_MANDATORY);
+                } else {
+                    out.writeVarInt(RULE_BASE);
+                }
+                out.writeString(rule.getErrorMessage());
+            }
+        }
+
+        private List<ValidationRule> readValidationRules(BinaryCacheReader in) throws IOException {
+            int size = in.readSize();
+            if (size < 0) return null;
+            List<ValidationRule> rules = new ArrayList<ValidationRule>(size);
+            for (int i = 0; i < size; i++) {
+                ValidationRule rule;
+                int kind = in.readVarInt();
+                if (kind == RULE_DATE_TIME_FORMAT) {
+                    DateTimeFormatValidationRule dateTimeRule = new DateTimeFormatValidationRule();
+                    dateTimeRule.setFormat(in.readString());
+                    rule = dateTimeRule;
+                } else if (kind == RULE_MANDATORY) {
+                    rule = new MandatoryValidationRule();
+                } else {
+                    rule = new ValidationRule();
+                }
+                rule.setErrorMessage(in.readString());
+                rules.add(rule);
+            }
+            return rules;
+        }
+    }
+
+    private static class ServerInfoCodec implements BinaryCodec<ServerInfo> {
+
+        public int getVersion() {
+            return 1;
+        }
+
+        public void write(BinaryCacheWriter out, ServerInfo data) throws IOException {
+            out.writeString(data.getBuild());
+            out.writeString(data.getEdition());
+            out.writeString(data.getEditionName());
+            out.writeString(data.getExpiration());
+            out.writeString(data.getFeatures());
+            out.writeString(data.getLicenseType());
+            out.writeString(data.getVersion());
+            out.writeInt(data.getVersionCode());
+        }
+
+        public ServerInfo read(BinaryCacheReader in) throws IOException {
+            ServerInfo data = new ServerInfo();
+            data.setBuild(in.readString());
+            data.setEdition(in.readString());
+            data.setEditionName(in.readString());
+            data.setExpiration(in.readString());
+            data.setFeatures(in.readString());
+            data.setLicenseType(in.readString());
+            data.setVersion(in.readString());
+            data.setVersionCode(in.readInt());
+            return data;
+        }
+    }
+
+}
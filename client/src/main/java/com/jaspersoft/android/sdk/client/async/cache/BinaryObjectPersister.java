@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import android.app.Application;
+import com.octo.android.robospice.persistence.exception.CacheCreationException;
+import com.octo.android.robospice.persistence.exception.CacheLoadingException;
+import com.octo.android.robospice.persistence.exception.CacheSavingException;
+import com.octo.android.robospice.persistence.file.InFileObjectPersister;
+import roboguice.util.temp.Ln;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Persists the data of one class in the binary cache format of its {@link BinaryCodec}.
+ * Files are memory-mapped when read and written to a temporary file that replaces the previous one
+ * when complete. Files that are truncated or were written by another codec version are deleted
+ * and treated as missing.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BinaryObjectPersister<T> extends InFileObjectPersister<T> {
+
+    private final BinaryCodec<T> codec;
+
+    public BinaryObjectPersister(Application application, Class<T> clazz, File cacheFolder, BinaryCodec<T> codec)
+            throws CacheCreationException {
+        super(application, clazz, cacheFolder);
+        this.codec = codec;
+    }
+
+    @Override
+    protected T readCacheDataFromFile(File file) throws CacheLoadingException {
+        try {
+            return codec.read(BinaryCacheReader.map(file, codec.getVersion()));
+        } catch (FileNotFoundException ex) {
+            return null;
+        } catch (IOException ex) {
+            file.delete();
+            return null;
+        }
+    }
+
+    @Override
+    public T saveDataToCacheAndReturnData(final T data, final Object cacheKey) throws CacheSavingException {
+        if (isAsyncSaveEnabled()) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        saveData(data, cacheKey);
+                    } catch (IOException ex) {
+                        Ln.w(BinaryObjectPersister.class.getName(), "Data wasn't saved to cache: " + ex.getMessage());
+                    }
+                }
+            }.start();
+        } else {
+            try {
+                saveData(data, cacheKey);
+            } catch (IOException ex) {
+                throw new CacheSavingException(ex);
+            }
+        }
+        return data;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void saveData(T data, Object cacheKey) throws IOException {
+        BinaryCacheWriter writer = new BinaryCacheWriter();
+        codec.write(writer, data);
+
+        writer.writeTo(getCacheFile(cacheKey), codec.getVersion());
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import android.app.Application;
+import com.octo.android.robospice.persistence.exception.CacheCreationException;
+import com.octo.android.robospice.persistence.file.InFileObjectPersister;
+import com.octo.android.robospice.persistence.file.InFileObjectPersisterFactory;
+
+import java.io.File;
+
+/**
+ * Creates {@link BinaryObjectPersister}s for the classes supported by {@link BinaryCodecs}.
+ * Other classes need to be handled by another factory of the cache manager.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BinaryObjectPersisterFactory extends InFileObjectPersisterFactory {
+
+    public BinaryObjectPersisterFactory(Application application) throws CacheCreationException {
+        super(application, BinaryCodecs.getSupportedClasses());
+    }
+
+    public BinaryObjectPersisterFactory(Application application, File cacheFolder) throws CacheCreationException {
+        super(application, BinaryCodecs.getSupportedClasses(), cacheFolder);
+    }
+
+    @Override
+    public <T> InFileObjectPersister<T> createInFileObjectPersister(Class<T> clazz, File cacheFolder)
+            throws CacheCreationException {
+        BinaryCodec<T> codec = BinaryCodecs.get(clazz);
+        if (codec == null) {
+            throw new CacheCreationException("No binary codec for " + clazz.getName());
+        }
+        return new BinaryObjectPersister<T>(getApplication(), clazz, cacheFolder, codec);
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+/**
+ * Repository URI that the cached result of a request depends on. A change of a resource invalidates the results
+ * that depend on the resource itself, on the listing of its parent folder, or on a recursive listing of one
+ * of its ancestors. A change of a folder also invalidates the results that depend on its descendants.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public final class CacheDependency {
+
+    public enum Kind {
+        /** The resource itself, e.g. its descriptor. */
+        RESOURCE,
+        /** The direct children of a folder. */
+        FOLDER,
+        /** All descendants of a folder. */
+        TREE
+    }
+
+    private final Kind kind;
+    private final String uri;
+
+    public CacheDependency(Kind kind, String uri) {
+        if (kind == null) {
+            throw new IllegalArgumentException("Kind must not be null");
+        }
+        this.kind = kind;
+        this.uri = normalize(uri);
+    }
+
+    public static CacheDependency resource(String uri) {
+        return new CacheDependency(Kind.RESOURCE, uri);
+    }
+
+    public static CacheDependency folder(String uri) {
+        return new CacheDependency(Kind.FOLDER, uri);
+    }
+
+    public static CacheDependency tree(String uri) {
+        return new CacheDependency(Kind.TREE, uri);
+    }
+
+    /**
+     * @param changedUri normalized URI of the modified or deleted resource
+     * @return whether the change makes the dependent results outdated
+     */
+    public boolean isAffectedBy(String changedUri) {
+        if (uri.equals(changedUri) || isDescendant(uri, changedUri)) {
+            return true;
+        }
+        switch (kind) {
+            case FOLDER:
+                return uri.equals(parent(changedUri));
+            case TREE:
+                return isDescendant(changedUri, uri);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Removes repeated and trailing slashes, an empty or <code>null</code> URI is the root folder.
+     */
+    public static String normalize(String uri) {
+        if (uri == null || uri.length() == 0) return "/";
+        StringBuilder result = new StringBuilder(uri.length());
+        for (int i = 0; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '/' && result.length() > 0 && result.charAt(result.length() - 1) == '/') continue;
+            result.append(c);
+        }
+        int length = result.length();
+        if (length > 1 && result.charAt(length - 1) == '/') {
+            result.setLength(length - 1);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheDependency)) return false;
+        CacheDependency that = (CacheDependency) o;
+        return kind == that.kind && uri.equals(that.uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * kind.hashCode() + uri.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return kind + ":" + uri;
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private static boolean isDescendant(String uri, String folderUri) {
+        if ("/".equals(folderUri)) {
+            return !"/".equals(uri);
+        }
+        return uri.length() > folderUri.length() + 1 && uri.startsWith(folderUri)
+                && uri.charAt(folderUri.length()) == '/';
+    }
+
+    private static String parent(String uri) {
+        int index = uri.lastIndexOf('/');
+        return (index > 0) ? uri.substring(0, index) : "/";
+    }
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Thread-safe index of the cached results by the repository URIs they depend on. It's kept in a file
+ * next to the cache, so the results cached by a previous process are invalidated as well.
+ * The file is loaded on first use rather than on creation, appended on registration and rewritten on
+ * invalidation, or once it has grown to more than twice the size of the index.
+ * <p>
+ * The index is bounded. Once it holds the maximum number of results, registering a new one drops the least
+ * recently registered results, which have to be removed from the cache as they can't be invalidated anymore.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CacheInvalidationIndex {
+
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    private static final String SEPARATOR = "\t";
+    // lines the file may have beyond twice the dependencies of the index before it's compacted
+    private static final int COMPACTION_SLACK = 64;
+
+    private final Map<CacheDependency, Set<Entry>> entriesByDependency = new HashMap<CacheDependency, Set<Entry>>();
+    // in order of registration, the least recently registered first
+    private final LinkedHashMap<Entry, Set<CacheDependency>> dependenciesByEntry =
+            new LinkedHashMap<Entry, Set<CacheDependency>>(16, 0.75f, true);
+    private final List<Entry> droppedEntries = new ArrayList<Entry>();
+    private final File file;
+    private final int maxEntries;
+    private boolean loaded;
+    private int dependencyCount;
+    private int lineCount;
+
+    /**
+     * Creates an index that isn't persisted.
+     */
+    public CacheInvalidationIndex() {
+        this(null);
+    }
+
+    /**
+     * @param file the file to persist the index to, it is loaded on first use if it exists
+     */
+    public CacheInvalidationIndex(File file) {
+        this(file, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param file       the file to persist the index to, it is loaded on first use if it exists
+     * @param maxEntries the maximum number of results in the index
+     */
+    public CacheInvalidationIndex(File file, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.file = file;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Records that the result cached under the key depends on the URIs.
+     *
+     * @return the results dropped to keep the index within its maximum size, which are to be removed from the cache
+     */
+    public synchronized List<Entry> register(Class<?> dataClass, Object cacheKey, List<CacheDependency> dependencies) {
+        ensureLoaded();
+        Entry entry = new Entry(dataClass.getName(), cacheKey.toString());
+        List<CacheDependency> added = new ArrayList<CacheDependency>();
+        for (CacheDependency dependency : dependencies) {
+            if (add(entry, dependency)) {
+                added.add(dependency);
+            }
+        }
+        dropEldestEntries();
+        if (file != null && !added.isEmpty()) {
+            append(entry, added);
+        }
+        return takeDroppedEntries();
+    }
+
+    /**
+     * Removes a result from the index once it's removed from the cache.
+     */
+    public synchronized void remove(Class<?> dataClass, Object cacheKey) {
+        ensureLoaded();
+        if (removeEntry(new Entry(dataClass.getName(), cacheKey.toString()))) {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes all results of a data class from the index once they're removed from the cache.
+     */
+    public synchronized void removeAll(Class<?> dataClass) {
+        ensureLoaded();
+        String dataClassName = dataClass.getName();
+        List<Entry> removed = new ArrayList<Entry>();
+        for (Entry entry : dependenciesByEntry.keySet()) {
+            if (entry.dataClassName.equals(dataClassName)) {
+                removed.add(entry);
+            }
+        }
+        for (Entry entry : removed) {
+            removeEntry(entry);
+        }
+        if (!removed.isEmpty()) {
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes the results affected by a change of the resource from the index.
+     *
+     * @param uri URI of the modified or deleted resource
+     * @return the removed results, which are to be removed from the cache
+     */
+    public synchronized List<Entry> invalidate(String uri) {
+        ensureLoaded();
+        String changedUri = CacheDependency.normalize(uri);
+        Set<Entry> affected = new HashSet<Entry>();
+        for (Map.Entry<CacheDependency, Set<Entry>> mapping : entriesByDependency.entrySet()) {
+            if (mapping.getKey().isAffectedBy(changedUri)) {
+                affected.addAll(mapping.getValue());
+            }
+        }
+        for (Entry entry : affected) {
+            removeEntry(entry);
+        }
+        if (file != null && !affected.isEmpty()) {
+            save();
+        }
+        List<Entry> removed = takeDroppedEntries();
+        removed.addAll(affected);
+        return removed;
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return dependenciesByEntry.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized void clear() {
+        entriesByDependency.clear();
+        dependenciesByEntry.clear();
+        droppedEntries.clear();
+        dependencyCount = 0;
+        lineCount = 0;
+        loaded = true;
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (file != null && file.exists()) {
+            load();
+            dropEldestEntries();
+        }
+    }
+
+    private boolean add(Entry entry, CacheDependency dependency) {
+        Set<CacheDependency> dependencies = dependenciesByEntry.get(entry);
+        if (dependencies == null) {
+            dependencies = new HashSet<CacheDependency>();
+            dependenciesByEntry.put(entry, dependencies);
+        }
+        if (!dependencies.add(dependency)) return false;
+        dependencyCount++;
+
+        Set<Entry> entries = entriesByDependency.get(dependency);
+        if (entries == null) {
+            entries = new HashSet<Entry>();
+            entriesByDependency.put(dependency, entries);
+        }
+        entries.add(entry);
+        return true;
+    }
+
+    private boolean removeEntry(Entry entry) {
+        Set<CacheDependency> dependencies = dependenciesByEntry.remove(entry);
+        if (dependencies == null) return false;
+        for (CacheDependency dependency : dependencies) {
+            Set<Entry> entries = entriesByDependency.get(dependency);
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                entriesByDependency.remove(dependency);
+            }
+        }
+        dependencyCount -= dependencies.size();
+        return true;
+    }
+
+    private void dropEldestEntries() {
+        Iterator<Entry> iterator = dependenciesByEntry.keySet().iterator();
+        List<Entry> dropped = new ArrayList<Entry>();
+        for (int excess = dependenciesByEntry.size() - maxEntries; excess > 0; excess--) {
+            dropped.add(iterator.next());
+        }
+        for (Entry entry : dropped) {
+            removeEntry(entry);
+        }
+        droppedEntries.addAll(dropped);
+    }
+
+    private List<Entry> takeDroppedEntries() {
+        if (droppedEntries.isEmpty()) return new ArrayList<Entry>();
+        List<Entry> dropped = new ArrayList<Entry>(droppedEntries);
+        droppedEntries.clear();
+        return dropped;
+    }
+
+    // removed results are left in the file until it's rewritten, they are harmless when read back
+    private void compactIfNeeded() {
+        if (file != null && lineCount > 2 * dependencyCount + COMPACTION_SLACK) {
+            save();
+        }
+    }
+
+    private void load() {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                String[] fields = line.split(SEPARATOR);
+                if (fields.length != 4) continue;
+                try {
+                    CacheDependency.Kind kind = CacheDependency.Kind.valueOf(fields[0]);
+                    add(new Entry(fields[2], fields[3]), new CacheDependency(kind, fields[1]));
+                } catch (IllegalArgumentException ex) {
+                    // skip the line written by an incompatible version
+                }
+            }
+        } catch (IOException ex) {
+            // keep what has been read
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private void append(Entry entry, List<CacheDependency> dependencies) {
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+            for (CacheDependency dependency : dependencies) {
+                writeLine(writer, entry, dependency);
+                lineCount++;
+            }
+        } catch (IOException ex) {
+            // the index is still complete in memory
+        } finally {
+            closeQuietly(writer);
+        }
+        compactIfNeeded();
+    }
+
+    private void save() {
+        File tempFile = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), "UTF-8"));
+            for (Map.Entry<Entry, Set<CacheDependency>> mapping : dependenciesByEntry.entrySet()) {
+                for (CacheDependency dependency : mapping.getValue()) {
+                    writeLine(writer, mapping.getKey(), dependency);
+                }
+            }
+            writer.close();
+            writer = null;
+            if (!tempFile.renameTo(file)) {
+                file.delete();
+                tempFile.renameTo(file);
+            }
+            lineCount = dependencyCount;
+        } catch (IOException ex) {
+            tempFile.delete();
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private void writeLine(Writer writer, Entry entry, CacheDependency dependency) throws IOException {
+        writer.write(dependency.getKind().name());
+        writer.write(SEPARATOR);
+        writer.write(dependency.getUri());
+        writer.write(SEPARATOR);
+        writer.write(entry.dataClassName);
+        writer.write(SEPARATOR);
+        writer.write(entry.cacheKey);
+        writer.write('\n');
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Cached result, identified by its data class and the string form of its cache key,
+     * which is what the persisters name the cached data after.
+     */
+    public static final class Entry {
+        private final String dataClassName;
+        private final String cacheKey;
+
+        Entry(String dataClassName, String cacheKey) {
+            this.dataClassName = dataClassName;
+            this.cacheKey = cacheKey;
+        }
+
+        /**
+         * @return the data class, or <code>null</code> if it can't be loaded anymore
+         */
+        public Class<?> getDataClass() {
+            try {
+                return Class.forName(dataClassName);
+            } catch (ClassNotFoundException ex) {
+                return null;
+            }
+        }
+
+        public String getCacheKey() {
+            return cacheKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry that = (Entry) o;
+            return cacheKey.equals(that.cacheKey) && dataClassName.equals(that.dataClassName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * dataClassName.hashCode() + cacheKey.hashCode();
+        }
+    }
+
+}
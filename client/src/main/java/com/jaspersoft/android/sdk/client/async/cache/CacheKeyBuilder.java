@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Computes a 64-bit FNV-1a hash of the fields of a cache key, without concatenating them into a string.
+ * Every field is hashed along with its type and length, so adjacent fields can't shift into each other,
+ * e.g. <code>"ab", "c"</code> and <code>"a", "bc"</code> produce different keys.
+ * Fields whose order doesn't matter are canonicalized: see {@link #addSorted(Collection)} and {@link #addUri(String)}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CacheKeyBuilder {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_COLLECTION = 5;
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    public CacheKeyBuilder add(String value) {
+        if (value == null) {
+            return addNull();
+        }
+        int length = value.length();
+        mixType(TYPE_STRING);
+        mixInt(length);
+        for (int i = 0; i < length; i++) {
+            mixChar(value.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Adds a repository URI or a URL, ignoring repeated and trailing slashes, so that
+     * <code>/reports/samples/</code> and <code>/reports//samples</code> equal <code>/reports/samples</code>.
+     * An empty URI equals the root folder.
+     */
+    public CacheKeyBuilder addUri(String uri) {
+        if (uri == null) {
+            return addNull();
+        }
+        mixType(TYPE_STRING);
+        mixInt(normalizedUriLength(uri));
+        int end = normalizedUriEnd(uri);
+        if (end == 0) {
+            mixChar('/');
+            return this;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = uri.charAt(i);
+            if (c == '/' && i > 0 && uri.charAt(i - 1) == '/') continue;
+            mixChar(c);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the values in their natural order, so that the order they were specified in doesn't matter.
+     */
+    public CacheKeyBuilder addSorted(Collection<String> values) {
+        if (values == null) {
+            return addNull();
+        }
+        String[] sorted = values.toArray(new String[values.size()]);
+        Arrays.sort(sorted, NullFirstComparator.INSTANCE);
+        mixType(TYPE_COLLECTION);
+        mixInt(sorted.length);
+        for (String value : sorted) {
+            add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the values in the order of the collection.
+     */
+    public CacheKeyBuilder addAll(Collection<String> values) {
+        if (values == null) {
+            return addNull();
+        }
+        mixType(TYPE_COLLECTION);
+        mixInt(values.size());
+        for (String value : values) {
+            add(value);
+        }
+        return this;
+    }
+
+    public CacheKeyBuilder add(int value) {
+        mixType(TYPE_INT);
+        mixInt(value);
+        return this;
+    }
+
+    public CacheKeyBuilder add(Integer value) {
+        return (value != null) ? add(value.intValue()) : addNull();
+    }
+
+    public CacheKeyBuilder add(long value) {
+        mixType(TYPE_LONG);
+        mixInt((int) (value >>> 32));
+        mixInt((int) value);
+        return this;
+    }
+
+    public CacheKeyBuilder add(boolean value) {
+        mixType(TYPE_BOOLEAN);
+        mix(value ? 1 : 0);
+        return this;
+    }
+
+    public CacheKeyBuilder add(Boolean value) {
+        return (value != null) ? add(value.booleanValue()) : addNull();
+    }
+
+    public long build() {
+        return hash;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private CacheKeyBuilder addNull() {
+        mixType(TYPE_NULL);
+        return this;
+    }
+
+    /**
+     * @return the length of the URI without trailing slashes
+     */
+    private int normalizedUriEnd(String uri) {
+        int end = uri.length();
+        while (end > 0 && uri.charAt(end - 1) == '/') end--;
+        return end;
+    }
+
+    private int normalizedUriLength(String uri) {
+        int end = normalizedUriEnd(uri);
+        if (end == 0) return 1;
+        int length = 0;
+        for (int i = 0; i < end; i++) {
+            if (uri.charAt(i) == '/' && i > 0 && uri.charAt(i - 1) == '/') continue;
+            length++;
+        }
+        return length;
+    }
+
+    private void mixType(int type) {
+        mix(type);
+    }
+
+    private void mixChar(char c) {
+        mix(c >>> 8);
+        mix(c);
+    }
+
+    private void mixInt(int value) {
+        mix(value >>> 24);
+        mix(value >>> 16);
+        mix(value >>> 8);
+        mix(value);
+    }
+
+    private void mix(int octet) {
+        hash ^= (octet & 0xFF);
+        hash *= FNV_PRIME;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class NullFirstComparator implements Comparator<String> {
+        static final NullFirstComparator INSTANCE = new NullFirstComparator();
+
+        public int compare(String first, String second) {
+            if (first == null) return (second == null) ? 0 : -1;
+            if (second == null) return 1;
+            return first.compareTo(second);
+        }
+    }
+
+}
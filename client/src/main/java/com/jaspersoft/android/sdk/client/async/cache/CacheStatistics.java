@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe hit, miss and eviction counters of the two-tier cache per request class.
+ * Data cached under a plain key, rather than a {@link RequestCacheKey}, is counted under its data class.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CacheStatistics {
+
+    private final Map<Class<?>, Entry> entries = new HashMap<Class<?>, Entry>();
+
+    public synchronized void recordMemoryHit(Class<?> type) {
+        getEntry(type).memoryHits++;
+    }
+
+    public synchronized void recordDiskHit(Class<?> type) {
+        getEntry(type).diskHits++;
+    }
+
+    public synchronized void recordMiss(Class<?> type) {
+        getEntry(type).misses++;
+    }
+
+    public synchronized void recordEviction(Class<?> type) {
+        getEntry(type).evictions++;
+    }
+
+    /**
+     * @return the number of loads served by the memory tier
+     */
+    public synchronized long getMemoryHitCount(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.memoryHits : 0;
+    }
+
+    /**
+     * @return the number of loads missed by the memory tier, but served by the disk tier
+     */
+    public synchronized long getDiskHitCount(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.diskHits : 0;
+    }
+
+    /**
+     * @return the number of loads served by neither tier
+     */
+    public synchronized long getMissCount(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.misses : 0;
+    }
+
+    /**
+     * @return the number of entries dropped from the memory tier to stay within its size
+     */
+    public synchronized long getEvictionCount(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.evictions : 0;
+    }
+
+    public synchronized List<Class<?>> getRecordedClasses() {
+        return new ArrayList<Class<?>>(entries.keySet());
+    }
+
+    public synchronized void reset() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder result = new StringBuilder("CacheStatistics{");
+        for (Map.Entry<Class<?>, Entry> entry : entries.entrySet()) {
+            Entry counters = entry.getValue();
+            result.append(entry.getKey().getSimpleName())
+                    .append("=[memoryHits=").append(counters.memoryHits)
+                    .append(", diskHits=").append(counters.diskHits)
+                    .append(", misses=").append(counters.misses)
+                    .append(", evictions=").append(counters.evictions).append("] ");
+        }
+        return result.append('}').toString();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private Entry getEntry(Class<?> type) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(type, entry);
+        }
+        return entry;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class Entry {
+        long memoryHits;
+        long diskHits;
+        long misses;
+        long evictions;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe LRU memory tier of the {@link MemoryCachedObjectPersister}s, bounded by the
+ * estimated size of its entries in bytes rather than by their number. One instance is shared by
+ * the persisters of all data classes, so they compete for the same budget.
+ * <p>
+ * The size of an entry is estimated from the length of its file in the disk tier, or by the {@link SizeEstimator}
+ * registered for its class when the disk persister doesn't keep data in files.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MemoryCache {
+
+    /** Size assumed for data of unknown serialized length without a {@link SizeEstimator}. */
+    protected static final int DEFAULT_ENTRY_SIZE = 16 * 1024;
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final Map<Class<?>, SizeEstimator<?>> estimators = new ConcurrentHashMap<Class<?>, SizeEstimator<?>>();
+    private final CacheStatistics statistics = new CacheStatistics();
+    private final long maxSize;
+    private long size;
+
+    /**
+     * @param maxSize the maximum estimated size of all entries in bytes
+     */
+    public MemoryCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Removes the least recently used entries until the size doesn't exceed the specified one.
+     * Removed entries are counted as evictions.
+     *
+     * @param targetSize the size in bytes to trim to
+     */
+    public synchronized void trimToSize(long targetSize) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > targetSize && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            size -= entry.size;
+            statistics.recordEviction(entry.statisticsType);
+        }
+    }
+
+    /**
+     * Drops the whole memory tier, e.g. on a low memory signal. The disk tier is kept.
+     */
+    public void evictAll() {
+        trimToSize(0);
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the estimated size of all entries in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Registers the estimator of the data of a class whose serialized length isn't known to the cache.
+     *
+     * @param type      the data class
+     * @param estimator the estimator, or <code>null</code> to assume the default entry size
+     */
+    public <T> void setSizeEstimator(Class<T> type, SizeEstimator<? super T> estimator) {
+        if (estimator == null) {
+            estimators.remove(type);
+        } else {
+            estimators.put(type, estimator);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Persister support
+    //---------------------------------------------------------------------
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Adds an entry as the most recently used one. Data estimated to be larger than the whole
+     * cache isn't kept in memory at all.
+     *
+     * @param serializedLength the length of the data in the disk tier, or <code>0</code> if it isn't known
+     */
+    void put(String key, Object data, long creationDate, Class<?> statisticsType, long serializedLength) {
+        int entrySize = (serializedLength > 0)
+                ? (int) Math.min(Integer.MAX_VALUE, 2 * serializedLength + ENTRY_OVERHEAD)
+                : estimateSize(data);
+        synchronized (this) {
+            remove(key);
+            if (entrySize > maxSize) return;
+            entries.put(key, new Entry(data, creationDate, entrySize, statisticsType));
+            size += entrySize;
+            trimToSize(maxSize);
+        }
+    }
+
+    synchronized boolean remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return false;
+        size -= entry.size;
+        return true;
+    }
+
+    synchronized void removeAll(String keyPrefix) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(keyPrefix)) {
+                iterator.remove();
+                size -= entry.getValue().size;
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Estimates the memory retained by data whose serialized length isn't known, with the estimator
+     * registered for its class. Serialized lengths are doubled, which accounts for the UTF-16 strings
+     * holding most of the content of the <code>oxm</code> classes.
+     */
+    @SuppressWarnings("unchecked")
+    protected int estimateSize(Object data) {
+        SizeEstimator<Object> estimator = (SizeEstimator<Object>) estimators.get(data.getClass());
+        if (estimator == null) return DEFAULT_ENTRY_SIZE;
+        return (int) Math.min(Integer.MAX_VALUE, (long) estimator.estimateSize(data) + ENTRY_OVERHEAD);
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Estimates the memory retained by an instance cheaply, without serializing it.
+     */
+    public interface SizeEstimator<T> {
+        /**
+         * @return the estimated size of the instance in bytes
+         */
+        int estimateSize(T data);
+    }
+
+    static class Entry {
+        final Object data;
+        final long creationDate;
+        final int size;
+        final Class<?> statisticsType;
+
+        Entry(Object data, long creationDate, int size, Class<?> statisticsType) {
+            this.data = data;
+            this.creationDate = creationDate;
+            this.size = size;
+            this.statisticsType = statisticsType;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import com.octo.android.robospice.persistence.DurationInMillis;
+import com.octo.android.robospice.persistence.ObjectPersister;
+import com.octo.android.robospice.persistence.exception.CacheLoadingException;
+import com.octo.android.robospice.persistence.exception.CacheSavingException;
+import com.octo.android.robospice.persistence.file.InFileObjectPersister;
+
+import java.util.List;
+
+/**
+ * Decorates a disk persister with a {@link MemoryCache} tier. Saved data is written through to
+ * the disk and kept in memory, data loaded from the disk is promoted to memory.
+ * <p>
+ * <b>Data served from memory is the instance that was cached, it's not copied.</b> Every request hitting the
+ * same entry receives the same instance, so results of cached requests must not be modified.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MemoryCachedObjectPersister<T> extends ObjectPersister<T> {
+
+    private final ObjectPersister<T> diskPersister;
+    private final MemoryCache memoryCache;
+    private final String keyPrefix;
+
+    public MemoryCachedObjectPersister(ObjectPersister<T> diskPersister, MemoryCache memoryCache) {
+        super(diskPersister.getApplication(), diskPersister.getHandledClass());
+        this.diskPersister = diskPersister;
+        this.memoryCache = memoryCache;
+        this.keyPrefix = diskPersister.getHandledClass().getName() + '/';
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T loadDataFromCache(Object cacheKey, long maxTimeInCacheBeforeExpiry) throws CacheLoadingException {
+        String memoryKey = getMemoryKey(cacheKey);
+        Class<?> statisticsType = getStatisticsType(cacheKey);
+        CacheStatistics statistics = memoryCache.getStatistics();
+
+        MemoryCache.Entry entry = memoryCache.get(memoryKey);
+        if (entry != null && !isExpired(entry, maxTimeInCacheBeforeExpiry)) {
+            statistics.recordMemoryHit(statisticsType);
+            return (T) entry.data;
+        }
+
+        T data = diskPersister.loadDataFromCache(cacheKey, maxTimeInCacheBeforeExpiry);
+        if (data == null) {
+            statistics.recordMiss(statisticsType);
+            return null;
+        }
+        statistics.recordDiskHit(statisticsType);
+        try {
+            long creationDate = diskPersister.getCreationDateInCache(cacheKey);
+            memoryCache.put(memoryKey, data, creationDate, statisticsType, getSerializedLength(cacheKey));
+        } catch (CacheLoadingException ex) {
+            // removed from the disk meanwhile, don't promote
+        }
+        return data;
+    }
+
+    @Override
+    public T saveDataToCacheAndReturnData(T data, Object cacheKey) throws CacheSavingException {
+        T result = diskPersister.saveDataToCacheAndReturnData(data, cacheKey);
+        memoryCache.put(getMemoryKey(cacheKey), result, System.currentTimeMillis(), getStatisticsType(cacheKey),
+                getSerializedLength(cacheKey));
+        return result;
+    }
+
+    @Override
+    public boolean isDataInCache(Object cacheKey, long maxTimeInCacheBeforeExpiry) {
+        MemoryCache.Entry entry = memoryCache.get(getMemoryKey(cacheKey));
+        return (entry != null && !isExpired(entry, maxTimeInCacheBeforeExpiry))
+                || diskPersister.isDataInCache(cacheKey, maxTimeInCacheBeforeExpiry);
+    }
+
+    @Override
+    public long getCreationDateInCache(Object cacheKey) throws CacheLoadingException {
+        MemoryCache.Entry entry = memoryCache.get(getMemoryKey(cacheKey));
+        return (entry != null) ? entry.creationDate : diskPersister.getCreationDateInCache(cacheKey);
+    }
+
+    @Override
+    public boolean removeDataFromCache(Object cacheKey) {
+        boolean removedFromMemory = memoryCache.remove(getMemoryKey(cacheKey));
+        return diskPersister.removeDataFromCache(cacheKey) || removedFromMemory;
+    }
+
+    @Override
+    public void removeAllDataFromCache() {
+        memoryCache.removeAll(keyPrefix);
+        diskPersister.removeAllDataFromCache();
+    }
+
+    @Override
+    public List<T> loadAllDataFromCache() throws CacheLoadingException {
+        return diskPersister.loadAllDataFromCache();
+    }
+
+    @Override
+    public List<Object> getAllCacheKeys() {
+        return diskPersister.getAllCacheKeys();
+    }
+
+    @Override
+    public void setAsyncSaveEnabled(boolean isAsyncSaveEnabled) {
+        super.setAsyncSaveEnabled(isAsyncSaveEnabled);
+        diskPersister.setAsyncSaveEnabled(isAsyncSaveEnabled);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Keys are compared by their string form, which is also what the disk persisters use,
+     * so a {@link RequestCacheKey} and its plain key address the same entry.
+     */
+    private String getMemoryKey(Object cacheKey) {
+        return keyPrefix + cacheKey;
+    }
+
+    private Class<?> getStatisticsType(Object cacheKey) {
+        return (cacheKey instanceof RequestCacheKey)
+                ? ((RequestCacheKey) cacheKey).getRequestClass() : getHandledClass();
+    }
+
+    /**
+     * @return the length of the cache file of the disk tier, or <code>0</code> if it's unknown or not written yet
+     */
+    private long getSerializedLength(Object cacheKey) {
+        if (diskPersister instanceof InFileObjectPersister) {
+            return ((InFileObjectPersister<T>) diskPersister).getCacheFile(cacheKey).length();
+        }
+        return 0;
+    }
+
+    private boolean isExpired(MemoryCache.Entry entry, long maxTimeInCacheBeforeExpiry) {
+        return maxTimeInCacheBeforeExpiry != DurationInMillis.ALWAYS_RETURNED
+                && System.currentTimeMillis() - entry.creationDate > maxTimeInCacheBeforeExpiry;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+import android.app.Application;
+import com.octo.android.robospice.persistence.ObjectPersister;
+import com.octo.android.robospice.persistence.ObjectPersisterFactory;
+import com.octo.android.robospice.persistence.exception.CacheCreationException;
+
+/**
+ * Creates {@link MemoryCachedObjectPersister}s that put a shared {@link MemoryCache} in front of
+ * the persisters of a disk persister factory.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MemoryCachedPersisterFactory extends ObjectPersisterFactory {
+
+    private final ObjectPersisterFactory diskPersisterFactory;
+    private final MemoryCache memoryCache;
+
+    public MemoryCachedPersisterFactory(Application application, ObjectPersisterFactory diskPersisterFactory,
+                                        MemoryCache memoryCache) {
+        super(application);
+        this.diskPersisterFactory = diskPersisterFactory;
+        this.memoryCache = memoryCache;
+    }
+
+    @Override
+    public boolean canHandleClass(Class<?> clazz) {
+        return diskPersisterFactory.canHandleClass(clazz);
+    }
+
+    @Override
+    public <DATA> ObjectPersister<DATA> createObjectPersister(Class<DATA> clazz) throws CacheCreationException {
+        ObjectPersister<DATA> persister = new MemoryCachedObjectPersister<DATA>(
+                diskPersisterFactory.createObjectPersister(clazz), memoryCache);
+        persister.setAsyncSaveEnabled(isAsyncSaveEnabled());
+        return persister;
+    }
+
+    @Override
+    public void setAsyncSaveEnabled(boolean isAsyncSaveEnabled) {
+        super.setAsyncSaveEnabled(isAsyncSaveEnabled);
+        diskPersisterFactory.setAsyncSaveEnabled(isAsyncSaveEnabled);
+    }
+
+    public MemoryCache getMemoryCache() {
+        return memoryCache;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.cache;
+
+/**
+ * Cache key that carries the class of the request it was created by, so the {@link CacheStatistics}
+ * can be reported per request class. The disk persisters name their files after
+ * {@link #toString()}, which is the plain key, so the key addresses the same files
+ * as the plain key of the request.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public final class RequestCacheKey {
+
+    private final Class<?> requestClass;
+    private final Object key;
+
+    public RequestCacheKey(Class<?> requestClass, Object key) {
+        if (requestClass == null || key == null) {
+            throw new IllegalArgumentException("Request class and key must not be null");
+        }
+        this.requestClass = requestClass;
+        this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RequestCacheKey)) return false;
+        RequestCacheKey that = (RequestCacheKey) o;
+        return key.equals(that.key) && requestClass.equals(that.requestClass);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * requestClass.hashCode() + key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key.toString();
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public Class<?> getRequestClass() {
+        return requestClass;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+}
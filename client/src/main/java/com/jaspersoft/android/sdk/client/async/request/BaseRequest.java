@@ -25,6 +25,7 @@
 package com.jaspersoft.android.sdk.client.async.request;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheInvalidator;
 import com.octo.android.robospice.request.SpiceRequest;
 import com.octo.android.robospice.retry.DefaultRetryPolicy;
 import roboguice.util.temp.Ln;
@@ -39,6 +40,7 @@ import roboguice.util.temp.Ln;
 public abstract class BaseRequest<T> extends SpiceRequest<T> {
 
     private JsRestClient jsRestClient;
+    private CacheInvalidator cacheInvalidator;
 
     public BaseRequest(JsRestClient jsRestClient, Class<T> clazz) {
         super(clazz);
@@ -60,8 +62,30 @@ public abstract class BaseRequest<T> extends SpiceRequest<T> {
                 + BaseRequest.class.getName() + " requests. You must call SpiceManager.cancelAllRequests().");
     }
 
+    /**
+     * Removes the cached results that depend on the resource. Requests that modify the repository call it
+     * once the modification succeeded, so the listeners notified afterwards don't get outdated results.
+     *
+     * @param uri URI of the modified or deleted resource
+     * @since 1.8
+     */
+    protected void invalidateCache(String uri) {
+        if (cacheInvalidator != null) {
+            cacheInvalidator.invalidate(uri);
+        }
+    }
+
     public JsRestClient getJsRestClient() {
         return jsRestClient;
     }
 
+    /**
+     * Set by the {@link com.jaspersoft.android.sdk.client.async.JsXmlSpiceService} the request is executed by.
+     *
+     * @since 1.8
+     */
+    public void setCacheInvalidator(CacheInvalidator cacheInvalidator) {
+        this.cacheInvalidator = cacheInvalidator;
+    }
+
 }
@@ -48,6 +48,7 @@ public class DeleteResourceRequest extends BaseRequest<Void> {
     @Override
     public Void loadDataFromNetwork() throws Exception {
         getJsRestClient().deleteResource(uri);
+        invalidateCache(uri);
         return null;
     }
 
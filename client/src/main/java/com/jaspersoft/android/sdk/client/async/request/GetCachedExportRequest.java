@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.async.request;
+
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.export.CachedExport;
+import com.jaspersoft.android.sdk.client.export.ExportCache;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionRequest;
+
+/**
+ * Request that gets the export of a report from the {@link ExportCache}, running the report
+ * and downloading its output and attachments only if the export isn't cached or fresh data is requested.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class GetCachedExportRequest extends BaseRequest<CachedExport> {
+
+    private ExportCache exportCache;
+    private ReportExecutionRequest request;
+
+    public GetCachedExportRequest(JsRestClient jsRestClient, ExportCache exportCache, ReportExecutionRequest request) {
+        super(jsRestClient, CachedExport.class);
+        this.exportCache = exportCache;
+        this.request = request;
+    }
+
+    @Override
+    public CachedExport loadDataFromNetwork() throws Exception {
+        return exportCache.export(getJsRestClient(), request);
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public ExportCache getExportCache() {
+        return exportCache;
+    }
+
+    public ReportExecutionRequest getRequest() {
+        return request;
+    }
+
+}
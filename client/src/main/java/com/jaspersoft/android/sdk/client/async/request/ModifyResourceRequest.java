@@ -49,6 +49,7 @@ public class ModifyResourceRequest extends BaseRequest<Void> {
     @Override
     public Void loadDataFromNetwork() throws Exception {
         getJsRestClient().modifyResource(resourceDescriptor);
+        invalidateCache(resourceDescriptor.getUriString());
         return null;
     }
 
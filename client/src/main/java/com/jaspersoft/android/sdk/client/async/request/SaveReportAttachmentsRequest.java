@@ -25,14 +25,29 @@
 package com.jaspersoft.android.sdk.client.async.request;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.download.BatchDownloadException;
+import com.jaspersoft.android.sdk.client.download.DownloadBatch;
+import com.jaspersoft.android.sdk.client.download.DownloadListener;
+import com.jaspersoft.android.sdk.client.download.ParallelDownloader;
+import com.jaspersoft.android.sdk.client.export.AttachmentStore;
 import com.jaspersoft.android.sdk.client.oxm.ReportAttachment;
 
 import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Request that downloads specified list of report attachments, once a report
- * has been generated and saves them in the specified directory.
+ * has been generated and saves them in the specified directory. The attachments are downloaded
+ * in parallel and the progress is published to the request progress listeners. If some attachments fail,
+ * the request fails with a {@link BatchDownloadException}, but the others are saved nevertheless.
+ * <p/>
+ * With an {@link AttachmentStore}, the attachments are put in the store instead and the directory
+ * gets an index of them, see {@link AttachmentStore#resolve(File, String)}.
  *
  * @author Ivan Gadzhega
  * @since 1.6
@@ -42,6 +57,8 @@ public class SaveReportAttachmentsRequest extends BaseRequest<File> {
     private String uuid;
     private List<ReportAttachment> reportAttachments;
     private File outputDir;
+    private AttachmentStore attachmentStore;
+    private String validatorKeyPrefix;
 
     /**
      * Creates a new instance of {@link SaveReportAttachmentsRequest}.
@@ -59,11 +76,47 @@ public class SaveReportAttachmentsRequest extends BaseRequest<File> {
 
     @Override
     public File loadDataFromNetwork() throws Exception {
+        DownloadListener listener = new DownloadListener() {
+            public void onDownloadCompleted(String name, DownloadBatch batch) {
+                publishProgress(batch.getProgress());
+            }
+
+            public void onDownloadFailed(String name, Exception ex, DownloadBatch batch) {
+                publishProgress(batch.getProgress());
+            }
+        };
+        if (attachmentStore == null) {
+            getJsRestClient().saveReportAttachmentsToFiles(uuid, reportAttachments, outputDir, listener);
+            return outputDir;
+        }
+
+        final Map<String, String> attachments = Collections.synchronizedMap(new LinkedHashMap<String, String>());
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
         for (ReportAttachment attachment : reportAttachments) {
-            String attachmentName = attachment.getName();
-            File outputFile = new File(outputDir, attachmentName);
-            getJsRestClient().saveReportAttachmentToFile(uuid, attachmentName, outputFile);
+            final String attachmentName = attachment.getName();
+            URI uri = getJsRestClient().getReportAttachmentURI(uuid, attachmentName);
+            downloads.add(new ParallelDownloader.Download(attachmentName, uri) {
+                @Override
+                protected void execute() {
+                    String validatorKey = (validatorKeyPrefix != null) ? validatorKeyPrefix + attachmentName : null;
+                    attachments.put(attachmentName, getJsRestClient()
+                            .saveReportAttachmentToStore(uuid, attachmentName, attachmentStore, validatorKey));
+                }
+            });
         }
+        try {
+            getJsRestClient().downloadInParallel(downloads, listener);
+        } catch (BatchDownloadException ex) {
+            // the attachments that made it are kept
+            attachmentStore.writeIndex(outputDir, attachments);
+            throw ex;
+        } catch (RuntimeException ex) {
+            for (String digest : attachments.values()) {
+                attachmentStore.release(digest);
+            }
+            throw ex;
+        }
+        attachmentStore.writeIndex(outputDir, attachments);
         return outputDir;
     }
 
@@ -83,4 +136,21 @@ public class SaveReportAttachmentsRequest extends BaseRequest<File> {
         return outputDir;
     }
 
+    public AttachmentStore getAttachmentStore() {
+        return attachmentStore;
+    }
+
+    /**
+     * Puts the attachments in the store, so that identical attachments of different reports are stored once.
+     *
+     * @param attachmentStore    the store, or <code>null</code> to save the attachments in the output directory
+     * @param validatorKeyPrefix the prefix of the attachment names that is stable across executions of the report,
+     *                           such as the report URI, to skip the download of unmodified attachments
+     *                           (can be <code>null</code>)
+     */
+    public void setAttachmentStore(AttachmentStore attachmentStore, String validatorKeyPrefix) {
+        this.attachmentStore = attachmentStore;
+        this.validatorKeyPrefix = validatorKeyPrefix;
+    }
+
 }
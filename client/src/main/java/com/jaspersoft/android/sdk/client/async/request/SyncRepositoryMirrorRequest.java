@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.async.request;
+
+import com.jaspersoft.android.sdk.client.mirror.MirrorSyncListener;
+import com.jaspersoft.android.sdk.client.mirror.MirrorSyncStatus;
+import com.jaspersoft.android.sdk.client.mirror.RepositoryMirror;
+
+/**
+ * Request that synchronizes a {@link RepositoryMirror} with the server in the background.
+ * The progress is published to the request progress listeners, and the results cached for the changed resources
+ * are invalidated.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SyncRepositoryMirrorRequest extends BaseRequest<MirrorSyncStatus> {
+
+    private RepositoryMirror repositoryMirror;
+    private String folderUri;
+    private boolean full;
+
+    /**
+     * Creates a new instance of {@link SyncRepositoryMirrorRequest} that incrementally synchronizes
+     * the whole repository.
+     */
+    public SyncRepositoryMirrorRequest(RepositoryMirror repositoryMirror) {
+        this(repositoryMirror, RepositoryMirror.ROOT_URI, false);
+    }
+
+    /**
+     * Creates a new instance of {@link SyncRepositoryMirrorRequest}.
+     *
+     * @param folderUri the root of the synchronized subtree (e.g. /reports/samples/)
+     * @param full      whether to list the unchanged subfolders as well
+     */
+    public SyncRepositoryMirrorRequest(RepositoryMirror repositoryMirror, String folderUri, boolean full) {
+        super(repositoryMirror.getJsRestClient(), MirrorSyncStatus.class);
+        this.repositoryMirror = repositoryMirror;
+        this.folderUri = folderUri;
+        this.full = full;
+    }
+
+    @Override
+    public MirrorSyncStatus loadDataFromNetwork() throws Exception {
+        return repositoryMirror.sync(folderUri, full, new MirrorSyncListener() {
+            public void onSyncProgress(MirrorSyncStatus status) {
+                publishProgress(status.getProgress());
+            }
+
+            public void onResourceChanged(String uri) {
+                invalidateCache(uri);
+            }
+        });
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public RepositoryMirror getRepositoryMirror() {
+        return repositoryMirror;
+    }
+
+    public String getFolderUri() {
+        return folderUri;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+}
@@ -25,10 +25,14 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
 import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -39,6 +43,12 @@ abstract class BaseInputControlsRequest<T> extends CacheableRequest<T> {
 
     protected static final String TAG_IC_VALUES = "INPUT_CONTROLS_VALUES";
 
+    private static final Comparator<ReportParameter> PARAMETER_NAME_COMPARATOR = new Comparator<ReportParameter>() {
+        public int compare(ReportParameter first, ReportParameter second) {
+            return String.valueOf(first.getName()).compareTo(String.valueOf(second.getName()));
+        }
+    };
+
     private String reportUri;
     private List<String> controlsIds;
     private List<ReportParameter> selectedValues;
@@ -69,18 +79,22 @@ abstract class BaseInputControlsRequest<T> extends CacheableRequest<T> {
     public abstract T loadDataFromNetwork() throws Exception;
 
     @Override
-    protected String createCacheKeyString() {
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append(super.createCacheKeyString());
-        keyBuilder.append(reportUri);
-        for (String id : controlsIds) keyBuilder.append(id);
-        for (ReportParameter parameter : selectedValues) {
-            keyBuilder.append(parameter.getName());
-            for (String value : parameter.getValues()) {
-                keyBuilder.append(value);
-            }
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(reportUri);
+        builder.addAll(controlsIds);
+        // the selected values of the parameters don't depend on their order
+        ReportParameter[] parameters = selectedValues.toArray(new ReportParameter[selectedValues.size()]);
+        Arrays.sort(parameters, PARAMETER_NAME_COMPARATOR);
+        builder.add(parameters.length);
+        for (ReportParameter parameter : parameters) {
+            builder.add(parameter.getName()).addSorted(parameter.getValues());
         }
-        return keyBuilder.toString();
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList(CacheDependency.resource(reportUri));
     }
 
     //---------------------------------------------------------------------
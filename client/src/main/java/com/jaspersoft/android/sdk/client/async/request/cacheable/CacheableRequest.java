@@ -26,8 +26,14 @@ package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
 import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.async.cache.RequestCacheKey;
 import com.jaspersoft.android.sdk.client.async.request.BaseRequest;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * A request that contains results that may be cached.
  * Provides additional functionality for cache key generation.
@@ -37,21 +43,98 @@ import com.jaspersoft.android.sdk.client.async.request.BaseRequest;
  */
 public abstract class CacheableRequest<T> extends BaseRequest<T> {
 
+    private FreshnessPolicy freshnessPolicy = FreshnessPolicy.DEFAULT;
+
     public CacheableRequest(JsRestClient jsRestClient, Class<T> clazz) {
         super(jsRestClient, clazz);
     }
 
-    public int createCacheKey() {
-        return createCacheKeyString().hashCode();
+    /**
+     * Creates a 64-bit hash of the fields that identify the result of this request.
+     * <p>
+     * <b>Incompatible change in 1.8:</b> the key used to be the <code>int</code> hash code of
+     * {@link #createCacheKeyString()}. Callers storing it in an <code>int</code> have to be updated,
+     * and keys created by earlier versions no longer match, so previously cached results are reloaded once.
+     */
+    public long createCacheKey() {
+        CacheKeyBuilder builder = new CacheKeyBuilder();
+        buildCacheKey(builder);
+        String keyString = createCacheKeyString();
+        if (keyString != null) {
+            builder.add(keyString);
+        }
+        return builder.build();
     }
 
-    protected String createCacheKeyString() {
+    /**
+     * Creates the cache key along with the class of this request, so the cache statistics of
+     * the {@link com.jaspersoft.android.sdk.client.async.JsXmlSpiceService} are reported per request class.
+     * The data is cached under the same name as with {@link #createCacheKey()}.
+     *
+     * @since 1.8
+     */
+    public RequestCacheKey createRequestCacheKey() {
+        return new RequestCacheKey(getClass(), createCacheKey());
+    }
+
+    /**
+     * Adds the fields that identify the result of this request to the key. Subclasses call the super
+     * method first and add their parameters in canonical form.
+     *
+     * @since 1.8
+     */
+    protected void buildCacheKey(CacheKeyBuilder builder) {
         JsServerProfile profile = getJsRestClient().getServerProfile();
-        return createCacheKeyTag() + profile.getServerUrl() + profile.getOrganization() + profile.getUsername();
+        builder.add(createCacheKeyTag())
+                .addUri(profile.getServerUrl())
+                .add(profile.getOrganization())
+                .add(profile.getUsername());
+    }
+
+    /**
+     * Returns the repository URIs the result depends on, so the
+     * {@link com.jaspersoft.android.sdk.client.async.JsXmlSpiceService} removes it from the cache
+     * once one of them is modified or deleted. Results without dependencies are only removed on expiry.
+     *
+     * @since 1.8
+     */
+    public List<CacheDependency> getCacheDependencies() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Subclasses written for earlier versions identify their results by overriding this method. The returned
+     * string is still added to the key, after the fields of {@link #buildCacheKey(CacheKeyBuilder)}.
+     *
+     * @return <code>null</code>, unless overridden
+     * @deprecated override {@link #buildCacheKey(CacheKeyBuilder)} instead
+     */
+    @Deprecated
+    protected String createCacheKeyString() {
+        return null;
     }
 
     protected String createCacheKeyTag() {
         return getClass().getName();
     }
 
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    /**
+     * @return the policy applied by {@link com.jaspersoft.android.sdk.client.async.JsSpiceManager#executeWithFreshnessPolicy}
+     * @since 1.8
+     */
+    public FreshnessPolicy getFreshnessPolicy() {
+        return freshnessPolicy;
+    }
+
+    public void setFreshnessPolicy(FreshnessPolicy freshnessPolicy) {
+        if (freshnessPolicy == null) {
+            throw new IllegalArgumentException("Freshness policy must not be null");
+        }
+        this.freshnessPolicy = freshnessPolicy;
+    }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.request.cacheable;
+
+import com.octo.android.robospice.persistence.DurationInMillis;
+
+/**
+ * Defines how old the cached result of a {@link CacheableRequest} may be when it is executed by
+ * {@link com.jaspersoft.android.sdk.client.async.JsSpiceManager#executeWithFreshnessPolicy}.
+ * <ul>
+ *     <li>data not older than the fresh duration is served from the cache only,</li>
+ *     <li>data not older than the stale duration is served at once and revalidated in background,
+ *     or loaded from the network if refreshing in background is disabled,</li>
+ *     <li>older data is loaded from the network.</li>
+ * </ul>
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class FreshnessPolicy {
+
+    public static final FreshnessPolicy DEFAULT =
+            new FreshnessPolicy(5 * DurationInMillis.ONE_MINUTE, DurationInMillis.ONE_DAY, true);
+
+    /** Always loads from the network, as the cache is written only. */
+    public static final FreshnessPolicy NETWORK_ONLY =
+            new FreshnessPolicy(DurationInMillis.ALWAYS_EXPIRED, DurationInMillis.ALWAYS_EXPIRED, false);
+
+    private final long freshDuration;
+    private final long staleDuration;
+    private final boolean refreshInBackground;
+
+    /**
+     * @param freshDuration       the time in milliseconds during which cached data is served without revalidation
+     * @param staleDuration       the time in milliseconds during which cached data may be served while revalidated
+     * @param refreshInBackground whether stale data is served while revalidated, or the network is waited for
+     */
+    public FreshnessPolicy(long freshDuration, long staleDuration, boolean refreshInBackground) {
+        if (staleDuration < freshDuration) {
+            throw new IllegalArgumentException("Stale duration must not be shorter than fresh duration");
+        }
+        this.freshDuration = freshDuration;
+        this.staleDuration = staleDuration;
+        this.refreshInBackground = refreshInBackground;
+    }
+
+    /**
+     * @return whether stale data is served and revalidated, i.e. the stale duration extends the fresh one
+     */
+    public boolean isServingStale() {
+        return refreshInBackground && staleDuration > freshDuration;
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public long getFreshDuration() {
+        return freshDuration;
+    }
+
+    public long getStaleDuration() {
+        return staleDuration;
+    }
+
+    public boolean isRefreshInBackground() {
+        return refreshInBackground;
+    }
+
+}
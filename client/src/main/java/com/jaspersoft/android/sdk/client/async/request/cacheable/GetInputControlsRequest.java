@@ -25,6 +25,7 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.ic.InputControlStructureCache;
 import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
 import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
 
@@ -39,6 +40,9 @@ import java.util.List;
  */
 public class GetInputControlsRequest extends BaseInputControlsRequest<InputControlsList> {
 
+    private InputControlStructureCache structureCache;
+    private Integer reportVersion;
+
     /**
      * Creates a new instance of {@link GetInputControlsRequest}.
      *
@@ -63,7 +67,36 @@ public class GetInputControlsRequest extends BaseInputControlsRequest<InputContr
 
     @Override
     public InputControlsList loadDataFromNetwork() throws Exception {
+        // the structure cache holds all controls of a report
+        if (structureCache != null && getControlsIds().isEmpty()) {
+            return structureCache.getInputControlsList(getReportUri(), reportVersion, getSelectedValues());
+        }
         return getJsRestClient().getInputControlsList(getReportUri(), getControlsIds(), getSelectedValues());
     }
 
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public InputControlStructureCache getStructureCache() {
+        return structureCache;
+    }
+
+    public Integer getReportVersion() {
+        return reportVersion;
+    }
+
+    /**
+     * Sets the cache that provides the structure of the controls while the report has the given version,
+     * so only the states of the controls are requested from the server.
+     *
+     * @param reportVersion version of the report (e.g. from its
+     *                      {@link com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup})
+     * @since 1.8
+     */
+    public void setStructureCache(InputControlStructureCache structureCache, Integer reportVersion) {
+        this.structureCache = structureCache;
+        this.reportVersion = reportVersion;
+    }
+
 }
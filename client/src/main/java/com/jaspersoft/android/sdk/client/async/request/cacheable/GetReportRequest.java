@@ -25,10 +25,16 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
 import com.jaspersoft.android.sdk.client.oxm.ReportDescriptor;
 import com.jaspersoft.android.sdk.client.oxm.ResourceDescriptor;
 import com.jaspersoft.android.sdk.client.oxm.ResourceParameter;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * Request that runs the report and generates the specified output. The response contains report descriptor
  * with the ID of the saved output for downloading later with another GET request.
@@ -38,6 +44,13 @@ import com.jaspersoft.android.sdk.client.oxm.ResourceParameter;
  */
 public class GetReportRequest extends CacheableRequest<ReportDescriptor> {
 
+    private static final Comparator<ResourceParameter> PARAMETER_COMPARATOR = new Comparator<ResourceParameter>() {
+        public int compare(ResourceParameter first, ResourceParameter second) {
+            int result = String.valueOf(first.getName()).compareTo(String.valueOf(second.getName()));
+            return (result != 0) ? result : String.valueOf(first.getValue()).compareTo(String.valueOf(second.getValue()));
+        }
+    };
+
     private ResourceDescriptor resourceDescriptor;
     private String outputFormat;
 
@@ -60,16 +73,23 @@ public class GetReportRequest extends CacheableRequest<ReportDescriptor> {
     }
 
     @Override
-    protected String createCacheKeyString() {
-        StringBuilder keyBuilder = new StringBuilder();
-        keyBuilder.append(super.createCacheKeyString());
-        keyBuilder.append(resourceDescriptor.getUriString());
-        keyBuilder.append(outputFormat);
-        for (ResourceParameter parameter : resourceDescriptor.getParameters()) {
-            keyBuilder.append(parameter.getName());
-            keyBuilder.append(parameter.getValue());
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(resourceDescriptor.getUriString());
+        builder.add(outputFormat);
+        // multi-value parameters repeat the name, so the values are ordered as well
+        List<ResourceParameter> parameters = resourceDescriptor.getParameters();
+        ResourceParameter[] sorted = parameters.toArray(new ResourceParameter[parameters.size()]);
+        Arrays.sort(sorted, PARAMETER_COMPARATOR);
+        builder.add(sorted.length);
+        for (ResourceParameter parameter : sorted) {
+            builder.add(parameter.getName()).add(parameter.getValue());
         }
-        return keyBuilder.toString();
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList(CacheDependency.resource(resourceDescriptor.getUriString()));
     }
 
     //---------------------------------------------------------------------
@@ -25,8 +25,12 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.mirror.RepositoryMirror;
 import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -44,6 +48,8 @@ public class GetResourceLookupsRequest extends CacheableRequest<ResourceLookupsL
     private boolean recursive;
     private int offset;
     private int limit;
+    private RepositoryMirror repositoryMirror;
+    private boolean localSearch;
 
     /**
      * Creates a new instance of {@link GetResourceLookupsRequest}.
@@ -96,12 +102,40 @@ public class GetResourceLookupsRequest extends CacheableRequest<ResourceLookupsL
 
     @Override
     public ResourceLookupsList loadDataFromNetwork() throws Exception {
-        return getJsRestClient().getResourceLookups(folderUri, query, types, recursive, offset, limit);
+        if (repositoryMirror != null) {
+            ResourceLookupsList lookups = null;
+            if (!recursive && (query == null || query.length() == 0)) {
+                lookups = repositoryMirror.getResourceLookups(folderUri, types, offset, limit);
+            } else if (localSearch) {
+                // the local search doesn't match the results of the server, so it is used on request only
+                lookups = repositoryMirror.search(folderUri, query, types, recursive, offset, limit);
+            }
+            if (lookups != null) return lookups;
+        }
+
+        ResourceLookupsList lookups = getJsRestClient().getResourceLookups(folderUri, query, types, recursive,
+                offset, limit);
+        if (repositoryMirror != null) {
+            repositoryMirror.update(folderUri, query, types, recursive, offset, limit, lookups);
+        }
+        return lookups;
     }
 
     @Override
-    protected String createCacheKeyString() {
-        return super.createCacheKeyString() + folderUri + query + types + recursive + offset + limit;
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(folderUri)
+                .add(query)
+                .addSorted(types)
+                .add(recursive)
+                .add(offset)
+                .add(limit)
+                .add(localSearch);
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList((recursive) ? CacheDependency.tree(folderUri) : CacheDependency.folder(folderUri));
     }
 
     //---------------------------------------------------------------------
@@ -133,4 +167,35 @@ public class GetResourceLookupsRequest extends CacheableRequest<ResourceLookupsL
         return limit;
     }
 
+    public RepositoryMirror getRepositoryMirror() {
+        return repositoryMirror;
+    }
+
+    /**
+     * Sets the mirror that answers the request locally when it lists the children of a mirrored folder, without
+     * query and not recursively. Searches and recursive listings are sent to the server unless the local search
+     * is enabled, as are the listings of folders that haven't been mirrored. The lookups fetched from the server
+     * update the mirror.
+     *
+     * @since 1.8
+     */
+    public void setRepositoryMirror(RepositoryMirror repositoryMirror) {
+        this.repositoryMirror = repositoryMirror;
+    }
+
+    public boolean isLocalSearch() {
+        return localSearch;
+    }
+
+    /**
+     * Enables the search of the mirror, e.g. for search as you type. Searches and recursive listings within
+     * completely mirrored folders are answered locally then, the others are still sent to the server.
+     * The local results differ from the ones of the server, see {@link RepositoryMirror#search}.
+     *
+     * @since 1.8
+     */
+    public void setLocalSearch(boolean localSearch) {
+        this.localSearch = localSearch;
+    }
+
 }
@@ -25,8 +25,13 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
 import com.jaspersoft.android.sdk.client.oxm.ResourceDescriptor;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Request that gets the resource descriptor for the resource with specified URI.
  *
@@ -52,8 +57,14 @@ public class GetResourceRequest extends CacheableRequest<ResourceDescriptor> {
     }
 
     @Override
-    protected String createCacheKeyString() {
-        return super.createCacheKeyString() + uri;
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(uri);
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList(CacheDependency.resource(uri));
     }
 
     //---------------------------------------------------------------------
@@ -25,8 +25,13 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
 import com.jaspersoft.android.sdk.client.oxm.ResourcesList;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Request that gets the list of resource descriptors for all resources
  * available in the folder specified in the URI.
@@ -53,8 +58,14 @@ public class GetResourcesRequest extends CacheableRequest<ResourcesList> {
     }
 
     @Override
-    protected String createCacheKeyString() {
-        return super.createCacheKeyString() + uri;
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(uri);
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList(CacheDependency.folder(uri));
     }
 
     //---------------------------------------------------------------------
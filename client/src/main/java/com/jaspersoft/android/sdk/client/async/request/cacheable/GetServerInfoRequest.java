@@ -25,6 +25,7 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
 import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
 
 /**
@@ -48,8 +49,9 @@ public class GetServerInfoRequest extends CacheableRequest<ServerInfo> {
     }
 
     @Override
-    protected String createCacheKeyString() {
-        return super.createCacheKeyString() + JsRestClient.REST_SERVER_INFO_URI;
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(JsRestClient.REST_SERVER_INFO_URI);
     }
 
 }
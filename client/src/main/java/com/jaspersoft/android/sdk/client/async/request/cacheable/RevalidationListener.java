@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.async.request.cacheable;
+
+import com.octo.android.robospice.persistence.exception.SpiceException;
+import com.octo.android.robospice.request.listener.RequestListener;
+
+/**
+ * Listener of a {@link CacheableRequest} executed with a {@link FreshnessPolicy}, that is notified
+ * once more when stale data passed to {@link #onRequestSuccess(Object)} has been revalidated.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public interface RevalidationListener<T> extends RequestListener<T> {
+
+    /**
+     * Called with the data loaded from the network after stale cached data was served.
+     */
+    void onRequestRevalidated(T result);
+
+    /**
+     * Called if the data couldn't be revalidated. The stale data served before is still the latest one.
+     */
+    void onRevalidationFailure(SpiceException exception);
+
+}
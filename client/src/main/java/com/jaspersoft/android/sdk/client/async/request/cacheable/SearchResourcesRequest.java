@@ -25,8 +25,15 @@
 package com.jaspersoft.android.sdk.client.async.request.cacheable;
 
 import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.mirror.RepositoryMirror;
+import com.jaspersoft.android.sdk.client.oxm.ResourceDescriptor;
 import com.jaspersoft.android.sdk.client.oxm.ResourcesList;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -44,6 +51,8 @@ public class SearchResourcesRequest extends CacheableRequest<ResourcesList> {
     private List<String> types;
     private Boolean recursive;
     private Integer limit;
+    private RepositoryMirror repositoryMirror;
+    private boolean localSearch;
 
     /**
      * Creates a new instance of {@link SearchResourcesRequest}.
@@ -84,12 +93,41 @@ public class SearchResourcesRequest extends CacheableRequest<ResourcesList> {
 
     @Override
     public ResourcesList loadDataFromNetwork() throws Exception {
-        return getJsRestClient().getResources(uri, query, types, recursive, limit);
+        if (repositoryMirror == null) {
+            return getJsRestClient().getResources(uri, query, types, recursive, limit);
+        }
+
+        List<String> searchedTypes = hasType() ? types : null;
+        boolean hasQuery = (query != null && query.length() > 0);
+        // the resources service v1 ignores the recursive flag without search criteria
+        boolean searchedRecursively = Boolean.TRUE.equals(recursive) && (hasQuery || searchedTypes != null);
+        int maxCount = (limit != null) ? limit : 0;
+        if (localSearch) {
+            ResourceLookupsList lookups = repositoryMirror.search(uri, query, searchedTypes, searchedRecursively,
+                    0, maxCount);
+            if (lookups != null) return toResourcesList(lookups.getResourceLookups());
+        }
+
+        ResourcesList resources = getJsRestClient().getResources(uri, query, types, recursive, limit);
+        repositoryMirror.update(uri, query, searchedTypes, searchedRecursively, 0, maxCount,
+                toLookupsList(resources.getResourceDescriptors()));
+        return resources;
     }
 
     @Override
-    protected String createCacheKeyString() {
-        return super.createCacheKeyString() + uri + query + types + recursive + limit;
+    protected void buildCacheKey(CacheKeyBuilder builder) {
+        super.buildCacheKey(builder);
+        builder.addUri(uri)
+                .add(query)
+                .addSorted(types)
+                .add(recursive)
+                .add(limit)
+                .add(localSearch);
+    }
+
+    @Override
+    public List<CacheDependency> getCacheDependencies() {
+        return Arrays.asList(Boolean.TRUE.equals(recursive) ? CacheDependency.tree(uri) : CacheDependency.folder(uri));
     }
 
     //---------------------------------------------------------------------
@@ -116,4 +154,85 @@ public class SearchResourcesRequest extends CacheableRequest<ResourcesList> {
         return limit;
     }
 
+    public RepositoryMirror getRepositoryMirror() {
+        return repositoryMirror;
+    }
+
+    /**
+     * Sets the mirror that is updated with the fetched resources, and that answers the request
+     * if the local search is enabled.
+     *
+     * @since 1.8
+     */
+    public void setRepositoryMirror(RepositoryMirror repositoryMirror) {
+        this.repositoryMirror = repositoryMirror;
+    }
+
+    public boolean isLocalSearch() {
+        return localSearch;
+    }
+
+    /**
+     * Enables the search of the mirror, e.g. for search as you type. Searches within completely mirrored folders
+     * are answered locally then, the others are still sent to the server. The local results differ from the ones
+     * of the server, see {@link RepositoryMirror#search}, and the descriptors only hold the fields of the lookups:
+     * the name, URI, type, label, description and creation date.
+     *
+     * @since 1.8
+     */
+    public void setLocalSearch(boolean localSearch) {
+        this.localSearch = localSearch;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private boolean hasType() {
+        if (types == null) return false;
+        for (String type : types) {
+            if (type != null) return true;
+        }
+        return false;
+    }
+
+    private static ResourcesList toResourcesList(List<ResourceLookup> lookups) {
+        List<ResourceDescriptor> descriptors = new ArrayList<ResourceDescriptor>(lookups.size());
+        for (ResourceLookup lookup : lookups) {
+            ResourceDescriptor descriptor = new ResourceDescriptor();
+            String lookupUri = lookup.getUri();
+            descriptor.setName(lookupUri.substring(lookupUri.lastIndexOf('/') + 1));
+            descriptor.setUriString(lookupUri);
+            ResourceLookup.ResourceType type = lookup.getResourceType();
+            descriptor.setWsType((type == ResourceLookup.ResourceType.unknown)
+                    ? ResourceDescriptor.WsType.unknow
+                    : ResourceDescriptor.WsType.valueOf(type.name()));
+            descriptor.setLabel(lookup.getLabel());
+            descriptor.setDescription(lookup.getDescription());
+            descriptor.setCreationDate(lookup.getCreationDate());
+            descriptors.add(descriptor);
+        }
+        ResourcesList resources = new ResourcesList();
+        resources.setResourceDescriptors(descriptors);
+        return resources;
+    }
+
+    private static ResourceLookupsList toLookupsList(List<ResourceDescriptor> descriptors) {
+        List<ResourceLookup> lookups = new ArrayList<ResourceLookup>();
+        if (descriptors != null) {
+            for (ResourceDescriptor descriptor : descriptors) {
+                ResourceLookup lookup = new ResourceLookup();
+                lookup.setUri(descriptor.getUriString());
+                lookup.setResourceType(descriptor.getWsType().name());
+                lookup.setLabel(descriptor.getLabel());
+                lookup.setDescription(descriptor.getDescription());
+                lookup.setCreationDate(descriptor.getCreationDate());
+                lookups.add(lookup);
+            }
+        }
+        ResourceLookupsList result = new ResourceLookupsList();
+        result.setResourceLookups(lookups);
+        return result;
+    }
+
 }
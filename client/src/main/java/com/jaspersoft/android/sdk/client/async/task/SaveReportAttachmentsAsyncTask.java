@@ -112,7 +112,7 @@ public class SaveReportAttachmentsAsyncTask extends JsRestAsyncTask<Object, Void
 
     /**
      * Overrides the <code>doInBackground(Object... arg0)</code> method by calling <strong>JsRestClient</strong>
-     * <code>saveReportAttachmentToFile(...)</code> method.
+     * <code>saveReportAttachmentsToFiles(...)</code> method.
      *
      * @param arg0 the parameters of the <strong>Asynchronous task</strong>. Current implementation does not use this params.
      * @return nothing.
@@ -121,11 +121,7 @@ public class SaveReportAttachmentsAsyncTask extends JsRestAsyncTask<Object, Void
     protected Void doInBackground(Object... arg0) {
         super.doInBackground(arg0);
         try {
-            for (ReportAttachment attachment : reportAttachments) {
-                String attachmentName = attachment.getName();
-                File outputFile = new File(outputDir, attachmentName);
-                getJsRestClient().saveReportAttachmentToFile(uuid, attachmentName, outputFile);
-            }
+            getJsRestClient().saveReportAttachmentsToFiles(uuid, reportAttachments, outputDir, null);
         } catch (Exception e) {
             setTaskException(e);
         }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe pool of equally sized byte buffers shared by the downloads, so that transferring a large
+ * export doesn't allocate new buffers for every file. The buffer size is the chunk size of the writes.
+ * <p/>
+ * The buffers are backed by arrays, as the response bodies are streams that can only be read into arrays.
+ * A direct buffer would cost one more copy of every chunk.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_POOLED = 8;
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final AtomicInteger allocationCount = new AtomicInteger();
+
+    public BufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param bufferSize the size of the buffers in bytes
+     * @param maxPooled  maximum number of idle buffers kept in the pool
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return a cleared buffer, which should be released when no longer used
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            allocationCount.incrementAndGet();
+            return ByteBuffer.allocate(bufferSize);
+        }
+        pooledCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool, unless the pool is full.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || !buffer.hasArray()) return;
+        if (pooledCount.incrementAndGet() > maxPooled) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getMaxPooled() {
+        return maxPooled;
+    }
+
+    /**
+     * @return the number of idle buffers in the pool
+     */
+    public int getPooledCount() {
+        return Math.max(pooledCount.get(), 0);
+    }
+
+    /**
+     * @return the number of buffers allocated by the pool so far
+     */
+    public int getAllocationCount() {
+        return allocationCount.get();
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress and outcome of the downloads passed to {@link ParallelDownloader#download(List, DownloadListener)}.
+ * Failed downloads don't affect the others, the batch collects the errors instead.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class DownloadBatch {
+
+    private final int totalCount;
+    private final List<String> completed = new ArrayList<String>();
+    private final Map<String, Exception> failures = new LinkedHashMap<String, Exception>();
+    // downloads whose listener has returned as well
+    private int settledCount;
+
+    DownloadBatch(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    synchronized void addCompleted(String name) {
+        completed.add(name);
+    }
+
+    synchronized void addFailure(String name, Exception ex) {
+        failures.put(name, ex);
+    }
+
+    synchronized void settle() {
+        settledCount++;
+        notifyAll();
+    }
+
+    synchronized void await() throws InterruptedException {
+        while (settledCount < totalCount) {
+            wait();
+        }
+    }
+
+    /**
+     * @return whether all the downloads have completed or failed
+     */
+    public synchronized boolean isDone() {
+        return completed.size() + failures.size() >= totalCount;
+    }
+
+    public synchronized boolean isSuccessful() {
+        return isDone() && failures.isEmpty();
+    }
+
+    /**
+     * @return completed and failed downloads in relation to all the downloads, from 0 to 1
+     */
+    public synchronized float getProgress() {
+        return (totalCount > 0) ? (float) (completed.size() + failures.size()) / totalCount : 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DownloadBatch{" +
+                "totalCount=" + totalCount +
+                ", completed=" + completed.size() +
+                ", failures=" + failures.keySet() +
+                '}';
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized int getCompletedCount() {
+        return completed.size();
+    }
+
+    public synchronized int getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return the names of the completed downloads, in the order of completion
+     */
+    public synchronized List<String> getCompleted() {
+        return Collections.unmodifiableList(new ArrayList<String>(completed));
+    }
+
+    /**
+     * @return the errors of the failed downloads by their names
+     */
+    public synchronized Map<String, Exception> getFailures() {
+        return Collections.unmodifiableMap(new LinkedHashMap<String, Exception>(failures));
+    }
+
+}
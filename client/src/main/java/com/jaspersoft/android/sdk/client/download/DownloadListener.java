@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+/**
+ * Callback of the downloads run by a {@link ParallelDownloader}. It is invoked on the downloading threads.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public interface DownloadListener {
+
+    /**
+     * Called after each download has completed.
+     */
+    void onDownloadCompleted(String name, DownloadBatch batch);
+
+    /**
+     * Called after each download has failed. The other downloads of the batch continue.
+     */
+    void onDownloadFailed(String name, Exception ex, DownloadBatch batch);
+
+}
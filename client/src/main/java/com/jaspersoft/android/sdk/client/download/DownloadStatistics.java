@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the files downloaded by a {@link FileDownloader}, and their throughput.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class DownloadStatistics {
+
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong failedDownloads = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    void addDownload(long byteCount, long elapsedNanos) {
+        downloads.incrementAndGet();
+        bytes.addAndGet(byteCount);
+        nanos.addAndGet(elapsedNanos);
+    }
+
+    void addFailedDownload() {
+        failedDownloads.incrementAndGet();
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public void reset() {
+        downloads.set(0);
+        failedDownloads.set(0);
+        bytes.set(0);
+        nanos.set(0);
+    }
+
+    /**
+     * @return the average throughput of the completed downloads in bytes per second,
+     *         or 0 if nothing was downloaded yet
+     */
+    public double getThroughput() {
+        long elapsed = nanos.get();
+        return (elapsed > 0) ? bytes.get() * 1000000000.0 / elapsed : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadStatistics{" +
+                "downloads=" + downloads +
+                ", failedDownloads=" + failedDownloads +
+                ", bytes=" + bytes +
+                ", throughput=" + (long) getThroughput() +
+                '}';
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public long getDownloads() {
+        return downloads.get();
+    }
+
+    public long getFailedDownloads() {
+        return failedDownloads.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * @return total time spent in the completed downloads in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return nanos.get();
+    }
+
+}
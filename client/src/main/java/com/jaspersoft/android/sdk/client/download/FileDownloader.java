@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheReader;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Saves response bodies to files through a {@link FileChannel}, in chunks of pooled buffers. The body is
+ * written to a temporary file that replaces the target file only when complete, so an interrupted download
+ * never leaves a truncated file behind.
+ * <p/>
+ * Resumable downloads keep the partial file and its {@link PartialDownload} metadata next to the target file,
+ * so that the download can continue where it was interrupted, even after a restart of the process.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class FileDownloader {
+
+    private static final BufferPool SHARED_BUFFER_POOL = new BufferPool();
+    private static final int PARTIAL_VERSION = 1;
+
+    private final BufferPool bufferPool;
+    private final DownloadStatistics statistics = new DownloadStatistics();
+
+    /**
+     * Creates a downloader that uses the buffer pool shared by all the clients.
+     */
+    public FileDownloader() {
+        this(SHARED_BUFFER_POOL);
+    }
+
+    /**
+     * @param bufferPool the pool of the buffers, which also defines the chunk size
+     */
+    public FileDownloader(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public static BufferPool getSharedBufferPool() {
+        return SHARED_BUFFER_POOL;
+    }
+
+    /**
+     * Reads the stream to the end and saves it in the file.
+     *
+     * @param in   the response body, which is not closed
+     * @param file the file to save the body in, replaced when the download is complete
+     * @return the number of bytes saved
+     * @throws IOException if the stream can't be read or the file can't be written
+     */
+    public long download(InputStream in, File file) throws IOException {
+        File parentFolder = file.getAbsoluteFile().getParentFile();
+        if (parentFolder != null && !parentFolder.exists() && !parentFolder.mkdirs()) {
+            throw new IllegalStateException("Unable to create folder: " + parentFolder);
+        }
+        File tempFile = new File(parentFolder, "." + file.getName() + "." + Thread.currentThread().getId());
+
+        long start = System.nanoTime();
+        long count;
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try {
+            count = transfer(in, out.getChannel());
+            out.close();
+        } catch (IOException ex) {
+            statistics.addFailedDownload();
+            out.close();
+            tempFile.delete();
+            throw ex;
+        }
+
+        replace(tempFile, file);
+        statistics.addDownload(count, System.nanoTime() - start);
+        return count;
+    }
+
+    /**
+     * Reads the stream to the end and saves it in the file, keeping the partial file if the download
+     * is interrupted, so that it can be resumed.
+     *
+     * @param in       the response body, which is not closed
+     * @param file     the file to save the body in, replaced when the download is complete
+     * @param download the download the body belongs to, the body is appended to the partial file
+     *                 at {@link PartialDownload#getReceivedLength()}
+     * @return the length of the saved file
+     * @throws IOException if the stream can't be read, ends before the expected length
+     *                     or the file can't be written
+     */
+    public long download(InputStream in, File file, PartialDownload download) throws IOException {
+        File parentFolder = file.getAbsoluteFile().getParentFile();
+        if (parentFolder != null && !parentFolder.exists() && !parentFolder.mkdirs()) {
+            throw new IllegalStateException("Unable to create folder: " + parentFolder);
+        }
+        File partialFile = getPartialFile(file);
+        long offset = download.getReceivedLength();
+        if (offset == 0) {
+            if (download.isResumable()) {
+                writePartialMetadata(file, download);
+            } else {
+                getPartialMetadataFile(file).delete();
+            }
+        }
+
+        long start = System.nanoTime();
+        long count;
+        RandomAccessFile out = new RandomAccessFile(partialFile, "rw");
+        try {
+            FileChannel channel = out.getChannel();
+            channel.truncate(offset);
+            channel.position(offset);
+            count = transfer(in, channel);
+            out.close();
+            if (download.getTotalLength() >= 0 && offset + count != download.getTotalLength()) {
+                throw new IOException("Download of " + download.getUrl() + " ended at " + (offset + count)
+                        + " of " + download.getTotalLength() + " bytes");
+            }
+        } catch (IOException ex) {
+            statistics.addFailedDownload();
+            out.close();
+            if (!download.isResumable()) {
+                partialFile.delete();
+            }
+            throw ex;
+        }
+
+        getPartialMetadataFile(file).delete();
+        replace(partialFile, file);
+        statistics.addDownload(count, System.nanoTime() - start);
+        return offset + count;
+    }
+
+    /**
+     * Returns the interrupted download of the file, if it was downloaded from the same URL.
+     * A partial download of another URL is discarded.
+     *
+     * @return the partial download, or <code>null</code> if there is none
+     */
+    public PartialDownload getPartialDownload(File file, String url) {
+        File partialFile = getPartialFile(file);
+        if (partialFile.isFile()) {
+            try {
+                BinaryCacheReader reader = BinaryCacheReader.map(getPartialMetadataFile(file), PARTIAL_VERSION);
+                String partialUrl = reader.readString();
+                String validator = reader.readString();
+                long totalLength = reader.readLong();
+                // whatever made it to the disk before the interruption
+                long receivedLength = partialFile.length();
+                if (url.equals(partialUrl) && receivedLength > 0
+                        && (totalLength < 0 || receivedLength < totalLength)) {
+                    return new PartialDownload(url, validator, totalLength, receivedLength);
+                }
+            } catch (IOException ex) {
+                // no metadata, the partial file can't be resumed
+            }
+        }
+        discardPartialDownload(file);
+        return null;
+    }
+
+    /**
+     * Deletes the partial file and the metadata of an interrupted download of the file.
+     */
+    public void discardPartialDownload(File file) {
+        getPartialFile(file).delete();
+        getPartialMetadataFile(file).delete();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private long transfer(InputStream in, FileChannel channel) throws IOException {
+        long count = 0;
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            int read;
+            try {
+                while ((read = in.read(array, offset + buffer.position(), buffer.remaining())) != -1) {
+                    buffer.position(buffer.position() + read);
+                    count += read;
+                    if (!buffer.hasRemaining()) {
+                        write(channel, buffer);
+                    }
+                }
+            } catch (IOException ex) {
+                // keep every byte received, a resumed download continues after them
+                try {
+                    write(channel, buffer);
+                } catch (IOException writeEx) {
+                    // the original error is more relevant
+                }
+                throw ex;
+            }
+            write(channel, buffer);
+            return count;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private void replace(File source, File file) throws IOException {
+        try {
+            move(source, file);
+        } catch (IOException ex) {
+            statistics.addFailedDownload();
+            throw ex;
+        }
+    }
+
+    static void move(File source, File file) throws IOException {
+        if (!source.renameTo(file)) {
+            file.delete();
+            if (!source.renameTo(file)) {
+                source.delete();
+                throw new IOException("Couldn't replace " + file);
+            }
+        }
+    }
+
+    private void writePartialMetadata(File file, PartialDownload download) throws IOException {
+        BinaryCacheWriter writer = new BinaryCacheWriter();
+        writer.writeString(download.getUrl());
+        writer.writeString(download.getValidator());
+        writer.writeLong(download.getTotalLength());
+        writer.writeTo(getPartialMetadataFile(file), PARTIAL_VERSION);
+    }
+
+    private static File getPartialFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".partial");
+    }
+
+    private static File getPartialMetadataFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".partial.meta");
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * @return the counters of the downloaded files and their throughput
+     */
+    public DownloadStatistics getStatistics() {
+        return statistics;
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs downloads on a bounded number of threads, e.g. the images of an HTML report. Besides the total limit,
+ * the number of concurrent downloads from one host is limited as well, and the hosts take turns,
+ * so that a report with many attachments doesn't hold back the downloads of another server.
+ * <p/>
+ * One downloader is meant to be shared by all the downloads of a client. Each call waits for its own batch only.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ParallelDownloader {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_CONCURRENCY_PER_HOST = 4;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerHost;
+    private final ThreadPoolExecutor executor;
+    // queued downloads by host, in the order the hosts take turns
+    private final LinkedHashMap<String, LinkedList<Job>> queues = new LinkedHashMap<String, LinkedList<Job>>();
+    private final Map<String, Integer> activeCounts = new HashMap<String, Integer>();
+    private int activeCount;
+
+    public ParallelDownloader() {
+        this(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY_PER_HOST);
+    }
+
+    /**
+     * @param maxConcurrency        maximum number of concurrent downloads
+     * @param maxConcurrencyPerHost maximum number of concurrent downloads from one host
+     */
+    public ParallelDownloader(int maxConcurrency, int maxConcurrencyPerHost) {
+        if (maxConcurrency <= 0 || maxConcurrencyPerHost <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DownloadThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the downloads and waits until all of them have completed or failed. A failed download doesn't
+     * stop the others. If the calling thread is interrupted, the downloads that haven't started are canceled.
+     *
+     * @param downloads the downloads to run
+     * @param listener  the callback of the downloads (can be <code>null</code>)
+     * @return the batch of the downloads, with the errors of the failed ones
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public DownloadBatch download(List<? extends Download> downloads, DownloadListener listener)
+            throws InterruptedException {
+        DownloadBatch batch = new DownloadBatch(downloads.size());
+        synchronized (this) {
+            for (Download download : downloads) {
+                String host = download.getHost();
+                LinkedList<Job> queue = queues.get(host);
+                if (queue == null) {
+                    queue = new LinkedList<Job>();
+                    queues.put(host, queue);
+                }
+                queue.add(new Job(download, batch, listener));
+            }
+            schedule();
+        }
+        try {
+            batch.await();
+        } catch (InterruptedException ex) {
+            cancel(batch);
+            throw ex;
+        }
+        return batch;
+    }
+
+    /**
+     * Stops the threads once the running downloads are done.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxConcurrencyPerHost() {
+        return maxConcurrencyPerHost;
+    }
+
+    /**
+     * @return the number of downloads currently running
+     */
+    public synchronized int getActiveCount() {
+        return activeCount;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Starts queued downloads while the limits allow, taking the hosts in turns.
+     */
+    private synchronized void schedule() {
+        while (activeCount < maxConcurrency) {
+            String host = nextHost();
+            if (host == null) return;
+
+            LinkedList<Job> queue = queues.remove(host);
+            final Job job = queue.removeFirst();
+            if (!queue.isEmpty()) {
+                // the host goes to the end of the line
+                queues.put(host, queue);
+            }
+            activeCount++;
+            activeCounts.put(host, getActiveCount(host) + 1);
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        job.run();
+                    } finally {
+                        try {
+                            finished(job.download.getHost());
+                        } finally {
+                            // the caller returns only now
+                            job.batch.settle();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private String nextHost() {
+        for (String host : queues.keySet()) {
+            if (getActiveCount(host) < maxConcurrencyPerHost) {
+                return host;
+            }
+        }
+        return null;
+    }
+
+    private int getActiveCount(String host) {
+        Integer count = activeCounts.get(host);
+        return (count != null) ? count : 0;
+    }
+
+    private synchronized void finished(String host) {
+        activeCount--;
+        int count = getActiveCount(host) - 1;
+        if (count > 0) {
+            activeCounts.put(host, count);
+        } else {
+            activeCounts.remove(host);
+        }
+        schedule();
+    }
+
+    private synchronized void cancel(DownloadBatch batch) {
+        Iterator<LinkedList<Job>> queueIterator = queues.values().iterator();
+        while (queueIterator.hasNext()) {
+            LinkedList<Job> queue = queueIterator.next();
+            Iterator<Job> iterator = queue.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().batch == batch) {
+                    iterator.remove();
+                }
+            }
+            if (queue.isEmpty()) {
+                queueIterator.remove();
+            }
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * One download of a batch.
+     */
+    public static abstract class Download {
+        private final String name;
+        private final URI uri;
+
+        /**
+         * @param name the name the download is reported under, e.g. the attachment name
+         * @param uri  the URI of the downloaded resource, its host is subject to the per-host limit
+         */
+        protected Download(String name, URI uri) {
+            this.name = name;
+            this.uri = uri;
+        }
+
+        /**
+         * Downloads the resource. Called on a downloading thread.
+         */
+        protected abstract void execute() throws Exception;
+
+        public String getName() {
+            return name;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+
+        String getHost() {
+            return (uri != null) ? uri.getHost() + ":" + uri.getPort() : "";
+        }
+    }
+
+    private static class Job {
+        private final Download download;
+        private final DownloadBatch batch;
+        private final DownloadListener listener;
+
+        Job(Download download, DownloadBatch batch, DownloadListener listener) {
+            this.download = download;
+            this.batch = batch;
+            this.listener = listener;
+        }
+
+        void run() {
+            String name = download.getName();
+            try {
+                download.execute();
+            } catch (Exception ex) {
+                batch.addFailure(name, ex);
+                if (listener != null) listener.onDownloadFailed(name, ex, batch);
+                return;
+            }
+            batch.addCompleted(name);
+            if (listener != null) listener.onDownloadCompleted(name, batch);
+        }
+    }
+
+    private static class DownloadThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "JsDownload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
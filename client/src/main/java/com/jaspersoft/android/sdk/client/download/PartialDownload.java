@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+/**
+ * State of a download that can be resumed with a <code>Range</code> request: the URL, the validator the body
+ * was served with and the number of bytes already saved. Partial downloads survive process restarts,
+ * see {@link FileDownloader#getPartialDownload(java.io.File, String)}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class PartialDownload {
+
+    private final String url;
+    private final String validator;
+    private final long totalLength;
+    private final long receivedLength;
+
+    /**
+     * Describes a download that starts from the first byte.
+     *
+     * @param url         the URL of the downloaded resource
+     * @param validator   the strong <code>ETag</code> or the <code>Last-Modified</code> date of the response,
+     *                    sent back as <code>If-Range</code> (can be <code>null</code>)
+     * @param totalLength the length of the body, or <code>-1</code> if unknown
+     */
+    public PartialDownload(String url, String validator, long totalLength) {
+        this(url, validator, totalLength, 0);
+    }
+
+    PartialDownload(String url, String validator, long totalLength, long receivedLength) {
+        this.url = url;
+        this.validator = validator;
+        this.totalLength = totalLength;
+        this.receivedLength = receivedLength;
+    }
+
+    /**
+     * A download can only be resumed if there is a way to tell that the resource hasn't changed,
+     * either a validator or, at least, the length of the body.
+     */
+    public boolean isResumable() {
+        return validator != null || totalLength >= 0;
+    }
+
+    /**
+     * @return the value of the <code>Range</code> header that requests the rest of the body
+     */
+    public String getRangeHeader() {
+        return "bytes=" + receivedLength + "-";
+    }
+
+    /**
+     * Checks that the <code>Content-Range</code> of a <code>206 Partial Content</code> response continues
+     * this download, e.g. <code>bytes 1000-4999/5000</code>.
+     */
+    public boolean matchesContentRange(String contentRange) {
+        long[] range = parseContentRange(contentRange);
+        return range != null && range[0] == receivedLength
+                && (totalLength < 0 || range[2] < 0 || range[2] == totalLength);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Parses <code>bytes first-last/total</code>.
+     *
+     * @return the first and last byte and the total length, which is <code>-1</code> if unknown,
+     *         or <code>null</code> if the header is missing or malformed
+     */
+    static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) return null;
+        int dash = contentRange.indexOf('-');
+        int slash = contentRange.indexOf('/');
+        if (dash < 0 || slash < dash) return null;
+        try {
+            long first = Long.parseLong(contentRange.substring(6, dash).trim());
+            long last = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+            String total = contentRange.substring(slash + 1).trim();
+            return new long[]{first, last, "*".equals(total) ? -1 : Long.parseLong(total)};
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getValidator() {
+        return validator;
+    }
+
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return the number of bytes already saved, where the body of the response starts
+     */
+    public long getReceivedLength() {
+        return receivedLength;
+    }
+
+}
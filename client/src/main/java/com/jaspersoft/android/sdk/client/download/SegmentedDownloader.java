@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.download;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Downloads a large file over several connections at once, each fetching one byte range of it,
+ * which fills the link better than a single stream on high-latency networks.
+ * <p/>
+ * The length of the file is probed with a one-byte range request first. If the server doesn't support ranges
+ * or the file is too small to be worth splitting, nothing is downloaded and the caller falls back to a single
+ * stream. Otherwise the ranges are written in place into a preallocated temporary file, each of them verified
+ * against its <code>Content-Range</code>, and the file replaces the target one when all of them are complete.
+ * <p/>
+ * The number of connections tunes itself to the measured throughput per connection: it grows as long as
+ * another connection doesn't slow down the others, and shrinks when the connections compete for the link.
+ * The best throughput it is compared to decays with every download, so that the tuning follows a slower network.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SegmentedDownloader {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+    public static final long DEFAULT_MIN_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final int INITIAL_CONNECTIONS = 2;
+    // per-connection throughput, relative to the best recent one, above which one more connection is tried
+    private static final double GROW_THRESHOLD = 0.75;
+    // per-connection throughput, relative to the best recent one, below which one connection is dropped
+    private static final double SHRINK_THRESHOLD = 0.5;
+    // factor the best throughput is multiplied by with every download
+    private static final double BEST_THROUGHPUT_DECAY = 0.9;
+
+    private final int maxConnections;
+    private final long minSegmentSize;
+    private final BufferPool bufferPool;
+    private final DownloadStatistics statistics = new DownloadStatistics();
+    private int connections;
+    private double bestConnectionThroughput;
+    private double lastConnectionThroughput;
+
+    public SegmentedDownloader() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MIN_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param maxConnections maximum number of connections of one download
+     * @param minSegmentSize minimum size of a byte range in bytes, smaller files are downloaded with fewer
+     *                       connections or as a single stream
+     */
+    public SegmentedDownloader(int maxConnections, long minSegmentSize) {
+        if (maxConnections <= 0 || minSegmentSize <= 0) {
+            throw new IllegalArgumentException("Connections and segment size must be positive");
+        }
+        this.maxConnections = maxConnections;
+        this.minSegmentSize = minSegmentSize;
+        this.bufferPool = FileDownloader.getSharedBufferPool();
+        this.connections = Math.min(INITIAL_CONNECTIONS, maxConnections);
+    }
+
+    /**
+     * Downloads the resource in byte ranges and saves it in the file.
+     *
+     * @param requestFactory the factory of the requests, which should handle the authentication
+     * @param uri            the URI of the resource
+     * @param file           the file to save the resource in, replaced when the download is complete
+     * @param downloader     the downloader the ranges are fetched with, its limits apply as well
+     * @return the length of the saved file, or <code>-1</code> if the resource should be downloaded as a single
+     *         stream instead, because the server doesn't support ranges or the resource is too small
+     * @throws IOException          if a range can't be downloaded or the file can't be written
+     * @throws InterruptedException if the calling thread was interrupted while waiting for the ranges
+     */
+    public long download(ClientHttpRequestFactory requestFactory, URI uri, File file, ParallelDownloader downloader)
+            throws IOException, InterruptedException {
+        Probe probe = probe(requestFactory, uri);
+        if (probe == null) return -1;
+        int segmentCount = (int) Math.min(getConnections(), probe.length / minSegmentSize);
+        if (segmentCount < 2) return -1;
+
+        File parentFolder = file.getAbsoluteFile().getParentFile();
+        if (parentFolder != null && !parentFolder.exists() && !parentFolder.mkdirs()) {
+            throw new IllegalStateException("Unable to create folder: " + parentFolder);
+        }
+        File tempFile = new File(parentFolder, "." + file.getName() + "." + Thread.currentThread().getId());
+        RandomAccessFile out = new RandomAccessFile(tempFile, "rw");
+        long start = System.nanoTime();
+        DownloadBatch batch;
+        List<Segment> segments = new ArrayList<Segment>(segmentCount);
+        try {
+            out.setLength(probe.length);
+            FileChannel channel = out.getChannel();
+            long segmentSize = probe.length / segmentCount;
+            for (int i = 0; i < segmentCount; i++) {
+                long first = i * segmentSize;
+                long last = (i == segmentCount - 1) ? probe.length - 1 : first + segmentSize - 1;
+                segments.add(new Segment(requestFactory, uri, probe, first, last, channel));
+            }
+            batch = downloader.download(segments, null);
+            out.close();
+        } catch (IOException ex) {
+            out.close();
+            tempFile.delete();
+            statistics.addFailedDownload();
+            throw ex;
+        } catch (InterruptedException ex) {
+            out.close();
+            tempFile.delete();
+            throw ex;
+        }
+
+        long received = 0;
+        for (Segment segment : segments) {
+            received += segment.received;
+        }
+        if (!batch.isSuccessful() || received != probe.length || tempFile.length() != probe.length) {
+            tempFile.delete();
+            statistics.addFailedDownload();
+            for (Map.Entry<String, Exception> failure : batch.getFailures().entrySet()) {
+                Exception cause = failure.getValue();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException("Download of range " + failure.getKey() + " failed: " + cause, cause);
+            }
+            throw new IOException("Download of " + uri + " ended at " + received + " of " + probe.length + " bytes");
+        }
+
+        FileDownloader.move(tempFile, file);
+        long elapsed = System.nanoTime() - start;
+        statistics.addDownload(received, elapsed);
+        tune(segments);
+        return received;
+    }
+
+    /**
+     * @return the number of connections the next download is split into
+     */
+    public synchronized int getConnections() {
+        return connections;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public long getMinSegmentSize() {
+        return minSegmentSize;
+    }
+
+    /**
+     * @return the average throughput of one connection during the last download in bytes per second
+     */
+    public synchronized double getLastConnectionThroughput() {
+        return lastConnectionThroughput;
+    }
+
+    /**
+     * @return the counters of the segmented downloads and their total throughput
+     */
+    public DownloadStatistics getStatistics() {
+        return statistics;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Requests the first byte to learn the length and the validator of the resource.
+     *
+     * @return the probe, or <code>null</code> if the server doesn't serve byte ranges of the resource
+     */
+    private Probe probe(ClientHttpRequestFactory requestFactory, URI uri) throws IOException {
+        ClientHttpRequest request = createRangeRequest(requestFactory, uri, 0, 0, null);
+        ClientHttpResponse response = request.execute();
+        try {
+            if (response.getStatusCode() != HttpStatus.PARTIAL_CONTENT) return null;
+            HttpHeaders headers = response.getHeaders();
+            long[] range = PartialDownload.parseContentRange(headers.getFirst("Content-Range"));
+            if (range == null || range[0] != 0 || range[2] < 0) return null;
+            String eTag = headers.getETag();
+            String validator = (eTag != null && !eTag.startsWith("W/")) ? eTag : headers.getFirst("Last-Modified");
+            return new Probe(range[2], validator);
+        } finally {
+            response.close();
+        }
+    }
+
+    private synchronized void tune(List<Segment> segments) {
+        double total = 0;
+        for (Segment segment : segments) {
+            total += segment.getThroughput();
+        }
+        lastConnectionThroughput = total / segments.size();
+        // the best throughput of another network would keep the connections at the minimum otherwise
+        bestConnectionThroughput = Math.max(bestConnectionThroughput * BEST_THROUGHPUT_DECAY,
+                lastConnectionThroughput);
+
+        if (lastConnectionThroughput >= bestConnectionThroughput * GROW_THRESHOLD) {
+            // the connections don't slow each other down yet
+            connections = Math.min(segments.size() + 1, maxConnections);
+        } else if (lastConnectionThroughput < bestConnectionThroughput * SHRINK_THRESHOLD) {
+            connections = Math.max(segments.size() - 1, 2);
+        }
+    }
+
+    private static ClientHttpRequest createRangeRequest(ClientHttpRequestFactory requestFactory, URI uri,
+                                                        long first, long last, String validator) throws IOException {
+        ClientHttpRequest request = requestFactory.createRequest(uri, HttpMethod.GET);
+        request.getHeaders().set("Range", "bytes=" + first + "-" + last);
+        // the offsets count decoded bytes, so the ranges must not be compressed
+        request.getHeaders().set("Accept-Encoding", "identity");
+        if (validator != null) {
+            request.getHeaders().set("If-Range", validator);
+        }
+        return request;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class Probe {
+        private final long length;
+        private final String validator;
+
+        Probe(long length, String validator) {
+            this.length = length;
+            this.validator = validator;
+        }
+    }
+
+    private class Segment extends ParallelDownloader.Download {
+        private final ClientHttpRequestFactory requestFactory;
+        private final Probe probe;
+        private final long first;
+        private final long last;
+        private final FileChannel channel;
+        private volatile long received;
+        private volatile long elapsedNanos;
+
+        Segment(ClientHttpRequestFactory requestFactory, URI uri, Probe probe, long first, long last,
+                FileChannel channel) {
+            super(first + "-" + last, uri);
+            this.requestFactory = requestFactory;
+            this.probe = probe;
+            this.first = first;
+            this.last = last;
+            this.channel = channel;
+        }
+
+        @Override
+        protected void execute() throws IOException {
+            long start = System.nanoTime();
+            ClientHttpRequest request = createRangeRequest(requestFactory, getUri(), first, last, probe.validator);
+            ClientHttpResponse response = request.execute();
+            try {
+                if (response.getStatusCode() != HttpStatus.PARTIAL_CONTENT) {
+                    // the resource has changed or the server has stopped serving ranges
+                    throw new IOException("Unexpected response to range " + getName() + ": "
+                            + response.getStatusCode());
+                }
+                long[] range = PartialDownload.parseContentRange(response.getHeaders().getFirst("Content-Range"));
+                if (range == null || range[0] != first || range[1] != last
+                        || (range[2] >= 0 && range[2] != probe.length)) {
+                    throw new IOException("Unexpected range " + response.getHeaders().getFirst("Content-Range")
+                            + " instead of " + getName() + "/" + probe.length);
+                }
+                received = write(response.getBody());
+                if (received != last - first + 1) {
+                    throw new IOException("Range " + getName() + " ended after " + received + " bytes");
+                }
+            } finally {
+                response.close();
+                elapsedNanos = System.nanoTime() - start;
+            }
+        }
+
+        double getThroughput() {
+            return (elapsedNanos > 0) ? received * 1000000000.0 / elapsedNanos : 0;
+        }
+
+        private long write(InputStream in) throws IOException {
+            long count = 0;
+            long limit = last - first + 1;
+            ByteBuffer buffer = bufferPool.acquire();
+            try {
+                byte[] array = buffer.array();
+                int offset = buffer.arrayOffset();
+                boolean done = false;
+                while (!done) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), limit - count));
+                    while (buffer.hasRemaining()) {
+                        int read = in.read(array, offset + buffer.position(), buffer.remaining());
+                        if (read == -1) {
+                            done = true;
+                            break;
+                        }
+                        buffer.position(buffer.position() + read);
+                    }
+                    buffer.flip();
+                    long position = first + count;
+                    count += buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        // positional writes don't move the shared file position
+                        position += channel.write(buffer, position);
+                    }
+                    done |= count >= limit;
+                }
+                return count;
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+}
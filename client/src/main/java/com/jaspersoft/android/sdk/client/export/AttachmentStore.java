@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.export;
+
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheReader;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content-addressable store of report attachments. Every attachment is kept once, in a blob named after
+ * the SHA-1 digest of its content, which is computed while the attachment is streamed to disk.
+ * <p/>
+ * Report output directories don't hold copies of the attachments, but an index that maps the attachment names
+ * to the digests (see {@link #writeIndex(File, Map)} and {@link #resolve(File, String)}). Blobs are reference
+ * counted and deleted as soon as no index or export refers to them.
+ * <p/>
+ * The store also remembers the validators (<code>ETag</code> and <code>Last-Modified</code>) the attachments
+ * were served with, so that an attachment the server reports as not modified isn't downloaded again.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class AttachmentStore {
+
+    public static final String INDEX_FILE = ".attachments";
+
+    private static final int VERSION = 1;
+    private static final int INDEX_VERSION = 1;
+    private static final String METADATA_FILE = ".store";
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+    private final Map<String, Integer> references = new HashMap<String, Integer>();
+    private final Map<String, Validator> validators = new LinkedHashMap<String, Validator>();
+    private boolean initialized;
+
+    /**
+     * @param directory the directory the blobs are kept in
+     */
+    public AttachmentStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Streams the attachment to the store and acquires a reference to its blob. If the store already
+     * holds the same content, the downloaded copy is discarded.
+     *
+     * @param in the content of the attachment, which is read to the end but not closed
+     * @return the digest of the content
+     */
+    public String put(InputStream in) throws IOException {
+        MessageDigest digest = createDigest();
+        synchronized (this) {
+            // cleans up the directory before the partial file is created
+            initialize();
+        }
+        directory.mkdirs();
+        // the dot keeps the partial file out of the blobs
+        File tempFile = new File(directory, ".blob." + Thread.currentThread().getId());
+        OutputStream out = new FileOutputStream(tempFile);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException ex) {
+            out.close();
+            tempFile.delete();
+            throw ex;
+        }
+        out.close();
+
+        String hash = toHex(digest.digest());
+        synchronized (this) {
+            File blob = getFile(hash);
+            if (blob.isFile()) {
+                tempFile.delete();
+            } else if (!tempFile.renameTo(blob)) {
+                tempFile.delete();
+                throw new IOException("Couldn't move " + tempFile + " to " + blob);
+            }
+            references.put(hash, getReferenceCount(hash) + 1);
+            save();
+        }
+        return hash;
+    }
+
+    /**
+     * Acquires one more reference to the blob.
+     *
+     * @return <code>false</code> if there is no such blob
+     */
+    public synchronized boolean retain(String digest) throws IOException {
+        initialize();
+        if (!getFile(digest).isFile()) return false;
+        references.put(digest, getReferenceCount(digest) + 1);
+        save();
+        return true;
+    }
+
+    /**
+     * Releases a reference to the blob, deleting it along with its validators when it was the last one.
+     */
+    public synchronized void release(String digest) throws IOException {
+        initialize();
+        releaseReference(digest);
+        save();
+    }
+
+    public File getFile(String digest) {
+        return new File(directory, digest);
+    }
+
+    public synchronized boolean contains(String digest) {
+        initialize();
+        return references.containsKey(digest) && getFile(digest).isFile();
+    }
+
+    public synchronized int getReferenceCount(String digest) {
+        initialize();
+        Integer count = references.get(digest);
+        return (count != null) ? count : 0;
+    }
+
+    /**
+     * @return the number of blobs
+     */
+    public synchronized int getBlobCount() {
+        initialize();
+        return references.size();
+    }
+
+    /**
+     * @return total size of the blobs in bytes
+     */
+    public synchronized long getSize() {
+        initialize();
+        long size = 0;
+        for (String digest : references.keySet()) {
+            size += getFile(digest).length();
+        }
+        return size;
+    }
+
+    //---------------------------------------------------------------------
+    // Validators
+    //---------------------------------------------------------------------
+
+    /**
+     * @param key the key the attachment was stored under, stable across executions of the report
+     * @return the validators of the stored attachment, or <code>null</code> if its blob is gone
+     */
+    public synchronized Validator getValidator(String key) {
+        initialize();
+        Validator validator = validators.get(key);
+        if (validator != null && !getFile(validator.getDigest()).isFile()) {
+            validators.remove(key);
+            return null;
+        }
+        return validator;
+    }
+
+    /**
+     * Remembers the validators the attachment was served with. Nothing is stored if there are none.
+     *
+     * @param key          the key the attachment is stored under, stable across executions of the report
+     * @param eTag         the <code>ETag</code> of the response (can be <code>null</code>)
+     * @param lastModified the <code>Last-Modified</code> time of the response, or <code>-1</code> if unknown
+     * @param digest       the digest of the attachment content
+     */
+    public synchronized void putValidator(String key, String eTag, long lastModified, String digest)
+            throws IOException {
+        initialize();
+        if (eTag == null && lastModified <= 0) {
+            if (validators.remove(key) != null) save();
+            return;
+        }
+        validators.put(key, new Validator(eTag, lastModified, digest));
+        save();
+    }
+
+    //---------------------------------------------------------------------
+    // Indexes
+    //---------------------------------------------------------------------
+
+    /**
+     * Writes the index of the output directory, replacing the previous one. The blobs of the new index must
+     * already be referenced by the caller, these references are handed over to the index, while the references
+     * held by the previous index are released.
+     *
+     * @param outputDirectory the report output directory
+     * @param attachments     the digests of the attachments by their names
+     */
+    public synchronized void writeIndex(File outputDirectory, Map<String, String> attachments) throws IOException {
+        initialize();
+        Map<String, String> previous = readIndex(outputDirectory);
+
+        BinaryCacheWriter writer = new BinaryCacheWriter();
+        writer.writeInt(attachments.size());
+        for (Map.Entry<String, String> entry : attachments.entrySet()) {
+            writer.writeString(entry.getKey());
+            writer.writeString(entry.getValue());
+        }
+        outputDirectory.mkdirs();
+        writer.writeTo(new File(outputDirectory, INDEX_FILE), INDEX_VERSION);
+
+        for (String digest : previous.values()) {
+            releaseReference(digest);
+        }
+        save();
+    }
+
+    /**
+     * @return the digests of the attachments by their names, or an empty map if the directory has no index
+     */
+    public Map<String, String> readIndex(File outputDirectory) throws IOException {
+        Map<String, String> attachments = new LinkedHashMap<String, String>();
+        BinaryCacheReader reader;
+        try {
+            reader = BinaryCacheReader.map(new File(outputDirectory, INDEX_FILE), INDEX_VERSION);
+        } catch (FileNotFoundException ex) {
+            return attachments;
+        }
+        int count = reader.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = reader.readString();
+            attachments.put(name, reader.readString());
+        }
+        return attachments;
+    }
+
+    /**
+     * @return the blob of the attachment referenced by the index of the output directory,
+     *         or <code>null</code> if there is no such attachment
+     */
+    public File resolve(File outputDirectory, String attachmentName) throws IOException {
+        String digest = readIndex(outputDirectory).get(attachmentName);
+        return (digest != null) ? getFile(digest) : null;
+    }
+
+    /**
+     * Deletes the index of the output directory and releases the blobs it refers to.
+     */
+    public synchronized void deleteIndex(File outputDirectory) throws IOException {
+        initialize();
+        Map<String, String> attachments = readIndex(outputDirectory);
+        new File(outputDirectory, INDEX_FILE).delete();
+        for (String digest : attachments.values()) {
+            releaseReference(digest);
+        }
+        save();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void releaseReference(String digest) {
+        int count = getReferenceCount(digest);
+        if (count > 1) {
+            references.put(digest, count - 1);
+            return;
+        }
+        references.remove(digest);
+        getFile(digest).delete();
+        Iterator<Validator> iterator = validators.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getDigest().equals(digest)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void initialize() {
+        if (initialized) return;
+        initialized = true;
+        try {
+            BinaryCacheReader reader = BinaryCacheReader.map(new File(directory, METADATA_FILE), VERSION);
+            int count = reader.readInt();
+            for (int i = 0; i < count; i++) {
+                String digest = reader.readString();
+                references.put(digest, reader.readInt());
+            }
+            count = reader.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = reader.readString();
+                String eTag = reader.readString();
+                long lastModified = reader.readLong();
+                validators.put(key, new Validator(eTag, lastModified, reader.readString()));
+            }
+        } catch (IOException ex) {
+            // a missing or unreadable metadata file leaves the blobs unreferenced
+            references.clear();
+            validators.clear();
+        }
+
+        // blobs nobody refers to and files left by interrupted downloads
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.equals(METADATA_FILE) && !references.containsKey(name)) {
+                file.delete();
+            }
+        }
+    }
+
+    private void save() throws IOException {
+        BinaryCacheWriter writer = new BinaryCacheWriter();
+        writer.writeInt(references.size());
+        for (Map.Entry<String, Integer> entry : references.entrySet()) {
+            writer.writeString(entry.getKey());
+            writer.writeInt(entry.getValue());
+        }
+        writer.writeInt(validators.size());
+        for (Map.Entry<String, Validator> entry : validators.entrySet()) {
+            Validator validator = entry.getValue();
+            writer.writeString(entry.getKey());
+            writer.writeString(validator.getETag());
+            writer.writeLong(validator.getLastModified());
+            writer.writeString(validator.getDigest());
+        }
+        directory.mkdirs();
+        writer.writeTo(new File(directory, METADATA_FILE), VERSION);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 is not supported", ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Validators an attachment was served with, and the digest of its content.
+     */
+    public static class Validator {
+        private final String eTag;
+        private final long lastModified;
+        private final String digest;
+
+        Validator(String eTag, long lastModified, String digest) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.export;
+
+import com.jaspersoft.android.sdk.client.oxm.report.ReportOutputResource;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report export stored in an {@link ExportCache}: the output file and the attachments it refers to.
+ * The attachments are either kept in the export directory or shared through an {@link AttachmentStore}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CachedExport {
+
+    private final String key;
+    private final File directory;
+    private final ReportOutputResource outputResource;
+    private final List<ReportOutputResource> attachments;
+    private final Map<String, String> attachmentDigests;
+    private final AttachmentStore attachmentStore;
+    private final long creationTime;
+
+    CachedExport(String key, File directory, ReportOutputResource outputResource,
+                 List<ReportOutputResource> attachments, Map<String, String> attachmentDigests,
+                 AttachmentStore attachmentStore, long creationTime) {
+        this.key = key;
+        this.directory = directory;
+        this.outputResource = outputResource;
+        this.attachments = (attachments != null)
+                ? Collections.unmodifiableList(attachments)
+                : Collections.<ReportOutputResource>emptyList();
+        this.attachmentDigests = Collections.unmodifiableMap(attachmentDigests);
+        this.attachmentStore = attachmentStore;
+        this.creationTime = creationTime;
+    }
+
+    /**
+     * @return the file of the attachment with the given name, as referenced by the output
+     */
+    public File getAttachmentFile(String attachmentName) {
+        String digest = attachmentDigests.get(attachmentName);
+        if (digest != null && attachmentStore != null) {
+            return attachmentStore.getFile(digest);
+        }
+        return ExportCache.getAttachmentFile(directory, attachmentName);
+    }
+
+    /**
+     * @return the digest of the attachment in the attachment store, or <code>null</code>
+     *         if the attachment is kept in the export directory
+     */
+    public String getAttachmentDigest(String attachmentName) {
+        return attachmentDigests.get(attachmentName);
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public String getKey() {
+        return key;
+    }
+
+    public File getOutputFile() {
+        return ExportCache.getOutputFile(directory);
+    }
+
+    /**
+     * @return the content type and the file name of the output
+     */
+    public ReportOutputResource getOutputResource() {
+        return outputResource;
+    }
+
+    public List<ReportOutputResource> getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * @return the digests of the attachments shared through the attachment store, by their names
+     */
+    public Map<String, String> getAttachmentDigests() {
+        return attachmentDigests;
+    }
+
+    /**
+     * @return time the report was exported
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.export;
+
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheReader;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheWriter;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.oxm.report.ExportExecution;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionRequest;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionResponse;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportOutputResource;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk cache of report exports, keyed by the report URI, the canonical parameters, the output format and
+ * the pages. Each export is kept in a directory of its own, with the output, the attachments and
+ * a metadata file that is written last, so only complete exports are ever found in the cache.
+ * <p/>
+ * The total size of the exports is limited by a byte quota. The least recently used exports are evicted first,
+ * and the order survives restarts, as a cache hit touches the metadata file.
+ * <p/>
+ * With an {@link AttachmentStore}, the attachments aren't kept in the export directories, but shared between
+ * the exports, so identical images are stored once. The quota doesn't account for the shared attachments.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ExportCache {
+
+    public static final long DEFAULT_MAX_SIZE = 50 * 1024 * 1024;
+
+    private static final int VERSION = 2;
+    private static final String METADATA_FILE = "export";
+    private static final String OUTPUT_FILE = "output";
+    private static final String ATTACHMENTS_DIR = "attachments";
+
+    private static final Comparator<ReportParameter> PARAMETER_NAME_COMPARATOR = new Comparator<ReportParameter>() {
+        public int compare(ReportParameter first, ReportParameter second) {
+            return String.valueOf(first.getName()).compareTo(String.valueOf(second.getName()));
+        }
+    };
+
+    private final File directory;
+    private final long maxSize;
+    private final AttachmentStore attachmentStore;
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private boolean initialized;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ExportCache(File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param directory the directory the exports are kept in
+     * @param maxSize   maximum total size of the exports in bytes
+     */
+    public ExportCache(File directory, long maxSize) {
+        this(directory, maxSize, null);
+    }
+
+    /**
+     * @param directory       the directory the exports are kept in
+     * @param maxSize         maximum total size of the exports in bytes
+     * @param attachmentStore the store the attachments are shared through,
+     *                        or <code>null</code> to keep them in the export directories
+     */
+    public ExportCache(File directory, long maxSize, AttachmentStore attachmentStore) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.attachmentStore = attachmentStore;
+    }
+
+    /**
+     * Creates the key of the export of the report. The parameters and their values are canonicalized,
+     * so their order doesn't matter.
+     *
+     * @param serverProfile the profile the report is run with (can be <code>null</code>)
+     * @param request       the execution request of the report
+     */
+    public static String createKey(JsServerProfile serverProfile, ReportExecutionRequest request) {
+        CacheKeyBuilder builder = new CacheKeyBuilder();
+        if (serverProfile != null) {
+            builder.addUri(serverProfile.getServerUrl())
+                    .add(serverProfile.getOrganization())
+                    .add(serverProfile.getUsername());
+        }
+        builder.addUri(request.getReportUnitUri())
+                .add(request.getOutputFormat())
+                .add(request.getPages())
+                .add(request.isInteractive())
+                .add(request.isIgnorePagination())
+                .add(request.getAttachmentsPrefix());
+
+        List<ReportParameter> parameters = request.getParameters();
+        if (parameters == null) {
+            builder.add(0);
+        } else {
+            ReportParameter[] sorted = parameters.toArray(new ReportParameter[parameters.size()]);
+            Arrays.sort(sorted, PARAMETER_NAME_COMPARATOR);
+            builder.add(sorted.length);
+            for (ReportParameter parameter : sorted) {
+                builder.add(parameter.getName()).addSorted(parameter.getValues());
+            }
+        }
+        return Long.toHexString(builder.build());
+    }
+
+    /**
+     * Returns the cached export of the report, or runs the report and stores the export otherwise.
+     * A request for fresh data always runs the report and replaces the cached export.
+     *
+     * @param jsRestClient the client the report is run with
+     * @param request      the execution request of the report
+     * @return the cached export
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     */
+    public CachedExport export(JsRestClient jsRestClient, ReportExecutionRequest request) throws RestClientException {
+        String key = createKey(jsRestClient.getServerProfile(), request);
+        if (!request.isFreshData()) {
+            CachedExport cachedExport = get(key);
+            if (cachedExport != null) return cachedExport;
+        }
+
+        ReportExecutionResponse response = jsRestClient.runReportExecution(request);
+        List<ExportExecution> exports = response.getExports();
+        if (exports == null || exports.isEmpty()) {
+            throw new ResourceAccessException("No export of " + request.getReportUnitUri());
+        }
+        ExportExecution export = exports.get(0);
+
+        Editor editor = edit(key);
+        try {
+            jsRestClient.saveExportOutputToFile(response.getRequestId(), export.getId(), editor.getOutputFile());
+            List<ReportOutputResource> attachments = export.getAttachments();
+            if (attachments != null) {
+                for (ReportOutputResource attachment : attachments) {
+                    String fileName = attachment.getFileName();
+                    if (attachmentStore == null) {
+                        jsRestClient.saveExportAttachmentToFile(response.getRequestId(), export.getId(),
+                                fileName, editor.getAttachmentFile(fileName));
+                    } else {
+                        // the export key stays the same across executions, unlike the attachment URI
+                        editor.putAttachmentDigest(fileName, jsRestClient.saveExportAttachmentToStore(
+                                response.getRequestId(), export.getId(), fileName, attachmentStore, key + "/" + fileName));
+                    }
+                }
+            }
+            return editor.commit(export.getOutputResource(), attachments);
+        } catch (IOException ex) {
+            throw new ResourceAccessException("I/O error: " + ex.getMessage(), ex);
+        } finally {
+            editor.abort();
+        }
+    }
+
+    /**
+     * @return the cached export, or <code>null</code> if there is none
+     */
+    public synchronized CachedExport get(String key) {
+        initialize();
+        if (entrySizes.get(key) == null) {
+            missCount++;
+            return null;
+        }
+        try {
+            CachedExport cachedExport = read(key);
+            new File(new File(directory, key), METADATA_FILE).setLastModified(System.currentTimeMillis());
+            hitCount++;
+            return cachedExport;
+        } catch (IOException ex) {
+            remove(key);
+            missCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Starts storing an export. The files are written to a staging directory, which replaces the cached export
+     * when the editor is committed.
+     */
+    public Editor edit(String key) {
+        // the initialization deletes the staging directories it finds, so it mustn't run after this one is created
+        synchronized (this) {
+            initialize();
+        }
+        File stagingDirectory = new File(directory, "." + key + "." + Thread.currentThread().getId());
+        deleteRecursively(stagingDirectory);
+        return new Editor(key, stagingDirectory);
+    }
+
+    /**
+     * @return whether the export was cached
+     */
+    public synchronized boolean remove(String key) {
+        initialize();
+        Long entrySize = entrySizes.remove(key);
+        if (entrySize != null && attachmentStore != null) {
+            releaseAttachments(key);
+        }
+        deleteRecursively(new File(directory, key));
+        if (entrySize == null) return false;
+        size -= entrySize;
+        return true;
+    }
+
+    public synchronized void clear() {
+        initialize();
+        for (String key : new ArrayList<String>(entrySizes.keySet())) {
+            remove(key);
+        }
+    }
+
+    /**
+     * @return total size of the cached exports in bytes
+     */
+    public synchronized long getSize() {
+        initialize();
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getExportCount() {
+        initialize();
+        return entrySizes.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    static File getOutputFile(File entryDirectory) {
+        return new File(entryDirectory, OUTPUT_FILE);
+    }
+
+    static File getAttachmentFile(File entryDirectory, String attachmentName) {
+        // attachment names come from the server and must not escape the directory
+        String fileName = String.valueOf(attachmentName).replace('/', '_').replace('\\', '_');
+        if (fileName.startsWith(".")) {
+            fileName = "_" + fileName;
+        }
+        return new File(new File(entryDirectory, ATTACHMENTS_DIR), fileName);
+    }
+
+    private synchronized CachedExport commit(String key, File stagingDirectory, ReportOutputResource outputResource,
+                                             List<ReportOutputResource> attachments,
+                                             Map<String, String> attachmentDigests) throws IOException {
+        initialize();
+        long creationTime = System.currentTimeMillis();
+        BinaryCacheWriter writer = new BinaryCacheWriter();
+        writer.writeLong(creationTime);
+        writeResource(writer, outputResource);
+        if (writer.writeSize(attachments)) {
+            for (ReportOutputResource attachment : attachments) {
+                writeResource(writer, attachment);
+                writer.writeString((attachment != null) ? attachmentDigests.get(attachment.getFileName()) : null);
+            }
+        }
+        writer.writeTo(new File(stagingDirectory, METADATA_FILE), VERSION);
+
+        remove(key);
+        File entryDirectory = new File(directory, key);
+        if (!stagingDirectory.renameTo(entryDirectory)) {
+            throw new IOException("Couldn't move " + stagingDirectory + " to " + entryDirectory);
+        }
+        long entrySize = sizeOf(entryDirectory);
+        entrySizes.put(key, entrySize);
+        size += entrySize;
+        trimToSize(key);
+        return new CachedExport(key, entryDirectory, outputResource, attachments, attachmentDigests,
+                attachmentStore, creationTime);
+    }
+
+    private CachedExport read(String key) throws IOException {
+        File entryDirectory = new File(directory, key);
+        BinaryCacheReader reader = BinaryCacheReader.map(new File(entryDirectory, METADATA_FILE), VERSION);
+        long creationTime = reader.readLong();
+        ReportOutputResource outputResource = readResource(reader);
+        int count = reader.readSize();
+        List<ReportOutputResource> attachments = new ArrayList<ReportOutputResource>(Math.max(count, 0));
+        Map<String, String> attachmentDigests = new HashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            ReportOutputResource attachment = readResource(reader);
+            String digest = reader.readString();
+            attachments.add(attachment);
+            if (attachment != null && digest != null) {
+                attachmentDigests.put(attachment.getFileName(), digest);
+            }
+        }
+        return new CachedExport(key, entryDirectory, outputResource, attachments, attachmentDigests,
+                attachmentStore, creationTime);
+    }
+
+    private void releaseAttachments(String key) {
+        try {
+            for (String digest : read(key).getAttachmentDigests().values()) {
+                attachmentStore.release(digest);
+            }
+        } catch (IOException ex) {
+            // the blobs are left in the store
+        }
+    }
+
+    /**
+     * Evicts the least recently used exports until the quota is met, except the one just stored.
+     */
+    private void trimToSize(String keptKey) {
+        while (size > maxSize) {
+            String eldestKey = null;
+            for (String key : entrySizes.keySet()) {
+                if (!key.equals(keptKey)) {
+                    eldestKey = key;
+                    break;
+                }
+            }
+            if (eldestKey == null) break;
+            remove(eldestKey);
+            evictionCount++;
+        }
+    }
+
+    private void initialize() {
+        if (initialized) return;
+        initialized = true;
+        directory.mkdirs();
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        List<File> entryDirectories = new ArrayList<File>();
+        for (File file : files) {
+            if (file.getName().startsWith(".")) {
+                // left by an export that was interrupted
+                deleteRecursively(file);
+            } else if (new File(file, METADATA_FILE).isFile()) {
+                entryDirectories.add(file);
+            } else {
+                deleteRecursively(file);
+            }
+        }
+        File[] sorted = entryDirectories.toArray(new File[entryDirectories.size()]);
+        Arrays.sort(sorted, new Comparator<File>() {
+            public int compare(File first, File second) {
+                long firstModified = new File(first, METADATA_FILE).lastModified();
+                long secondModified = new File(second, METADATA_FILE).lastModified();
+                return (firstModified < secondModified) ? -1 : (firstModified == secondModified ? 0 : 1);
+            }
+        });
+        for (File entryDirectory : sorted) {
+            long entrySize = sizeOf(entryDirectory);
+            entrySizes.put(entryDirectory.getName(), entrySize);
+            size += entrySize;
+        }
+        trimToSize(null);
+    }
+
+    private static void writeResource(BinaryCacheWriter writer, ReportOutputResource resource) throws IOException {
+        writer.writeBoolean(resource != null);
+        if (resource != null) {
+            writer.writeString(resource.getContentType());
+            writer.writeString(resource.getFileName());
+        }
+    }
+
+    private static ReportOutputResource readResource(BinaryCacheReader reader) throws IOException {
+        if (!reader.readBoolean()) return null;
+        ReportOutputResource resource = new ReportOutputResource();
+        resource.setContentType(reader.readString());
+        resource.setFileName(reader.readString());
+        return resource;
+    }
+
+    private static long sizeOf(File file) {
+        if (file.isFile()) return file.length();
+        long result = 0;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                result += sizeOf(child);
+            }
+        }
+        return result;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Writes the files of one export. Either {@link #commit(ReportOutputResource, List)} or {@link #abort()}
+     * must be called when done.
+     */
+    public class Editor {
+        private final String key;
+        private final File stagingDirectory;
+        private final Map<String, String> attachmentDigests = new LinkedHashMap<String, String>();
+        private boolean done;
+
+        Editor(String key, File stagingDirectory) {
+            this.key = key;
+            this.stagingDirectory = stagingDirectory;
+        }
+
+        public File getOutputFile() {
+            return ExportCache.getOutputFile(stagingDirectory);
+        }
+
+        public File getAttachmentFile(String attachmentName) {
+            return ExportCache.getAttachmentFile(stagingDirectory, attachmentName);
+        }
+
+        /**
+         * Refers the attachment to a blob of the attachment store instead of the attachment file.
+         * The reference to the blob acquired by the caller is handed over to the export.
+         */
+        public void putAttachmentDigest(String attachmentName, String digest) {
+            if (attachmentStore == null) {
+                throw new IllegalStateException("Export cache has no attachment store");
+            }
+            attachmentDigests.put(attachmentName, digest);
+        }
+
+        /**
+         * Stores the written files as the export of the key.
+         *
+         * @param outputResource the content type and the file name of the output
+         * @param attachments    the attachments referenced by the output (can be <code>null</code>)
+         */
+        public CachedExport commit(ReportOutputResource outputResource, List<ReportOutputResource> attachments)
+                throws IOException {
+            if (done) {
+                throw new IllegalStateException("Editor is already committed or aborted");
+            }
+            stagingDirectory.mkdirs();
+            CachedExport cachedExport = ExportCache.this.commit(key, stagingDirectory, outputResource, attachments,
+                    attachmentDigests);
+            done = true;
+            return cachedExport;
+        }
+
+        /**
+         * Discards the written files, unless the editor was committed.
+         */
+        public void abort() {
+            if (!done) {
+                done = true;
+                deleteRecursively(stagingDirectory);
+                for (String digest : attachmentDigests.values()) {
+                    try {
+                        attachmentStore.release(digest);
+                    } catch (IOException ex) {
+                        // the blob is left in the store
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+import static com.jaspersoft.android.sdk.client.http.DecompressingClientHttpResponse.ENCODING_DEFLATE;
+import static com.jaspersoft.android.sdk.client.http.DecompressingClientHttpResponse.ENCODING_GZIP;
+import static com.jaspersoft.android.sdk.client.http.DecompressingClientHttpResponse.HEADER_CONTENT_ENCODING;
+
+/**
+ * Interceptor that negotiates <code>gzip</code> or <code>deflate</code> compression of response bodies
+ * and decodes them as a stream. Transferred and decoded byte counts are added to the given statistics.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CompressionInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String ACCEPTED_ENCODINGS = ENCODING_GZIP + ", " + ENCODING_DEFLATE;
+
+    private final TransferStatistics statistics;
+
+    public CompressionInterceptor(TransferStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders requestHeaders = request.getHeaders();
+        if (!requestHeaders.containsKey(HEADER_ACCEPT_ENCODING)) {
+            requestHeaders.set(HEADER_ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        String contentEncoding = response.getHeaders().getFirst(HEADER_CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            contentEncoding = contentEncoding.trim().toLowerCase();
+            if (!ENCODING_GZIP.equals(contentEncoding) && !ENCODING_DEFLATE.equals(contentEncoding)) {
+                // unknown or identity encoding, pass the body as is
+                contentEncoding = null;
+            }
+        }
+        statistics.incrementResponses(contentEncoding != null);
+        return new DecompressingClientHttpResponse(response, contentEncoding, statistics);
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Response wrapper that decodes a <code>gzip</code> or <code>deflate</code> encoded body
+ * while it is being read and counts the transferred and decoded bytes.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+class DecompressingClientHttpResponse implements ClientHttpResponse {
+
+    static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    static final String ENCODING_GZIP = "gzip";
+    static final String ENCODING_DEFLATE = "deflate";
+
+    private final ClientHttpResponse response;
+    private final String contentEncoding;
+    private final TransferStatistics statistics;
+    private HttpHeaders headers;
+    private InputStream body;
+
+    DecompressingClientHttpResponse(ClientHttpResponse response, String contentEncoding, TransferStatistics statistics) {
+        this.response = response;
+        this.contentEncoding = contentEncoding;
+        this.statistics = statistics;
+    }
+
+    public HttpHeaders getHeaders() {
+        if (headers == null) {
+            headers = new HttpHeaders();
+            headers.putAll(response.getHeaders());
+            if (contentEncoding != null) {
+                // the decoded body has neither this encoding nor this length
+                headers.remove(HEADER_CONTENT_ENCODING);
+                headers.remove("Content-Length");
+            }
+        }
+        return headers;
+    }
+
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            if (contentEncoding != null) {
+                // the wrapped response must not decode the body by itself, we need the raw bytes
+                response.getHeaders().remove(HEADER_CONTENT_ENCODING);
+            }
+            InputStream wireStream = new CountingInputStream(response.getBody(), true);
+            if (contentEncoding == null) {
+                body = wireStream;
+            } else {
+                body = new CountingInputStream(new LazyDecodingInputStream(wireStream, contentEncoding), false);
+            }
+        }
+        return body;
+    }
+
+    public HttpStatus getStatusCode() throws IOException {
+        return response.getStatusCode();
+    }
+
+    public int getRawStatusCode() throws IOException {
+        return response.getRawStatusCode();
+    }
+
+    public String getStatusText() throws IOException {
+        return response.getStatusText();
+    }
+
+    public void close() {
+        try {
+            if (body != null) body.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+        response.close();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Counts bytes as wire bytes, or as decoded body bytes, or as both for identity encoded responses.
+     */
+    private class CountingInputStream extends FilterInputStream {
+
+        private final boolean wire;
+
+        CountingInputStream(InputStream in, boolean wire) {
+            super(in);
+            this.wire = wire;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) count(1);
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int result = super.read(buffer, offset, length);
+            if (result > 0) count(result);
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            if (skipped > 0) count(skipped);
+            return skipped;
+        }
+
+        private void count(long bytes) {
+            if (wire) statistics.addWireBytes(bytes);
+            if (!wire || contentEncoding == null) statistics.addBodyBytes(bytes);
+        }
+    }
+
+    /**
+     * Creates the decoder on first read, so that empty bodies (e.g. of a 304 response) don't fail
+     * on a missing gzip header. Deflate bodies are accepted both with and without the zlib wrapper.
+     */
+    private static class LazyDecodingInputStream extends InputStream {
+
+        private final PushbackInputStream source;
+        private final String encoding;
+        private InputStream decoder;
+
+        LazyDecodingInputStream(InputStream source, String encoding) {
+            this.source = new PushbackInputStream(source, 2);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            InputStream in = getDecoder();
+            return (in != null) ? in.read() : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            InputStream in = getDecoder();
+            return (in != null) ? in.read(buffer, offset, length) : -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoder != null) {
+                decoder.close();
+            } else {
+                source.close();
+            }
+        }
+
+        private InputStream getDecoder() throws IOException {
+            if (decoder == null) {
+                byte[] head = new byte[2];
+                int count = source.read(head);
+                if (count <= 0) return null;
+                source.unread(head, 0, count);
+
+                if (ENCODING_GZIP.equals(encoding)) {
+                    decoder = new GZIPInputStream(source);
+                } else {
+                    // zlib header: CM = 8 and the header checksum is a multiple of 31
+                    boolean zlibWrapped = count == 2 && (head[0] & 0x0F) == 8
+                            && (((head[0] & 0xFF) << 8) | (head[1] & 0xFF)) % 31 == 0;
+                    decoder = new InflaterInputStream(source, new Inflater(!zlibWrapped));
+                }
+            }
+            return decoder;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Transport used by {@link com.jaspersoft.android.sdk.client.JsRestClient} to execute HTTP requests.
+ * A transport owns its connections, applies the timeouts and streams request and response bodies.
+ * Implementations must be safe to use from multiple threads.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public interface HttpTransport extends ClientHttpRequestFactory {
+
+    /**
+     * Sets the timeout until a connection is established. A timeout value of 0 specifies an infinite timeout.
+     *
+     * @param timeout the timeout value in milliseconds
+     */
+    void setConnectTimeout(int timeout);
+
+    /**
+     * Sets the timeout for waiting for data. A timeout value of 0 specifies an infinite timeout.
+     *
+     * @param timeout the timeout value in milliseconds
+     */
+    void setReadTimeout(int timeout);
+
+    /**
+     * Releases all connections and threads held by this transport. The transport must not be used afterwards.
+     */
+    void destroy();
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request factory that keeps connections to JasperReports Server alive and reuses them from a
+ * thread-safe pool, so that consecutive requests don't pay a new TCP and TLS handshake.
+ * Pool limits, idle eviction and stale connection checks are taken from the {@link JsServerProfile}.
+ * The factory can be shared between threads, e.g. between the workers of a spice service.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class PooledClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory implements HttpTransport {
+
+    private final ClientConnectionManager connectionManager;
+    private final IdleConnectionEvictor connectionEvictor;
+    private final String authorization;
+
+    /**
+     * Creates a new pooled request factory for the specified server.
+     *
+     * @param serverProfile server profile that holds the pool settings
+     * @param authorization value of the <code>Authorization</code> header added to every request
+     *                      (can be <code>null</code>)
+     */
+    public PooledClientHttpRequestFactory(JsServerProfile serverProfile, String authorization) {
+        this.authorization = authorization;
+
+        HttpParams params = new BasicHttpParams();
+        ConnManagerParams.setMaxTotalConnections(params, serverProfile.getMaxConnectionsTotal());
+        ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(serverProfile.getMaxConnectionsPerHost()));
+        HttpConnectionParams.setStaleCheckingEnabled(params, serverProfile.isStaleConnectionCheckEnabled());
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", PlainSocketFactory.getSocketFactory(), 80));
+        schemeRegistry.register(new Scheme("https", SSLSocketFactory.getSocketFactory(), 443));
+
+        connectionManager = new ThreadSafeClientConnManager(params, schemeRegistry);
+
+        final long idleTimeout = serverProfile.getConnectionIdleTimeout();
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager, params);
+        httpClient.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                // honor the server's Keep-Alive header, but never keep a connection longer than the idle timeout
+                long duration = super.getKeepAliveDuration(response, context);
+                return (duration > 0 && duration < idleTimeout) ? duration : idleTimeout;
+            }
+        });
+        // cookies are managed by SessionCookieStore, if at all
+        httpClient.removeRequestInterceptorByClass(RequestAddCookies.class);
+        httpClient.removeResponseInterceptorByClass(ResponseProcessCookies.class);
+        setHttpClient(httpClient);
+
+        connectionEvictor = new IdleConnectionEvictor(connectionManager, idleTimeout);
+        connectionEvictor.start();
+    }
+
+    @Override
+    protected void postProcessHttpRequest(HttpUriRequest request) {
+        if (authorization != null) {
+            request.setHeader("Authorization", authorization);
+        }
+    }
+
+    /**
+     * Stops the idle connection eviction and closes all pooled connections.
+     */
+    @Override
+    public void destroy() {
+        connectionEvictor.shutdown();
+        connectionManager.shutdown();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Daemon thread that periodically closes expired connections and connections
+     * that have been idle in the pool for longer than the configured timeout.
+     */
+    private static class IdleConnectionEvictor extends Thread {
+
+        private final ClientConnectionManager connectionManager;
+        private final long idleTimeout;
+        private volatile boolean shutdown;
+
+        IdleConnectionEvictor(ClientConnectionManager connectionManager, long idleTimeout) {
+            super("JsIdleConnectionEvictor");
+            this.connectionManager = connectionManager;
+            this.idleTimeout = idleTimeout;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (this) {
+                        wait(Math.max(idleTimeout / 2, 1000));
+                    }
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException ex) {
+                // terminate
+            }
+        }
+
+        void shutdown() {
+            shutdown = true;
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.web.client.RestClientException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical calls, so that only the first caller executes the network exchange
+ * and all callers that arrive while it is in flight share its result or its exception.
+ * Only idempotent calls should be coalesced. Results are shared as is, so callers must not modify them.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class RequestCoalescer {
+
+    private final Map<String, Flight> flights = new HashMap<String, Flight>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * Creates the key of a call from the request method, the expanded URL and a canonical form of the body.
+     * The body is kept in the key as is rather than as a hash, so that different bodies never share a result.
+     *
+     * @param method request method
+     * @param url    expanded request URL
+     * @param body   canonical form of the request body (can be <code>null</code>)
+     * @return the call key
+     */
+    public static String createKey(String method, String url, String body) {
+        StringBuilder key = new StringBuilder(method).append(' ').append(url);
+        if (body != null) {
+            key.append('#').append(body);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Executes the call, unless an identical call is already in flight. In that case waits
+     * for the call to complete and returns its result.
+     *
+     * @param key  the call key
+     * @param call the call to execute
+     * @return the result of the call
+     * @throws RestClientException thrown by the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Call<T> call) throws RestClientException {
+        Flight flight;
+        boolean leader = false;
+        synchronized (flights) {
+            flight = flights.get(key);
+            if (flight == null) {
+                flight = new Flight();
+                flights.put(key, flight);
+                leader = true;
+            }
+        }
+
+        if (!leader) {
+            coalescedCount.incrementAndGet();
+            return (T) flight.await();
+        }
+
+        executedCount.incrementAndGet();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = call.execute();
+            return (T) result;
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } catch (Error err) {
+            failure = err;
+            throw err;
+        } finally {
+            synchronized (flights) {
+                flights.remove(key);
+            }
+            flight.complete(result, failure);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    /**
+     * @return the number of calls that were executed
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * @return the number of calls that shared the result of a call in flight
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    public interface Call<T> {
+        T execute() throws RestClientException;
+    }
+
+    private static class Flight {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Object result;
+        private volatile Throwable failure;
+
+        void complete(Object result, Throwable failure) {
+            this.result = result;
+            this.failure = failure;
+            latch.countDown();
+        }
+
+        Object await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    // the call is still in flight, it can't be abandoned without a result
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return result;
+        }
+    }
+
+}
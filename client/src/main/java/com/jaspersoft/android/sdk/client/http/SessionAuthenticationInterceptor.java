@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+
+/**
+ * Interceptor that authenticates against JasperReports Server once and then sends the session
+ * cookie instead of the Basic authentication header. When the server answers with
+ * <code>401 Unauthorized</code> the session is renewed and the request is repeated once.
+ * Concurrent requests that fail with the same expired session share a single re-authentication,
+ * and they share its failure as well: a rejected login isn't repeated by the requests that waited for it,
+ * nor by the request that sent it, so wrong credentials cost one login per request at most.
+ * <p/>
+ * The interceptor repeats requests, so it must be the last one in the chain.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SessionAuthenticationInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String REST_LOGIN_URI = "/login";
+
+    private static final String HEADER_COOKIE = "Cookie";
+    private static final String HEADER_SET_COOKIE = "Set-Cookie";
+
+    private final JsServerProfile serverProfile;
+    private final ClientHttpRequestFactory requestFactory;
+    private final SessionCookieStore cookieStore;
+    private final URI loginUri;
+    private final Object loginLock = new Object();
+    // incremented after every login attempt, successful or not
+    private volatile int loginGeneration;
+
+    /**
+     * Creates a new interceptor for the specified server.
+     *
+     * @param serverProfile  server profile with the account credentials
+     * @param requestFactory raw request factory used to send login requests
+     */
+    public SessionAuthenticationInterceptor(JsServerProfile serverProfile, ClientHttpRequestFactory requestFactory) {
+        this.serverProfile = serverProfile;
+        this.requestFactory = requestFactory;
+        this.cookieStore = SessionCookieStore.forProfile(serverProfile);
+        this.loginUri = URI.create(serverProfile.getServerUrl() + JsRestClient.REST_SERVICES_URI + REST_LOGIN_URI);
+    }
+
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        // the generation is read first, so a session of a later login is never taken for the one it replaced
+        int generation = loginGeneration;
+        String sessionId = cookieStore.getSessionId();
+        boolean loggedIn = false;
+        if (sessionId == null) {
+            sessionId = authenticate(generation);
+            loggedIn = true;
+        }
+
+        applyCookies(request);
+        ClientHttpResponse response = execution.execute(request, body);
+
+        // neither a request without session nor one with the session it has just got is worth another login
+        if (response.getStatusCode() == HttpStatus.UNAUTHORIZED && sessionId != null && !loggedIn) {
+            String renewedSessionId = authenticate(generation);
+            if (renewedSessionId != null && !renewedSessionId.equals(sessionId)) {
+                response.close();
+                applyCookies(request);
+                response = execution.execute(request, body);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Discards the current session, so that the next request logs in again.
+     */
+    public void invalidateSession() {
+        cookieStore.clear();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void applyCookies(HttpRequest request) {
+        String cookieHeader = cookieStore.getCookieHeader();
+        if (cookieHeader != null) {
+            request.getHeaders().set(HEADER_COOKIE, cookieHeader);
+        }
+    }
+
+    /**
+     * Logs in unless another thread has tried to since the session was read, in which case the outcome
+     * of its login is shared.
+     *
+     * @param generation the login generation the session was read in
+     * @return the current session ID, or <code>null</code> if authentication failed
+     */
+    private String authenticate(int generation) throws IOException {
+        synchronized (loginLock) {
+            if (loginGeneration == generation) {
+                cookieStore.clear();
+                try {
+                    login();
+                } finally {
+                    loginGeneration++;
+                }
+            }
+            return cookieStore.getSessionId();
+        }
+    }
+
+    private void login() throws IOException {
+        String credentials = "j_username=" + URLEncoder.encode(serverProfile.getUsernameWithOrgId(), "UTF-8")
+                + "&j_password=" + URLEncoder.encode(serverProfile.getPassword(), "UTF-8");
+
+        ClientHttpRequest loginRequest = requestFactory.createRequest(loginUri, HttpMethod.POST);
+        loginRequest.getHeaders().setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        loginRequest.getBody().write(credentials.getBytes("UTF-8"));
+
+        ClientHttpResponse response = loginRequest.execute();
+        try {
+            HttpHeaders headers = response.getHeaders();
+            if (response.getStatusCode() == HttpStatus.OK) {
+                cookieStore.addCookies(headers.get(HEADER_SET_COOKIE));
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe store of the cookies received from a single JasperReports Server account.
+ * Stores are shared per server profile, so all clients that use the same profile
+ * also share the same server session.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SessionCookieStore {
+
+    public static final String SESSION_COOKIE_NAME = "JSESSIONID";
+
+    private static final Map<String, SessionCookieStore> STORES = new HashMap<String, SessionCookieStore>();
+
+    private final Map<String, String> cookies = new LinkedHashMap<String, String>();
+
+    /**
+     * Returns the cookie store associated with the specified server profile.
+     *
+     * @param serverProfile server profile
+     * @return the cookie store, never <code>null</code>
+     */
+    public static SessionCookieStore forProfile(JsServerProfile serverProfile) {
+        String key = serverProfile.getServerUrl() + "|" + serverProfile.getUsernameWithOrgId();
+        synchronized (STORES) {
+            SessionCookieStore store = STORES.get(key);
+            if (store == null) {
+                store = new SessionCookieStore();
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Parses the values of <code>Set-Cookie</code> headers and stores the received cookies.
+     * Cookie attributes such as path or expiration are ignored.
+     *
+     * @param setCookieHeaders values of the <code>Set-Cookie</code> response headers (can be <code>null</code>)
+     */
+    public synchronized void addCookies(List<String> setCookieHeaders) {
+        if (setCookieHeaders == null) return;
+        for (String header : setCookieHeaders) {
+            int attributesIndex = header.indexOf(';');
+            String pair = (attributesIndex == -1) ? header : header.substring(0, attributesIndex);
+            int separatorIndex = pair.indexOf('=');
+            if (separatorIndex > 0) {
+                cookies.put(pair.substring(0, separatorIndex).trim(), pair.substring(separatorIndex + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * @return the value for the <code>Cookie</code> request header, or <code>null</code> if the store is empty
+     */
+    public synchronized String getCookieHeader() {
+        if (cookies.isEmpty()) return null;
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+            if (header.length() > 0) header.append("; ");
+            header.append(cookie.getKey()).append('=').append(cookie.getValue());
+        }
+        return header.toString();
+    }
+
+    /**
+     * @return the current session ID, or <code>null</code> if there is no session
+     */
+    public synchronized String getSessionId() {
+        return cookies.get(SESSION_COOKIE_NAME);
+    }
+
+    public synchronized void clear() {
+        cookies.clear();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the response bytes received by a client. Wire bytes are counted
+ * as they were transferred, body bytes after the content encoding was decoded, so that
+ * the savings of the response compression can be verified.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class TransferStatistics {
+
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong bodyBytes = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong uncompressedResponses = new AtomicLong();
+
+    void addWireBytes(long count) {
+        wireBytes.addAndGet(count);
+    }
+
+    void addBodyBytes(long count) {
+        bodyBytes.addAndGet(count);
+    }
+
+    void incrementResponses(boolean compressed) {
+        if (compressed) {
+            compressedResponses.incrementAndGet();
+        } else {
+            uncompressedResponses.incrementAndGet();
+        }
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public void reset() {
+        wireBytes.set(0);
+        bodyBytes.set(0);
+        compressedResponses.set(0);
+        uncompressedResponses.set(0);
+    }
+
+    /**
+     * @return the ratio of wire bytes to decoded body bytes, or 1 if nothing was received yet
+     */
+    public double getCompressionRatio() {
+        long body = bodyBytes.get();
+        return (body > 0) ? (double) wireBytes.get() / body : 1;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferStatistics{" +
+                "wireBytes=" + wireBytes +
+                ", bodyBytes=" + bodyBytes +
+                ", compressedResponses=" + compressedResponses +
+                ", uncompressedResponses=" + uncompressedResponses +
+                '}';
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    public long getBodyBytes() {
+        return bodyBytes.get();
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    public long getUncompressedResponses() {
+        return uncompressedResponses.get();
+    }
+
+}
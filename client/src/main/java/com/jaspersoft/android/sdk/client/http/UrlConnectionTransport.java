@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Transport based on {@link HttpURLConnection}. Every request opens a new connection,
+ * keep-alive is disabled because of its buggy implementation in older Android versions.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class UrlConnectionTransport extends SimpleClientHttpRequestFactory implements HttpTransport {
+
+    private final String authorization;
+
+    /**
+     * @param authorization value of the <code>Authorization</code> header added to every request
+     *                      (can be <code>null</code>)
+     */
+    public UrlConnectionTransport(String authorization) {
+        this.authorization = authorization;
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        if (authorization != null) {
+            connection.setRequestProperty("Authorization", authorization);
+        }
+        // disable buggy keep-alive
+        connection.setRequestProperty("Connection", "close");
+    }
+
+    public void destroy() {
+        // connections are not reused, nothing to release
+    }
+
+}
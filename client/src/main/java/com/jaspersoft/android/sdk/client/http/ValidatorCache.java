@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.http;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of HTTP validators (<code>ETag</code> and <code>Last-Modified</code>) together with the
+ * objects parsed from the validated responses. It allows to send conditional GET requests and to serve
+ * a <code>304 Not Modified</code> response from memory, without downloading and parsing the body again.
+ * <p/>
+ * The cached objects are returned as is, so callers must not modify them.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ValidatorCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    private final Map<String, Entry> entries;
+    private long hitCount;
+    private long missCount;
+
+    public ValidatorCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of cached responses, least recently used entries are evicted first
+     */
+    public ValidatorCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Executes a conditional GET request. The validators of a cached response are sent with
+     * <code>If-None-Match</code> and <code>If-Modified-Since</code> headers. If the server answers with
+     * <code>304 Not Modified</code>, the cached object and headers are returned with the <code>200 OK</code> status.
+     *
+     * @param restTemplate template that executes the request
+     * @param keyPrefix    prefix that scopes the cached responses, e.g. to a server profile
+     * @param url          the URL template
+     * @param responseType the type of the response body
+     * @param urlVariables the variables to expand the template
+     * @return the response entity
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     */
+    public <T> ResponseEntity<T> exchange(RestTemplate restTemplate, String keyPrefix, String url,
+                                          Class<T> responseType, Object... urlVariables) throws RestClientException {
+        return exchange(restTemplate, keyPrefix, url, (HttpHeaders) null, responseType, urlVariables);
+    }
+
+    /**
+     * Executes a conditional GET request with additional request headers, e.g. <code>Accept</code>.
+     *
+     * @param restTemplate   template that executes the request
+     * @param keyPrefix      prefix that scopes the cached responses, e.g. to a server profile
+     * @param url            the URL template
+     * @param requestHeaders the additional request headers (can be <code>null</code>)
+     * @param responseType   the type of the response body
+     * @param urlVariables   the variables to expand the template
+     * @return the response entity
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     * @see #exchange(RestTemplate, String, String, Class, Object...)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> exchange(RestTemplate restTemplate, String keyPrefix, String url,
+                                          HttpHeaders requestHeaders, Class<T> responseType, Object... urlVariables)
+            throws RestClientException {
+        String key = keyPrefix + " " + new UriTemplate(url).expand(urlVariables);
+        Entry entry = get(key);
+
+        HttpHeaders conditionalHeaders = new HttpHeaders();
+        if (requestHeaders != null) {
+            conditionalHeaders.putAll(requestHeaders);
+        }
+        if (entry != null) {
+            if (entry.getETag() != null) {
+                conditionalHeaders.setIfNoneMatch(entry.getETag());
+            }
+            if (entry.getLastModified() > 0) {
+                conditionalHeaders.setIfModifiedSince(entry.getLastModified());
+            }
+        }
+
+        ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET,
+                new HttpEntity<Object>(conditionalHeaders), responseType, urlVariables);
+
+        synchronized (this) {
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && entry != null) {
+                hitCount++;
+                return new ResponseEntity<T>((T) entry.getBody(), entry.getHeaders(), HttpStatus.OK);
+            }
+            missCount++;
+            if (response.getStatusCode() == HttpStatus.OK) {
+                put(key, response.getHeaders(), response.getBody());
+            } else {
+                entries.remove(key);
+            }
+        }
+        return response;
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores the parsed body of a response, if the response carries at least one validator.
+     *
+     * @param key     cache key, e.g. the server profile together with the request URL
+     * @param headers response headers
+     * @param body    object parsed from the response body
+     */
+    public synchronized void put(String key, HttpHeaders headers, Object body) {
+        String eTag = headers.getETag();
+        long lastModified = headers.getLastModified();
+        if (body != null && (eTag != null || lastModified > 0)) {
+            entries.put(key, new Entry(eTag, lastModified, headers, body));
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    /**
+     * @return the number of requests that were answered with <code>304 Not Modified</code>
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of requests that downloaded a full response body
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    public static class Entry {
+
+        private final String eTag;
+        private final long lastModified;
+        private final HttpHeaders headers;
+        private final Object body;
+
+        Entry(String eTag, long lastModified, HttpHeaders headers, Object body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return the headers of the response that delivered the body
+         */
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        public Object getBody() {
+            return body;
+        }
+    }
+
+}
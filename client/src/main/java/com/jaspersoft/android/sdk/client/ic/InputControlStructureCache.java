@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.ic;
+
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheReader;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheWriter;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCodec;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCodecs;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import org.springframework.web.client.RestClientException;
+import roboguice.util.temp.Ln;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of the structure of the report input controls, i.e. the controls without their states.
+ * The structure is stored along with the <code>version</code> of the report and is reused as long as
+ * the report has the same version, so opening a report only requests the states of its controls.
+ * The option lists, which make up most of the input controls payload, are part of the states.
+ * <p/>
+ * The structure is requested again along with the states if the version of the report is unknown or changed,
+ * or if the states don't match the cached controls.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class InputControlStructureCache {
+
+    private static final int VERSION = 1;
+    private static final String FILE_PREFIX = "ic-structure-";
+
+    private final JsRestClient jsRestClient;
+    private final File cacheDir;
+    private final BinaryCodec<InputControlsList> controlsCodec = BinaryCodecs.getInputControlsStructureCodec();
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    /**
+     * @param jsRestClient the client of the server the reports belong to
+     * @param cacheDir     the directory the structures are kept in
+     */
+    public InputControlStructureCache(JsRestClient jsRestClient, File cacheDir) {
+        this.jsRestClient = jsRestClient;
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @see #getInputControlsList(String, Integer, List)
+     */
+    public InputControlsList getInputControlsList(ResourceLookup report) throws RestClientException {
+        return getInputControlsList(report.getUri(), report.getVersion(), new ArrayList<ReportParameter>());
+    }
+
+    /**
+     * Gets the list of all input controls of the report along with their states according to the selected values.
+     * The states are always up to date, while the structure comes from the cache if the report version didn't change.
+     *
+     * @param reportUri      repository URI of the report
+     * @param reportVersion  version of the report (e.g. from its {@link ResourceLookup}),
+     *                       or <code>null</code> to bypass the cache
+     * @param selectedValues list of selected values
+     * @return the InputControlsList value
+     * @throws RestClientException thrown by RestTemplate whenever it encounters client-side HTTP errors
+     */
+    public InputControlsList getInputControlsList(String reportUri, Integer reportVersion,
+                                                  List<ReportParameter> selectedValues) throws RestClientException {
+        if (reportVersion != null) {
+            InputControlsList structure = readStructure(reportUri, reportVersion);
+            if (structure != null) {
+                InputControlStatesList states = jsRestClient.getInputControlsValuesList(reportUri,
+                        new ArrayList<String>(), selectedValues);
+                if (applyStates(structure, states.getInputControlStates())) {
+                    hitCount.incrementAndGet();
+                    return structure;
+                }
+            }
+        }
+
+        missCount.incrementAndGet();
+        InputControlsList controlsList = jsRestClient.getInputControlsList(reportUri, new ArrayList<String>(),
+                selectedValues);
+        if (reportVersion != null) {
+            writeStructure(reportUri, reportVersion, controlsList);
+        }
+        return controlsList;
+    }
+
+    /**
+     * Removes the cached structure of the report.
+     */
+    public void remove(String reportUri) {
+        getFile(reportUri).delete();
+    }
+
+    /**
+     * Removes all cached structures.
+     */
+    public void clear() {
+        File[] files = cacheDir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.getName().startsWith(FILE_PREFIX)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @return number of requests that only fetched the states of the controls
+     */
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of requests that fetched the whole input controls
+     */
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private boolean applyStates(InputControlsList structure, List<InputControlState> states) {
+        List<InputControl> controls = structure.getInputControls();
+        if (controls == null || states == null) return false;
+        // the server doesn't return the states of a report whose controls were replaced
+        if (states.isEmpty() && !controls.isEmpty()) return false;
+
+        Map<String, InputControlState> statesById = new HashMap<String, InputControlState>();
+        for (InputControlState state : states) {
+            statesById.put(state.getId(), state);
+        }
+        for (InputControl control : controls) {
+            control.setState(statesById.remove(control.getId()));
+        }
+        return statesById.isEmpty();
+    }
+
+    private InputControlsList readStructure(String reportUri, int reportVersion) {
+        File file = getFile(reportUri);
+        try {
+            BinaryCacheReader reader = BinaryCacheReader.map(file, getCodecVersion());
+            if (!reportUri.equals(reader.readString()) || reader.readInt() != reportVersion) {
+                return null;
+            }
+            return controlsCodec.read(reader);
+        } catch (FileNotFoundException ex) {
+            return null;
+        } catch (IOException ex) {
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeStructure(String reportUri, int reportVersion, InputControlsList controlsList) {
+        try {
+            BinaryCacheWriter writer = new BinaryCacheWriter();
+            writer.writeString(reportUri);
+            writer.writeInt(reportVersion);
+            controlsCodec.write(writer, controlsList);
+            cacheDir.mkdirs();
+            writer.writeTo(getFile(reportUri), getCodecVersion());
+        } catch (IOException ex) {
+            Ln.w(InputControlStructureCache.class.getName(), "Input controls structure wasn't saved: " + ex.getMessage());
+        }
+    }
+
+    private File getFile(String reportUri) {
+        CacheKeyBuilder builder = new CacheKeyBuilder();
+        JsServerProfile profile = jsRestClient.getServerProfile();
+        if (profile != null) {
+            builder.addUri(profile.getServerUrl())
+                    .add(profile.getOrganization())
+                    .add(profile.getUsername());
+        }
+        builder.addUri(reportUri);
+        return new File(cacheDir, FILE_PREFIX + Long.toHexString(builder.build()));
+    }
+
+    private int getCodecVersion() {
+        return (VERSION << 8) | controlsCodec.getVersion();
+    }
+
+}
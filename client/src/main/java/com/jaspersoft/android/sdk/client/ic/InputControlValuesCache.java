@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.ic;
+
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded memo cache of the input control states resolved for a selection, so that toggling a master control
+ * back to a selection that was already resolved doesn't hit the server again.
+ * <p/>
+ * The states are keyed by the report URI, the requested control IDs and the canonical selected values of
+ * the requested controls and their masters, direct or not. The values of unrelated controls are ignored
+ * once the master dependencies of the report are known, see {@link #setMasterDependencies(String, String, List)}.
+ * Until then all selected values are part of the key.
+ * <p/>
+ * The cached objects are returned as is, so callers must not modify them.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class InputControlValuesCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    private final Map<Long, Entry> entries;
+    private final Map<String, Map<String, List<String>>> masterDependencies =
+            new HashMap<String, Map<String, List<String>>>();
+    private long hitCount;
+    private long missCount;
+
+    public InputControlValuesCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries maximum number of cached states lists, least recently used entries are evicted first
+     */
+    public InputControlValuesCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param keyPrefix      prefix that scopes the cached states, e.g. to a server profile
+     * @param reportUri      repository URI of the report
+     * @param controlsIds    list of requested input controls IDs, or an empty list for all controls
+     * @param selectedValues list of selected values
+     * @return the cached states, or <code>null</code>
+     */
+    public synchronized InputControlStatesList get(String keyPrefix, String reportUri, List<String> controlsIds,
+                                                   List<ReportParameter> selectedValues) {
+        Entry entry = entries.get(createKey(keyPrefix, reportUri, controlsIds, selectedValues));
+        if (entry != null) {
+            hitCount++;
+            return entry.states;
+        }
+        missCount++;
+        return null;
+    }
+
+    public synchronized void put(String keyPrefix, String reportUri, List<String> controlsIds,
+                                 List<ReportParameter> selectedValues, InputControlStatesList states) {
+        entries.put(createKey(keyPrefix, reportUri, controlsIds, selectedValues), new Entry(reportUri, states));
+    }
+
+    /**
+     * Registers the master dependencies of the controls, which narrow down the selected values
+     * the states of their slaves are keyed by.
+     *
+     * @param keyPrefix     prefix that scopes the cached states, e.g. to a server profile
+     * @param reportUri     repository URI of the report
+     * @param inputControls the controls of the report
+     */
+    public synchronized void setMasterDependencies(String keyPrefix, String reportUri,
+                                                   List<InputControl> inputControls) {
+        if (inputControls == null) return;
+        String reportKey = keyPrefix + '\n' + reportUri;
+        Map<String, List<String>> dependencies = masterDependencies.get(reportKey);
+        if (dependencies == null) {
+            dependencies = new HashMap<String, List<String>>();
+            masterDependencies.put(reportKey, dependencies);
+        }
+        for (InputControl control : inputControls) {
+            dependencies.put(control.getId(), control.getMasterDependencies());
+        }
+    }
+
+    /**
+     * Removes the cached states and the dependencies of the report, e.g. when it is closed or changed.
+     *
+     * @return number of removed states lists
+     */
+    public synchronized int evict(String reportUri) {
+        int count = 0;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().reportUri.equals(reportUri)) {
+                iterator.remove();
+                count++;
+            }
+        }
+        Iterator<String> reportKeys = masterDependencies.keySet().iterator();
+        while (reportKeys.hasNext()) {
+            if (reportKeys.next().endsWith('\n' + reportUri)) {
+                reportKeys.remove();
+            }
+        }
+        return count;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        masterDependencies.clear();
+    }
+
+    /**
+     * @return number of requests answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of requests that weren't found in the cache
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private long createKey(String keyPrefix, String reportUri, List<String> controlsIds,
+                           List<ReportParameter> selectedValues) {
+        Set<String> relevantIds = getRelevantIds(keyPrefix + '\n' + reportUri, controlsIds);
+
+        // the selected values of the parameters don't depend on their order
+        List<ReportParameter> parameters = new ArrayList<ReportParameter>();
+        if (selectedValues != null) {
+            for (ReportParameter parameter : selectedValues) {
+                if (relevantIds != null && !relevantIds.contains(parameter.getName())) continue;
+                parameters.add(parameter);
+            }
+        }
+        Collections.sort(parameters, ParameterNameComparator.INSTANCE);
+
+        CacheKeyBuilder builder = new CacheKeyBuilder()
+                .add(keyPrefix)
+                .add(reportUri)
+                .addAll(controlsIds)
+                .add(parameters.size());
+        for (ReportParameter parameter : parameters) {
+            Set<String> values = parameter.getValues();
+            builder.add(parameter.getName())
+                    .addSorted((values != null) ? values : Collections.<String>emptySet());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the requested controls and their masters, or <code>null</code> if the values of all controls
+     *         are relevant, because all controls are requested or some dependencies are unknown
+     */
+    private Set<String> getRelevantIds(String reportKey, List<String> controlsIds) {
+        Map<String, List<String>> dependencies = masterDependencies.get(reportKey);
+        if (dependencies == null || controlsIds == null || controlsIds.isEmpty()) return null;
+
+        Set<String> relevantIds = new HashSet<String>();
+        Deque<String> pending = new ArrayDeque<String>(controlsIds);
+        while (!pending.isEmpty()) {
+            String id = pending.poll();
+            if (!relevantIds.add(id)) continue;
+            if (!dependencies.containsKey(id)) return null;
+            List<String> masters = dependencies.get(id);
+            if (masters != null) {
+                pending.addAll(masters);
+            }
+        }
+        return relevantIds;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class ParameterNameComparator implements Comparator<ReportParameter> {
+        static final ParameterNameComparator INSTANCE = new ParameterNameComparator();
+
+        public int compare(ReportParameter lhs, ReportParameter rhs) {
+            String lhsName = lhs.getName();
+            String rhsName = rhs.getName();
+            if (lhsName == null) return (rhsName == null) ? 0 : -1;
+            if (rhsName == null) return 1;
+            return lhsName.compareTo(rhsName);
+        }
+    }
+
+    private static class Entry {
+        final String reportUri;
+        final InputControlStatesList states;
+
+        Entry(String reportUri, InputControlStatesList states) {
+            this.reportUri = reportUri;
+            this.states = states;
+        }
+    }
+
+}
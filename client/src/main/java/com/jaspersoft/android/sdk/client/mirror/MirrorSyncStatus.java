@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.mirror;
+
+/**
+ * Immutable snapshot of the progress of a {@link RepositoryMirror} synchronization.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MirrorSyncStatus {
+
+    public enum State {
+        /** No synchronization is running. */
+        IDLE,
+        /** A synchronization is running. */
+        SYNCING,
+        /** The last synchronization was interrupted by an error. */
+        FAILED
+    }
+
+    private final State state;
+    private final String currentFolder;
+    private final int foldersFetched;
+    private final int foldersSkipped;
+    private final int pendingFolders;
+    private final int changedResources;
+    private final int removedResources;
+    private final long lastSyncTime;
+    private final String error;
+
+    public MirrorSyncStatus(State state, String currentFolder, int foldersFetched, int foldersSkipped,
+                            int pendingFolders, int changedResources, int removedResources,
+                            long lastSyncTime, String error) {
+        this.state = state;
+        this.currentFolder = currentFolder;
+        this.foldersFetched = foldersFetched;
+        this.foldersSkipped = foldersSkipped;
+        this.pendingFolders = pendingFolders;
+        this.changedResources = changedResources;
+        this.removedResources = removedResources;
+        this.lastSyncTime = lastSyncTime;
+        this.error = error;
+    }
+
+    /**
+     * @return the share of the folders known so far that were already checked, from 0 to 1
+     */
+    public float getProgress() {
+        int checked = foldersFetched + foldersSkipped;
+        int total = checked + pendingFolders;
+        return (total > 0) ? (float) checked / total : 1f;
+    }
+
+    @Override
+    public String toString() {
+        return "MirrorSyncStatus{" +
+                "state=" + state +
+                ", currentFolder='" + currentFolder + '\'' +
+                ", foldersFetched=" + foldersFetched +
+                ", foldersSkipped=" + foldersSkipped +
+                ", pendingFolders=" + pendingFolders +
+                ", changedResources=" + changedResources +
+                ", removedResources=" + removedResources +
+                ", lastSyncTime=" + lastSyncTime +
+                ", error='" + error + '\'' +
+                '}';
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return URI of the folder being fetched, or <code>null</code> if no synchronization is running
+     */
+    public String getCurrentFolder() {
+        return currentFolder;
+    }
+
+    /**
+     * @return number of folders whose content was fetched from the server
+     */
+    public int getFoldersFetched() {
+        return foldersFetched;
+    }
+
+    /**
+     * @return number of folders that weren't fetched because they didn't change since the previous synchronization
+     */
+    public int getFoldersSkipped() {
+        return foldersSkipped;
+    }
+
+    /**
+     * @return number of changed folders that are waiting to be fetched
+     */
+    public int getPendingFolders() {
+        return pendingFolders;
+    }
+
+    /**
+     * @return number of resources that were added or updated on the server
+     */
+    public int getChangedResources() {
+        return changedResources;
+    }
+
+    /**
+     * @return number of resources that were deleted on the server, including the content of deleted folders
+     */
+    public int getRemovedResources() {
+        return removedResources;
+    }
+
+    /**
+     * @return time of the last completed synchronization of the whole repository, or -1 if there was none
+     */
+    public long getLastSyncTime() {
+        return lastSyncTime;
+    }
+
+    /**
+     * @return message of the error that interrupted the synchronization, or <code>null</code>
+     */
+    public String getError() {
+        return error;
+    }
+
+}
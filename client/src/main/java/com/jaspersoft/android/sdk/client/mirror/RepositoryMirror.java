@@ -0,0 +1,810 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.mirror;
+
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheReader;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCacheWriter;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCodec;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCodecs;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import org.springframework.web.client.RestClientException;
+import roboguice.util.temp.Ln;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local copy of the repository tree, keyed by URI and kept up to date by incremental synchronizations.
+ * Folder listings are served from memory, so browsing the mirrored folders doesn't touch the network.
+ * <p/>
+ * A synchronization lists a folder and compares the <code>version</code> and <code>updateDate</code>
+ * of every child with the mirrored one. Only the subfolders that were added or changed are listed in turn,
+ * the subtrees of unchanged folders are kept as they are. A folder whose listing was interrupted by an error
+ * is listed by the next synchronization. A full synchronization lists every folder regardless of its revision.
+ * <p/>
+ * Skipping unchanged folders relies on the server changing the revision of a folder whenever its children change,
+ * which the REST v2 services don't guarantee. Therefore a folder that hasn't been listed for the
+ * {@link #setFolderRefreshInterval(long) folder refresh interval} is listed by the next incremental
+ * synchronization as well, so every change reaches the mirror within that interval at the latest.
+ * <p/>
+ * The mirrored lookups are kept in a {@link ResourceSearchIndex}, which is updated folder by folder as they are
+ * fetched, so searches within completely mirrored folders are answered locally as well. Besides synchronizations,
+ * the lookups fetched by the requests update the mirror, see {@link #update(String, String, List, boolean, int, int,
+ * ResourceLookupsList)}.
+ * <p/>
+ * The mirror is read lazily from its file on first access and written back after every synchronization.
+ * Reading is thread-safe and may run concurrently with a synchronization, which updates one folder at a time.
+ * The returned lookups are shared and must not be modified.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class RepositoryMirror {
+
+    public static final String ROOT_URI = "/";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final long DEFAULT_FOLDER_REFRESH_INTERVAL = 24 * 60 * 60 * 1000L;
+
+    private static final int VERSION = 1;
+
+    private final JsRestClient jsRestClient;
+    private final File file;
+    private final BinaryCodec<ResourceLookupsList> lookupsCodec = BinaryCodecs.get(ResourceLookupsList.class);
+
+    private final Map<String, Folder> folders = new ConcurrentHashMap<String, Folder>();
+    private final Map<String, ResourceLookup> resources = new ConcurrentHashMap<String, ResourceLookup>();
+    private final Set<String> dirtyFolders = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ResourceSearchIndex searchIndex = new ResourceSearchIndex();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+    private volatile long lastSyncTime = -1;
+    private volatile MirrorSyncStatus status = idleStatus(-1);
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private volatile long folderRefreshInterval = DEFAULT_FOLDER_REFRESH_INTERVAL;
+
+    /**
+     * @param jsRestClient the client of the mirrored server
+     * @param file         the file the mirror is kept in, or <code>null</code> to keep it in memory only
+     */
+    public RepositoryMirror(JsRestClient jsRestClient, File file) {
+        this.jsRestClient = jsRestClient;
+        this.file = file;
+    }
+
+    //---------------------------------------------------------------------
+    // Navigation
+    //---------------------------------------------------------------------
+
+    /**
+     * @return the children of the folder in the order of the server,
+     *         or <code>null</code> if the folder hasn't been mirrored yet
+     */
+    public List<ResourceLookup> getChildren(String folderUri) {
+        ensureLoaded();
+        Folder folder = folders.get(CacheDependency.normalize(folderUri));
+        return (folder != null) ? folder.children : null;
+    }
+
+    /**
+     * Local counterpart of {@link JsRestClient#getResourceLookups(String, boolean, int, int)}.
+     *
+     * @param folderUri parent folder URI
+     * @param recursive whether to list all descendants rather than the children only
+     * @param offset    start index of the page
+     * @param limit     resources count per page, or 0 for all of them
+     * @return the page, or <code>null</code> if the folder or one of the listed subfolders hasn't been mirrored yet
+     */
+    public ResourceLookupsList getResourceLookups(String folderUri, boolean recursive, int offset, int limit) {
+        ensureLoaded();
+        Folder folder = folders.get(CacheDependency.normalize(folderUri));
+        if (folder == null) return null;
+
+        List<ResourceLookup> lookups = folder.children;
+        if (recursive) {
+            lookups = new ArrayList<ResourceLookup>();
+            if (!collectDescendants(folder, lookups)) return null;
+        }
+
+        return toPage(lookups, offset, limit);
+    }
+
+    /**
+     * Lists the children of the folder of the given types, like
+     * {@link JsRestClient#getResourceLookups(String, String, List, boolean, int, int)} does without query.
+     * The children are in the order of the server.
+     *
+     * @param folderUri parent folder URI
+     * @param types     the resource types to match (can be <code>null</code>)
+     * @param offset    start index of the page
+     * @param limit     resources count per page, or 0 for all of them
+     * @return the page, or <code>null</code> if the folder hasn't been mirrored or is waiting to be fetched again,
+     *         or a type isn't known to the mirror
+     */
+    public ResourceLookupsList getResourceLookups(String folderUri, List<String> types, int offset, int limit) {
+        ensureLoaded();
+        String uri = CacheDependency.normalize(folderUri);
+        Folder folder = folders.get(uri);
+        if (folder == null || !isComplete(uri, folder, false)) return null;
+        if (types == null) return toPage(folder.children, offset, limit);
+
+        List<ResourceLookup.ResourceType> resourceTypes = toResourceTypes(types);
+        if (resourceTypes == null) return null;
+        List<ResourceLookup> lookups = new ArrayList<ResourceLookup>();
+        for (ResourceLookup child : folder.children) {
+            if (resourceTypes.contains(child.getResourceType())) {
+                lookups.add(child);
+            }
+        }
+        return toPage(lookups, offset, limit);
+    }
+
+    /**
+     * Local search, which is meant for search as you type rather than as a replacement of the server search.
+     * Its results differ from {@link JsRestClient#getResourceLookups(String, String, List, boolean, int, int)}:
+     * <ul>
+     * <li>queries shorter than three characters match the beginnings of words only,</li>
+     * <li>the URI is searched as well as the label and description,</li>
+     * <li>the best matches come first, rather than in the order of the server.</li>
+     * </ul>
+     *
+     * @param folderUri parent folder URI
+     * @param query     the text to search for in the label, description and URI (can be <code>null</code>)
+     * @param types     the resource types to match (can be <code>null</code>)
+     * @param recursive whether to search all descendants rather than the children only
+     * @param offset    start index of the page
+     * @param limit     resources count per page, or 0 for all of them
+     * @return the page, or <code>null</code> if the mirror may be incomplete for the search, i.e. the searched folders
+     *         haven't all been mirrored or are waiting to be fetched again, or a type isn't known to the mirror.
+     *         The search should be sent to the server then.
+     */
+    public ResourceLookupsList search(String folderUri, String query, List<String> types, boolean recursive,
+                                      int offset, int limit) {
+        ensureLoaded();
+        Folder folder = folders.get(CacheDependency.normalize(folderUri));
+        if (folder == null || !isComplete(CacheDependency.normalize(folderUri), folder, recursive)) return null;
+
+        List<ResourceLookup.ResourceType> resourceTypes = null;
+        if (types != null) {
+            resourceTypes = toResourceTypes(types);
+            if (resourceTypes == null) return null;
+        }
+        return toPage(searchIndex.search(folderUri, query, resourceTypes, recursive), offset, limit);
+    }
+
+    /**
+     * @return the lookup of the resource, or <code>null</code> if it isn't mirrored
+     */
+    public ResourceLookup getResource(String uri) {
+        ensureLoaded();
+        return resources.get(CacheDependency.normalize(uri));
+    }
+
+    public boolean isMirrored(String folderUri) {
+        ensureLoaded();
+        return folders.containsKey(CacheDependency.normalize(folderUri));
+    }
+
+    /**
+     * @return number of the mirrored resources, including folders
+     */
+    public int getResourceCount() {
+        ensureLoaded();
+        return resources.size();
+    }
+
+    //---------------------------------------------------------------------
+    // Staleness
+    //---------------------------------------------------------------------
+
+    /**
+     * @return time of the last completed synchronization of the whole repository, or -1 if there was none
+     */
+    public long getLastSyncTime() {
+        ensureLoaded();
+        return lastSyncTime;
+    }
+
+    /**
+     * Returns the time since the last completed synchronization of the whole repository. It doesn't bound the
+     * age of every mirrored folder: an incremental synchronization skips the folders whose revision didn't change,
+     * although the server may not change the revision of a folder when only its contents change. Such changes
+     * are only picked up once the folder is older than the {@link #setFolderRefreshInterval(long) folder refresh
+     * interval}, or by a full synchronization.
+     *
+     * @return milliseconds since the last completed synchronization of the whole repository,
+     *         or {@link Long#MAX_VALUE} if there was none
+     */
+    public long getStaleness() {
+        long syncTime = getLastSyncTime();
+        return (syncTime < 0) ? Long.MAX_VALUE : System.currentTimeMillis() - syncTime;
+    }
+
+    public boolean isStale(long maxAge) {
+        return getStaleness() > maxAge;
+    }
+
+    /**
+     * @return time the folder was last listed, or -1 if it hasn't been mirrored yet
+     */
+    public long getFolderSyncTime(String folderUri) {
+        ensureLoaded();
+        Folder folder = folders.get(CacheDependency.normalize(folderUri));
+        return (folder != null) ? folder.syncTime : -1;
+    }
+
+    /**
+     * @return the progress of the running synchronization, or the result of the last one
+     */
+    public MirrorSyncStatus getSyncStatus() {
+        ensureLoaded();
+        return status;
+    }
+
+    //---------------------------------------------------------------------
+    // Synchronization
+    //---------------------------------------------------------------------
+
+    /**
+     * Incrementally synchronizes the whole repository.
+     *
+     * @see #sync(String, boolean, MirrorSyncListener)
+     */
+    public MirrorSyncStatus sync() throws RestClientException {
+        return sync(ROOT_URI, false, null);
+    }
+
+    /**
+     * Synchronizes the subtree of the folder with the server. The call blocks until the subtree is synchronized,
+     * so it is meant to be run in the background, e.g. by a
+     * {@link com.jaspersoft.android.sdk.client.async.request.SyncRepositoryMirrorRequest}.
+     * Concurrent synchronizations run one after another.
+     *
+     * @param folderUri the root of the subtree, which is always listed
+     * @param full      whether to list the unchanged subfolders as well
+     * @param listener  the listener of the progress and the changed resources (can be <code>null</code>)
+     * @return the final status
+     * @throws RestClientException if a folder can't be listed. The folders listed so far stay synchronized.
+     */
+    public MirrorSyncStatus sync(String folderUri, boolean full, MirrorSyncListener listener)
+            throws RestClientException {
+        syncLock.lock();
+        try {
+            ensureLoaded();
+            String rootUri = CacheDependency.normalize(folderUri);
+            Synchronization synchronization = new Synchronization(full, listener);
+            try {
+                synchronization.run(rootUri);
+            } catch (RestClientException ex) {
+                status = synchronization.createStatus(MirrorSyncStatus.State.FAILED, null, ex.getMessage());
+                save();
+                throw ex;
+            }
+            if (ROOT_URI.equals(rootUri)) {
+                lastSyncTime = synchronization.startTime;
+            }
+            status = synchronization.createStatus(MirrorSyncStatus.State.IDLE, null, null);
+            save();
+            return status;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the mirror with the lookups a request fetched, so that browsing keeps the mirror and its search index
+     * up to date between synchronizations. The parameters are the ones of
+     * {@link JsRestClient#getResourceLookups(String, String, List, boolean, int, int)}.
+     * <p/>
+     * The first page of a listing without query and type, which holds all the children of the folder,
+     * mirrors the folder, or all folders of the subtree if the listing is recursive. The lookups of other
+     * results replace the mirrored ones of a different revision, and a lookup that is missing from its mirrored
+     * folder marks the folder as incomplete until it is listed again.
+     * <p/>
+     * Nothing is updated while a synchronization is running, as it fetches the folders anyway.
+     * The updates are saved by the next synchronization.
+     *
+     * @param page the fetched page
+     */
+    public void update(String folderUri, String query, List<String> types, boolean recursive, int offset, int limit,
+                       ResourceLookupsList page) {
+        List<ResourceLookup> lookups = page.getResourceLookups();
+        if (lookups == null) {
+            lookups = Collections.emptyList();
+        }
+        boolean completeListing = (query == null || query.length() == 0) && !hasType(types) && offset == 0
+                && (limit <= 0 || lookups.size() < limit
+                || (page.getTotalCount() > 0 && lookups.size() >= page.getTotalCount()));
+
+        ensureLoaded();
+        if (!syncLock.tryLock()) return;
+        try {
+            if (completeListing) {
+                putListing(CacheDependency.normalize(folderUri), recursive, lookups);
+            } else {
+                for (ResourceLookup lookup : lookups) {
+                    putLookup(lookup);
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all mirrored resources and deletes the file, e.g. when the server profile changes.
+     */
+    public void clear() {
+        syncLock.lock();
+        try {
+            ensureLoaded();
+            folders.clear();
+            resources.clear();
+            dirtyFolders.clear();
+            searchIndex.clear();
+            lastSyncTime = -1;
+            status = idleStatus(-1);
+            if (file != null) {
+                file.delete();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Getters & Setters
+    //---------------------------------------------------------------------
+
+    public JsRestClient getJsRestClient() {
+        return jsRestClient;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @param pageSize number of lookups requested at a time while listing a folder
+     */
+    public void setPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+    }
+
+    public long getFolderRefreshInterval() {
+        return folderRefreshInterval;
+    }
+
+    /**
+     * @param folderRefreshInterval milliseconds after which an incremental synchronization lists a folder
+     *                              even though its revision didn't change, {@link Long#MAX_VALUE} to rely
+     *                              on the revisions only
+     */
+    public void setFolderRefreshInterval(long folderRefreshInterval) {
+        if (folderRefreshInterval < 0) {
+            throw new IllegalArgumentException("Folder refresh interval must not be negative");
+        }
+        this.folderRefreshInterval = folderRefreshInterval;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private boolean collectDescendants(Folder folder, List<ResourceLookup> lookups) {
+        for (ResourceLookup child : folder.children) {
+            lookups.add(child);
+            if (isFolder(child)) {
+                Folder subfolder = folders.get(CacheDependency.normalize(child.getUri()));
+                if (subfolder == null || !collectDescendants(subfolder, lookups)) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isComplete(String folderUri, Folder folder, boolean recursive) {
+        if (dirtyFolders.contains(folderUri)) return false;
+        if (!recursive) return true;
+        for (ResourceLookup child : folder.children) {
+            if (isFolder(child)) {
+                String childUri = CacheDependency.normalize(child.getUri());
+                Folder subfolder = folders.get(childUri);
+                if (subfolder == null || !isComplete(childUri, subfolder, true)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the types, or <code>null</code> if one of them isn't known to the mirror
+     */
+    private static List<ResourceLookup.ResourceType> toResourceTypes(List<String> types) {
+        List<ResourceLookup.ResourceType> resourceTypes = new ArrayList<ResourceLookup.ResourceType>(types.size());
+        for (String type : types) {
+            try {
+                resourceTypes.add(ResourceLookup.ResourceType.valueOf(type));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+        return resourceTypes;
+    }
+
+    private static ResourceLookupsList toPage(List<ResourceLookup> lookups, int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), lookups.size());
+        int to = (limit > 0) ? Math.min(from + limit, lookups.size()) : lookups.size();
+        ResourceLookupsList result = new ResourceLookupsList();
+        result.setResourceLookups(new ArrayList<ResourceLookup>(lookups.subList(from, to)));
+        result.setResultCount(to - from);
+        result.setTotalCount(lookups.size());
+        return result;
+    }
+
+    /**
+     * Mirrors the listed folder, along with its listed subfolders if the listing is recursive.
+     */
+    private void putListing(String folderUri, boolean recursive, List<ResourceLookup> lookups) {
+        if (!recursive) {
+            putChildren(folderUri, lookups);
+            return;
+        }
+        Map<String, List<ResourceLookup>> childrenByFolder = new TreeMap<String, List<ResourceLookup>>();
+        childrenByFolder.put(folderUri, new ArrayList<ResourceLookup>());
+        for (ResourceLookup lookup : lookups) {
+            if (isFolder(lookup)) {
+                childrenByFolder.put(CacheDependency.normalize(lookup.getUri()), new ArrayList<ResourceLookup>());
+            }
+        }
+        for (ResourceLookup lookup : lookups) {
+            List<ResourceLookup> children = childrenByFolder.get(getParentUri(lookup.getUri()));
+            // not the listing of a whole subtree
+            if (children == null) return;
+            children.add(lookup);
+        }
+        // the parents come first, as their URIs are prefixes of the ones of their children
+        for (Map.Entry<String, List<ResourceLookup>> entry : childrenByFolder.entrySet()) {
+            putChildren(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void putChildren(String folderUri, List<ResourceLookup> children) {
+        Map<String, ResourceLookup> previousChildren = new HashMap<String, ResourceLookup>();
+        Folder previous = folders.get(folderUri);
+        if (previous != null) {
+            for (ResourceLookup child : previous.children) {
+                previousChildren.put(CacheDependency.normalize(child.getUri()), child);
+            }
+        }
+
+        for (ResourceLookup child : children) {
+            String childUri = CacheDependency.normalize(child.getUri());
+            ResourceLookup mirrored = previousChildren.remove(childUri);
+            if (mirrored == null || !isSameRevision(mirrored, child)) {
+                searchIndex.add(child);
+                if (isFolder(child) && folders.containsKey(childUri)) {
+                    // the children of the changed folder may have changed as well
+                    dirtyFolders.add(childUri);
+                }
+            }
+            resources.put(childUri, child);
+        }
+        for (String removedUri : previousChildren.keySet()) {
+            removeResource(removedUri);
+        }
+
+        folders.put(folderUri, new Folder(children, System.currentTimeMillis()));
+        dirtyFolders.remove(folderUri);
+    }
+
+    private void putLookup(ResourceLookup lookup) {
+        String uri = CacheDependency.normalize(lookup.getUri());
+        String parentUri = getParentUri(uri);
+        Folder parent = folders.get(parentUri);
+        if (parent == null) return;
+
+        for (int i = 0; i < parent.children.size(); i++) {
+            ResourceLookup mirrored = parent.children.get(i);
+            if (!uri.equals(CacheDependency.normalize(mirrored.getUri()))) continue;
+            // a lookup without revision, e.g. one of the resources service v1, can't tell whether it's newer
+            if (lookup.getVersion() == null && lookup.getUpdateDate() == null) return;
+            if (isSameRevision(mirrored, lookup) || isFolder(mirrored) != isFolder(lookup)) return;
+
+            List<ResourceLookup> children = new ArrayList<ResourceLookup>(parent.children);
+            children.set(i, lookup);
+            folders.put(parentUri, new Folder(children, parent.syncTime));
+            resources.put(uri, lookup);
+            searchIndex.add(lookup);
+            if (isFolder(lookup) && folders.containsKey(uri)) {
+                dirtyFolders.add(uri);
+            }
+            return;
+        }
+        // added since the folder was listed
+        dirtyFolders.add(parentUri);
+    }
+
+    /**
+     * Removes the resource along with the mirrored subtree of a folder.
+     *
+     * @return number of the removed resources
+     */
+    private int removeResource(String uri) {
+        int count = 1;
+        resources.remove(uri);
+        searchIndex.remove(uri);
+        dirtyFolders.remove(uri);
+        Folder folder = folders.remove(uri);
+        if (folder != null) {
+            for (ResourceLookup child : folder.children) {
+                count += removeResource(CacheDependency.normalize(child.getUri()));
+            }
+        }
+        return count;
+    }
+
+    private static String getParentUri(String uri) {
+        String normalized = CacheDependency.normalize(uri);
+        int index = normalized.lastIndexOf('/');
+        return (index > 0) ? normalized.substring(0, index) : ROOT_URI;
+    }
+
+    private static boolean hasType(List<String> types) {
+        if (types == null) return false;
+        for (String type : types) {
+            if (type != null) return true;
+        }
+        return false;
+    }
+
+    private List<ResourceLookup> fetchChildren(String folderUri) throws RestClientException {
+        List<ResourceLookup> children = new ArrayList<ResourceLookup>();
+        for (int offset = 0; ; offset += pageSize) {
+            ResourceLookupsList page = jsRestClient.getResourceLookups(folderUri, false, offset, pageSize);
+            List<ResourceLookup> lookups = page.getResourceLookups();
+            if (lookups == null || lookups.isEmpty()) break;
+            children.addAll(lookups);
+            int totalCount = page.getTotalCount();
+            if (lookups.size() < pageSize || (totalCount > 0 && children.size() >= totalCount)) break;
+        }
+        return children;
+    }
+
+    private boolean hasDirtyFolderWithin(String folderUri) {
+        for (String dirtyFolder : dirtyFolders) {
+            if (dirtyFolder.equals(folderUri) || dirtyFolder.startsWith(folderUri + "/")) return true;
+        }
+        return false;
+    }
+
+    private boolean isOutdated(String folderUri, long now) {
+        Folder folder = folders.get(folderUri);
+        return folder == null || now - folder.syncTime > folderRefreshInterval;
+    }
+
+    private static boolean isFolder(ResourceLookup lookup) {
+        return lookup.getResourceType() == ResourceLookup.ResourceType.folder;
+    }
+
+    private static boolean isSameRevision(ResourceLookup mirrored, ResourceLookup current) {
+        if (current.getVersion() == null && current.getUpdateDate() == null) return false;
+        return equal(mirrored.getVersion(), current.getVersion())
+                && equal(mirrored.getUpdateDate(), current.getUpdateDate());
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    private static MirrorSyncStatus idleStatus(long lastSyncTime) {
+        return new MirrorSyncStatus(MirrorSyncStatus.State.IDLE, null, 0, 0, 0, 0, 0, lastSyncTime, null);
+    }
+
+    private int getCodecVersion() {
+        return (VERSION << 8) | lookupsCodec.getVersion();
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    private void load() {
+        if (file == null || !file.exists()) return;
+        try {
+            BinaryCacheReader reader = BinaryCacheReader.map(file, getCodecVersion());
+
+            long syncTime = reader.readLong();
+            Map<String, Folder> loadedFolders = new HashMap<String, Folder>();
+            int count = reader.readSize();
+            for (int i = 0; i < count; i++) {
+                String uri = reader.readUri();
+                long folderSyncTime = reader.readLong();
+                loadedFolders.put(uri, new Folder(lookupsCodec.read(reader).getResourceLookups(), folderSyncTime));
+            }
+            List<String> loadedDirtyFolders = reader.readStringList();
+
+            for (Map.Entry<String, Folder> entry : loadedFolders.entrySet()) {
+                folders.put(entry.getKey(), entry.getValue());
+                for (ResourceLookup child : entry.getValue().children) {
+                    resources.put(CacheDependency.normalize(child.getUri()), child);
+                }
+                searchIndex.addAll(entry.getValue().children);
+            }
+            if (loadedDirtyFolders != null) {
+                dirtyFolders.addAll(loadedDirtyFolders);
+            }
+            lastSyncTime = syncTime;
+            status = idleStatus(syncTime);
+        } catch (IOException ex) {
+            file.delete();
+            Ln.w(RepositoryMirror.class.getName(), "Repository mirror wasn't loaded: " + ex.getMessage());
+        }
+    }
+
+    private void save() {
+        if (file == null) return;
+        try {
+            BinaryCacheWriter writer = new BinaryCacheWriter();
+            writer.writeLong(lastSyncTime);
+            writer.writeSize(folders.keySet());
+            for (Map.Entry<String, Folder> entry : folders.entrySet()) {
+                writer.writeUri(entry.getKey());
+                writer.writeLong(entry.getValue().syncTime);
+                ResourceLookupsList lookups = new ResourceLookupsList();
+                lookups.setResourceLookups(entry.getValue().children);
+                lookupsCodec.write(writer, lookups);
+            }
+            writer.writeStringList(new ArrayList<String>(dirtyFolders));
+
+            writer.writeTo(file, getCodecVersion());
+        } catch (IOException ex) {
+            Ln.w(RepositoryMirror.class.getName(), "Repository mirror wasn't saved: " + ex.getMessage());
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class Folder {
+        final List<ResourceLookup> children;
+        final long syncTime;
+
+        Folder(List<ResourceLookup> children, long syncTime) {
+            this.children = (children != null)
+                    ? Collections.unmodifiableList(children)
+                    : Collections.<ResourceLookup>emptyList();
+            this.syncTime = syncTime;
+        }
+    }
+
+    /**
+     * State of one synchronization, run under the sync lock.
+     */
+    private class Synchronization {
+        final boolean full;
+        final MirrorSyncListener listener;
+        final long startTime = System.currentTimeMillis();
+        final Deque<String> queue = new ArrayDeque<String>();
+
+        int foldersFetched;
+        int foldersSkipped;
+        int changedResources;
+        int removedResources;
+
+        Synchronization(boolean full, MirrorSyncListener listener) {
+            this.full = full;
+            this.listener = listener;
+        }
+
+        void run(String rootUri) throws RestClientException {
+            queue.add(rootUri);
+            while (!queue.isEmpty()) {
+                String folderUri = queue.poll();
+                status = createStatus(MirrorSyncStatus.State.SYNCING, folderUri, null);
+                syncFolder(folderUri);
+                if (listener != null) {
+                    listener.onSyncProgress(createStatus(MirrorSyncStatus.State.SYNCING, folderUri, null));
+                }
+            }
+        }
+
+        MirrorSyncStatus createStatus(MirrorSyncStatus.State state, String currentFolder, String error) {
+            return new MirrorSyncStatus(state, currentFolder, foldersFetched, foldersSkipped, queue.size(),
+                    changedResources, removedResources, lastSyncTime, error);
+        }
+
+        private void syncFolder(String folderUri) throws RestClientException {
+            List<ResourceLookup> children = fetchChildren(folderUri);
+
+            Map<String, ResourceLookup> previousChildren = new HashMap<String, ResourceLookup>();
+            Folder previous = folders.get(folderUri);
+            if (previous != null) {
+                for (ResourceLookup child : previous.children) {
+                    previousChildren.put(CacheDependency.normalize(child.getUri()), child);
+                }
+            }
+
+            for (ResourceLookup child : children) {
+                String childUri = CacheDependency.normalize(child.getUri());
+                ResourceLookup mirrored = previousChildren.remove(childUri);
+                boolean changed = (mirrored == null || !isSameRevision(mirrored, child));
+                if (changed) {
+                    changedResources++;
+                    searchIndex.add(child);
+                    notifyChanged(childUri);
+                }
+                resources.put(childUri, child);
+
+                if (isFolder(child)) {
+                    if (full || changed || isOutdated(childUri, startTime) || hasDirtyFolderWithin(childUri)) {
+                        // stays dirty until listed, so an interrupted synchronization doesn't lose the change
+                        dirtyFolders.add(childUri);
+                        queue.add(childUri);
+                    } else {
+                        foldersSkipped++;
+                    }
+                }
+            }
+            for (String removedUri : previousChildren.keySet()) {
+                removedResources += removeResource(removedUri);
+                notifyChanged(removedUri);
+            }
+
+            folders.put(folderUri, new Folder(children, System.currentTimeMillis()));
+            dirtyFolders.remove(folderUri);
+            foldersFetched++;
+        }
+
+        private void notifyChanged(String uri) {
+            if (listener != null) {
+                listener.onResourceChanged(uri);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+package com.jaspersoft.android.sdk.client.mirror;
+
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of the label, description and URI of resource lookups.
+ * <p/>
+ * Queries of three or more characters match the lookups containing the query text, like the server does:
+ * the candidates are the intersection of the posting lists of the query trigrams, verified against the text.
+ * Shorter queries match the lookups having a word that starts with the query, which suits search as you type.
+ * The matches are ranked by where the query was found in the label, then sorted by label.
+ * <p/>
+ * Posting lists are bit sets over document ids, which are reused after a lookup is removed.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ResourceSearchIndex {
+
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final List<Document> documents = new ArrayList<Document>();
+    private final List<Integer> freeIds = new ArrayList<Integer>();
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final BitSet liveIds = new BitSet();
+    private final Map<Long, BitSet> trigrams = new HashMap<Long, BitSet>();
+    private final TreeMap<String, BitSet> words = new TreeMap<String, BitSet>();
+    private final Map<ResourceLookup.ResourceType, BitSet> types =
+            new HashMap<ResourceLookup.ResourceType, BitSet>();
+
+    /**
+     * Adds the lookup, replacing the one with the same URI.
+     */
+    public synchronized void add(ResourceLookup lookup) {
+        String uri = CacheDependency.normalize(lookup.getUri());
+        remove(uri);
+
+        int id = freeIds.isEmpty() ? documents.size() : freeIds.remove(freeIds.size() - 1);
+        Document document = new Document(lookup, uri);
+        if (id == documents.size()) {
+            documents.add(document);
+        } else {
+            documents.set(id, document);
+        }
+        ids.put(uri, id);
+        liveIds.set(id);
+
+        for (Long trigram : document.getTrigrams()) {
+            postingList(trigrams, trigram).set(id);
+        }
+        for (String word : document.getWords()) {
+            postingList(words, word).set(id);
+        }
+        postingList(types, lookup.getResourceType()).set(id);
+    }
+
+    public synchronized void addAll(Collection<ResourceLookup> lookups) {
+        for (ResourceLookup lookup : lookups) {
+            add(lookup);
+        }
+    }
+
+    /**
+     * @return whether the index contained the lookup
+     */
+    public synchronized boolean remove(String uri) {
+        Integer id = ids.remove(CacheDependency.normalize(uri));
+        if (id == null) return false;
+
+        Document document = documents.get(id);
+        for (Long trigram : document.getTrigrams()) {
+            clearPosting(trigrams, trigram, id);
+        }
+        for (String word : document.getWords()) {
+            clearPosting(words, word, id);
+        }
+        clearPosting(types, document.lookup.getResourceType(), id);
+
+        documents.set(id, null);
+        liveIds.clear(id);
+        freeIds.add(id);
+        return true;
+    }
+
+    public synchronized void clear() {
+        documents.clear();
+        freeIds.clear();
+        ids.clear();
+        liveIds.clear();
+        trigrams.clear();
+        words.clear();
+        types.clear();
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * @param folderUri     the folder to search in
+     * @param query         the text to search for, or <code>null</code> to match every lookup
+     * @param resourceTypes the types to match, or <code>null</code> to match all types
+     * @param recursive     whether to search all descendants of the folder rather than its children only
+     * @return the matching lookups, best matches first
+     */
+    public synchronized List<ResourceLookup> search(String folderUri, String query,
+                                                    Collection<ResourceLookup.ResourceType> resourceTypes,
+                                                    boolean recursive) {
+        String text = normalizeText(query);
+        BitSet candidates = findCandidates(text);
+        if (resourceTypes != null) {
+            BitSet typeIds = new BitSet();
+            for (ResourceLookup.ResourceType type : resourceTypes) {
+                BitSet postingList = types.get(type);
+                if (postingList != null) typeIds.or(postingList);
+            }
+            candidates.and(typeIds);
+        }
+
+        String folder = CacheDependency.normalize(folderUri);
+        String prefix = RepositoryMirror.ROOT_URI.equals(folder) ? folder : folder + "/";
+        List<Match> matches = new ArrayList<Match>();
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            Document document = documents.get(id);
+            if (!document.uri.startsWith(prefix) || document.uri.length() == prefix.length()) continue;
+            if (!recursive && document.uri.indexOf('/', prefix.length()) >= 0) continue;
+            if (text.length() >= TRIGRAM_LENGTH && !document.text.contains(text)) continue;
+            matches.add(new Match(document, rank(document, text)));
+        }
+        Collections.sort(matches, MATCH_ORDER);
+
+        List<ResourceLookup> result = new ArrayList<ResourceLookup>(matches.size());
+        for (Match match : matches) {
+            result.add(match.document.lookup);
+        }
+        return result;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private BitSet findCandidates(String text) {
+        BitSet candidates = (BitSet) liveIds.clone();
+        if (text.length() == 0) return candidates;
+
+        if (text.length() < TRIGRAM_LENGTH) {
+            BitSet prefixIds = new BitSet();
+            SortedMap<String, BitSet> prefixWords = words.subMap(text, text + Character.MAX_VALUE);
+            for (BitSet postingList : prefixWords.values()) {
+                prefixIds.or(postingList);
+            }
+            candidates.and(prefixIds);
+            return candidates;
+        }
+
+        for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+            BitSet postingList = trigrams.get(trigram(text, i));
+            if (postingList == null) {
+                candidates.clear();
+                break;
+            }
+            candidates.and(postingList);
+        }
+        return candidates;
+    }
+
+    private static int rank(Document document, String text) {
+        if (text.length() == 0) return 0;
+        String label = document.label;
+        if (label.startsWith(text)) return 0;
+        int index = label.indexOf(text);
+        if (index > 0 && !Character.isLetterOrDigit(label.charAt(index - 1))) return 1;
+        if (index > 0) return 2;
+        return 3;
+    }
+
+    private static String normalizeText(String text) {
+        return (text != null) ? text.trim().toLowerCase(Locale.ENGLISH) : "";
+    }
+
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    private static <K> BitSet postingList(Map<K, BitSet> index, K key) {
+        BitSet postingList = index.get(key);
+        if (postingList == null) {
+            postingList = new BitSet();
+            index.put(key, postingList);
+        }
+        return postingList;
+    }
+
+    private static <K> void clearPosting(Map<K, BitSet> index, K key, int id) {
+        BitSet postingList = index.get(key);
+        if (postingList == null) return;
+        postingList.clear(id);
+        if (postingList.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static final Comparator<Match> MATCH_ORDER = new Comparator<Match>() {
+        public int compare(Match first, Match second) {
+            if (first.rank != second.rank) return first.rank - second.rank;
+            int result = first.document.label.compareTo(second.document.label);
+            return (result != 0) ? result : first.document.uri.compareTo(second.document.uri);
+        }
+    };
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class Document {
+        final ResourceLookup lookup;
+        final String uri;
+        final String label;
+        /** The lowercase fields separated by line breaks, which never occur in a trimmed query. */
+        final String text;
+
+        Document(ResourceLookup lookup, String uri) {
+            this.lookup = lookup;
+            this.uri = uri;
+            this.label = normalizeText(lookup.getLabel());
+            this.text = label + '\n' + normalizeText(lookup.getDescription()) + '\n' + uri.toLowerCase(Locale.ENGLISH);
+        }
+
+        Set<Long> getTrigrams() {
+            Set<Long> result = new HashSet<Long>();
+            for (int i = 0; i + TRIGRAM_LENGTH <= text.length(); i++) {
+                result.add(trigram(text, i));
+            }
+            return result;
+        }
+
+        Set<String> getWords() {
+            Set<String> result = new HashSet<String>();
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    result.add(text.substring(start, i));
+                    start = -1;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Match {
+        final Document document;
+        final int rank;
+
+        Match(Document document, int rank) {
+            this.document = document;
+            this.rank = rank;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * XML message converter that reads and writes the <code>oxm</code> classes with their compile-time generated
+ * {@link XmlMarshaller}s. Classes without a generated marshaller fall back to the reflection based
+ * {@link SharedXmlSerializer}. The parse times of both paths are recorded in the same {@link ParseStatistics}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MarshallingXmlHttpMessageConverter extends SharedXmlHttpMessageConverter {
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        XmlMarshaller<?> marshaller = XmlMarshallers.get(clazz);
+        if (marshaller == null) {
+            return super.readInternal(clazz, inputMessage);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Charset charset = getCharset(inputMessage.getHeaders());
+            Object result = XmlMarshallers.read(marshaller, inputMessage.getBody(),
+                    (charset != null) ? charset.name() : null);
+            SharedXmlSerializer.getParseStatistics().record(clazz, System.nanoTime() - start);
+            return result;
+        } catch (XmlPullParserException ex) {
+            throw new HttpMessageNotReadableException("Could not read [" + clazz + "]", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new HttpMessageNotReadableException("Could not read [" + clazz + "]", ex);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object o, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        XmlMarshaller<Object> marshaller = (XmlMarshaller<Object>) XmlMarshallers.get(o.getClass());
+        if (marshaller == null) {
+            super.writeInternal(o, outputMessage);
+            return;
+        }
+
+        try {
+            Charset charset = getCharset(outputMessage.getHeaders());
+            XmlMarshallers.write(marshaller, o, outputMessage.getBody(),
+                    (charset != null) ? charset.name() : DEFAULT_CHARSET.name());
+        } catch (XmlPullParserException ex) {
+            throw new HttpMessageNotWritableException("Could not write [" + o + "]", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new HttpMessageNotWritableException("Could not write [" + o + "]", ex);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private Charset getCharset(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        return (contentType != null) ? contentType.getCharSet() : null;
+    }
+
+}
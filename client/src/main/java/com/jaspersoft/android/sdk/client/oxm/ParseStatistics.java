@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe timing of parsed XML documents per class. The first parse of a class is recorded
+ * separately, because it includes the resolution of the reflection metadata unless the class was warmed up.
+ * Parse times include reading the response body.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ParseStatistics {
+
+    private final Map<Class<?>, Entry> entries = new HashMap<Class<?>, Entry>();
+
+    public synchronized void record(Class<?> type, long nanos) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            entry = new Entry();
+            entry.firstParseNanos = nanos;
+            entries.put(type, entry);
+        } else {
+            entry.laterParseCount++;
+            entry.laterParseNanos += nanos;
+        }
+    }
+
+    /**
+     * @return the time of the first parse in milliseconds, or -1 if the class hasn't been parsed yet
+     */
+    public synchronized double getFirstParseTime(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.firstParseNanos / 1000000.0 : -1;
+    }
+
+    /**
+     * @return the average time of the later parses in milliseconds, or -1 if there haven't been any
+     */
+    public synchronized double getAverageParseTime(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null && entry.laterParseCount > 0)
+                ? entry.laterParseNanos / 1000000.0 / entry.laterParseCount : -1;
+    }
+
+    /**
+     * @return the number of parsed documents of the specified class
+     */
+    public synchronized int getParseCount(Class<?> type) {
+        Entry entry = entries.get(type);
+        return (entry != null) ? entry.laterParseCount + 1 : 0;
+    }
+
+    public synchronized List<Class<?>> getParsedClasses() {
+        return new ArrayList<Class<?>>(entries.keySet());
+    }
+
+    public synchronized void reset() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder result = new StringBuilder("ParseStatistics{");
+        for (Map.Entry<Class<?>, Entry> entry : entries.entrySet()) {
+            Class<?> type = entry.getKey();
+            result.append(type.getSimpleName())
+                    .append("=[first=").append(getFirstParseTime(type))
+                    .append("ms, average=").append(getAverageParseTime(type))
+                    .append("ms, count=").append(getParseCount(type)).append("] ");
+        }
+        return result.append('}').toString();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class Entry {
+        long firstParseNanos;
+        int laterParseCount;
+        long laterParseNanos;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm;
+
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlOption;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.DateTimeFormatValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.MandatoryValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.ValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.ValidationRulesList;
+import com.jaspersoft.android.sdk.client.oxm.report.ExportExecution;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionRequest;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionResponse;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportOutputResource;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParametersList;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import org.simpleframework.xml.Serializer;
+import org.simpleframework.xml.core.Persister;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holder of the Simple XML serializer shared by all clients. The serializer caches the reflection
+ * metadata of every class it has seen, so sharing one instance means the metadata is resolved only once
+ * per process. The metadata of all <code>oxm</code> classes can be resolved up front with {@link #warmUp()}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public final class SharedXmlSerializer {
+
+    /**
+     * All classes mapped to the XML documents of JasperReports Server.
+     */
+    public static final List<Class<?>> OXM_CLASSES = Collections.unmodifiableList(Arrays.<Class<?>>asList(
+            ReportAttachment.class,
+            ReportDescriptor.class,
+            ResourceDescriptor.class,
+            ResourceParameter.class,
+            ResourceProperty.class,
+            ResourcesList.class,
+            InputControl.class,
+            InputControlOption.class,
+            InputControlState.class,
+            InputControlStatesList.class,
+            InputControlsList.class,
+            DateTimeFormatValidationRule.class,
+            MandatoryValidationRule.class,
+            ValidationRule.class,
+            ValidationRulesList.class,
+            ExportExecution.class,
+            ReportExecutionRequest.class,
+            ReportExecutionResponse.class,
+            ReportOutputResource.class,
+            ReportParameter.class,
+            ReportParametersList.class,
+            ResourceLookup.class,
+            ResourceLookupsList.class,
+            ServerInfo.class
+    ));
+
+    // Persister is thread-safe, its schema cache is concurrent
+    private static final Persister SERIALIZER = new Persister();
+    private static final ParseStatistics PARSE_STATISTICS = new ParseStatistics();
+
+    private static volatile long warmUpTime = -1;
+
+    private SharedXmlSerializer() {}
+
+    public static Serializer getSerializer() {
+        return SERIALIZER;
+    }
+
+    /**
+     * @return the timing of the documents parsed by the shared message converters
+     */
+    public static ParseStatistics getParseStatistics() {
+        return PARSE_STATISTICS;
+    }
+
+    /**
+     * Resolves the reflection metadata of all <code>oxm</code> classes. Blocks until done,
+     * so it should be called from a background thread, e.g. at application start.
+     *
+     * @return the time of the warm-up in milliseconds
+     */
+    public static long warmUp() {
+        return warmUp(OXM_CLASSES);
+    }
+
+    /**
+     * Resolves the reflection metadata of the specified classes.
+     *
+     * @param types the classes to resolve
+     * @return the time of the warm-up in milliseconds
+     */
+    public static long warmUp(List<Class<?>> types) {
+        long start = System.nanoTime();
+        for (Class<?> type : types) {
+            try {
+                // reading an empty element scans the class and fills the schema cache,
+                // the document itself is expected to fail validation
+                SERIALIZER.read(type, "<warmUp/>", false);
+            } catch (Exception ex) {
+                // ignore
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        warmUpTime = elapsed;
+        return elapsed;
+    }
+
+    /**
+     * Starts the warm-up of all <code>oxm</code> classes in a low priority background thread.
+     */
+    public static void warmUpInBackground() {
+        Thread thread = new Thread("JsXmlWarmUp") {
+            @Override
+            public void run() {
+                warmUp();
+            }
+        };
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the time of the last warm-up in milliseconds, or -1 if there hasn't been any
+     */
+    public static long getWarmUpTime() {
+        return warmUpTime;
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes one class mapped with the Simple XML annotations without reflection.
+ * Implementations are generated at compile time for every supported <code>oxm</code> class
+ * and looked up with {@link XmlMarshallers#get(Class)}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public interface XmlMarshaller<T> {
+
+    /**
+     * @return the element name of the class when it's the document root
+     */
+    String getRootName();
+
+    /**
+     * Reads an instance from the element the parser is positioned at. When the method returns
+     * the parser is positioned at the end tag of that element.
+     *
+     * @param parser the parser positioned at a start tag
+     * @return the read instance
+     * @throws XmlPullParserException if the element doesn't match the mapping
+     * @throws IOException            if the underlying stream can't be read
+     */
+    T read(XmlPullParser parser) throws XmlPullParserException, IOException;
+
+    /**
+     * Writes an instance as an element with the given name.
+     *
+     * @param serializer the serializer to write to
+     * @param name       the element name
+     * @param object     the instance to write
+     * @throws IOException if the underlying stream can't be written
+     */
+    void write(XmlSerializer serializer, String name, T object) throws IOException;
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@link XmlMarshaller}s generated for the <code>oxm</code> classes, along with
+ * the pull parser helpers used by the generated code.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public final class XmlMarshallers {
+
+    /** Suffix appended by the annotation processor to the binary name of a mapped class. */
+    public static final String MARSHALLER_SUFFIX = "$$XmlMarshaller";
+
+    private static final XmlMarshaller<Object> NONE = new XmlMarshaller<Object>() {
+        public String getRootName() {
+            return null;
+        }
+
+        public Object read(XmlPullParser parser) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void write(XmlSerializer serializer, String name, Object object) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final ConcurrentMap<Class<?>, XmlMarshaller<?>> marshallers =
+            new ConcurrentHashMap<Class<?>, XmlMarshaller<?>>();
+
+    private static volatile XmlPullParserFactory parserFactory;
+
+    private XmlMarshallers() {}
+
+    /**
+     * Looks up the generated marshaller of a class.
+     *
+     * @param type the mapped class
+     * @return the marshaller, or <code>null</code> if none was generated for the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> XmlMarshaller<T> get(Class<T> type) {
+        XmlMarshaller<?> marshaller = marshallers.get(type);
+        if (marshaller == null) {
+            marshaller = load(type);
+            marshallers.putIfAbsent(type, marshaller);
+        }
+        return marshaller == NONE ? null : (XmlMarshaller<T>) marshaller;
+    }
+
+    /**
+     * Reads a document whose root element is mapped by the marshaller.
+     *
+     * @param marshaller the marshaller of the root element
+     * @param in         the document stream
+     * @param encoding   the document encoding, or <code>null</code> to detect it from the XML declaration
+     * @return the read instance
+     * @throws XmlPullParserException if the document is not well-formed or doesn't match the mapping
+     * @throws IOException            if the stream can't be read
+     */
+    public static <T> T read(XmlMarshaller<T> marshaller, InputStream in, String encoding)
+            throws XmlPullParserException, IOException {
+        XmlPullParser parser = getParserFactory().newPullParser();
+        parser.setInput(in, encoding);
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.START_TAG) {
+            if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("No root element", parser, null);
+            }
+            eventType = parser.next();
+        }
+        return marshaller.read(parser);
+    }
+
+    /**
+     * Writes an instance as a document without XML declaration.
+     *
+     * @param marshaller the marshaller of the instance
+     * @param object     the instance to write
+     * @param out        the document stream
+     * @param encoding   the document encoding
+     * @throws XmlPullParserException if no serializer is available
+     * @throws IOException            if the stream can't be written
+     */
+    public static <T> void write(XmlMarshaller<T> marshaller, T object, OutputStream out, String encoding)
+            throws XmlPullParserException, IOException {
+        XmlSerializer serializer = getParserFactory().newSerializer();
+        serializer.setOutput(out, encoding);
+        marshaller.write(serializer, marshaller.getRootName(), object);
+        serializer.flush();
+    }
+
+    //---------------------------------------------------------------------
+    // Generated code support
+    //---------------------------------------------------------------------
+
+    /**
+     * Moves the parser to the start tag of the next child element.
+     *
+     * @param parser the parser
+     * @param depth  the depth of the parent element
+     * @return <code>false</code> if the parser reached the end tag of the parent element instead
+     */
+    public static boolean nextElement(XmlPullParser parser, int depth) throws XmlPullParserException, IOException {
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.START_TAG) {
+                return true;
+            } else if (eventType == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return false;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document", parser, null);
+            }
+        }
+    }
+
+    /**
+     * Reads the text of the current element and moves the parser to its end tag. Nested elements are skipped.
+     *
+     * @return the text, or <code>null</code> if the element is empty
+     */
+    public static String readText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = parser.getDepth();
+        String text = null;
+        StringBuilder builder = null;
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.TEXT) {
+                if (text == null) {
+                    text = parser.getText();
+                } else {
+                    if (builder == null) builder = new StringBuilder(text);
+                    builder.append(parser.getText());
+                }
+            } else if (eventType == XmlPullParser.START_TAG) {
+                skip(parser);
+            } else if (eventType == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                break;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document", parser, null);
+            }
+        }
+        if (builder != null) text = builder.toString();
+        return (text == null || text.length() == 0) ? null : text;
+    }
+
+    /**
+     * Skips the current element with all its content and moves the parser to its end tag.
+     */
+    public static void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = parser.getDepth();
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.END_TAG && parser.getDepth() == depth) {
+                return;
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document", parser, null);
+            }
+        }
+    }
+
+    public static XmlPullParserException missing(XmlPullParser parser, String name) {
+        return new XmlPullParserException("Missing required '" + name + "'", parser, null);
+    }
+
+    public static void writeText(XmlSerializer serializer, String name, String text) throws IOException {
+        serializer.startTag(null, name);
+        serializer.text(text);
+        serializer.endTag(null, name);
+    }
+
+    /**
+     * Looks up a mapped field the generated code can't reach through an accessor of the same type.
+     *
+     * @param type the class declaring the field
+     * @param name the field name
+     * @return the accessible field
+     */
+    public static Field field(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException ex) {
+            throw new IllegalStateException("Field " + name + " not found in " + type.getName(), ex);
+        }
+    }
+
+    public static Object getField(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static void setField(Field field, Object object, Object value) {
+        try {
+            field.set(object, value);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private static XmlMarshaller<?> load(Class<?> type) {
+        try {
+            Class<?> marshallerClass = Class.forName(type.getName() + MARSHALLER_SUFFIX, true, type.getClassLoader());
+            return (XmlMarshaller<?>) marshallerClass.getField("INSTANCE").get(null);
+        } catch (ClassNotFoundException ex) {
+            return NONE;
+        } catch (NoSuchFieldException ex) {
+            return NONE;
+        } catch (IllegalAccessException ex) {
+            return NONE;
+        }
+    }
+
+    private static XmlPullParserFactory getParserFactory() throws XmlPullParserException {
+        if (parserFactory == null) {
+            parserFactory = XmlPullParserFactory.newInstance();
+        }
+        return parserFactory;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm.json;
+
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
+import com.jaspersoft.android.sdk.client.oxm.XmlMarshallers;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Reads <code>application/json</code> responses into the <code>oxm</code> classes with the generated
+ * {@link JsonUnmarshaller}s. Requests are still written as XML.
+ * <p>
+ * The converter doesn't contribute to the default <code>Accept</code> header, so JSON is received only
+ * from the requests that explicitly ask for it.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class JsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    public JsonHttpMessageConverter() {
+        super(new MediaType("application", "json", DEFAULT_CHARSET));
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return getUnmarshaller(clazz) != null;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        JsonUnmarshaller<?> unmarshaller = getUnmarshaller(clazz);
+        if (unmarshaller == null) {
+            throw new HttpMessageNotReadableException("No JSON unmarshaller for [" + clazz + "]");
+        }
+
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = (contentType != null && contentType.getCharSet() != null)
+                ? contentType.getCharSet() : DEFAULT_CHARSET;
+        long start = System.nanoTime();
+        try {
+            JsonTokenizer tokenizer = new JsonTokenizer(new InputStreamReader(inputMessage.getBody(), charset));
+            Object result = unmarshaller.readJson(tokenizer);
+            SharedXmlSerializer.getParseStatistics().record(clazz, System.nanoTime() - start);
+            return result;
+        } catch (MalformedJsonException ex) {
+            throw new HttpMessageNotReadableException("Could not read [" + clazz + "]: " + ex.getMessage(), ex);
+        } catch (IllegalArgumentException ex) {
+            throw new HttpMessageNotReadableException("Could not read [" + clazz + "]: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object o, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        throw new HttpMessageNotWritableException("Writing JSON is not supported");
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private JsonUnmarshaller<?> getUnmarshaller(Class<?> clazz) {
+        Object marshaller = XmlMarshallers.get(clazz);
+        return (marshaller instanceof JsonUnmarshaller) ? (JsonUnmarshaller<?>) marshaller : null;
+    }
+
+}
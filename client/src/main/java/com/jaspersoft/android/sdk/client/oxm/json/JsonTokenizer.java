@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm.json;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming pull tokenizer of JSON documents, modelled after <code>android.util.JsonReader</code>
+ * which isn't available before API level 11. Values are read one token at a time, so a document
+ * is never held in memory as a tree.
+ * <p>
+ * Numbers and booleans are returned as their literal text by {@link #nextString()}, leaving
+ * the conversion to the caller.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class JsonTokenizer {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader reader;
+    private final char[] buffer = new char[4096];
+    private int position;
+    private int limit;
+
+    private int[] stack = new int[16];
+    private int stackSize;
+
+    private Token token;
+    private String value;
+
+    public JsonTokenizer(Reader reader) {
+        this.reader = reader;
+        stack[stackSize++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return the type of the next token without consuming it
+     * @throws MalformedJsonException if the document is not well-formed
+     * @throws IOException            if the underlying reader fails
+     */
+    public Token peek() throws IOException {
+        if (token != null) {
+            return token;
+        }
+        int c;
+        switch (stack[stackSize - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return readValue();
+            case NONEMPTY_DOCUMENT:
+                if (nextNonWhitespace() != -1) throw syntaxError("Multiple top-level values");
+                return token = Token.END_DOCUMENT;
+            case EMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return token = Token.END_ARRAY;
+                position--;
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                return readValue();
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') return token = Token.END_ARRAY;
+                if (c != ',') throw syntaxError("Expected ',' or ']'");
+                return readValue();
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') return token = Token.END_OBJECT;
+                if (stack[stackSize - 1] == NONEMPTY_OBJECT) {
+                    if (c != ',') throw syntaxError("Expected ',' or '}'");
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("Expected name");
+                value = readString();
+                stack[stackSize - 1] = DANGLING_NAME;
+                return token = Token.NAME;
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') throw syntaxError("Expected ':'");
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return readValue();
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * @return <code>true</code> if the current object or array has another element
+     */
+    public boolean hasNext() throws IOException {
+        Token next = peek();
+        return next != Token.END_OBJECT && next != Token.END_ARRAY && next != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return value;
+    }
+
+    /**
+     * Consumes the next string, number or boolean value.
+     *
+     * @return the value as text, or <code>null</code> if the value is <code>null</code>
+     */
+    public String nextString() throws IOException {
+        Token next = peek();
+        if (next == Token.NULL) {
+            token = null;
+            return null;
+        }
+        if (next != Token.STRING && next != Token.NUMBER && next != Token.BOOLEAN) {
+            throw syntaxError("Expected a value but was " + next);
+        }
+        token = null;
+        return value;
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Consumes the next value if it's <code>null</code>.
+     *
+     * @return <code>true</code> if a <code>null</code> value was consumed
+     */
+    public boolean skipNull() throws IOException {
+        if (peek() == Token.NULL) {
+            token = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips the next value, including all nested values of an object or array.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token next = peek();
+            if (next == Token.BEGIN_OBJECT) {
+                beginObject();
+                depth++;
+            } else if (next == Token.BEGIN_ARRAY) {
+                beginArray();
+                depth++;
+            } else if (next == Token.END_OBJECT) {
+                endObject();
+                depth--;
+            } else if (next == Token.END_ARRAY) {
+                endArray();
+                depth--;
+            } else if (next == Token.END_DOCUMENT) {
+                throw syntaxError("Unexpected end of document");
+            } else {
+                token = null;
+            }
+        } while (depth > 0);
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private void expect(Token expected) throws IOException {
+        Token next = peek();
+        if (next != expected) {
+            throw syntaxError("Expected " + expected + " but was " + next);
+        }
+        token = null;
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private Token readValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return token = Token.BEGIN_OBJECT;
+            case '[':
+                return token = Token.BEGIN_ARRAY;
+            case '"':
+                value = readString();
+                return token = Token.STRING;
+            case -1:
+                throw syntaxError("Unexpected end of document");
+            default:
+                position--;
+                value = readLiteral();
+                if (value.equals("null")) return token = Token.NULL;
+                if (value.equals("true") || value.equals("false")) return token = Token.BOOLEAN;
+                char first = value.charAt(0);
+                if (first == '-' || (first >= '0' && first <= '9')) return token = Token.NUMBER;
+                throw syntaxError("Unexpected value '" + value + "'");
+        }
+    }
+
+    private String readString() throws IOException {
+        StringBuilder builder = null;
+        while (true) {
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position++];
+                if (c == '"') {
+                    if (builder == null) return new String(buffer, start, position - start - 1);
+                    return builder.append(buffer, start, position - start - 1).toString();
+                } else if (c == '\\') {
+                    if (builder == null) builder = new StringBuilder();
+                    builder.append(buffer, start, position - start - 1);
+                    builder.append(readEscape());
+                    start = position;
+                }
+            }
+            if (builder == null) builder = new StringBuilder();
+            builder.append(buffer, start, position - start);
+            if (!fill()) throw syntaxError("Unterminated string");
+        }
+    }
+
+    private char readEscape() throws IOException {
+        if (position == limit && !fill()) throw syntaxError("Unterminated escape");
+        char c = buffer[position++];
+        switch (c) {
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    if (position == limit && !fill()) throw syntaxError("Unterminated escape");
+                    int digit = Character.digit(buffer[position++], 16);
+                    if (digit < 0) throw syntaxError("Malformed unicode escape");
+                    code = (code << 4) | digit;
+                }
+                return (char) code;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                return c;
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c == ',' || c == ':' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                break;
+            }
+            builder.append(c);
+            position++;
+        }
+        return builder.toString();
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position++];
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\uFEFF') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message);
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm.json;
+
+import java.io.IOException;
+
+/**
+ * Reads one <code>oxm</code> class from the JSON representation of JasperReports Server. Implemented by
+ * the generated marshallers, which map JSON keys to the names of the Simple XML annotations.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public interface JsonUnmarshaller<T> {
+
+    /**
+     * Reads an instance from the next value of the tokenizer, usually an object.
+     *
+     * @param tokenizer the tokenizer positioned before the value
+     * @return the read instance
+     * @throws IOException if the document can't be read or doesn't match the mapping
+     */
+    T readJson(JsonTokenizer tokenizer) throws IOException;
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.client.oxm.resource;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming parser of the <code>resources</code> document returned by the Resources Service v2.
+ * Unlike the Simple XML based deserialization, it doesn't build the whole {@link ResourceLookupsList},
+ * but hands every {@link ResourceLookup} to a {@link ResourceLookupHandler} as soon as its element is closed,
+ * so only one lookup is held in memory at a time.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ResourceLookupsParser {
+
+    private static final String TAG_RESOURCE_LOOKUP = "resourceLookup";
+
+    private final XmlPullParserFactory parserFactory;
+
+    public ResourceLookupsParser() throws XmlPullParserException {
+        parserFactory = XmlPullParserFactory.newInstance();
+    }
+
+    /**
+     * Parses the document and passes each resource lookup to the handler.
+     *
+     * @param in       the document stream
+     * @param encoding the document encoding, or <code>null</code> to detect it from the XML declaration
+     * @param handler  the handler of parsed lookups
+     * @return the number of lookups passed to the handler
+     * @throws XmlPullParserException if the document is not well-formed
+     * @throws IOException            if the stream can't be read
+     */
+    public int parse(InputStream in, String encoding, ResourceLookupHandler handler)
+            throws XmlPullParserException, IOException {
+        XmlPullParser parser = parserFactory.newPullParser();
+        parser.setInput(in, encoding);
+
+        int count = 0;
+        int eventType = parser.getEventType();
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            if (eventType == XmlPullParser.START_TAG && TAG_RESOURCE_LOOKUP.equals(parser.getName())) {
+                count++;
+                if (!handler.onResourceLookup(readResourceLookup(parser))) {
+                    break;
+                }
+            }
+            eventType = parser.next();
+        }
+        return count;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private ResourceLookup readResourceLookup(XmlPullParser parser) throws XmlPullParserException, IOException {
+        ResourceLookup resourceLookup = new ResourceLookup();
+        int depth = parser.getDepth();
+        int eventType;
+        while ((eventType = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+            if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document", parser, null);
+            }
+            if (eventType != XmlPullParser.START_TAG) continue;
+
+            String name = parser.getName();
+            if ("label".equals(name)) {
+                resourceLookup.setLabel(parser.nextText());
+            } else if ("description".equals(name)) {
+                resourceLookup.setDescription(parser.nextText());
+            } else if ("uri".equals(name)) {
+                resourceLookup.setUri(parser.nextText());
+            } else if ("resourceType".equals(name)) {
+                resourceLookup.setResourceType(parser.nextText());
+            } else if ("version".equals(name)) {
+                resourceLookup.setVersion(parseInteger(parser.nextText()));
+            } else if ("permissionMask".equals(name)) {
+                resourceLookup.setPermissionMask(parseInteger(parser.nextText()));
+            } else if ("creationDate".equals(name)) {
+                resourceLookup.setCreationDate(parser.nextText());
+            } else if ("updateDate".equals(name)) {
+                resourceLookup.setUpdateDate(parser.nextText());
+            } else {
+                skipElement(parser);
+            }
+        }
+        return resourceLookup;
+    }
+
+    private void skipElement(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int level = 1;
+        while (level > 0) {
+            switch (parser.next()) {
+                case XmlPullParser.START_TAG:
+                    level++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    level--;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    throw new XmlPullParserException("Unexpected end of document", parser, null);
+            }
+        }
+    }
+
+    private Integer parseInteger(String value) throws XmlPullParserException {
+        String trimmed = value.trim();
+        if (trimmed.length() == 0) return null;
+        try {
+            return Integer.valueOf(trimmed);
+        } catch (NumberFormatException ex) {
+            throw new XmlPullParserException("Invalid number: " + value);
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.export.AttachmentStore;
+import com.jaspersoft.android.sdk.client.export.CachedExport;
+import com.jaspersoft.android.sdk.client.export.ExportCache;
+import com.jaspersoft.android.sdk.client.oxm.report.ExportExecution;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionRequest;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionResponse;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportOutputResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class AttachmentStoreTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("attachment-store", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void test_identicalContentIsStoredOnce() throws Exception {
+        AttachmentStore store = new AttachmentStore(new File(directory, "blobs"));
+
+        String first = store.put(stream("image"));
+        String second = store.put(stream("image"));
+        String third = store.put(stream("another image"));
+
+        // SHA-1 in hex
+        assertEquals(40, first.length());
+        assertEquals(first, second);
+        assertFalse(first.equals(third));
+        assertEquals(2, store.getBlobCount());
+        assertEquals(2, store.getReferenceCount(first));
+        assertEquals("image", read(store.getFile(first)));
+
+        store.release(first);
+        assertTrue(store.contains(first));
+        store.release(first);
+        assertFalse(store.contains(first));
+        assertFalse(store.getFile(first).exists());
+
+        AttachmentStore reloaded = new AttachmentStore(new File(directory, "blobs"));
+        assertEquals(1, reloaded.getBlobCount());
+        assertEquals(1, reloaded.getReferenceCount(third));
+    }
+
+    @Test
+    public void test_index() throws Exception {
+        AttachmentStore store = new AttachmentStore(new File(directory, "blobs"));
+        File firstOutput = new File(directory, "first");
+        File secondOutput = new File(directory, "second");
+
+        Map<String, String> attachments = new LinkedHashMap<String, String>();
+        attachments.put("img_0_0_0", store.put(stream("logo")));
+        store.writeIndex(firstOutput, attachments);
+        attachments.put("img_0_0_0", store.put(stream("logo")));
+        store.writeIndex(secondOutput, attachments);
+
+        assertEquals(1, store.getBlobCount());
+        assertEquals("logo", read(store.resolve(secondOutput, "img_0_0_0")));
+        assertNull(store.resolve(secondOutput, "img_0_0_1"));
+
+        // replacing the index releases the previous attachments
+        attachments.put("img_0_0_0", store.put(stream("new logo")));
+        store.writeIndex(firstOutput, attachments);
+        assertEquals("new logo", read(store.resolve(firstOutput, "img_0_0_0")));
+        assertEquals(2, store.getBlobCount());
+
+        store.deleteIndex(secondOutput);
+        assertEquals(1, store.getBlobCount());
+        assertTrue(store.readIndex(secondOutput).isEmpty());
+    }
+
+    @Test
+    public void test_validators() throws Exception {
+        AttachmentStore store = new AttachmentStore(new File(directory, "blobs"));
+        String digest = store.put(stream("image"));
+
+        store.putValidator("/reports/AllAccounts/img_0_0_0", "\"1234\"", -1, digest);
+        store.putValidator("/reports/AllAccounts/img_0_0_1", null, -1, digest);
+
+        AttachmentStore.Validator validator = store.getValidator("/reports/AllAccounts/img_0_0_0");
+        assertEquals("\"1234\"", validator.getETag());
+        assertEquals(digest, validator.getDigest());
+        assertNull(store.getValidator("/reports/AllAccounts/img_0_0_1"));
+
+        store.release(digest);
+        assertNull(store.getValidator("/reports/AllAccounts/img_0_0_0"));
+    }
+
+    @Test
+    public void test_exportsShareAttachments() throws Exception {
+        AttachmentStore store = new AttachmentStore(new File(directory, "blobs"));
+        ExportCache cache = new ExportCache(new File(directory, "exports"), ExportCache.DEFAULT_MAX_SIZE, store);
+        FakeExportClient client = new FakeExportClient();
+
+        CachedExport first = cache.export(client, request("/reports/First"));
+        CachedExport second = cache.export(client, request("/reports/Second"));
+
+        assertEquals(1, store.getBlobCount());
+        assertEquals(first.getAttachmentDigest("img_0_0_0"), second.getAttachmentDigest("img_0_0_0"));
+        assertEquals("logo", read(second.getAttachmentFile("img_0_0_0")));
+
+        ExportCache reloaded = new ExportCache(new File(directory, "exports"), ExportCache.DEFAULT_MAX_SIZE, store);
+        assertEquals("logo", read(reloaded.get(first.getKey()).getAttachmentFile("img_0_0_0")));
+
+        reloaded.remove(first.getKey());
+        assertEquals(1, store.getBlobCount());
+        reloaded.remove(second.getKey());
+        assertEquals(0, store.getBlobCount());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private ReportExecutionRequest request(String reportUri) {
+        ReportExecutionRequest request = new ReportExecutionRequest();
+        request.setReportUnitUri(reportUri);
+        request.setOutputFormat("HTML");
+        return request;
+    }
+
+    private static ByteArrayInputStream stream(String content) throws IOException {
+        return new ByteArrayInputStream(content.getBytes("UTF-8"));
+    }
+
+    private String read(File file) throws IOException {
+        return new String(FileCopyUtils.copyToByteArray(file), "UTF-8");
+    }
+
+    private void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class FakeExportClient extends JsRestClient {
+
+        private int executions;
+
+        @Override
+        public ReportExecutionResponse runReportExecution(ReportExecutionRequest request) {
+            executions++;
+            ReportOutputResource attachment = new ReportOutputResource();
+            attachment.setFileName("img_0_0_0");
+
+            ExportExecution export = new ExportExecution();
+            export.setId("html");
+            export.setOutputResource(new ReportOutputResource());
+            export.setAttachments(Collections.singletonList(attachment));
+            ReportExecutionResponse response = new ReportExecutionResponse();
+            response.setRequestId("execution-" + executions);
+            response.setExports(Collections.singletonList(export));
+            return response;
+        }
+
+        @Override
+        public void saveExportOutputToFile(String executionId, String exportOutput, File file) {
+            try {
+                file.getParentFile().mkdirs();
+                FileCopyUtils.copy("output".getBytes("UTF-8"), file);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public String saveExportAttachmentToStore(String executionId, String exportOutput, String attachmentName,
+                                                  AttachmentStore store, String validatorKey) {
+            try {
+                return store.put(stream("logo"));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+}
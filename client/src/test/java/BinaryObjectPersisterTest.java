@@ -0,0 +1,185 @@
+import com.jaspersoft.android.sdk.client.async.cache.BinaryCodecs;
+import com.jaspersoft.android.sdk.client.async.cache.BinaryObjectPersister;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlOption;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.DateTimeFormatValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.MandatoryValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.ValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import com.octo.android.robospice.persistence.DurationInMillis;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class BinaryObjectPersisterTest {
+
+    private File cacheFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFolder = File.createTempFile("binary-cache", "");
+        cacheFolder.delete();
+        cacheFolder.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = cacheFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        cacheFolder.delete();
+    }
+
+    @Test
+    public void test_resourceLookupsList() throws Exception {
+        BinaryObjectPersister<ResourceLookupsList> persister = persister(ResourceLookupsList.class);
+        persister.saveDataToCacheAndReturnData(resourceLookupsList(500), 1);
+
+        ResourceLookupsList result = persister.loadDataFromCache(1, DurationInMillis.ALWAYS_RETURNED);
+
+        assertEquals(500, result.getResultCount());
+        assertEquals(1000, result.getTotalCount());
+        assertEquals(500, result.getResourceLookups().size());
+        ResourceLookup lookup = result.getResourceLookups().get(7);
+        assertEquals("/reports/samples/report7", lookup.getUri());
+        assertEquals("Report 7", lookup.getLabel());
+        assertNull(lookup.getDescription());
+        assertEquals(ResourceLookup.ResourceType.reportUnit, lookup.getResourceType());
+        assertEquals(Integer.valueOf(7), lookup.getVersion());
+        assertNull(lookup.getPermissionMask());
+        assertEquals("2014-01-01 10:00:00", lookup.getCreationDate());
+    }
+
+    @Test
+    public void test_stringTableIsSmallerThanXml() throws Exception {
+        ResourceLookupsList list = resourceLookupsList(500);
+        BinaryObjectPersister<ResourceLookupsList> persister = persister(ResourceLookupsList.class);
+        persister.saveDataToCacheAndReturnData(list, 1);
+
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        SharedXmlSerializer.getSerializer().write(list, xml);
+
+        assertTrue(persister.getCacheFile(1).length() * 3 < xml.size());
+    }
+
+    @Test
+    public void test_inputControlsList() throws Exception {
+        InputControl control = new InputControl();
+        control.setId("country");
+        control.setLabel("Country");
+        control.setUri("repo:/reports/samples/Cascading/country");
+        control.setMandatory(true);
+        control.setVisible(true);
+        control.setType(InputControl.Type.multiSelect);
+        InputControlState state = new InputControlState();
+        state.setId("country");
+        state.setUri("/reports/samples/Cascading/country");
+        state.setOptions(Arrays.asList(new InputControlOption("USA", "USA", true),
+                new InputControlOption("Mexico", "Mexico", false)));
+        control.setState(state);
+        DateTimeFormatValidationRule dateRule = new DateTimeFormatValidationRule();
+        dateRule.setFormat("yyyy-MM-dd");
+        dateRule.setErrorMessage("Wrong format");
+        control.setValidationRules(Arrays.<ValidationRule>asList(dateRule, new MandatoryValidationRule()));
+        control.setMasterDependencies(new ArrayList<String>());
+        control.setSlaveDependencies(Arrays.asList("state", "city"));
+        InputControlsList list = new InputControlsList();
+        list.setInputControls(Arrays.asList(control));
+
+        BinaryObjectPersister<InputControlsList> persister = persister(InputControlsList.class);
+        persister.saveDataToCacheAndReturnData(list, 2);
+        InputControl result = persister.loadDataFromCache(2, DurationInMillis.ALWAYS_RETURNED).getInputControls().get(0);
+
+        assertEquals("repo:/reports/samples/Cascading/country", result.getUri());
+        assertTrue(result.isMandatory());
+        assertFalse(result.isReadOnly());
+        assertEquals(InputControl.Type.multiSelect, result.getType());
+        assertEquals(2, result.getState().getOptions().size());
+        assertTrue(result.getState().getOptions().get(0).isSelected());
+        assertEquals("Mexico", result.getState().getOptions().get(1).getLabel());
+        assertNull(result.getState().getValue());
+        assertEquals("yyyy-MM-dd", result.getValidationRules(DateTimeFormatValidationRule.class).get(0).getFormat());
+        assertEquals(1, result.getValidationRules(MandatoryValidationRule.class).size());
+        assertTrue(result.getMasterDependencies().isEmpty());
+        assertEquals(Arrays.asList("state", "city"), result.getSlaveDependencies());
+    }
+
+    @Test
+    public void test_serverInfo() throws Exception {
+        ServerInfo serverInfo = new ServerInfo();
+        serverInfo.setVersion("5.5.0");
+        serverInfo.setEdition("PRO");
+        serverInfo.setBuild("20131031_1540");
+
+        BinaryObjectPersister<ServerInfo> persister = persister(ServerInfo.class);
+        persister.saveDataToCacheAndReturnData(serverInfo, 3);
+        ServerInfo result = persister.loadDataFromCache(3, DurationInMillis.ALWAYS_RETURNED);
+
+        assertEquals("5.5.0", result.getVersion());
+        assertEquals(serverInfo.getVersionCode(), result.getVersionCode());
+        assertEquals("PRO", result.getEdition());
+        assertEquals("20131031_1540", result.getBuild());
+        assertNull(result.getFeatures());
+    }
+
+    @Test
+    public void test_corruptFileIsMissing() throws Exception {
+        BinaryObjectPersister<ResourceLookupsList> persister = persister(ResourceLookupsList.class);
+        persister.saveDataToCacheAndReturnData(resourceLookupsList(10), 4);
+        File file = persister.getCacheFile(4);
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(file.length() / 2);
+        truncated.close();
+
+        assertNull(persister.loadDataFromCache(4, DurationInMillis.ALWAYS_RETURNED));
+        assertFalse(file.exists());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private <T> BinaryObjectPersister<T> persister(Class<T> type) throws Exception {
+        return new BinaryObjectPersister<T>(null, type, cacheFolder, BinaryCodecs.get(type));
+    }
+
+    private ResourceLookupsList resourceLookupsList(int size) {
+        List<ResourceLookup> lookups = new ArrayList<ResourceLookup>();
+        for (int i = 0; i < size; i++) {
+            ResourceLookup lookup = new ResourceLookup();
+            lookup.setLabel("Report " + i);
+            lookup.setUri("/reports/samples/report" + i);
+            lookup.setResourceType(ResourceLookup.ResourceType.reportUnit);
+            lookup.setVersion(i);
+            lookup.setCreationDate("2014-01-01 10:00:00");
+            lookups.add(lookup);
+        }
+        ResourceLookupsList list = new ResourceLookupsList();
+        list.setResourceLookups(lookups);
+        list.setResultCount(size);
+        list.setTotalCount(2 * size);
+        return list;
+    }
+
+}
@@ -0,0 +1,166 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.cache.CacheDependency;
+import com.jaspersoft.android.sdk.client.async.cache.CacheInvalidationIndex;
+import com.jaspersoft.android.sdk.client.async.cache.CacheInvalidator;
+import com.jaspersoft.android.sdk.client.async.request.DeleteResourceRequest;
+import com.jaspersoft.android.sdk.client.oxm.ResourceDescriptor;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CacheInvalidationIndexTest {
+
+    @Test
+    public void test_resourceChange() {
+        CacheInvalidationIndex index = populatedIndex(null);
+
+        Set<String> invalidated = keys(index.invalidate("/reports/samples/AllAccounts/"));
+
+        assertEquals(new HashSet<String>(Arrays.asList("report", "samplesListing", "reportsTree")), invalidated);
+        assertEquals(3, index.size());
+        assertTrue(index.invalidate("/reports/samples/AllAccounts").isEmpty());
+    }
+
+    @Test
+    public void test_folderChange() {
+        CacheInvalidationIndex index = populatedIndex(null);
+
+        Set<String> invalidated = keys(index.invalidate("/reports/samples"));
+
+        assertEquals(new HashSet<String>(Arrays.asList("report", "otherReport", "samplesListing",
+                "reportsListing", "reportsTree")), invalidated);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void test_persistence() throws Exception {
+        File file = File.createTempFile("invalidation-index", "");
+        file.delete();
+        try {
+            populatedIndex(file).invalidate("/reports/samples/AllAccounts");
+
+            CacheInvalidationIndex reloaded = new CacheInvalidationIndex(file);
+            assertEquals(3, reloaded.size());
+            assertEquals(new HashSet<String>(Arrays.asList("otherReport", "reportsListing")),
+                    keys(reloaded.invalidate("/reports/samples")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_maxEntries() {
+        CacheInvalidationIndex index = new CacheInvalidationIndex(null, 2);
+        assertTrue(index.register(ResourceDescriptor.class, "first",
+                Arrays.asList(CacheDependency.resource("/reports/first"))).isEmpty());
+        index.register(ResourceDescriptor.class, "second", Arrays.asList(CacheDependency.resource("/reports/second")));
+        // registered again, so the first one is the most recent
+        index.register(ResourceDescriptor.class, "first", Arrays.asList(CacheDependency.resource("/reports/first")));
+
+        List<CacheInvalidationIndex.Entry> dropped = index.register(ResourceDescriptor.class, "third",
+                Arrays.asList(CacheDependency.resource("/reports/third")));
+
+        assertEquals(Collections.singleton("second"), keys(dropped));
+        assertEquals(2, index.size());
+        assertTrue(index.invalidate("/reports/second").isEmpty());
+    }
+
+    @Test
+    public void test_removal() throws Exception {
+        File file = File.createTempFile("invalidation-index", "");
+        file.delete();
+        try {
+            CacheInvalidationIndex index = populatedIndex(file);
+            index.remove(ResourceDescriptor.class, "report");
+            index.removeAll(ResourceLookupsList.class);
+
+            assertEquals(1, index.size());
+            assertEquals(Collections.singleton("otherReport"), keys(index.invalidate("/reports")));
+            assertEquals(0, new CacheInvalidationIndex(file).size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_compaction() throws Exception {
+        File file = File.createTempFile("invalidation-index", "");
+        file.delete();
+        try {
+            CacheInvalidationIndex index = new CacheInvalidationIndex(file);
+            for (int i = 0; i < 1000; i++) {
+                index.register(ResourceDescriptor.class, "report" + i,
+                        Arrays.asList(CacheDependency.resource("/reports/report" + i)));
+                index.remove(ResourceDescriptor.class, "report" + i);
+            }
+
+            // removed results are only left in the file until it's compacted
+            assertTrue(new CacheInvalidationIndex(file).size() <= 64);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_deleteRequestInvalidates() throws Exception {
+        final String[] invalidatedUri = new String[1];
+        DeleteResourceRequest request = new DeleteResourceRequest(new JsRestClient() {
+            @Override
+            public void deleteResource(String uri) {
+                // deleted on the server
+            }
+        }, "/reports/samples/AllAccounts");
+        request.setCacheInvalidator(new CacheInvalidator() {
+            public int invalidate(String uri) {
+                invalidatedUri[0] = uri;
+                return 0;
+            }
+        });
+
+        request.loadDataFromNetwork();
+
+        assertEquals("/reports/samples/AllAccounts", invalidatedUri[0]);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private CacheInvalidationIndex populatedIndex(File file) {
+        CacheInvalidationIndex index = new CacheInvalidationIndex(file);
+        index.register(ResourceDescriptor.class, "report",
+                Arrays.asList(CacheDependency.resource("/reports/samples/AllAccounts")));
+        index.register(ResourceDescriptor.class, "otherReport",
+                Arrays.asList(CacheDependency.resource("/reports/samples/Cascading")));
+        index.register(ResourceLookupsList.class, "samplesListing",
+                Arrays.asList(CacheDependency.folder("/reports/samples/")));
+        index.register(ResourceLookupsList.class, "reportsListing",
+                Arrays.asList(CacheDependency.folder("/reports")));
+        index.register(ResourceLookupsList.class, "reportsTree",
+                Arrays.asList(CacheDependency.tree("/reports")));
+        index.register(ResourceLookupsList.class, "adhocListing",
+                Arrays.asList(CacheDependency.folder("/adhoc")));
+        return index;
+    }
+
+    private Set<String> keys(List<CacheInvalidationIndex.Entry> entries) {
+        Set<String> keys = new HashSet<String>();
+        for (CacheInvalidationIndex.Entry entry : entries) {
+            keys.add(entry.getCacheKey());
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,122 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetInputControlsValuesRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetResourceLookupsRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetServerInfoRequest;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CacheKeyBuilderTest {
+
+    @Test
+    public void test_fieldsDontShift() {
+        assertFalse(new CacheKeyBuilder().add("ab").add("c").build() == new CacheKeyBuilder().add("a").add("bc").build());
+        assertFalse(new CacheKeyBuilder().add((String) null).build() == new CacheKeyBuilder().add("").build());
+        assertFalse(new CacheKeyBuilder().add(1).build() == new CacheKeyBuilder().add(1L).build());
+    }
+
+    @Test
+    public void test_uriNormalization() {
+        long expected = new CacheKeyBuilder().addUri("/reports/samples").build();
+        assertEquals(expected, new CacheKeyBuilder().addUri("/reports/samples/").build());
+        assertEquals(expected, new CacheKeyBuilder().addUri("/reports//samples").build());
+        assertEquals(new CacheKeyBuilder().addUri("/").build(), new CacheKeyBuilder().addUri("").build());
+        assertFalse(expected == new CacheKeyBuilder().addUri("/reports/sample").build());
+        // a normalized URI equals the plain string
+        assertEquals(expected, new CacheKeyBuilder().add("/reports/samples").build());
+    }
+
+    @Test
+    public void test_sortedValues() {
+        assertEquals(new CacheKeyBuilder().addSorted(Arrays.asList("reportUnit", "folder")).build(),
+                new CacheKeyBuilder().addSorted(Arrays.asList("folder", "reportUnit")).build());
+        assertFalse(new CacheKeyBuilder().addAll(Arrays.asList("reportUnit", "folder")).build()
+                == new CacheKeyBuilder().addAll(Arrays.asList("folder", "reportUnit")).build());
+        assertFalse(new CacheKeyBuilder().addSorted(null).build()
+                == new CacheKeyBuilder().addSorted(Arrays.<String>asList()).build());
+    }
+
+    @Test
+    public void test_resourceLookupsRequestKey() {
+        JsRestClient jsRestClient = jsRestClient();
+        long key = new GetResourceLookupsRequest(jsRestClient, "/reports/samples/",
+                Arrays.asList("reportUnit", "folder"), 0, 40).createCacheKey();
+
+        assertEquals(key, new GetResourceLookupsRequest(jsRestClient, "/reports/samples",
+                Arrays.asList("folder", "reportUnit"), 0, 40).createCacheKey());
+        assertFalse(key == new GetResourceLookupsRequest(jsRestClient, "/reports/samples",
+                Arrays.asList("folder", "reportUnit"), 40, 40).createCacheKey());
+    }
+
+    @Test
+    public void test_inputControlsValuesRequestKey() {
+        JsRestClient jsRestClient = jsRestClient();
+        List<String> ids = Arrays.asList("country", "state");
+        ReportParameter country = new ReportParameter("country", new LinkedHashSet<String>(Arrays.asList("USA", "Mexico")));
+        ReportParameter state = new ReportParameter("state", new HashSet<String>(Arrays.asList("CA")));
+        ReportParameter countryReordered = new ReportParameter("country", new LinkedHashSet<String>(Arrays.asList("Mexico", "USA")));
+
+        long key = new GetInputControlsValuesRequest(jsRestClient, "/reports/Cascading", ids,
+                Arrays.asList(country, state)).createCacheKey();
+
+        assertEquals(key, new GetInputControlsValuesRequest(jsRestClient, "/reports/Cascading", ids,
+                Arrays.asList(state, countryReordered)).createCacheKey());
+    }
+
+    @Test
+    public void test_legacyKeyString() {
+        JsRestClient jsRestClient = jsRestClient();
+        long key = new LegacyRequest(jsRestClient, "a").createCacheKey();
+
+        assertEquals(key, new LegacyRequest(jsRestClient, "a").createCacheKey());
+        assertFalse(key == new LegacyRequest(jsRestClient, "b").createCacheKey());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private JsRestClient jsRestClient() {
+        final JsServerProfile profile = new JsServerProfile("Mobile Demo",
+                "http://mobiledemo.jaspersoft.com/jasperserver-pro", "organization_1", "phoneuser", "phoneuser");
+        // setServerProfile() needs the Android Base64 implementation
+        return new JsRestClient() {
+            @Override
+            public JsServerProfile getServerProfile() {
+                return profile;
+            }
+        };
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class LegacyRequest extends GetServerInfoRequest {
+        private final String tag;
+
+        LegacyRequest(JsRestClient jsRestClient, String tag) {
+            super(jsRestClient);
+            this.tag = tag;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        protected String createCacheKeyString() {
+            return super.createCacheKeyString() + tag;
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+import com.jaspersoft.android.sdk.client.http.CompressionInterceptor;
+import com.jaspersoft.android.sdk.client.http.TransferStatistics;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class CompressionInterceptorTest {
+
+    private final static String body = "<resources><resourceLookup><uri>/reports/samples/AllAccounts</uri>" +
+            "</resourceLookup><resourceLookup><uri>/reports/samples/AllAccounts</uri></resourceLookup></resources>";
+
+    @Test
+    public void test_gzipResponse() throws Exception {
+        TransferStatistics statistics = new TransferStatistics();
+        byte[] compressed = gzip(body.getBytes("UTF-8"));
+
+        ClientHttpResponse response = intercept(statistics, "gzip", compressed);
+
+        assertNull(response.getHeaders().getFirst("Content-Encoding"));
+        assertEquals(body, read(response));
+        assertEquals(compressed.length, statistics.getWireBytes());
+        assertEquals(body.length(), statistics.getBodyBytes());
+        assertEquals(1, statistics.getCompressedResponses());
+    }
+
+    @Test
+    public void test_deflateResponse() throws Exception {
+        TransferStatistics statistics = new TransferStatistics();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        OutputStream out = new DeflaterOutputStream(compressed);
+        out.write(body.getBytes("UTF-8"));
+        out.close();
+
+        ClientHttpResponse response = intercept(statistics, "deflate", compressed.toByteArray());
+
+        assertEquals(body, read(response));
+        assertEquals(compressed.size(), statistics.getWireBytes());
+    }
+
+    @Test
+    public void test_identityResponse() throws Exception {
+        TransferStatistics statistics = new TransferStatistics();
+
+        ClientHttpResponse response = intercept(statistics, null, body.getBytes("UTF-8"));
+
+        assertEquals(body, read(response));
+        assertEquals(body.length(), statistics.getWireBytes());
+        assertEquals(body.length(), statistics.getBodyBytes());
+        assertEquals(1, statistics.getUncompressedResponses());
+    }
+
+    @Test
+    public void test_emptyGzipResponse() throws Exception {
+        ClientHttpResponse response = intercept(new TransferStatistics(), "gzip", new byte[0]);
+        assertEquals("", read(response));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private ClientHttpResponse intercept(TransferStatistics statistics, final String encoding, final byte[] content)
+            throws IOException {
+        final HttpRequest request = new StubRequest();
+        ClientHttpResponse response = new CompressionInterceptor(statistics).intercept(request, new byte[0],
+                new ClientHttpRequestExecution() {
+                    public ClientHttpResponse execute(HttpRequest executed, byte[] body) {
+                        assertEquals("gzip, deflate", executed.getHeaders().getFirst("Accept-Encoding"));
+                        return new StubResponse(encoding, content);
+                    }
+                });
+        return response;
+    }
+
+    private String read(ClientHttpResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileCopyUtils.copy(response.getBody(), out);
+        response.close();
+        return out.toString("UTF-8");
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(data);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    private static class StubRequest implements HttpRequest {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        public HttpMethod getMethod() {
+            return HttpMethod.GET;
+        }
+
+        public URI getURI() {
+            return URI.create("http://localhost/jasperserver/rest_v2/resources");
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static class StubResponse implements ClientHttpResponse {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final byte[] content;
+
+        StubResponse(String encoding, byte[] content) {
+            this.content = content;
+            if (encoding != null) headers.set("Content-Encoding", encoding);
+        }
+
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        public int getRawStatusCode() {
+            return 200;
+        }
+
+        public String getStatusText() {
+            return "OK";
+        }
+
+        public void close() {
+        }
+
+        public InputStream getBody() {
+            return new ByteArrayInputStream(content);
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.export.CachedExport;
+import com.jaspersoft.android.sdk.client.export.ExportCache;
+import com.jaspersoft.android.sdk.client.oxm.report.ExportExecution;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionRequest;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionResponse;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportOutputResource;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ExportCacheTest {
+
+    private File directory;
+    private FakeExportClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("export-cache", "");
+        directory.delete();
+        client = new FakeExportClient();
+    }
+
+    @After
+    public void tearDown() {
+        new ExportCache(directory).clear();
+        directory.delete();
+    }
+
+    @Test
+    public void test_exportIsCached() throws Exception {
+        ExportCache cache = new ExportCache(directory);
+
+        CachedExport first = cache.export(client, request("/reports/AllAccounts", "Country", "USA", "Canada"));
+        CachedExport second = cache.export(client, request("/reports/AllAccounts", "Country", "Canada", "USA"));
+
+        assertEquals(1, client.executions);
+        assertEquals(first.getKey(), second.getKey());
+        assertEquals("text/html", second.getOutputResource().getContentType());
+        assertEquals("output of /reports/AllAccounts", read(second.getOutputFile()));
+        assertEquals("img_0_0_0", second.getAttachments().get(0).getFileName());
+        assertEquals("attachment img_0_0_0", read(second.getAttachmentFile("img_0_0_0")));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void test_freshData() throws Exception {
+        ExportCache cache = new ExportCache(directory);
+        cache.export(client, request("/reports/AllAccounts"));
+
+        ReportExecutionRequest freshRequest = request("/reports/AllAccounts");
+        freshRequest.setFreshData(true);
+        client.outputPrefix = "fresh output of ";
+        CachedExport export = cache.export(client, freshRequest);
+
+        assertEquals(2, client.executions);
+        assertEquals("fresh output of /reports/AllAccounts", read(export.getOutputFile()));
+        assertEquals(1, cache.getExportCount());
+        assertEquals("fresh output of /reports/AllAccounts",
+                read(cache.export(client, request("/reports/AllAccounts")).getOutputFile()));
+    }
+
+    @Test
+    public void test_freshDataOnNewInstance() throws Exception {
+        new ExportCache(directory).export(client, request("/reports/AllAccounts"));
+
+        ExportCache cache = new ExportCache(directory);
+        ReportExecutionRequest freshRequest = request("/reports/AllAccounts");
+        freshRequest.setFreshData(true);
+        client.outputPrefix = "fresh output of ";
+        CachedExport export = cache.export(client, freshRequest);
+
+        assertEquals(2, client.executions);
+        assertEquals("fresh output of /reports/AllAccounts", read(export.getOutputFile()));
+        assertEquals(1, cache.getExportCount());
+    }
+
+    @Test
+    public void test_quotaEvictsLeastRecentlyUsed() throws Exception {
+        ExportCache cache = new ExportCache(directory, 250);
+        CachedExport first = cache.export(client, request("/reports/First"));
+        CachedExport second = cache.export(client, request("/reports/Second"));
+        Thread.sleep(10);
+        assertNotNull(cache.get(first.getKey()));
+
+        cache.export(client, request("/reports/Third"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(second.getKey()));
+        assertFalse(second.getOutputFile().exists());
+        assertTrue(cache.getSize() <= 250);
+
+        ExportCache reloaded = new ExportCache(directory, 250);
+        assertEquals(2, reloaded.getExportCount());
+        assertNotNull(reloaded.get(first.getKey()));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private ReportExecutionRequest request(String reportUri, String parameter, String... values) {
+        ReportExecutionRequest request = request(reportUri);
+        request.setParameters(Arrays.asList(new ReportParameter(parameter,
+                new LinkedHashSet<String>(Arrays.asList(values)))));
+        return request;
+    }
+
+    private ReportExecutionRequest request(String reportUri) {
+        ReportExecutionRequest request = new ReportExecutionRequest();
+        request.setReportUnitUri(reportUri);
+        request.setOutputFormat("HTML");
+        request.setPages("1");
+        return request;
+    }
+
+    private String read(File file) throws IOException {
+        return new String(FileCopyUtils.copyToByteArray(file), "UTF-8");
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class FakeExportClient extends JsRestClient {
+
+        int executions;
+        String outputPrefix = "output of ";
+        private String reportUri;
+
+        @Override
+        public ReportExecutionResponse runReportExecution(ReportExecutionRequest request) {
+            executions++;
+            reportUri = request.getReportUnitUri();
+            ReportOutputResource output = new ReportOutputResource();
+            output.setContentType("text/html");
+            ReportOutputResource attachment = new ReportOutputResource();
+            attachment.setContentType("image/png");
+            attachment.setFileName("img_0_0_0");
+
+            ExportExecution export = new ExportExecution();
+            export.setId("html");
+            export.setStatus("ready");
+            export.setOutputResource(output);
+            export.setAttachments(Collections.singletonList(attachment));
+            ReportExecutionResponse response = new ReportExecutionResponse();
+            response.setRequestId("execution-" + executions);
+            response.setExports(Collections.singletonList(export));
+            return response;
+        }
+
+        @Override
+        public void saveExportOutputToFile(String executionId, String exportOutput, File file) {
+            write(outputPrefix + reportUri, file);
+        }
+
+        @Override
+        public void saveExportAttachmentToFile(String executionId, String exportOutput, String attachmentName,
+                                               File file) {
+            write("attachment " + attachmentName, file);
+        }
+
+        private void write(String content, File file) {
+            try {
+                file.getParentFile().mkdirs();
+                FileCopyUtils.copy(content.getBytes("UTF-8"), file);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+}
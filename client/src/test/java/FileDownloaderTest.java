@@ -0,0 +1,147 @@
+import com.jaspersoft.android.sdk.client.download.BufferPool;
+import com.jaspersoft.android.sdk.client.download.FileDownloader;
+import com.jaspersoft.android.sdk.client.download.PartialDownload;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class FileDownloaderTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("downloads", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void test_download() throws Exception {
+        BufferPool bufferPool = new BufferPool(1024, 2);
+        FileDownloader downloader = new FileDownloader(bufferPool);
+        byte[] content = new byte[10000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = new File(directory, "report.pdf");
+
+        assertEquals(10000, downloader.download(new ByteArrayInputStream(content), file));
+        downloader.download(new ByteArrayInputStream(content), new File(directory, "report.xls"));
+
+        assertTrue(Arrays.equals(content, FileCopyUtils.copyToByteArray(file)));
+        assertEquals(2, directory.listFiles().length);
+        assertEquals(1, bufferPool.getAllocationCount());
+        assertEquals(1, bufferPool.getPooledCount());
+        assertEquals(2, downloader.getStatistics().getDownloads());
+        assertEquals(20000, downloader.getStatistics().getBytes());
+        assertTrue(downloader.getStatistics().getThroughput() > 0);
+    }
+
+    @Test
+    public void test_failedDownloadKeepsPreviousFile() throws Exception {
+        FileDownloader downloader = new FileDownloader(new BufferPool(16, 1));
+        File file = new File(directory, "report.html");
+        downloader.download(new ByteArrayInputStream("previous".getBytes("UTF-8")), file);
+
+        try {
+            downloader.download(brokenStream(100), file);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        assertEquals("previous", new String(FileCopyUtils.copyToByteArray(file), "UTF-8"));
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(1, downloader.getStatistics().getFailedDownloads());
+    }
+
+    @Test
+    public void test_resumeInterruptedDownload() throws Exception {
+        String url = "http://localhost/jasperserver/rest_v2/reportExecutions/1/exports/xls/outputResource";
+        File file = new File(directory, "report.xls");
+        try {
+            new FileDownloader(new BufferPool(16, 1)).download(brokenStream(100), file,
+                    new PartialDownload(url, "\"1234\"", 150));
+            fail("IOException expected");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertFalse(file.exists());
+
+        // as after a restart of the process
+        FileDownloader downloader = new FileDownloader(new BufferPool(16, 1));
+        PartialDownload partialDownload = downloader.getPartialDownload(file, url);
+        assertEquals(100, partialDownload.getReceivedLength());
+        assertEquals("\"1234\"", partialDownload.getValidator());
+        assertEquals("bytes=100-", partialDownload.getRangeHeader());
+        assertTrue(partialDownload.matchesContentRange("bytes 100-149/150"));
+        assertFalse(partialDownload.matchesContentRange("bytes 0-149/150"));
+        assertFalse(partialDownload.matchesContentRange("bytes 100-199/200"));
+
+        byte[] rest = new byte[50];
+        Arrays.fill(rest, (byte) 'y');
+        assertEquals(150, downloader.download(new ByteArrayInputStream(rest), file, partialDownload));
+
+        String content = new String(FileCopyUtils.copyToByteArray(file), "UTF-8");
+        assertEquals(150, content.length());
+        assertTrue(content.startsWith("xxx") && content.endsWith("yyy"));
+        assertEquals(1, directory.listFiles().length);
+        assertNull(downloader.getPartialDownload(file, url));
+    }
+
+    @Test
+    public void test_partialDownloadOfAnotherUrlIsDiscarded() throws Exception {
+        FileDownloader downloader = new FileDownloader(new BufferPool(16, 1));
+        File file = new File(directory, "report.pdf");
+        try {
+            downloader.download(brokenStream(10), file, new PartialDownload("http://localhost/first", null, 20));
+            fail("IOException expected");
+        } catch (IOException ex) {
+            // expected
+        }
+
+        assertNull(downloader.getPartialDownload(file, "http://localhost/second"));
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private InputStream brokenStream(final int length) {
+        return new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (++count > length) throw new IOException("Connection reset");
+                return 'x';
+            }
+        };
+    }
+
+}
@@ -0,0 +1,101 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.http.HttpTransport;
+import com.jaspersoft.android.sdk.client.http.HttpTransportFactory;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class HttpTransportTest {
+
+    private final static String serverUrl = "http://mobiledemo.jaspersoft.com/jasperserver-pro";
+
+    @Test
+    public void test_customTransport() {
+        FakeTransportFactory factory = new FakeTransportFactory();
+        JsRestClient client = new JsRestClient();
+        client.setTransportFactory(factory);
+        client.setConnectTimeout(5000);
+        client.setServerProfile(profile());
+
+        FakeTransport transport = (FakeTransport) client.getTransport();
+        assertSame(factory.transports.get(0), transport);
+        assertEquals(5000, transport.connectTimeout);
+
+        client.setReadTimeout(30000);
+        assertEquals(30000, transport.readTimeout);
+    }
+
+    @Test
+    public void test_transportIsReleased() {
+        FakeTransportFactory factory = new FakeTransportFactory();
+        JsRestClient client = new JsRestClient();
+        client.setTransportFactory(factory);
+        client.setReadTimeout(30000);
+        client.setServerProfile(profile());
+        client.setServerProfile(profile());
+
+        assertEquals(2, factory.transports.size());
+        assertTrue(factory.transports.get(0).destroyed);
+        assertFalse(factory.transports.get(1).destroyed);
+        assertEquals(30000, factory.transports.get(1).readTimeout);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private JsServerProfile profile() {
+        JsServerProfile profile = new JsServerProfile("Test Profile", serverUrl, "organization", "user", "password");
+        // Basic Authentication needs the Android Base64 implementation
+        profile.setSessionAuthenticationEnabled(true);
+        return profile;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class FakeTransportFactory implements HttpTransportFactory {
+        final List<FakeTransport> transports = new ArrayList<FakeTransport>();
+
+        public HttpTransport createTransport(JsServerProfile serverProfile, String authorization) {
+            FakeTransport transport = new FakeTransport();
+            transports.add(transport);
+            return transport;
+        }
+    }
+
+    private static class FakeTransport implements HttpTransport {
+        int connectTimeout = -1;
+        int readTimeout = -1;
+        boolean destroyed;
+
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void setConnectTimeout(int timeout) {
+            connectTimeout = timeout;
+        }
+
+        public void setReadTimeout(int timeout) {
+            readTimeout = timeout;
+        }
+
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.ic.InputControlStructureCache;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class InputControlStructureCacheTest {
+
+    private static final String REPORT_URI = "/reports/samples/Cascading";
+
+    private File cacheDir;
+    private FakeInputControlsClient client;
+    private InputControlStructureCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = File.createTempFile("ic-structure", "");
+        cacheDir.delete();
+        client = new FakeInputControlsClient();
+        cache = new InputControlStructureCache(client, cacheDir);
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear();
+        cacheDir.delete();
+    }
+
+    @Test
+    public void test_structureIsReused() {
+        InputControlsList fetched = cache.getInputControlsList(REPORT_URI, 3, new ArrayList<ReportParameter>());
+        // the states are left out of the cache, but not out of the fetched list
+        assertEquals("Canada", fetched.getInputControls().get(0).getState().getValue());
+        client.stateValue = "USA";
+
+        InputControlsList controlsList = cache.getInputControlsList(REPORT_URI, 3, new ArrayList<ReportParameter>());
+
+        assertEquals(1, client.structureRequests);
+        assertEquals(1, client.stateRequests);
+        assertEquals(1, cache.getHitCount());
+        InputControl country = controlsList.getInputControls().get(0);
+        assertEquals("Country", country.getLabel());
+        assertEquals(Arrays.asList("State"), country.getSlaveDependencies());
+        assertEquals("USA", country.getState().getValue());
+        assertEquals("USA", controlsList.getInputControls().get(1).getState().getValue());
+    }
+
+    @Test
+    public void test_versionChange() {
+        cache.getInputControlsList(REPORT_URI, 3, new ArrayList<ReportParameter>());
+        client.labelSuffix = " (new)";
+
+        InputControlsList controlsList = cache.getInputControlsList(REPORT_URI, 4, new ArrayList<ReportParameter>());
+
+        assertEquals(2, client.structureRequests);
+        assertEquals("Country (new)", controlsList.getInputControls().get(0).getLabel());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void test_statesMismatch() {
+        cache.getInputControlsList(REPORT_URI, 3, new ArrayList<ReportParameter>());
+        client.controlIds = Arrays.asList("Country", "State", "City");
+
+        InputControlsList controlsList = cache.getInputControlsList(REPORT_URI, 3, new ArrayList<ReportParameter>());
+
+        assertEquals(2, client.structureRequests);
+        assertEquals(3, controlsList.getInputControls().size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void test_unknownVersion() {
+        cache.getInputControlsList(REPORT_URI, null, new ArrayList<ReportParameter>());
+        cache.getInputControlsList(REPORT_URI, null, new ArrayList<ReportParameter>());
+
+        assertEquals(2, client.structureRequests);
+        assertEquals(0, client.stateRequests);
+        assertNull(cacheDir.list());
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class FakeInputControlsClient extends JsRestClient {
+
+        List<String> controlIds = Arrays.asList("Country", "State");
+        String labelSuffix = "";
+        String stateValue = "Canada";
+        int structureRequests;
+        int stateRequests;
+
+        @Override
+        public InputControlsList getInputControlsList(String reportUri, List<String> controlsIds,
+                                                      List<ReportParameter> selectedValues) {
+            structureRequests++;
+            List<InputControl> controls = new ArrayList<InputControl>();
+            for (int i = 0; i < controlIds.size(); i++) {
+                InputControl control = new InputControl();
+                control.setId(controlIds.get(i));
+                control.setLabel(controlIds.get(i) + labelSuffix);
+                control.setUri(REPORT_URI + "_files/" + controlIds.get(i));
+                control.setType(InputControl.Type.singleSelect);
+                control.setVisible(true);
+                if (i + 1 < controlIds.size()) {
+                    control.setSlaveDependencies(Arrays.asList(controlIds.get(i + 1)));
+                }
+                control.setState(state(controlIds.get(i)));
+                controls.add(control);
+            }
+            InputControlsList controlsList = new InputControlsList();
+            controlsList.setInputControls(controls);
+            return controlsList;
+        }
+
+        @Override
+        public InputControlStatesList getInputControlsValuesList(String reportUri, List<String> controlsIds,
+                                                                 List<ReportParameter> selectedValues) {
+            stateRequests++;
+            List<InputControlState> states = new ArrayList<InputControlState>();
+            for (String id : controlIds) {
+                states.add(state(id));
+            }
+            InputControlStatesList statesList = new InputControlStatesList();
+            statesList.setInputControlStates(states);
+            return statesList;
+        }
+
+        private InputControlState state(String id) {
+            InputControlState state = new InputControlState();
+            state.setId(id);
+            state.setUri(REPORT_URI + "_files/" + id);
+            state.setValue(stateValue);
+            return state;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+import com.jaspersoft.android.sdk.client.ic.InputControlValuesCache;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlStatesList;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportParameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class InputControlValuesCacheTest {
+
+    private final static String reportUri = "/reports/samples/Cascading";
+
+    @Test
+    public void test_keyedByMasterSelection() {
+        InputControlValuesCache cache = new InputControlValuesCache();
+        cache.setMasterDependencies("user", reportUri, Arrays.asList(
+                control("Country"), control("State", "Country"), control("City", "State"), control("Year")));
+        InputControlStatesList states = new InputControlStatesList();
+        cache.put("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("Country", "USA", "Canada"), parameter("State", "CA"), parameter("Year", "2013")), states);
+
+        // toggling an unrelated control or reordering the selection doesn't matter
+        assertSame(states, cache.get("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("Year", "2014"), parameter("State", "CA"), parameter("Country", "Canada", "USA"))));
+        // the masters of the masters do
+        assertNull(cache.get("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("Country", "USA"), parameter("State", "CA"), parameter("Year", "2013"))));
+        assertNull(cache.get("admin", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("Country", "USA", "Canada"), parameter("State", "CA"), parameter("Year", "2013"))));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void test_unknownDependencies() {
+        InputControlValuesCache cache = new InputControlValuesCache();
+        cache.put("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("State", "CA"), parameter("Year", "2013")), new InputControlStatesList());
+
+        assertNotNull(cache.get("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("Year", "2013"), parameter("State", "CA"))));
+        assertNull(cache.get("user", reportUri, Arrays.asList("City"), Arrays.asList(
+                parameter("State", "CA"), parameter("Year", "2014"))));
+    }
+
+    @Test
+    public void test_unambiguousKeys() {
+        InputControlValuesCache cache = new InputControlValuesCache();
+        cache.put("user", reportUri, Arrays.asList("State", "City"), Arrays.asList(
+                parameter("Country", "USA", "Canada")), new InputControlStatesList());
+
+        // these used to be keyed by the same strings
+        assertNull(cache.get("user", reportUri, Arrays.asList("State;City"), Arrays.asList(
+                parameter("Country", "USA", "Canada"))));
+        assertNull(cache.get("user", reportUri, Arrays.asList("State", "City"), Arrays.asList(
+                parameter("Country", "Canada, USA"))));
+        assertNotNull(cache.get("user", reportUri, Arrays.asList("State", "City"), Arrays.asList(
+                parameter("Country", "Canada", "USA"))));
+    }
+
+    @Test
+    public void test_boundedSizeAndReportEviction() {
+        InputControlValuesCache cache = new InputControlValuesCache(3);
+        for (int i = 0; i < 4; i++) {
+            cache.put("user", reportUri, Arrays.asList("City"), Arrays.asList(parameter("State", "S" + i)),
+                    new InputControlStatesList());
+        }
+        cache.put("user", "/reports/Other", new ArrayList<String>(), new ArrayList<ReportParameter>(),
+                new InputControlStatesList());
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("user", reportUri, Arrays.asList("City"), Arrays.asList(parameter("State", "S1"))));
+        assertEquals(2, cache.evict(reportUri));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("user", "/reports/Other", new ArrayList<String>(), new ArrayList<ReportParameter>()));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private InputControl control(String id, String... masters) {
+        InputControl control = new InputControl();
+        control.setId(id);
+        control.setMasterDependencies(Arrays.asList(masters));
+        return control;
+    }
+
+    private ReportParameter parameter(String name, String... values) {
+        return new ReportParameter(name, new LinkedHashSet<String>(Arrays.asList(values)));
+    }
+
+}
@@ -37,4 +37,14 @@ public class JsServerProfileTest {
         String actualResult = serverProfile.getUsernameWithOrgId();
         assertEquals(username, actualResult);
     }
+
+    @Test
+    public void test_connectionPoolDefaults() {
+        JsServerProfile serverProfile = new JsServerProfile(id, alias, serverUrl, organization, username, password);
+        assertFalse(serverProfile.isKeepAliveEnabled());
+        assertTrue(serverProfile.isStaleConnectionCheckEnabled());
+        assertEquals(JsServerProfile.DEFAULT_MAX_CONNECTIONS_PER_HOST, serverProfile.getMaxConnectionsPerHost());
+        assertEquals(JsServerProfile.DEFAULT_MAX_CONNECTIONS_TOTAL, serverProfile.getMaxConnectionsTotal());
+        assertEquals(JsServerProfile.DEFAULT_CONNECTION_IDLE_TIMEOUT, serverProfile.getConnectionIdleTimeout());
+    }
 }
@@ -0,0 +1,185 @@
+import com.jaspersoft.android.sdk.client.async.JsSpiceManager;
+import com.jaspersoft.android.sdk.client.async.JsXmlSpiceService;
+import com.jaspersoft.android.sdk.client.async.cache.CacheKeyBuilder;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.CacheableRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.FreshnessPolicy;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.RevalidationListener;
+import com.octo.android.robospice.persistence.DurationInMillis;
+import com.octo.android.robospice.persistence.exception.SpiceException;
+import com.octo.android.robospice.request.SpiceRequest;
+import com.octo.android.robospice.request.listener.RequestListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class JsSpiceManagerTest {
+
+    private FakeSpiceManager spiceManager;
+    private CacheableRequest<String> request;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        spiceManager = new FakeSpiceManager();
+        request = new CacheableRequest<String>(null, String.class) {
+            @Override
+            public String loadDataFromNetwork() {
+                return "network";
+            }
+
+            @Override
+            protected void buildCacheKey(CacheKeyBuilder builder) {
+                builder.add("key");
+            }
+        };
+        request.setFreshnessPolicy(new FreshnessPolicy(DurationInMillis.ONE_MINUTE, DurationInMillis.ONE_HOUR, true));
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void test_freshDataIsServedFromCache() {
+        spiceManager.cachedAge = DurationInMillis.ONE_SECOND;
+
+        spiceManager.executeWithFreshnessPolicy(request, listener);
+
+        assertEquals(listOf("success:cached"), listener.events);
+        assertEquals(0, spiceManager.networkRequests);
+    }
+
+    @Test
+    public void test_staleDataIsServedAndRevalidated() {
+        spiceManager.cachedAge = 10 * DurationInMillis.ONE_MINUTE;
+
+        spiceManager.executeWithFreshnessPolicy(request, listener);
+
+        assertEquals(listOf("success:cached", "revalidated:network"), listener.events);
+        assertEquals(1, spiceManager.networkRequests);
+    }
+
+    @Test
+    public void test_staleDataWithoutBackgroundRefresh() {
+        spiceManager.cachedAge = 10 * DurationInMillis.ONE_MINUTE;
+        request.setFreshnessPolicy(new FreshnessPolicy(DurationInMillis.ONE_MINUTE, DurationInMillis.ONE_HOUR, false));
+
+        spiceManager.executeWithFreshnessPolicy(request, listener);
+
+        assertEquals(listOf("success:network"), listener.events);
+    }
+
+    @Test
+    public void test_expiredDataIsLoadedFromNetwork() {
+        spiceManager.cachedAge = DurationInMillis.ONE_DAY;
+
+        spiceManager.executeWithFreshnessPolicy(request, listener);
+
+        assertEquals(listOf("success:network"), listener.events);
+    }
+
+    @Test
+    public void test_revalidationFailure() {
+        spiceManager.cachedAge = 10 * DurationInMillis.ONE_MINUTE;
+        spiceManager.networkFailure = true;
+
+        spiceManager.executeWithFreshnessPolicy(request, listener);
+
+        assertEquals(listOf("success:cached", "revalidationFailure"), listener.events);
+    }
+
+    @Test
+    public void test_plainListenerIsNotifiedTwice() {
+        spiceManager.cachedAge = 10 * DurationInMillis.ONE_MINUTE;
+        final List<String> results = new ArrayList<String>();
+
+        spiceManager.executeWithFreshnessPolicy(request, new RequestListener<String>() {
+            public void onRequestFailure(SpiceException exception) {
+                fail();
+            }
+
+            public void onRequestSuccess(String result) {
+                results.add(result);
+            }
+        });
+
+        assertEquals(listOf("cached", "network"), results);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private List<String> listOf(String... values) {
+        List<String> list = new ArrayList<String>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Serves the cache and network requests synchronously instead of through the service.
+     */
+    private static class FakeSpiceManager extends JsSpiceManager {
+        long cachedAge = -1;
+        boolean networkFailure;
+        int networkRequests;
+
+        FakeSpiceManager() {
+            super(JsXmlSpiceService.class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> void getFromCache(Class<T> clazz, Object cacheKey, long cacheExpiryDuration,
+                                     RequestListener<T> requestListener) {
+            boolean hit = cachedAge >= 0 && (cacheExpiryDuration == DurationInMillis.ALWAYS_RETURNED
+                    || cachedAge <= cacheExpiryDuration);
+            requestListener.onRequestSuccess(hit ? (T) "cached" : null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> void execute(SpiceRequest<T> request, Object requestCacheKey, long cacheExpiryDuration,
+                                RequestListener<T> requestListener) {
+            assertEquals(DurationInMillis.ALWAYS_EXPIRED, cacheExpiryDuration);
+            networkRequests++;
+            if (networkFailure) {
+                requestListener.onRequestFailure(new SpiceException("offline"));
+            } else {
+                requestListener.onRequestSuccess((T) "network");
+            }
+        }
+    }
+
+    private static class RecordingListener implements RevalidationListener<String> {
+        final List<String> events = new ArrayList<String>();
+
+        public void onRequestSuccess(String result) {
+            events.add("success:" + result);
+        }
+
+        public void onRequestFailure(SpiceException exception) {
+            events.add("failure");
+        }
+
+        public void onRequestRevalidated(String result) {
+            events.add("revalidated:" + result);
+        }
+
+        public void onRevalidationFailure(SpiceException exception) {
+            events.add("revalidationFailure");
+        }
+    }
+
+}
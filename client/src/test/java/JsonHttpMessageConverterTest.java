@@ -0,0 +1,152 @@
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlState;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.DateTimeFormatValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.control.validation.MandatoryValidationRule;
+import com.jaspersoft.android.sdk.client.oxm.json.JsonHttpMessageConverter;
+import com.jaspersoft.android.sdk.client.oxm.json.JsonTokenizer;
+import com.jaspersoft.android.sdk.client.oxm.report.ExportExecution;
+import com.jaspersoft.android.sdk.client.oxm.report.ReportExecutionResponse;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class JsonHttpMessageConverterTest {
+
+    private final static String inputControls = "{\"inputControl\":[{" +
+            "\"id\":\"Country\",\"label\":\"Country \\u0026 Region\",\"mandatory\":true,\"readOnly\":false," +
+            "\"type\":\"multiSelect\",\"uri\":\"repo:/reports/samples/Cascading_files/Country\",\"visible\":true," +
+            "\"masterDependencies\":[],\"slaveDependencies\":[\"State\"]," +
+            "\"validationRules\":[{\"mandatoryValidationRule\":{\"errorMessage\":\"This field is mandatory\"}}," +
+            "{\"dateTimeFormatValidationRule\":{\"errorMessage\":\"Bad date\",\"format\":\"yyyy-MM-dd\"}}]," +
+            "\"state\":{\"uri\":\"/reports/samples/Cascading_files/Country\",\"id\":\"Country\",\"value\":null," +
+            "\"options\":[{\"selected\":false,\"label\":\"Mexico\",\"value\":\"Mexico\"}," +
+            "{\"selected\":true,\"label\":\"USA\",\"value\":\"USA\"}]}," +
+            "\"extension\":{\"nested\":[1,2,{\"deep\":[true,null]}]}}]}";
+
+    private final static String resourceLookups = "{\"resourceLookup\":[" +
+            "{\"version\":0,\"permissionMask\":2,\"creationDate\":\"2013-10-03 16:32:05\"," +
+            "\"label\":\"01. Geographic Results by Segment\",\"uri\":\"/reports/samples/GeographicResults\"," +
+            "\"resourceType\":\"reportUnit\"}," +
+            "{\"label\":\"Samples\",\"uri\":\"/reports/samples\",\"resourceType\":\"folder\"}]}";
+
+    private final static String reportExecution = "{\"status\":\"ready\",\"totalPages\":47," +
+            "\"requestId\":\"f3a9805a-4089-4b53-b9e9-b54752f91586\",\"reportURI\":\"/reports/samples/AllAccounts\"," +
+            "\"exports\":[{\"id\":\"195a65cb-1762-450a-be2b-1196a02bb625\",\"status\":\"ready\"," +
+            "\"outputResource\":{\"contentType\":\"text/html\"}," +
+            "\"attachments\":[{\"contentType\":\"image/png\",\"fileName\":\"img_0_46_0\"}]}]}";
+
+    @Test
+    public void test_readInputControls() throws Exception {
+        JsonHttpMessageConverter converter = new JsonHttpMessageConverter();
+        InputControlsList list = (InputControlsList) converter.read(InputControlsList.class, inputMessage(inputControls));
+
+        InputControl control = list.getInputControls().get(0);
+        assertEquals("Country & Region", control.getLabel());
+        assertEquals(InputControl.Type.multiSelect, control.getType());
+        assertTrue(control.isMandatory());
+        assertTrue(control.getMasterDependencies().isEmpty());
+        assertEquals("State", control.getSlaveDependencies().iterator().next());
+        assertEquals(2, control.getValidationRules().size());
+        assertTrue(control.getValidationRules().get(0) instanceof MandatoryValidationRule);
+        assertEquals("yyyy-MM-dd", ((DateTimeFormatValidationRule) control.getValidationRules().get(1)).getFormat());
+
+        InputControlState state = control.getState();
+        assertNull(state.getValue());
+        assertEquals(2, state.getOptions().size());
+        assertTrue(state.getOptions().get(1).isSelected());
+    }
+
+    @Test
+    public void test_readResourceLookupsAndReportExecution() throws Exception {
+        JsonHttpMessageConverter converter = new JsonHttpMessageConverter();
+
+        ResourceLookupsList lookups = (ResourceLookupsList) converter.read(ResourceLookupsList.class,
+                inputMessage(resourceLookups));
+        ResourceLookup report = lookups.getResourceLookups().get(0);
+        assertEquals(Integer.valueOf(2), report.getPermissionMask());
+        assertEquals(ResourceLookup.ResourceType.reportUnit, report.getResourceType());
+        assertNull(lookups.getResourceLookups().get(1).getVersion());
+
+        ReportExecutionResponse response = (ReportExecutionResponse) converter.read(ReportExecutionResponse.class,
+                inputMessage(reportExecution));
+        assertEquals(47, response.getTotalPages());
+        ExportExecution export = response.getExports().get(0);
+        assertEquals("text/html", export.getOutputResource().getContentType());
+        assertEquals("img_0_46_0", export.getAttachments().get(0).getFileName());
+    }
+
+    @Test
+    public void test_supportedTypes() throws Exception {
+        JsonHttpMessageConverter converter = new JsonHttpMessageConverter();
+        assertTrue(converter.canRead(InputControlsList.class, MediaType.APPLICATION_JSON));
+        // never contributes to the default Accept header
+        assertFalse(converter.canRead(InputControlsList.class, null));
+        assertFalse(converter.canRead(InputControlsList.class, MediaType.APPLICATION_XML));
+        // no generated unmarshaller
+        assertFalse(converter.canRead(ServerInfo.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(InputControlsList.class, MediaType.APPLICATION_JSON));
+
+        try {
+            converter.read(InputControlsList.class, inputMessage("{\"inputControl\":[{\"id\":\"a\"}"));
+            fail("HttpMessageNotReadableException expected");
+        } catch (HttpMessageNotReadableException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void test_tokenizer() throws Exception {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(
+                " { \"a\" : \"x\\\"y\\n\" , \"b\": -1.5e3, \"c\": [ ], \"d\": {\"e\": [false]} } "));
+        tokenizer.beginObject();
+        assertEquals("a", tokenizer.nextName());
+        assertEquals("x\"y\n", tokenizer.nextString());
+        assertEquals("b", tokenizer.nextName());
+        assertEquals(JsonTokenizer.Token.NUMBER, tokenizer.peek());
+        assertEquals("-1.5e3", tokenizer.nextString());
+        assertEquals("c", tokenizer.nextName());
+        tokenizer.beginArray();
+        assertFalse(tokenizer.hasNext());
+        tokenizer.endArray();
+        assertEquals("d", tokenizer.nextName());
+        tokenizer.skipValue();
+        tokenizer.endObject();
+        assertEquals(JsonTokenizer.Token.END_DOCUMENT, tokenizer.peek());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private HttpInputMessage inputMessage(final String json) {
+        return new HttpInputMessage() {
+            public InputStream getBody() throws IOException {
+                return new ByteArrayInputStream(json.getBytes("UTF-8"));
+            }
+
+            public HttpHeaders getHeaders() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                return headers;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,194 @@
+import com.jaspersoft.android.sdk.client.async.cache.CacheStatistics;
+import com.jaspersoft.android.sdk.client.async.cache.MemoryCache;
+import com.jaspersoft.android.sdk.client.async.cache.MemoryCachedObjectPersister;
+import com.jaspersoft.android.sdk.client.async.cache.RequestCacheKey;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetResourceRequest;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetServerInfoRequest;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import com.octo.android.robospice.persistence.DurationInMillis;
+import com.octo.android.robospice.persistence.ObjectPersister;
+import com.octo.android.robospice.persistence.exception.CacheLoadingException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class MemoryCachedObjectPersisterTest {
+
+    private DiskPersister diskPersister;
+    private MemoryCache memoryCache;
+    private MemoryCachedObjectPersister<ServerInfo> persister;
+
+    @Before
+    public void setUp() {
+        diskPersister = new DiskPersister();
+        memoryCache = new MemoryCache(1024 * 1024);
+        persister = new MemoryCachedObjectPersister<ServerInfo>(diskPersister, memoryCache);
+    }
+
+    @Test
+    public void test_writeThrough() throws Exception {
+        ServerInfo serverInfo = serverInfo("5.5.0");
+        RequestCacheKey key = new RequestCacheKey(GetServerInfoRequest.class, 42);
+        persister.saveDataToCacheAndReturnData(serverInfo, key);
+
+        assertSame(serverInfo, diskPersister.data.get("42"));
+        assertSame(serverInfo, persister.loadDataFromCache(key, DurationInMillis.ALWAYS_RETURNED));
+        assertEquals(0, diskPersister.loadCount);
+        assertEquals(1, memoryCache.getStatistics().getMemoryHitCount(GetServerInfoRequest.class));
+    }
+
+    @Test
+    public void test_promotionOnDiskHit() throws Exception {
+        diskPersister.data.put("42", serverInfo("5.5.0"));
+
+        persister.loadDataFromCache(42, DurationInMillis.ONE_HOUR);
+        persister.loadDataFromCache(42, DurationInMillis.ONE_HOUR);
+
+        assertEquals(1, diskPersister.loadCount);
+        // plain keys are counted under the data class
+        CacheStatistics statistics = memoryCache.getStatistics();
+        assertEquals(1, statistics.getDiskHitCount(ServerInfo.class));
+        assertEquals(1, statistics.getMemoryHitCount(ServerInfo.class));
+    }
+
+    @Test
+    public void test_statisticsPerRequestClass() throws Exception {
+        persister.saveDataToCacheAndReturnData(serverInfo("5.5.0"), new RequestCacheKey(GetServerInfoRequest.class, 1));
+
+        persister.loadDataFromCache(new RequestCacheKey(GetServerInfoRequest.class, 1), DurationInMillis.ALWAYS_RETURNED);
+        persister.loadDataFromCache(new RequestCacheKey(GetResourceRequest.class, 2), DurationInMillis.ALWAYS_RETURNED);
+
+        CacheStatistics statistics = memoryCache.getStatistics();
+        assertEquals(1, statistics.getMemoryHitCount(GetServerInfoRequest.class));
+        assertEquals(0, statistics.getMissCount(GetServerInfoRequest.class));
+        assertEquals(1, statistics.getMissCount(GetResourceRequest.class));
+    }
+
+    @Test
+    public void test_evictionBySize() throws Exception {
+        MemoryCache smallCache = new MemoryCache(1024);
+        smallCache.setSizeEstimator(ServerInfo.class, new ServerInfoEstimator());
+        persister = new MemoryCachedObjectPersister<ServerInfo>(diskPersister, smallCache);
+        for (int i = 0; i < 20; i++) {
+            persister.saveDataToCacheAndReturnData(serverInfo("5.5." + i), new RequestCacheKey(GetServerInfoRequest.class, i));
+        }
+
+        assertTrue(smallCache.getSize() <= 1024);
+        assertTrue(smallCache.getEntryCount() < 20);
+        assertEquals(20 - smallCache.getEntryCount(), smallCache.getStatistics().getEvictionCount(GetServerInfoRequest.class));
+        // the most recent entry is still in memory, the evicted ones are served by the disk
+        assertEquals("5.5.19", persister.loadDataFromCache(19, DurationInMillis.ALWAYS_RETURNED).getVersion());
+        assertEquals(0, diskPersister.loadCount);
+        assertEquals("5.5.0", persister.loadDataFromCache(0, DurationInMillis.ALWAYS_RETURNED).getVersion());
+        assertEquals(1, diskPersister.loadCount);
+    }
+
+    @Test
+    public void test_sizeEstimator() throws Exception {
+        persister.saveDataToCacheAndReturnData(serverInfo("5.5.0"), 1);
+        // neither a cache file nor an estimator, the default size is assumed
+        assertEquals(16 * 1024, memoryCache.getSize());
+
+        memoryCache.setSizeEstimator(ServerInfo.class, new ServerInfoEstimator());
+        persister.saveDataToCacheAndReturnData(serverInfo("5.5.0"), 1);
+        assertEquals(2 * 5 + 2 * 3 + 64, memoryCache.getSize());
+    }
+
+    @Test
+    public void test_evictAllKeepsDisk() throws Exception {
+        persister.saveDataToCacheAndReturnData(serverInfo("5.5.0"), 7);
+        memoryCache.evictAll();
+
+        assertEquals(0, memoryCache.getSize());
+        assertNotNull(persister.loadDataFromCache(7, DurationInMillis.ALWAYS_RETURNED));
+        assertEquals(1, diskPersister.loadCount);
+
+        persister.removeDataFromCache(7);
+        assertNull(persister.loadDataFromCache(7, DurationInMillis.ALWAYS_RETURNED));
+        assertEquals(0, memoryCache.getEntryCount());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private ServerInfo serverInfo(String version) {
+        ServerInfo serverInfo = new ServerInfo();
+        serverInfo.setVersion(version);
+        serverInfo.setEdition("PRO");
+        return serverInfo;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class ServerInfoEstimator implements MemoryCache.SizeEstimator<ServerInfo> {
+        public int estimateSize(ServerInfo data) {
+            return 2 * (data.getVersion().length() + data.getEdition().length());
+        }
+    }
+
+    private static class DiskPersister extends ObjectPersister<ServerInfo> {
+        final Map<String, ServerInfo> data = new HashMap<String, ServerInfo>();
+        int loadCount;
+
+        DiskPersister() {
+            super(null, ServerInfo.class);
+        }
+
+        @Override
+        public ServerInfo loadDataFromCache(Object cacheKey, long maxTimeInCache) {
+            loadCount++;
+            return data.get(cacheKey.toString());
+        }
+
+        @Override
+        public List<ServerInfo> loadAllDataFromCache() {
+            return new ArrayList<ServerInfo>(data.values());
+        }
+
+        @Override
+        public List<Object> getAllCacheKeys() {
+            return new ArrayList<Object>(data.keySet());
+        }
+
+        @Override
+        public ServerInfo saveDataToCacheAndReturnData(ServerInfo serverInfo, Object cacheKey) {
+            data.put(cacheKey.toString(), serverInfo);
+            return serverInfo;
+        }
+
+        @Override
+        public boolean removeDataFromCache(Object cacheKey) {
+            return data.remove(cacheKey.toString()) != null;
+        }
+
+        @Override
+        public void removeAllDataFromCache() {
+            data.clear();
+        }
+
+        @Override
+        public long getCreationDateInCache(Object cacheKey) throws CacheLoadingException {
+            if (!data.containsKey(cacheKey.toString())) throw new CacheLoadingException("Not in cache");
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public boolean isDataInCache(Object cacheKey, long maxTimeInCache) {
+            return data.containsKey(cacheKey.toString());
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+import com.jaspersoft.android.sdk.client.download.DownloadBatch;
+import com.jaspersoft.android.sdk.client.download.DownloadListener;
+import com.jaspersoft.android.sdk.client.download.ParallelDownloader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ParallelDownloaderTest {
+
+    private ParallelDownloader downloader;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final ConcurrentHashMap<String, AtomicInteger> activeByHost = new ConcurrentHashMap<String, AtomicInteger>();
+    private final ConcurrentHashMap<String, Integer> maxActiveByHost = new ConcurrentHashMap<String, Integer>();
+    private final List<String> startOrder = Collections.synchronizedList(new ArrayList<String>());
+
+    @After
+    public void tearDown() {
+        if (downloader != null) downloader.shutdown();
+    }
+
+    @Test
+    public void test_concurrencyIsBounded() throws Exception {
+        downloader = new ParallelDownloader(3, 2);
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
+        for (int i = 0; i < 12; i++) {
+            downloads.add(new FakeDownload("img_" + i, (i % 2 == 0) ? "first" : "second", false));
+        }
+
+        DownloadBatch batch = downloader.download(downloads, null);
+
+        assertTrue(batch.isSuccessful());
+        assertEquals(12, batch.getCompletedCount());
+        assertTrue(maxActive.get() > 1);
+        assertTrue(maxActive.get() <= 3);
+        assertTrue(maxActiveByHost.get("first") <= 2);
+        assertTrue(maxActiveByHost.get("second") <= 2);
+        assertEquals(0, downloader.getActiveCount());
+    }
+
+    @Test
+    public void test_hostsTakeTurns() throws Exception {
+        downloader = new ParallelDownloader(1, 1);
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
+        for (int i = 0; i < 6; i++) {
+            downloads.add(new FakeDownload("busy_" + i, "busy", false));
+        }
+        downloads.add(new FakeDownload("other_0", "other", false));
+
+        downloader.download(downloads, null);
+
+        // the other host doesn't wait for all the downloads of the busy one
+        assertEquals("other_0", startOrder.get(1));
+    }
+
+    @Test
+    public void test_failureDoesNotStopOthers() throws Exception {
+        downloader = new ParallelDownloader(2, 2);
+        List<ParallelDownloader.Download> downloads = new ArrayList<ParallelDownloader.Download>();
+        for (int i = 0; i < 5; i++) {
+            downloads.add(new FakeDownload("img_" + i, "host", i == 2));
+        }
+        final AtomicInteger completedCallbacks = new AtomicInteger();
+        final AtomicInteger failedCallbacks = new AtomicInteger();
+
+        DownloadBatch batch = downloader.download(downloads, new DownloadListener() {
+            public void onDownloadCompleted(String name, DownloadBatch batch) {
+                completedCallbacks.incrementAndGet();
+            }
+
+            public void onDownloadFailed(String name, Exception ex, DownloadBatch batch) {
+                failedCallbacks.incrementAndGet();
+            }
+        });
+
+        assertFalse(batch.isSuccessful());
+        assertEquals(4, batch.getCompletedCount());
+        assertEquals(1, batch.getFailedCount());
+        assertTrue(batch.getFailures().get("img_2") instanceof IOException);
+        assertEquals(1.0f, batch.getProgress());
+        assertEquals(4, completedCallbacks.get());
+        assertEquals(1, failedCallbacks.get());
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private class FakeDownload extends ParallelDownloader.Download {
+
+        private final String host;
+        private final boolean failing;
+
+        FakeDownload(String name, String host, boolean failing) {
+            super(name, URI.create("http://" + host + "/jasperserver/rest/report/1?file=" + name));
+            this.host = host;
+            this.failing = failing;
+        }
+
+        @Override
+        protected void execute() throws Exception {
+            startOrder.add(getName());
+            activeByHost.putIfAbsent(host, new AtomicInteger());
+            int hostCount = activeByHost.get(host).incrementAndGet();
+            synchronized (maxActiveByHost) {
+                Integer max = maxActiveByHost.get(host);
+                if (max == null || max < hostCount) maxActiveByHost.put(host, hostCount);
+            }
+            int count = active.incrementAndGet();
+            while (true) {
+                int max = maxActive.get();
+                if (count <= max || maxActive.compareAndSet(max, count)) break;
+            }
+            try {
+                Thread.sleep(20);
+                if (failing) throw new IOException("Connection reset");
+            } finally {
+                active.decrementAndGet();
+                activeByHost.get(host).decrementAndGet();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,398 @@
+import com.jaspersoft.android.sdk.client.JsRestClient;
+import com.jaspersoft.android.sdk.client.async.request.cacheable.GetResourceLookupsRequest;
+import com.jaspersoft.android.sdk.client.mirror.MirrorSyncListener;
+import com.jaspersoft.android.sdk.client.mirror.MirrorSyncStatus;
+import com.jaspersoft.android.sdk.client.mirror.RepositoryMirror;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsList;
+import org.junit.Test;
+import org.springframework.web.client.RestClientException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class RepositoryMirrorTest {
+
+    @Test
+    public void test_initialSync() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        mirror.setPageSize(2);
+        assertNull(mirror.getChildren("/reports"));
+
+        MirrorSyncStatus status = mirror.sync();
+
+        assertEquals(4, status.getFoldersFetched());
+        assertEquals(6, status.getChangedResources());
+        assertEquals(1f, status.getProgress());
+        assertEquals(6, mirror.getResourceCount());
+        assertEquals(uris("/reports/samples", "/reports/AllAccounts", "/reports/Employees"),
+                uris(mirror.getChildren("/reports/")));
+        assertEquals("AllAccounts", mirror.getResource("/reports//AllAccounts/").getLabel());
+
+        ResourceLookupsList page = mirror.getResourceLookups("/", true, 1, 3);
+        assertEquals(6, page.getTotalCount());
+        assertEquals(uris("/reports/samples", "/reports/samples/Cascading", "/reports/AllAccounts"),
+                uris(page.getResourceLookups()));
+        assertTrue(mirror.getLastSyncTime() > 0);
+        assertFalse(mirror.isStale(60 * 1000));
+    }
+
+    @Test
+    public void test_incrementalSync() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        mirror.sync();
+        client.fetchedFolders.clear();
+
+        client.update("/reports/samples/Cascading", "2014-02-01 10:00:00");
+        client.update("/reports/samples", "2014-02-01 10:00:00");
+        client.update("/reports", "2014-02-01 10:00:00");
+        client.remove("/reports/Employees");
+        final List<String> changed = new ArrayList<String>();
+        MirrorSyncStatus status = mirror.sync(RepositoryMirror.ROOT_URI, false, new MirrorSyncListener() {
+            public void onSyncProgress(MirrorSyncStatus status) {
+                assertEquals(MirrorSyncStatus.State.SYNCING, status.getState());
+            }
+
+            public void onResourceChanged(String uri) {
+                changed.add(uri);
+            }
+        });
+
+        assertEquals(Arrays.asList("/", "/reports", "/reports/samples"), client.fetchedFolders);
+        assertEquals(1, status.getFoldersSkipped());
+        assertEquals(1, status.getRemovedResources());
+        assertEquals(Arrays.asList("/reports", "/reports/samples", "/reports/Employees", "/reports/samples/Cascading"),
+                changed);
+        assertNull(mirror.getResource("/reports/Employees"));
+        assertEquals("2014-02-01 10:00:00", mirror.getResource("/reports/samples/Cascading").getUpdateDate());
+    }
+
+    @Test
+    public void test_search() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        assertNull(mirror.search("/", "acc", null, true, 0, 0));
+        mirror.sync();
+
+        ResourceLookupsList result = mirror.search("/", "acc", Arrays.asList("reportUnit"), true, 0, 10);
+        assertEquals(uris("/reports/AllAccounts"), uris(result.getResourceLookups()));
+        assertEquals(uris("/reports/samples/Cascading"), uris(mirror.search("/reports", "ca", null, true, 0, 0)
+                .getResourceLookups()));
+        assertNull(mirror.search("/", "acc", Arrays.asList("dataSource"), true, 0, 0));
+
+        client.update("/reports", "2014-02-01 10:00:00");
+        client.failingFolder = "/reports";
+        try {
+            mirror.sync();
+        } catch (RestClientException ex) {
+            // the changed folder may be incomplete now
+        }
+        assertNull(mirror.search("/", "acc", null, true, 0, 0));
+        assertNotNull(mirror.search("/", "acc", null, false, 0, 0));
+        assertNotNull(mirror.search("/reports/samples", "acc", null, true, 0, 0));
+    }
+
+    @Test
+    public void test_typedListing() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        assertNull(mirror.getResourceLookups("/reports", null, 0, 0));
+        mirror.sync();
+
+        ResourceLookupsList page = mirror.getResourceLookups("/reports", Arrays.asList("reportUnit"), 0, 0);
+        assertEquals(2, page.getTotalCount());
+        assertEquals(uris("/reports/AllAccounts", "/reports/Employees"), uris(page.getResourceLookups()));
+        assertEquals(uris("/reports/samples", "/reports/AllAccounts", "/reports/Employees"),
+                uris(mirror.getResourceLookups("/reports/", null, 0, 0).getResourceLookups()));
+        assertNull(mirror.getResourceLookups("/reports", Arrays.asList("unknownType"), 0, 0));
+
+        client.update("/reports", "2014-02-01 10:00:00");
+        client.failingFolder = "/reports";
+        try {
+            mirror.sync();
+        } catch (RestClientException ex) {
+            // the changed folder may be incomplete now
+        }
+        assertNull(mirror.getResourceLookups("/reports", null, 0, 0));
+    }
+
+    @Test
+    public void test_folderRefreshInterval() throws Exception {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        mirror.sync();
+
+        // the server didn't change the revisions of the parent folders
+        client.update("/reports/samples/Cascading", "2014-02-01 10:00:00");
+        mirror.sync();
+        assertEquals("2014-01-15 09:30:00", mirror.getResource("/reports/samples/Cascading").getUpdateDate());
+
+        Thread.sleep(5);
+        mirror.setFolderRefreshInterval(1);
+        client.fetchedFolders.clear();
+        MirrorSyncStatus status = mirror.sync();
+
+        assertEquals(0, status.getFoldersSkipped());
+        assertEquals(Arrays.asList("/", "/reports", "/public", "/reports/samples"), client.fetchedFolders);
+        assertEquals("2014-02-01 10:00:00", mirror.getResource("/reports/samples/Cascading").getUpdateDate());
+    }
+
+    @Test
+    public void test_interruptedSync() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        mirror.sync();
+
+        client.update("/reports", "2014-02-01 10:00:00");
+        client.failingFolder = "/reports";
+        try {
+            mirror.sync();
+            fail("RestClientException expected");
+        } catch (RestClientException ex) {
+            assertEquals(MirrorSyncStatus.State.FAILED, mirror.getSyncStatus().getState());
+        }
+
+        client.failingFolder = null;
+        client.fetchedFolders.clear();
+        mirror.sync();
+
+        // the listing of the changed folder wasn't lost, although the root lists it as unchanged by now
+        assertEquals(Arrays.asList("/", "/reports"), client.fetchedFolders);
+        assertEquals(MirrorSyncStatus.State.IDLE, mirror.getSyncStatus().getState());
+    }
+
+    @Test
+    public void test_fetchedListingsUpdateMirror() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+
+        mirror.update("/reports", null, null, false, 0, 100, client.getResourceLookups("/reports", false, 0, 100));
+        assertEquals(uris("/reports/samples", "/reports/AllAccounts", "/reports/Employees"),
+                uris(mirror.getChildren("/reports")));
+        assertEquals(uris("/reports/AllAccounts"),
+                uris(mirror.search("/reports", "acc", null, false, 0, 0).getResourceLookups()));
+        // the subfolder wasn't listed
+        assertNull(mirror.search("/reports", "acc", null, true, 0, 0));
+
+        // neither a partial page nor a search mirror a folder
+        mirror.update("/", null, null, false, 0, 1, client.getResourceLookups("/", false, 0, 1));
+        mirror.update("/reports/samples", "cas", null, false, 0, 0,
+                client.getResourceLookups("/reports/samples", false, 0, 0));
+        assertFalse(mirror.isMirrored("/"));
+        assertFalse(mirror.isMirrored("/reports/samples"));
+
+        // a resource missing from the mirror makes the folder incomplete
+        client.add("/reports", "/reports/Accounts2014", ResourceLookup.ResourceType.reportUnit);
+        ResourceLookupsList found = new ResourceLookupsList();
+        found.setResourceLookups(client.children.get("/reports").subList(3, 4));
+        mirror.update("/", "acc", null, true, 0, 0, found);
+        assertNull(mirror.search("/reports", "acc", null, false, 0, 0));
+    }
+
+    @Test
+    public void test_fetchedTreeUpdatesMirror() {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        List<ResourceLookup> tree = new ArrayList<ResourceLookup>();
+        for (String folderUri : Arrays.asList("/reports", "/reports/samples")) {
+            tree.addAll(client.children.get(folderUri));
+        }
+        ResourceLookupsList page = new ResourceLookupsList();
+        page.setResourceLookups(tree);
+
+        mirror.update("/reports", null, null, true, 0, 0, page);
+
+        assertEquals(uris("/reports/samples/Cascading"), uris(mirror.getChildren("/reports/samples")));
+        assertEquals(uris("/reports/samples/Cascading"),
+                uris(mirror.search("/reports", "cas", Arrays.asList("reportUnit"), true, 0, 0).getResourceLookups()));
+    }
+
+    @Test
+    public void test_localSearchRequest() throws Exception {
+        FakeRepositoryClient client = new FakeRepositoryClient();
+        RepositoryMirror mirror = new RepositoryMirror(client, null);
+        GetResourceLookupsRequest listing = new GetResourceLookupsRequest(client, "/reports", false, 0, 100);
+        listing.setRepositoryMirror(mirror);
+        listing.loadDataFromNetwork();
+        assertEquals(Arrays.asList("/reports"), client.fetchedFolders);
+
+        GetResourceLookupsRequest search = new GetResourceLookupsRequest(client, "/reports", "acc",
+                Arrays.asList("reportUnit"), false, 0, 10);
+        search.setRepositoryMirror(mirror);
+        search.loadDataFromNetwork();
+        assertEquals(1, client.searches);
+
+        search.setLocalSearch(true);
+        ResourceLookupsList result = search.loadDataFromNetwork();
+        assertEquals(1, client.searches);
+        assertEquals(uris("/reports/AllAccounts"), uris(result.getResourceLookups()));
+
+        // the listing is answered by the mirror as well
+        listing.loadDataFromNetwork();
+        assertEquals(Arrays.asList("/reports"), client.fetchedFolders);
+    }
+
+    @Test
+    public void test_persistence() throws Exception {
+        File file = File.createTempFile("repository-mirror", "");
+        file.delete();
+        try {
+            RepositoryMirror mirror = new RepositoryMirror(new FakeRepositoryClient(), file);
+            mirror.sync();
+
+            FakeRepositoryClient client = new FakeRepositoryClient();
+            RepositoryMirror reloaded = new RepositoryMirror(client, file);
+            assertEquals(mirror.getLastSyncTime(), reloaded.getLastSyncTime());
+            assertEquals(uris(mirror.getChildren("/reports")), uris(reloaded.getChildren("/reports")));
+            assertEquals(Integer.valueOf(3), reloaded.getResource("/reports/samples/Cascading").getVersion());
+
+            reloaded.sync();
+            assertEquals(Arrays.asList("/"), client.fetchedFolders);
+
+            reloaded.clear();
+            assertFalse(file.exists());
+            assertNull(reloaded.getChildren("/reports"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private List<String> uris(String... uris) {
+        return Arrays.asList(uris);
+    }
+
+    private List<String> uris(List<ResourceLookup> lookups) {
+        List<String> uris = new ArrayList<String>();
+        for (ResourceLookup lookup : lookups) {
+            uris.add(lookup.getUri());
+        }
+        return uris;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class FakeRepositoryClient extends JsRestClient {
+
+        final Map<String, List<ResourceLookup>> children = new HashMap<String, List<ResourceLookup>>();
+        final List<String> fetchedFolders = new ArrayList<String>();
+        String failingFolder;
+        int searches;
+
+        FakeRepositoryClient() {
+            add("/", "/reports", ResourceLookup.ResourceType.folder);
+            add("/", "/public", ResourceLookup.ResourceType.folder);
+            add("/reports", "/reports/samples", ResourceLookup.ResourceType.folder);
+            add("/reports", "/reports/AllAccounts", ResourceLookup.ResourceType.reportUnit);
+            add("/reports", "/reports/Employees", ResourceLookup.ResourceType.reportUnit);
+            add("/reports/samples", "/reports/samples/Cascading", ResourceLookup.ResourceType.reportUnit);
+            children.put("/public", new ArrayList<ResourceLookup>());
+        }
+
+        @Override
+        public ResourceLookupsList getResourceLookups(String folderUri, boolean recursive, int offset, int limit) {
+            if (folderUri.equals(failingFolder)) {
+                throw new RestClientException("Connection refused");
+            }
+            if (offset == 0) {
+                fetchedFolders.add(folderUri);
+            }
+            List<ResourceLookup> lookups = children.get(folderUri);
+            // every response is deserialized into new objects
+            List<ResourceLookup> page = new ArrayList<ResourceLookup>();
+            for (int i = offset; i < Math.min(offset + limit, lookups.size()); i++) {
+                page.add(copy(lookups.get(i)));
+            }
+            ResourceLookupsList result = new ResourceLookupsList();
+            result.setResourceLookups(page);
+            result.setTotalCount(lookups.size());
+            return result;
+        }
+
+        @Override
+        public ResourceLookupsList getResourceLookups(String folderUri, String query, List<String> types,
+                                                      boolean recursive, int offset, int limit) {
+            if (query == null && types == null && !recursive) {
+                return getResourceLookups(folderUri, false, offset, limit);
+            }
+            searches++;
+            List<ResourceLookup> lookups = new ArrayList<ResourceLookup>();
+            for (ResourceLookup lookup : children.get(folderUri)) {
+                if (lookup.getLabel().toLowerCase().contains(query)
+                        && (types == null || types.contains(lookup.getResourceType().name()))) {
+                    lookups.add(copy(lookup));
+                }
+            }
+            ResourceLookupsList result = new ResourceLookupsList();
+            result.setResourceLookups(lookups);
+            result.setTotalCount(lookups.size());
+            return result;
+        }
+
+        void update(String uri, String updateDate) {
+            for (List<ResourceLookup> lookups : children.values()) {
+                if (lookups == null) continue;
+                for (ResourceLookup lookup : lookups) {
+                    if (lookup.getUri().equals(uri)) {
+                        lookup.setVersion(lookup.getVersion() + 1);
+                        lookup.setUpdateDate(updateDate);
+                    }
+                }
+            }
+        }
+
+        void remove(String uri) {
+            for (List<ResourceLookup> lookups : children.values()) {
+                if (lookups == null) continue;
+                for (int i = lookups.size() - 1; i >= 0; i--) {
+                    if (lookups.get(i).getUri().equals(uri)) {
+                        lookups.remove(i);
+                    }
+                }
+            }
+        }
+
+        private ResourceLookup copy(ResourceLookup lookup) {
+            ResourceLookup copy = new ResourceLookup();
+            copy.setUri(lookup.getUri());
+            copy.setLabel(lookup.getLabel());
+            copy.setResourceType(lookup.getResourceType());
+            copy.setVersion(lookup.getVersion());
+            copy.setUpdateDate(lookup.getUpdateDate());
+            return copy;
+        }
+
+        private void add(String folderUri, String uri, ResourceLookup.ResourceType type) {
+            ResourceLookup lookup = new ResourceLookup();
+            lookup.setUri(uri);
+            lookup.setLabel(uri.substring(uri.lastIndexOf('/') + 1));
+            lookup.setResourceType(type);
+            lookup.setVersion(3);
+            lookup.setUpdateDate("2014-01-15 09:30:00");
+            List<ResourceLookup> lookups = children.get(folderUri);
+            if (lookups == null) {
+                lookups = new ArrayList<ResourceLookup>();
+                children.put(folderUri, lookups);
+            }
+            lookups.add(lookup);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+import com.jaspersoft.android.sdk.client.http.RequestCoalescer;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class RequestCoalescerTest {
+
+    private final static String key = RequestCoalescer.createKey("GET", "http://localhost/rest/resources/reports", null);
+
+    @Test
+    public void test_concurrentCallsShareResult() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return coalescer.execute(key, new RequestCoalescer.Call<Object>() {
+                        public Object execute() {
+                            executions.incrementAndGet();
+                            started.countDown();
+                            awaitQuietly(release);
+                            return new Object();
+                        }
+                    });
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<Object> follower = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    return coalescer.execute(key, new RequestCoalescer.Call<Object>() {
+                        public Object execute() {
+                            executions.incrementAndGet();
+                            return new Object();
+                        }
+                    });
+                }
+            });
+            while (coalescer.getCoalescedCount() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, executions.get());
+            assertEquals(1, coalescer.getExecutedCount());
+            assertEquals(1, coalescer.getCoalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_sequentialCallsAreExecuted() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        RequestCoalescer.Call<String> call = new RequestCoalescer.Call<String>() {
+            public String execute() {
+                return "result";
+            }
+        };
+
+        coalescer.execute(key, call);
+        coalescer.execute(key, call);
+
+        assertEquals(2, coalescer.getExecutedCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void test_failureIsPropagated() {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        try {
+            coalescer.execute(key, new RequestCoalescer.Call<String>() {
+                public String execute() {
+                    throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+                }
+            });
+            fail("Exception expected");
+        } catch (HttpClientErrorException ex) {
+            assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        }
+        // the failed flight must not block the next call
+        assertEquals("result", coalescer.execute(key, new RequestCoalescer.Call<String>() {
+            public String execute() {
+                return "result";
+            }
+        }));
+    }
+
+    @Test
+    public void test_createKey() {
+        assertEquals("POST http://localhost/values#country=[USA];",
+                RequestCoalescer.createKey("POST", "http://localhost/values", "country=[USA];"));
+        assertFalse(RequestCoalescer.createKey("POST", "http://localhost/values", "a").equals(
+                RequestCoalescer.createKey("POST", "http://localhost/values", "b")));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupHandler;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookupsParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ResourceLookupsParserTest {
+
+    private final static String document = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>" +
+            "<resources>" +
+            "<resourceLookup>" +
+            "<creationDate>2013-10-03 16:32:05</creationDate>" +
+            "<description>Sample HTML5 Spider Line chart</description>" +
+            "<label>01. Geographic Results by Segment</label>" +
+            "<permissionMask>2</permissionMask>" +
+            "<uri>/reports/samples/GeographicResults</uri>" +
+            "<version>0</version>" +
+            "<resourceType>reportUnit</resourceType>" +
+            "<extension><nested>ignored</nested></extension>" +
+            "</resourceLookup>" +
+            "<resourceLookup>" +
+            "<label>Samples</label>" +
+            "<uri>/reports/samples</uri>" +
+            "<resourceType>folder</resourceType>" +
+            "</resourceLookup>" +
+            "</resources>";
+
+    @Test
+    public void test_parse() throws Exception {
+        final List<ResourceLookup> lookups = new ArrayList<ResourceLookup>();
+        int count = new ResourceLookupsParser().parse(stream(document), null, new ResourceLookupHandler() {
+            public boolean onResourceLookup(ResourceLookup resourceLookup) {
+                lookups.add(resourceLookup);
+                return true;
+            }
+        });
+
+        assertEquals(2, count);
+        ResourceLookup report = lookups.get(0);
+        assertEquals("01. Geographic Results by Segment", report.getLabel());
+        assertEquals("/reports/samples/GeographicResults", report.getUri());
+        assertEquals(ResourceLookup.ResourceType.reportUnit, report.getResourceType());
+        assertEquals(Integer.valueOf(2), report.getPermissionMask());
+        assertEquals(Integer.valueOf(0), report.getVersion());
+        assertEquals("2013-10-03 16:32:05", report.getCreationDate());
+
+        ResourceLookup folder = lookups.get(1);
+        assertEquals(ResourceLookup.ResourceType.folder, folder.getResourceType());
+        assertNull(folder.getVersion());
+    }
+
+    @Test
+    public void test_stopParsing() throws Exception {
+        int count = new ResourceLookupsParser().parse(stream(document), "UTF-8", new ResourceLookupHandler() {
+            public boolean onResourceLookup(ResourceLookup resourceLookup) {
+                return false;
+            }
+        });
+
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void test_parseLargeDocument() throws Exception {
+        StringBuilder largeDocument = new StringBuilder("<resources>");
+        for (int i = 0; i < 5000; i++) {
+            largeDocument.append("<resourceLookup><uri>/reports/report").append(i)
+                    .append("</uri><resourceType>reportUnit</resourceType></resourceLookup>");
+        }
+        largeDocument.append("</resources>");
+
+        final int[] lastIndex = {-1};
+        int count = new ResourceLookupsParser().parse(stream(largeDocument.toString()), null, new ResourceLookupHandler() {
+            public boolean onResourceLookup(ResourceLookup resourceLookup) {
+                lastIndex[0]++;
+                assertEquals("/reports/report" + lastIndex[0], resourceLookup.getUri());
+                return true;
+            }
+        });
+
+        assertEquals(5000, count);
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private InputStream stream(String xml) throws Exception {
+        return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+    }
+
+}
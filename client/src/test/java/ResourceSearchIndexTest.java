@@ -0,0 +1,99 @@
+import com.jaspersoft.android.sdk.client.mirror.ResourceSearchIndex;
+import com.jaspersoft.android.sdk.client.oxm.resource.ResourceLookup;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ResourceSearchIndexTest {
+
+    private ResourceSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ResourceSearchIndex();
+        index.add(lookup("/reports/samples/AllAccounts", "All Accounts", "All accounts report", ResourceLookup.ResourceType.reportUnit));
+        index.add(lookup("/reports/samples/Cascading", "Cascading multi select", "Sales by account", ResourceLookup.ResourceType.reportUnit));
+        index.add(lookup("/reports/samples/Accounts", "Accounts", null, ResourceLookup.ResourceType.folder));
+        index.add(lookup("/reports/Employees", "Employee Accounts", "Employees", ResourceLookup.ResourceType.reportUnit));
+        index.add(lookup("/dashboards/Sales", "Sales", "Sales dashboard", ResourceLookup.ResourceType.dashboard));
+    }
+
+    @Test
+    public void test_substringQuery() {
+        assertEquals(uris("/reports/samples/Accounts", "/reports/samples/AllAccounts",
+                "/reports/Employees", "/reports/samples/Cascading"), search("/", "ACCOUNT", null, true));
+        assertEquals(uris("/reports/samples/Cascading"), search("/", "ti sel", null, true));
+        assertEquals(uris("/dashboards/Sales"), search("/", "dashboards/", null, true));
+        assertTrue(search("/", "xyz", null, true).isEmpty());
+    }
+
+    @Test
+    public void test_prefixQuery() {
+        assertEquals(uris("/reports/samples/Cascading"), search("/", "mu", null, true));
+        // the words of the URI count as well
+        assertEquals(uris("/dashboards/Sales", "/reports/samples/Accounts", "/reports/samples/AllAccounts",
+                "/reports/samples/Cascading"), search("/", "sa", null, true));
+        assertTrue(search("/", "le", null, true).isEmpty());
+    }
+
+    @Test
+    public void test_typesAndScope() {
+        List<ResourceLookup.ResourceType> reports = Arrays.asList(ResourceLookup.ResourceType.reportUnit);
+
+        assertEquals(uris("/reports/samples/AllAccounts", "/reports/Employees", "/reports/samples/Cascading"),
+                search("/reports", "account", reports, true));
+        assertEquals(uris("/reports/Employees"), search("/reports/", "account", reports, false));
+        assertEquals(uris("/reports/samples/Accounts", "/reports/samples/AllAccounts", "/reports/samples/Cascading"),
+                search("/reports/samples", null, null, false));
+    }
+
+    @Test
+    public void test_incrementalUpdate() {
+        index.remove("/reports/samples/Cascading");
+        index.add(lookup("/reports/Employees", "Staff", null, ResourceLookup.ResourceType.reportUnit));
+        index.add(lookup("/reports/Salaries", "Salaries", null, ResourceLookup.ResourceType.reportUnit));
+
+        assertEquals(5, index.size());
+        assertEquals(uris("/reports/samples/Accounts", "/reports/samples/AllAccounts"), search("/", "account", null, true));
+        assertEquals(uris("/reports/Salaries", "/dashboards/Sales"), search("/", "sal", null, true));
+
+        index.clear();
+        assertTrue(search("/", null, null, true).isEmpty());
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private List<String> search(String folderUri, String query, List<ResourceLookup.ResourceType> types,
+                                boolean recursive) {
+        List<String> uris = new ArrayList<String>();
+        for (ResourceLookup lookup : index.search(folderUri, query, types, recursive)) {
+            uris.add(lookup.getUri());
+        }
+        return uris;
+    }
+
+    private List<String> uris(String... uris) {
+        return Arrays.asList(uris);
+    }
+
+    private ResourceLookup lookup(String uri, String label, String description, ResourceLookup.ResourceType type) {
+        ResourceLookup lookup = new ResourceLookup();
+        lookup.setUri(uri);
+        lookup.setLabel(label);
+        lookup.setDescription(description);
+        lookup.setResourceType(type);
+        return lookup;
+    }
+
+}
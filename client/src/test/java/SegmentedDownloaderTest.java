@@ -0,0 +1,233 @@
+import com.jaspersoft.android.sdk.client.download.ParallelDownloader;
+import com.jaspersoft.android.sdk.client.download.SegmentedDownloader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SegmentedDownloaderTest {
+
+    private static final URI OUTPUT_URI =
+            URI.create("http://localhost/jasperserver/rest_v2/reportExecutions/1/exports/xls/outputResource");
+
+    private File directory;
+    private ParallelDownloader parallelDownloader;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("segmented", "");
+        directory.delete();
+        parallelDownloader = new ParallelDownloader();
+        content = new byte[10000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        parallelDownloader.shutdown();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void test_downloadInRanges() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 1000);
+        RangeRequestFactory requestFactory = new RangeRequestFactory(true);
+        File file = new File(directory, "report.xls");
+
+        assertEquals(10000, downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader));
+
+        assertTrue(Arrays.equals(content, FileCopyUtils.copyToByteArray(file)));
+        // the probe and two ranges
+        assertEquals(3, requestFactory.requests.get());
+        assertEquals(1, directory.listFiles().length);
+        assertTrue(downloader.getLastConnectionThroughput() > 0);
+        // the connections didn't compete for the link yet
+        assertEquals(3, downloader.getConnections());
+
+        downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader);
+        assertTrue(Arrays.equals(content, FileCopyUtils.copyToByteArray(file)));
+        assertEquals(2, downloader.getStatistics().getDownloads());
+    }
+
+    @Test
+    public void test_fallbackWithoutRangeSupport() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 1000);
+        File file = new File(directory, "report.xls");
+
+        assertEquals(-1, downloader.download(new RangeRequestFactory(false), OUTPUT_URI, file, parallelDownloader));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void test_fallbackForSmallFiles() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 8000);
+        File file = new File(directory, "report.xls");
+
+        assertEquals(-1, downloader.download(new RangeRequestFactory(true), OUTPUT_URI, file, parallelDownloader));
+    }
+
+    @Test
+    public void test_tuningFollowsSlowerNetwork() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 1000);
+        RangeRequestFactory requestFactory = new RangeRequestFactory(true);
+        File file = new File(directory, "report.xls");
+        requestFactory.rangeDelayMillis = 1;
+        downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader);
+        assertEquals(3, downloader.getConnections());
+
+        requestFactory.rangeDelayMillis = 40;
+        int downloads = 0;
+        while (downloader.getConnections() > 2) {
+            downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader);
+            assertTrue(++downloads < 10);
+        }
+        // the slow connections don't compete for the link, they are compared to the best of the fast network
+        while (downloader.getConnections() == 2) {
+            downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader);
+            assertTrue(++downloads < 100);
+        }
+        assertEquals(3, downloader.getConnections());
+    }
+
+    @Test
+    public void test_changedResourceFails() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 1000);
+        RangeRequestFactory requestFactory = new RangeRequestFactory(true);
+        requestFactory.eTagAfterProbe = "\"changed\"";
+        File file = new File(directory, "report.xls");
+
+        try {
+            downloader.download(requestFactory, OUTPUT_URI, file, parallelDownloader);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertFalse(file.exists());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Serves the content with byte ranges, honoring <code>If-Range</code>.
+     */
+    private class RangeRequestFactory implements ClientHttpRequestFactory {
+
+        private final boolean rangesSupported;
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile String eTagAfterProbe = "\"1234\"";
+        private volatile long rangeDelayMillis;
+
+        RangeRequestFactory(boolean rangesSupported) {
+            this.rangesSupported = rangesSupported;
+        }
+
+        public ClientHttpRequest createRequest(final URI uri, final HttpMethod httpMethod) {
+            final HttpHeaders requestHeaders = new HttpHeaders();
+            return new ClientHttpRequest() {
+                public ClientHttpResponse execute() {
+                    boolean probe = requests.incrementAndGet() == 1;
+                    String eTag = probe ? "\"1234\"" : eTagAfterProbe;
+                    String range = requestHeaders.getFirst("Range");
+                    String ifRange = requestHeaders.getFirst("If-Range");
+                    if (!rangesSupported || range == null || (ifRange != null && !ifRange.equals(eTag))) {
+                        return response(200, null, eTag, content);
+                    }
+                    if (rangeDelayMillis > 0) {
+                        try {
+                            Thread.sleep(rangeDelayMillis);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    int first = Integer.parseInt(bounds[0]);
+                    int last = Math.min(Integer.parseInt(bounds[1]), content.length - 1);
+                    return response(206, "bytes " + first + "-" + last + "/" + content.length, eTag,
+                            Arrays.copyOfRange(content, first, last + 1));
+                }
+
+                public HttpMethod getMethod() {
+                    return httpMethod;
+                }
+
+                public URI getURI() {
+                    return uri;
+                }
+
+                public HttpHeaders getHeaders() {
+                    return requestHeaders;
+                }
+
+                public OutputStream getBody() {
+                    return new ByteArrayOutputStream();
+                }
+            };
+        }
+
+        private ClientHttpResponse response(final int status, String contentRange, String eTag, final byte[] body) {
+            final HttpHeaders headers = new HttpHeaders();
+            headers.setETag(eTag);
+            if (contentRange != null) {
+                headers.set("Content-Range", contentRange);
+            }
+            headers.setContentLength(body.length);
+            return new AbstractClientHttpResponse() {
+                public int getRawStatusCode() {
+                    return status;
+                }
+
+                public String getStatusText() {
+                    return "";
+                }
+
+                public HttpHeaders getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                protected InputStream getBodyInternal() {
+                    return new ByteArrayInputStream(body);
+                }
+
+                @Override
+                protected void closeInternal() {
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.http.SessionAuthenticationInterceptor;
+import com.jaspersoft.android.sdk.client.http.SessionCookieStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SessionAuthenticationInterceptorTest {
+
+    private final static String serverUrl = "http://mobiledemo.jaspersoft.com/jasperserver-pro";
+    private final static int THREADS = 8;
+
+    private JsServerProfile profile;
+    private SessionCookieStore cookieStore;
+    private FakeServer server;
+    private SessionAuthenticationInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        profile = new JsServerProfile("Test Profile", serverUrl, "organization", "session-test", "password");
+        cookieStore = SessionCookieStore.forProfile(profile);
+        cookieStore.clear();
+        server = new FakeServer();
+        interceptor = new SessionAuthenticationInterceptor(profile, server);
+    }
+
+    @After
+    public void tearDown() {
+        cookieStore.clear();
+    }
+
+    @Test
+    public void test_transparentReauthentication() throws Exception {
+        cookieStore.addCookies(Arrays.asList("JSESSIONID=expired"));
+
+        ClientHttpResponse response = interceptor.intercept(request(), new byte[0], server);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, server.logins.get());
+        assertEquals(2, server.executions.get());
+        assertEquals(server.validSessionId, cookieStore.getSessionId());
+    }
+
+    @Test
+    public void test_sharedReauthentication() throws Exception {
+        cookieStore.addCookies(Arrays.asList("JSESSIONID=expired"));
+
+        List<HttpStatus> statuses = interceptConcurrently();
+
+        assertEquals(1, server.logins.get());
+        for (HttpStatus status : statuses) {
+            assertEquals(HttpStatus.OK, status);
+        }
+    }
+
+    @Test
+    public void test_badCredentials() throws Exception {
+        server.credentialsValid = false;
+
+        ClientHttpResponse response = interceptor.intercept(request(), new byte[0], server);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        // the rejected request isn't worth another login
+        assertEquals(1, server.logins.get());
+        assertEquals(1, server.executions.get());
+    }
+
+    @Test
+    public void test_badCredentialsConcurrently() throws Exception {
+        server.credentialsValid = false;
+
+        List<HttpStatus> statuses = interceptConcurrently();
+
+        assertEquals(1, server.logins.get());
+        for (HttpStatus status : statuses) {
+            assertEquals(HttpStatus.UNAUTHORIZED, status);
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Sends the requests from several threads at once. The login waits until the other threads wait for it.
+     */
+    private List<HttpStatus> interceptConcurrently() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<HttpStatus> statuses = new ArrayList<HttpStatus>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        HttpStatus status = interceptor.intercept(request(), new byte[0], server).getStatusCode();
+                        synchronized (statuses) {
+                            statuses.add(status);
+                        }
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            });
+        }
+        server.waitingThreads = threads;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+        assertEquals(THREADS, statuses.size());
+        return statuses;
+    }
+
+    private HttpRequest request() {
+        final HttpHeaders headers = new HttpHeaders();
+        return new HttpRequest() {
+            public HttpMethod getMethod() {
+                return HttpMethod.GET;
+            }
+
+            public URI getURI() {
+                return URI.create(serverUrl + "/rest_v2/serverInfo");
+            }
+
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    private static ClientHttpResponse response(final HttpStatus status, final HttpHeaders headers) {
+        return new AbstractClientHttpResponse() {
+            public int getRawStatusCode() {
+                return status.value();
+            }
+
+            public String getStatusText() {
+                return status.name();
+            }
+
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            protected InputStream getBodyInternal() {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            @Override
+            protected void closeInternal() {
+            }
+        };
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    /**
+     * Serves the login requests of the interceptor and the intercepted requests, which need the current session.
+     */
+    private static class FakeServer implements ClientHttpRequestFactory, ClientHttpRequestExecution {
+
+        final AtomicInteger logins = new AtomicInteger();
+        final AtomicInteger executions = new AtomicInteger();
+        volatile boolean credentialsValid = true;
+        volatile String validSessionId;
+        volatile List<Thread> waitingThreads;
+
+        public ClientHttpRequest createRequest(final URI uri, final HttpMethod httpMethod) {
+            final HttpHeaders requestHeaders = new HttpHeaders();
+            return new ClientHttpRequest() {
+                public ClientHttpResponse execute() {
+                    awaitWaitingThreads();
+                    int login = logins.incrementAndGet();
+                    HttpHeaders headers = new HttpHeaders();
+                    if (!credentialsValid) {
+                        return response(HttpStatus.UNAUTHORIZED, headers);
+                    }
+                    validSessionId = "session" + login;
+                    headers.set("Set-Cookie", "JSESSIONID=" + validSessionId + "; Path=/jasperserver-pro");
+                    return response(HttpStatus.OK, headers);
+                }
+
+                public HttpMethod getMethod() {
+                    return httpMethod;
+                }
+
+                public URI getURI() {
+                    return uri;
+                }
+
+                public HttpHeaders getHeaders() {
+                    return requestHeaders;
+                }
+
+                public OutputStream getBody() {
+                    return new ByteArrayOutputStream();
+                }
+            };
+        }
+
+        public ClientHttpResponse execute(HttpRequest request, byte[] body) {
+            executions.incrementAndGet();
+            String cookie = request.getHeaders().getFirst("Cookie");
+            boolean authenticated = validSessionId != null && cookie != null
+                    && cookie.contains("JSESSIONID=" + validSessionId);
+            return response(authenticated ? HttpStatus.OK : HttpStatus.UNAUTHORIZED, new HttpHeaders());
+        }
+
+        /**
+         * Holds the login until the other threads are blocked, i.e. wait for it.
+         */
+        private void awaitWaitingThreads() {
+            List<Thread> threads = waitingThreads;
+            if (threads == null) return;
+            long deadline = System.currentTimeMillis() + 5000;
+            for (Thread thread : threads) {
+                if (thread == Thread.currentThread()) continue;
+                while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+}
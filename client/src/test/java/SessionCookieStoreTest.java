@@ -0,0 +1,48 @@
+import com.jaspersoft.android.sdk.client.JsServerProfile;
+import com.jaspersoft.android.sdk.client.http.SessionCookieStore;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SessionCookieStoreTest {
+
+    private final static String serverUrl = "http://mobiledemo.jaspersoft.com/jasperserver-pro";
+
+    @Test
+    public void test_addCookies() {
+        SessionCookieStore cookieStore = new SessionCookieStore();
+        cookieStore.addCookies(Arrays.asList(
+                "JSESSIONID=F1D3A2; Path=/jasperserver-pro; HttpOnly",
+                "userLocale=en_US"));
+
+        assertEquals("F1D3A2", cookieStore.getSessionId());
+        assertEquals("JSESSIONID=F1D3A2; userLocale=en_US", cookieStore.getCookieHeader());
+    }
+
+    @Test
+    public void test_clear() {
+        SessionCookieStore cookieStore = new SessionCookieStore();
+        cookieStore.addCookies(Arrays.asList("JSESSIONID=F1D3A2"));
+        cookieStore.clear();
+
+        assertNull(cookieStore.getSessionId());
+        assertNull(cookieStore.getCookieHeader());
+    }
+
+    @Test
+    public void test_forProfile() {
+        JsServerProfile profile = new JsServerProfile("Test Profile", serverUrl, "organization", "user", "password");
+        JsServerProfile sameAccount = new JsServerProfile("Other Alias", serverUrl, "organization", "user", "password");
+        JsServerProfile otherAccount = new JsServerProfile("Test Profile", serverUrl, "organization", "admin", "password");
+
+        assertSame(SessionCookieStore.forProfile(profile), SessionCookieStore.forProfile(sameAccount));
+        assertNotSame(SessionCookieStore.forProfile(profile), SessionCookieStore.forProfile(otherAccount));
+    }
+
+}
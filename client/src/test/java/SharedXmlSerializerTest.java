@@ -0,0 +1,66 @@
+import com.jaspersoft.android.sdk.client.oxm.ParseStatistics;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlHttpMessageConverter;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class SharedXmlSerializerTest {
+
+    private final static String serverInfo = "<serverInfo><edition>PRO</edition><version>5.5.0</version></serverInfo>";
+
+    @Test
+    public void test_warmUp() {
+        assertTrue(SharedXmlSerializer.warmUp() >= 0);
+        assertTrue(SharedXmlSerializer.getWarmUpTime() >= 0);
+        // the serializer is still usable after the failed warm-up reads
+        assertNotNull(SharedXmlSerializer.getSerializer());
+    }
+
+    @Test
+    public void test_parseStatistics() throws Exception {
+        ParseStatistics statistics = SharedXmlSerializer.getParseStatistics();
+        statistics.reset();
+        SharedXmlHttpMessageConverter converter = new SharedXmlHttpMessageConverter();
+
+        ServerInfo first = (ServerInfo) converter.read(ServerInfo.class, inputMessage(serverInfo));
+        converter.read(ServerInfo.class, inputMessage(serverInfo));
+        converter.read(ServerInfo.class, inputMessage(serverInfo));
+
+        assertEquals("5.5.0", first.getVersion());
+        assertEquals(3, statistics.getParseCount(ServerInfo.class));
+        assertTrue(statistics.getFirstParseTime(ServerInfo.class) >= 0);
+        assertTrue(statistics.getAverageParseTime(ServerInfo.class) >= 0);
+        assertEquals(-1.0, statistics.getFirstParseTime(String.class));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private HttpInputMessage inputMessage(final String xml) {
+        return new HttpInputMessage() {
+            public InputStream getBody() {
+                return new ByteArrayInputStream(xml.getBytes());
+            }
+
+            public HttpHeaders getHeaders() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setContentType(MediaType.APPLICATION_XML);
+                return headers;
+            }
+        };
+    }
+
+}
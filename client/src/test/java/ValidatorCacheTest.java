@@ -0,0 +1,99 @@
+import com.jaspersoft.android.sdk.client.http.ValidatorCache;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class ValidatorCacheTest {
+
+    private final static String url = "http://localhost/jasperserver/rest/resources{uri}";
+
+    @Test
+    public void test_notModifiedServedFromCache() {
+        ValidatorCache cache = new ValidatorCache();
+        StubRestTemplate restTemplate = new StubRestTemplate();
+
+        restTemplate.response = new ResponseEntity<String>("folder", eTagHeaders("\"v1\""), HttpStatus.OK);
+        assertEquals("folder", cache.exchange(restTemplate, "user", url, String.class, "/reports").getBody());
+        assertNull(restTemplate.requestHeaders.getFirst("If-None-Match"));
+
+        restTemplate.response = new ResponseEntity<String>(HttpStatus.NOT_MODIFIED);
+        ResponseEntity<String> revalidated = cache.exchange(restTemplate, "user", url, String.class, "/reports");
+        assertEquals("\"v1\"", restTemplate.requestHeaders.getFirst("If-None-Match"));
+        assertEquals(HttpStatus.OK, revalidated.getStatusCode());
+        assertEquals("folder", revalidated.getBody());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void test_keysAreScoped() {
+        ValidatorCache cache = new ValidatorCache();
+        StubRestTemplate restTemplate = new StubRestTemplate();
+
+        restTemplate.response = new ResponseEntity<String>("folder", eTagHeaders("\"v1\""), HttpStatus.OK);
+        cache.exchange(restTemplate, "user", url, String.class, "/reports");
+        cache.exchange(restTemplate, "admin", url, String.class, "/reports");
+        cache.exchange(restTemplate, "user", url, String.class, "/datasources");
+
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void test_responsesWithoutValidatorsAreNotCached() {
+        ValidatorCache cache = new ValidatorCache();
+        StubRestTemplate restTemplate = new StubRestTemplate();
+
+        restTemplate.response = new ResponseEntity<String>("folder", new HttpHeaders(), HttpStatus.OK);
+        cache.exchange(restTemplate, "user", url, String.class, "/reports");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void test_leastRecentlyUsedEviction() {
+        ValidatorCache cache = new ValidatorCache(2);
+        cache.put("a", eTagHeaders("\"a\""), "a");
+        cache.put("b", eTagHeaders("\"b\""), "b");
+        cache.get("a");
+        cache.put("c", eTagHeaders("\"c\""), "c");
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private HttpHeaders eTagHeaders(String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        return headers;
+    }
+
+    private static class StubRestTemplate extends RestTemplate {
+        ResponseEntity<?> response;
+        HttpHeaders requestHeaders;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+                                              Class<T> responseType, Object... uriVariables) {
+            requestHeaders = requestEntity.getHeaders();
+            return (ResponseEntity<T>) response;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+import com.jaspersoft.android.sdk.client.oxm.ResourcesList;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
+import com.jaspersoft.android.sdk.client.oxm.XmlMarshaller;
+import com.jaspersoft.android.sdk.client.oxm.XmlMarshallers;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.simpleframework.xml.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+/**
+ * Compares the parse times of large documents with the reflection based serializer and the generated marshallers.
+ * The timings depend on the machine, so the benchmark is run on demand only, either as a test or with
+ * <code>main()</code>.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class XmlMarshallerBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws Exception {
+        new XmlMarshallerBenchmark().benchmark();
+    }
+
+    @Test
+    @Ignore("benchmark, run on demand")
+    public void benchmark() throws Exception {
+        run(ResourcesList.class, "ResourcesList of 5000 descriptors", XmlMarshallerTest.resourcesDocument(5000));
+        run(InputControlsList.class, "InputControlsList of 1000 controls",
+                XmlMarshallerTest.inputControlsDocument(1000));
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private <T> void run(Class<T> type, String name, byte[] document) throws Exception {
+        long reflective = median(type, document, false);
+        long generated = median(type, document, true);
+        System.out.println(String.format("%s (%d KB): reflection %.1f ms, generated %.1f ms, %.1fx",
+                name, document.length / 1024, reflective / 1e6, generated / 1e6, (double) reflective / generated));
+    }
+
+    /**
+     * @return the median parse time in nanoseconds
+     */
+    private <T> long median(Class<T> type, byte[] document, boolean generated) throws Exception {
+        Serializer serializer = SharedXmlSerializer.getSerializer();
+        XmlMarshaller<T> marshaller = XmlMarshallers.get(type);
+        long[] times = new long[ITERATIONS];
+        for (int i = -WARMUP_ITERATIONS; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            if (generated) {
+                XmlMarshallers.read(marshaller, new ByteArrayInputStream(document), null);
+            } else {
+                serializer.read(type, new ByteArrayInputStream(document));
+            }
+            if (i >= 0) {
+                times[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(times);
+        return times[ITERATIONS / 2];
+    }
+
+}
@@ -0,0 +1,146 @@
+import com.jaspersoft.android.sdk.client.oxm.ResourcesList;
+import com.jaspersoft.android.sdk.client.oxm.SharedXmlSerializer;
+import com.jaspersoft.android.sdk.client.oxm.XmlMarshaller;
+import com.jaspersoft.android.sdk.client.oxm.XmlMarshallers;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControl;
+import com.jaspersoft.android.sdk.client.oxm.control.InputControlsList;
+import com.jaspersoft.android.sdk.client.oxm.server.ServerInfo;
+import org.junit.Test;
+import org.simpleframework.xml.Serializer;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import static junit.framework.Assert.*;
+
+/**
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class XmlMarshallerTest {
+
+    @Test
+    public void test_marshallerLookup() {
+        assertNotNull(XmlMarshallers.get(ResourcesList.class));
+        assertEquals("inputControls", XmlMarshallers.get(InputControlsList.class).getRootName());
+        // annotated methods are not supported by the generator
+        assertNull(XmlMarshallers.get(ServerInfo.class));
+        assertNull(XmlMarshallers.get(String.class));
+    }
+
+    @Test
+    public void test_resourcesListEquivalence() throws Exception {
+        byte[] document = resourcesDocument(1000);
+        compare(ResourcesList.class, document);
+    }
+
+    @Test
+    public void test_inputControlsListEquivalence() throws Exception {
+        byte[] document = inputControlsDocument(300);
+        compare(InputControlsList.class, document);
+    }
+
+    @Test
+    public void test_writeIsReadableByReflection() throws Exception {
+        Serializer serializer = SharedXmlSerializer.getSerializer();
+        XmlMarshaller<InputControlsList> marshaller = XmlMarshallers.get(InputControlsList.class);
+        InputControlsList original = XmlMarshallers.read(marshaller, new ByteArrayInputStream(inputControlsDocument(3)), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XmlMarshallers.write(marshaller, original, out, "UTF-8");
+        InputControlsList copy = serializer.read(InputControlsList.class, new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(toXml(original), toXml(copy));
+        InputControl control = copy.getInputControls().get(0);
+        assertEquals(InputControl.Type.multiSelect, control.getType());
+        assertEquals(2, control.getValidationRules().size());
+    }
+
+    @Test
+    public void test_missingRequiredElement() throws Exception {
+        XmlMarshaller<InputControlsList> marshaller = XmlMarshallers.get(InputControlsList.class);
+        byte[] document = "<inputControls><inputControl><id>a</id></inputControl></inputControls>".getBytes("UTF-8");
+        try {
+            XmlMarshallers.read(marshaller, new ByteArrayInputStream(document), null);
+            fail("XmlPullParserException expected");
+        } catch (XmlPullParserException ex) {
+            // expected, as with Simple
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    /**
+     * Parses the document with both the reflection based serializer and the generated marshaller
+     * and checks the results are equal.
+     */
+    private <T> void compare(Class<T> type, byte[] document) throws Exception {
+        Serializer serializer = SharedXmlSerializer.getSerializer();
+        XmlMarshaller<T> marshaller = XmlMarshallers.get(type);
+
+        T reflected = serializer.read(type, new ByteArrayInputStream(document));
+        T generated = XmlMarshallers.read(marshaller, new ByteArrayInputStream(document), null);
+        assertEquals(toXml(reflected), toXml(generated));
+    }
+
+    private String toXml(Object object) throws Exception {
+        StringWriter writer = new StringWriter();
+        SharedXmlSerializer.getSerializer().write(object, writer);
+        return writer.toString();
+    }
+
+    static byte[] resourcesDocument(int count) throws Exception {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><resourceDescriptors>");
+        for (int i = 0; i < count; i++) {
+            xml.append("<resourceDescriptor name=\"report").append(i).append("\" wsType=\"reportUnit\"")
+                    .append(" uriString=\"/reports/samples/report").append(i).append("\" isNew=\"false\">")
+                    .append("<label>Report &amp; Chart ").append(i).append("</label>")
+                    .append("<description><![CDATA[Sample <report> ").append(i).append("]]></description>")
+                    .append("<creationDate>1380800000000</creationDate>")
+                    .append("<resourceProperty name=\"PROP_PARENT_FOLDER\"><value>/reports/samples</value></resourceProperty>")
+                    .append("<resourceProperty name=\"PROP_RU_DATASOURCE_TYPE\"><value>jdbc</value>")
+                    .append("<resourceProperty name=\"PROP_REFERENCE_URI\"><value>/datasources/foodmart</value></resourceProperty>")
+                    .append("</resourceProperty>")
+                    .append("<resourceDescriptor name=\"main\" wsType=\"jrxml\" uriString=\"/reports/samples/report")
+                    .append(i).append("_files/main.jrxml\" isNew=\"false\"><label>Main jrxml</label><description/>")
+                    .append("<resourceProperty name=\"PROP_IS_REFERENCE\"><value>false</value></resourceProperty>")
+                    .append("</resourceDescriptor>")
+                    .append("<parameter name=\"IC_GET_QUERY_DATA\" isListItem=\"true\">country</parameter>")
+                    .append("</resourceDescriptor>");
+        }
+        return xml.append("</resourceDescriptors>").toString().getBytes("UTF-8");
+    }
+
+    static byte[] inputControlsDocument(int count) throws Exception {
+        StringBuilder xml = new StringBuilder("<inputControls>");
+        for (int i = 0; i < count; i++) {
+            xml.append("<inputControl>")
+                    .append("<id>control").append(i).append("</id>")
+                    .append("<label>Control ").append(i).append("</label>")
+                    .append("<mandatory>true</mandatory><readOnly>false</readOnly>")
+                    .append("<type>multiSelect</type>")
+                    .append("<uri>repo:/reports/samples/report_files/control").append(i).append("</uri>")
+                    .append("<visible>true</visible>")
+                    .append("<masterDependencies><controlId>control").append(i + 1).append("</controlId></masterDependencies>")
+                    .append("<slaveDependencies><controlId>control").append(i - 1).append("</controlId></slaveDependencies>")
+                    .append("<validationRules>")
+                    .append("<mandatoryValidationRule><errorMessage>This field is mandatory</errorMessage></mandatoryValidationRule>")
+                    .append("<dateTimeFormatValidationRule><errorMessage>Bad date</errorMessage><format>yyyy-MM-dd</format></dateTimeFormatValidationRule>")
+                    .append("</validationRules>")
+                    .append("<state><id>control").append(i).append("</id>")
+                    .append("<uri>/reports/samples/report_files/control").append(i).append("</uri>")
+                    .append("<options>");
+            for (int j = 0; j < 20; j++) {
+                xml.append("<option><label>Option ").append(j).append("</label><selected>").append(j == 0)
+                        .append("</selected><value>").append(j).append("</value></option>");
+            }
+            xml.append("</options></state></inputControl>");
+        }
+        return xml.append("</inputControls>").toString().getBytes("UTF-8");
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mapping of one Simple XML annotated class, as resolved by the {@link XmlMarshallerProcessor}
+ * and rendered by the {@link MarshallerWriter}.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+class MarshallerModel {
+
+    /** Package of both the mapped class and its marshaller. */
+    final String packageName;
+    /** Canonical name of the mapped class. */
+    final String typeName;
+    /** Simple name of the generated marshaller. */
+    final String marshallerName;
+    /** Element name used when an instance is the document root. */
+    final String rootName;
+    final List<Property> properties = new ArrayList<Property>();
+
+    MarshallerModel(String packageName, String typeName, String marshallerName, String rootName) {
+        this.packageName = packageName;
+        this.typeName = typeName;
+        this.marshallerName = marshallerName;
+        this.rootName = rootName;
+    }
+
+    String getQualifiedMarshallerName() {
+        return packageName.length() == 0 ? marshallerName : packageName + "." + marshallerName;
+    }
+
+    /**
+     * @return qualified names of the marshallers of all nested classes
+     */
+    List<String> getReferencedMarshallers() {
+        List<String> referenced = new ArrayList<String>();
+        for (Property property : properties) {
+            if (property.value != null && property.value.kind == ValueKind.OBJECT) {
+                referenced.add(property.value.marshallerName);
+            }
+            for (Entry entry : property.entries) {
+                if (entry.value.kind == ValueKind.OBJECT) {
+                    referenced.add(entry.value.marshallerName);
+                }
+            }
+        }
+        return referenced;
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    enum PropertyKind {
+        ATTRIBUTE, ELEMENT, TEXT, LIST
+    }
+
+    enum ValueKind {
+        STRING, PRIMITIVE, BOXED, ENUM, OBJECT
+    }
+
+    static class Property {
+        final PropertyKind kind;
+        final String fieldName;
+        /** Name of the attribute or element, or of the wrapping element of a list. */
+        final String name;
+        final boolean required;
+        /** Value of an attribute, element or text, <code>null</code> for lists. */
+        final Value value;
+        /** Source name of the field type, e.g. <code>java.util.List&lt;java.lang.String&gt;</code>. */
+        String typeName;
+        /** Canonical name of the class declaring the field. */
+        String declaringType;
+        /** Getter returning the field type, <code>null</code> to read the field through reflection. */
+        String getter;
+        /** Setter taking the field type, <code>null</code> to write the field through reflection. */
+        String setter;
+
+        // lists only
+        boolean inline;
+        boolean empty;
+        String collectionType;
+        String elementType;
+        final List<Entry> entries = new ArrayList<Entry>();
+
+        Property(PropertyKind kind, String fieldName, String name, boolean required, Value value) {
+            this.kind = kind;
+            this.fieldName = fieldName;
+            this.name = name;
+            this.required = required;
+            this.value = value;
+        }
+
+        boolean isAccessedByReflection() {
+            return getter == null || setter == null;
+        }
+    }
+
+    static class Entry {
+        final String name;
+        final Value value;
+
+        Entry(String name, Value value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    static class Value {
+        final ValueKind kind;
+        /** Source name of the type, e.g. <code>int</code> or <code>java.lang.Integer</code>. */
+        final String typeName;
+        /** Qualified name of the marshaller of an {@link ValueKind#OBJECT} value. */
+        final String marshallerName;
+
+        Value(ValueKind kind, String typeName, String marshallerName) {
+            this.kind = kind;
+            this.typeName = typeName;
+            this.marshallerName = marshallerName;
+        }
+    }
+
+}
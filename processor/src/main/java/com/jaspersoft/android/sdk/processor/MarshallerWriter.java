@@ -0,0 +1,606 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.processor;
+
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Entry;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Property;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.PropertyKind;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Value;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.ValueKind;
+
+/**
+ * Renders the source of the marshaller described by a {@link MarshallerModel}.
+ * <p>
+ * The generated reader mirrors the Simple XML semantics the client relies on: empty elements are read as
+ * <code>null</code>, empty entries of lists are dropped, missing required elements and attributes fail the read,
+ * while unknown elements and attributes are skipped.
+ * <p>
+ * The JSON reader maps keys to the same names. Lists are read from arrays or single values, a wrapped list
+ * also from an object keyed by the entry names, and entries of a union from objects keyed by the entry name.
+ * A class holding a single inline list can be read from a bare array.
+ * <p>
+ * Fields are read and written through their accessors. Lists are collected into a local collection and set once
+ * the whole list has been read.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+class MarshallerWriter {
+
+    static final String RUNTIME_PACKAGE = "com.jaspersoft.android.sdk.client.oxm";
+
+    private final MarshallerModel model;
+    private final StringBuilder source = new StringBuilder();
+    private int indent;
+
+    MarshallerWriter(MarshallerModel model) {
+        this.model = model;
+    }
+
+    String write() {
+        if (model.packageName.length() > 0) {
+            line("package " + model.packageName + ";");
+            line("");
+        }
+        line("import " + RUNTIME_PACKAGE + ".XmlMarshaller;");
+        line("import " + RUNTIME_PACKAGE + ".XmlMarshallers;");
+        line("import " + RUNTIME_PACKAGE + ".json.JsonTokenizer;");
+        line("import " + RUNTIME_PACKAGE + ".json.JsonUnmarshaller;");
+        line("import org.xmlpull.v1.XmlPullParser;");
+        line("import org.xmlpull.v1.XmlPullParserException;");
+        line("import org.xmlpull.v1.XmlSerializer;");
+        line("");
+        line("import java.io.IOException;");
+        line("");
+        line("/**");
+        line(" * XML marshaller of {@link " + model.typeName + "}.");
+        line(" * Generated by " + XmlMarshallerProcessor.class.getName() + ", do not edit.");
+        line(" */");
+        open("public final class " + model.marshallerName + " implements XmlMarshaller<" + model.typeName + ">, "
+                + "JsonUnmarshaller<" + model.typeName + ">");
+        line("");
+        line("public static final " + model.marshallerName + " INSTANCE = new " + model.marshallerName + "();");
+        line("");
+        boolean reflection = false;
+        for (Property property : model.properties) {
+            if (property.isAccessedByReflection()) {
+                line("private static final java.lang.reflect.Field " + fieldConstant(property)
+                        + " = XmlMarshallers.field(" + property.declaringType + ".class, "
+                        + quote(property.fieldName) + ");");
+                reflection = true;
+            }
+        }
+        if (reflection) line("");
+        open("public String getRootName()");
+        line("return " + quote(model.rootName) + ";");
+        close();
+        line("");
+        writeRead();
+        line("");
+        writeWrite();
+        line("");
+        writeReadJson();
+        line("");
+        close();
+        return source.toString();
+    }
+
+    //---------------------------------------------------------------------
+    // Reader
+    //---------------------------------------------------------------------
+
+    private void writeRead() {
+        open("public " + model.typeName + " read(XmlPullParser parser) throws XmlPullParserException, IOException");
+        line(model.typeName + " object = new " + model.typeName + "();");
+        for (Property property : model.properties) {
+            if (property.required && (property.kind == PropertyKind.ATTRIBUTE || property.kind == PropertyKind.ELEMENT)) {
+                line("boolean " + flag(property) + " = false;");
+            }
+        }
+        declareLists();
+
+        if (hasProperties(PropertyKind.ATTRIBUTE)) {
+            open("for (int i = 0, count = parser.getAttributeCount(); i < count; i++)");
+            line("String name = parser.getAttributeName(i);");
+            boolean first = true;
+            for (Property property : model.properties) {
+                if (property.kind != PropertyKind.ATTRIBUTE) continue;
+                branch(first, quote(property.name) + ".equals(name)");
+                line(setter(property) + fromString(property.value, "parser.getAttributeValue(i)") + ");");
+                if (property.required) line(flag(property) + " = true;");
+                first = false;
+            }
+            close();
+            close();
+        }
+
+        if (hasProperties(PropertyKind.TEXT)) {
+            for (Property property : model.properties) {
+                if (property.kind != PropertyKind.TEXT) continue;
+                readText(property.value, setter(property), ")", false);
+            }
+        } else if (hasProperties(PropertyKind.ELEMENT) || hasProperties(PropertyKind.LIST)) {
+            line("int depth = parser.getDepth();");
+            open("while (XmlMarshallers.nextElement(parser, depth))");
+            line("String name = parser.getName();");
+            boolean first = true;
+            for (Property property : model.properties) {
+                if (property.kind == PropertyKind.ELEMENT) {
+                    branch(first, quote(property.name) + ".equals(name)");
+                    readValue(property.value, setter(property), ")", false);
+                    if (property.required) line(flag(property) + " = true;");
+                    first = false;
+                } else if (property.kind == PropertyKind.LIST && property.inline) {
+                    for (Entry entry : property.entries) {
+                        branch(first, quote(entry.name) + ".equals(name)");
+                        line("if (" + list(property) + " == null) " + list(property) + " = " + newCollection(property) + ";");
+                        readValue(entry.value, list(property) + ".add(", ")", true);
+                        first = false;
+                    }
+                } else if (property.kind == PropertyKind.LIST) {
+                    branch(first, quote(property.name) + ".equals(name)");
+                    line(list(property) + " = " + newCollection(property) + ";");
+                    line("int listDepth = parser.getDepth();");
+                    open("while (XmlMarshallers.nextElement(parser, listDepth))");
+                    boolean firstEntry = true;
+                    for (Entry entry : property.entries) {
+                        branch(firstEntry, quote(entry.name) + ".equals(parser.getName())");
+                        readValue(entry.value, list(property) + ".add(", ")", true);
+                        firstEntry = false;
+                    }
+                    elseBranch();
+                    line("XmlMarshallers.skip(parser);");
+                    close();
+                    close();
+                    first = false;
+                }
+            }
+            elseBranch();
+            line("XmlMarshallers.skip(parser);");
+            close();
+            close();
+        } else {
+            line("XmlMarshallers.skip(parser);");
+        }
+
+        for (Property property : model.properties) {
+            if (property.required && (property.kind == PropertyKind.ATTRIBUTE || property.kind == PropertyKind.ELEMENT)) {
+                line("if (!" + flag(property) + ") throw XmlMarshallers.missing(parser, " + quote(property.name) + ");");
+            }
+        }
+        setLists();
+        line("return object;");
+        close();
+    }
+
+    /**
+     * Reads a value and passes it to the call opened by the prefix, skipping empty values of list entries.
+     */
+    private void readValue(Value value, String prefix, String suffix, boolean entry) {
+        if (value.kind == ValueKind.OBJECT) {
+            line(prefix + value.marshallerName + ".INSTANCE.read(parser)" + suffix + ";");
+        } else {
+            readText(value, prefix, suffix, entry);
+        }
+    }
+
+    private void readText(Value value, String prefix, String suffix, boolean entry) {
+        if (value.kind == ValueKind.STRING && !entry) {
+            line(prefix + "XmlMarshallers.readText(parser)" + suffix + ";");
+        } else {
+            open("");
+            line("String text = XmlMarshallers.readText(parser);");
+            line("if (text != null) " + prefix + fromString(value, "text") + suffix + ";");
+            close();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Writer
+    //---------------------------------------------------------------------
+
+    private void writeWrite() {
+        open("public void write(XmlSerializer serializer, String name, " + model.typeName + " object) throws IOException");
+        line("serializer.startTag(null, name);");
+        for (Property property : model.properties) {
+            if (property.kind != PropertyKind.ATTRIBUTE) continue;
+            String field = local(property);
+            line(property.typeName + " " + field + " = " + getter(property) + ";");
+            line(nullCheck(property.value, field) + "serializer.attribute(null, " + quote(property.name) + ", "
+                    + toString(property.value, field) + ");");
+        }
+        for (Property property : model.properties) {
+            if (property.kind == PropertyKind.ATTRIBUTE) continue;
+            String field = local(property);
+            line(property.typeName + " " + field + " = " + getter(property) + ";");
+            switch (property.kind) {
+                case TEXT:
+                    line(nullCheck(property.value, field) + "serializer.text(" + toString(property.value, field) + ");");
+                    break;
+                case ELEMENT:
+                    writeValue(property.value, property.name, field, true);
+                    break;
+                case LIST:
+                    if (property.inline) {
+                        open("if (" + field + " != null)");
+                        writeEntries(property, field);
+                        close();
+                    } else {
+                        String condition = field + " != null";
+                        if (!property.empty) condition += " && !" + field + ".isEmpty()";
+                        open("if (" + condition + ")");
+                        line("serializer.startTag(null, " + quote(property.name) + ");");
+                        writeEntries(property, field);
+                        line("serializer.endTag(null, " + quote(property.name) + ");");
+                        close();
+                    }
+                    break;
+            }
+        }
+        line("serializer.endTag(null, name);");
+        close();
+    }
+
+    private void writeEntries(Property property, String field) {
+        open("for (" + property.elementType + " item : " + field + ")");
+        if (property.entries.size() == 1) {
+            Entry entry = property.entries.get(0);
+            writeValue(entry.value, entry.name, cast(property, entry.value, "item"), true);
+        } else {
+            line("if (item == null) continue;");
+            // exact classes first, so a subclass isn't written as one of its superclasses
+            boolean first = true;
+            for (Entry entry : property.entries) {
+                branch(first, "item.getClass() == " + entry.value.typeName + ".class");
+                writeValue(entry.value, entry.name, cast(property, entry.value, "item"), false);
+                first = false;
+            }
+            for (Entry entry : property.entries) {
+                branch(false, "item instanceof " + entry.value.typeName);
+                writeValue(entry.value, entry.name, cast(property, entry.value, "item"), false);
+            }
+            elseBranch();
+            line("throw new IllegalArgumentException(\"No entry of " + property.fieldName
+                    + " matches \" + item.getClass().getName());");
+            close();
+        }
+        close();
+    }
+
+    private void writeValue(Value value, String name, String expression, boolean nullable) {
+        String check = nullable ? nullCheck(value, expression) : "";
+        if (value.kind == ValueKind.OBJECT) {
+            line(check + value.marshallerName + ".INSTANCE.write(serializer, " + quote(name) + ", " + expression + ");");
+        } else {
+            line(check + "XmlMarshallers.writeText(serializer, " + quote(name) + ", " + toString(value, expression) + ");");
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // JSON reader
+    //---------------------------------------------------------------------
+
+    private void writeReadJson() {
+        open("public " + model.typeName + " readJson(JsonTokenizer tokenizer) throws IOException");
+        line(model.typeName + " object = new " + model.typeName + "();");
+        declareLists();
+
+        if (model.properties.size() == 1 && model.properties.get(0).kind == PropertyKind.LIST
+                && model.properties.get(0).inline) {
+            Property property = model.properties.get(0);
+            open("if (tokenizer.peek() == JsonTokenizer.Token.BEGIN_ARRAY)");
+            line(list(property) + " = " + newCollection(property) + ";");
+            readJsonArray(property);
+            setLists();
+            line("return object;");
+            close();
+        }
+
+        line("tokenizer.beginObject();");
+        open("while (tokenizer.hasNext())");
+        line("String name = tokenizer.nextName();");
+        boolean first = true;
+        for (Property property : model.properties) {
+            switch (property.kind) {
+                case ATTRIBUTE:
+                case ELEMENT:
+                    branch(first, quote(property.name) + ".equals(name)");
+                    readJsonValue(property.value, setter(property), ")", false);
+                    first = false;
+                    break;
+                case TEXT:
+                    branch(first, "\"value\".equals(name)");
+                    readJsonValue(property.value, setter(property), ")", false);
+                    first = false;
+                    break;
+                case LIST:
+                    if (property.inline) {
+                        for (Entry entry : property.entries) {
+                            branch(first, quote(entry.name) + ".equals(name)");
+                            line("if (" + list(property) + " == null) " + list(property) + " = "
+                                    + newCollection(property) + ";");
+                            readJsonEntries(property, entry);
+                            first = false;
+                        }
+                    } else {
+                        branch(first, quote(property.name) + ".equals(name)");
+                        line(list(property) + " = " + newCollection(property) + ";");
+                        open("if (tokenizer.peek() == JsonTokenizer.Token.BEGIN_ARRAY)");
+                        readJsonArray(property);
+                        branch(false, "!tokenizer.skipNull()");
+                        readJsonEntryObject(property);
+                        close();
+                        first = false;
+                    }
+                    break;
+            }
+        }
+        if (first) {
+            line("tokenizer.skipValue();");
+        } else {
+            elseBranch();
+            line("tokenizer.skipValue();");
+            close();
+        }
+        close();
+        line("tokenizer.endObject();");
+        setLists();
+        line("return object;");
+        close();
+    }
+
+    /**
+     * Reads an array into a list: entries directly, or entries of a union wrapped in objects keyed by their names.
+     */
+    private void readJsonArray(Property property) {
+        line("tokenizer.beginArray();");
+        open("while (tokenizer.hasNext())");
+        if (property.entries.size() == 1) {
+            readJsonValue(property.entries.get(0).value, list(property) + ".add(", ")", true);
+        } else {
+            readJsonEntryObject(property);
+        }
+        close();
+        line("tokenizer.endArray();");
+    }
+
+    /**
+     * Reads an object whose keys are entry names and values are entries or arrays of entries.
+     */
+    private void readJsonEntryObject(Property property) {
+        line("tokenizer.beginObject();");
+        open("while (tokenizer.hasNext())");
+        line("String entryName = tokenizer.nextName();");
+        boolean first = true;
+        for (Entry entry : property.entries) {
+            branch(first, quote(entry.name) + ".equals(entryName)");
+            readJsonEntries(property, entry);
+            first = false;
+        }
+        elseBranch();
+        line("tokenizer.skipValue();");
+        close();
+        close();
+        line("tokenizer.endObject();");
+    }
+
+    /**
+     * Reads an array of entries or a single entry.
+     */
+    private void readJsonEntries(Property property, Entry entry) {
+        String add = list(property) + ".add(";
+        open("if (tokenizer.peek() == JsonTokenizer.Token.BEGIN_ARRAY)");
+        line("tokenizer.beginArray();");
+        open("while (tokenizer.hasNext())");
+        readJsonValue(entry.value, add, ")", true);
+        close();
+        line("tokenizer.endArray();");
+        elseBranch();
+        readJsonValue(entry.value, add, ")", true);
+        close();
+    }
+
+    private void readJsonValue(Value value, String prefix, String suffix, boolean entry) {
+        if (value.kind == ValueKind.OBJECT) {
+            line("if (!tokenizer.skipNull()) " + prefix + value.marshallerName + ".INSTANCE.readJson(tokenizer)"
+                    + suffix + ";");
+        } else if (value.kind == ValueKind.STRING && !entry) {
+            line(prefix + "tokenizer.nextString()" + suffix + ";");
+        } else {
+            open("");
+            line("String text = tokenizer.nextString();");
+            line("if (text != null) " + prefix + fromString(value, "text") + suffix + ";");
+            close();
+        }
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private boolean hasProperties(PropertyKind kind) {
+        for (Property property : model.properties) {
+            if (property.kind == kind) return true;
+        }
+        return false;
+    }
+
+    private void declareLists() {
+        for (Property property : model.properties) {
+            if (property.kind == PropertyKind.LIST) line(property.typeName + " " + list(property) + " = null;");
+        }
+    }
+
+    private void setLists() {
+        for (Property property : model.properties) {
+            if (property.kind == PropertyKind.LIST) {
+                line("if (" + list(property) + " != null) " + setter(property) + list(property) + ");");
+            }
+        }
+    }
+
+    /**
+     * @return the start of the call setting the property, to be completed with the value and a closing parenthesis
+     */
+    private static String setter(Property property) {
+        if (property.setter != null) return "object." + property.setter + "(";
+        return "XmlMarshallers.setField(" + fieldConstant(property) + ", object, ";
+    }
+
+    private static String getter(Property property) {
+        if (property.getter != null) return "object." + property.getter + "()";
+        String type = property.typeName;
+        if (property.value != null && property.value.kind == ValueKind.PRIMITIVE) {
+            type = type.equals("int") ? "java.lang.Integer"
+                    : type.equals("char") ? "java.lang.Character"
+                    : "java.lang." + Character.toUpperCase(type.charAt(0)) + type.substring(1);
+        }
+        return "(" + type + ") XmlMarshallers.getField(" + fieldConstant(property) + ", object)";
+    }
+
+    private static String fieldConstant(Property property) {
+        StringBuilder constant = new StringBuilder();
+        for (char c : property.fieldName.toCharArray()) {
+            if (Character.isUpperCase(c) && constant.length() > 0) constant.append('_');
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.append("_FIELD").toString();
+    }
+
+    /**
+     * @return the local variable collecting the entries of a list
+     */
+    private static String list(Property property) {
+        return property.fieldName + "List";
+    }
+
+    /**
+     * @return the local variable holding the value of a property while it's written
+     */
+    private static String local(Property property) {
+        return property.kind == PropertyKind.LIST ? list(property) : property.fieldName + "Value";
+    }
+
+    private static String fromString(Value value, String expression) {
+        String type = value.typeName;
+        switch (value.kind) {
+            case STRING:
+                return expression;
+            case ENUM:
+                return type + ".valueOf(" + expression + ".trim())";
+            case PRIMITIVE:
+                if (type.equals("char")) return expression + ".charAt(0)";
+                if (type.equals("int")) return "Integer.parseInt(" + expression + ".trim())";
+                String wrapper = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+                return wrapper + ".parse" + wrapper + "(" + expression + ".trim())";
+            case BOXED:
+                if (type.equals("java.lang.Character")) return type + ".valueOf(" + expression + ".charAt(0))";
+                return type + ".valueOf(" + expression + ".trim())";
+            default:
+                throw new IllegalArgumentException("Not a simple value: " + type);
+        }
+    }
+
+    private static String toString(Value value, String expression) {
+        switch (value.kind) {
+            case STRING:
+                return expression;
+            case ENUM:
+                return expression + ".name()";
+            default:
+                return "String.valueOf(" + expression + ")";
+        }
+    }
+
+    private static String nullCheck(Value value, String expression) {
+        return value.kind == ValueKind.PRIMITIVE ? "" : "if (" + expression + " != null) ";
+    }
+
+    /**
+     * Casts an item of a list to the type of an entry, unless the list is already declared with that type.
+     */
+    private static String cast(Property property, Value value, String expression) {
+        if (value.typeName.equals(property.elementType)) return expression;
+        return "((" + value.typeName + ") " + expression + ")";
+    }
+
+    private static String newCollection(Property property) {
+        return "new " + property.collectionType + "<" + property.elementType + ">()";
+    }
+
+    private static String flag(Property property) {
+        return "has" + Character.toUpperCase(property.fieldName.charAt(0)) + property.fieldName.substring(1);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\');
+            quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    private void line(String text) {
+        if (text.length() > 0) {
+            for (int i = 0; i < indent; i++) source.append("    ");
+            source.append(text);
+        }
+        source.append('\n');
+    }
+
+    private void open(String declaration) {
+        line(declaration.length() == 0 ? "{" : declaration + " {");
+        indent++;
+    }
+
+    private void close() {
+        indent--;
+        line("}");
+    }
+
+    /**
+     * Opens the first or a following branch of an <code>if</code> chain.
+     */
+    private void branch(boolean first, String condition) {
+        if (first) {
+            open("if (" + condition + ")");
+        } else {
+            indent--;
+            line("} else if (" + condition + ") {");
+            indent++;
+        }
+    }
+
+    /**
+     * Opens the <code>else</code> branch of a chain opened with {@link #branch(boolean, String)}.
+     */
+    private void elseBranch() {
+        indent--;
+        line("} else {");
+        indent++;
+    }
+
+}
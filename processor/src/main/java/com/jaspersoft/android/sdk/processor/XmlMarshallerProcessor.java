@@ -0,0 +1,555 @@
+/*
+ * Copyright (C) 2012-2014 Jaspersoft Corporation. All rights reserved.
+ * http://community.jaspersoft.com/project/mobile-sdk-android
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of Jaspersoft Mobile SDK for Android.
+ *
+ * Jaspersoft Mobile SDK is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Jaspersoft Mobile SDK is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Jaspersoft Mobile SDK for Android. If not, see
+ * <http://www.gnu.org/licenses/lgpl>.
+ */
+
+package com.jaspersoft.android.sdk.processor;
+
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Entry;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Property;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.PropertyKind;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.Value;
+import com.jaspersoft.android.sdk.processor.MarshallerModel.ValueKind;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates an <code>XmlMarshaller</code> for every class mapped with the Simple XML annotations,
+ * so the client can read and write its documents with a pull parser instead of reflection.
+ * <p>
+ * The generated <code>&lt;Type&gt;$$XmlMarshaller</code> is placed in the package of the mapped class and
+ * reads and writes the annotated fields through their bean accessors. A field without a getter or setter of
+ * its own type is accessed through a cached <code>java.lang.reflect.Field</code> instead. Classes using
+ * a mapping the generator doesn't support (annotated methods, maps, arrays, final fields, ...) are reported
+ * with a note and left to the reflection based Simple serializer.
+ * <p>
+ * The processor refers to the Simple annotations by name only, so it doesn't depend on the Simple library.
+ *
+ * @author Ivan Gadzhega
+ * @since 1.8
+ */
+public class XmlMarshallerProcessor extends AbstractProcessor {
+
+    static final String SIMPLE_PACKAGE = "org.simpleframework.xml.";
+    static final String ROOT = SIMPLE_PACKAGE + "Root";
+    static final String ELEMENT = SIMPLE_PACKAGE + "Element";
+    static final String ATTRIBUTE = SIMPLE_PACKAGE + "Attribute";
+    static final String TEXT = SIMPLE_PACKAGE + "Text";
+    static final String ELEMENT_LIST = SIMPLE_PACKAGE + "ElementList";
+    static final String ELEMENT_LIST_UNION = SIMPLE_PACKAGE + "ElementListUnion";
+    static final String TRANSIENT = SIMPLE_PACKAGE + "Transient";
+
+    static final String MARSHALLER_SUFFIX = "$$XmlMarshaller";
+
+    private static final List<String> PRIMITIVE_WRAPPERS = Arrays.asList("java.lang.Boolean", "java.lang.Byte",
+            "java.lang.Character", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+            "java.lang.Float", "java.lang.Double");
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<String>(Arrays.asList(ROOT, ELEMENT, ATTRIBUTE, TEXT, ELEMENT_LIST, ELEMENT_LIST_UNION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement type = getEnclosingType(element);
+                if (type != null) types.add(type);
+            }
+        }
+
+        Map<String, MarshallerModel> models = new LinkedHashMap<String, MarshallerModel>();
+        Map<String, TypeElement> origins = new LinkedHashMap<String, TypeElement>();
+        for (TypeElement type : types) {
+            try {
+                MarshallerModel model = createModel(type);
+                models.put(model.getQualifiedMarshallerName(), model);
+                origins.put(model.getQualifiedMarshallerName(), type);
+            } catch (UnsupportedMappingException ex) {
+                note(type, ex.getMessage());
+            }
+        }
+
+        // a marshaller can be generated only if the marshallers of all nested classes are generated as well
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<Map.Entry<String, MarshallerModel>> it = models.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, MarshallerModel> entry = it.next();
+                for (String referenced : entry.getValue().getReferencedMarshallers()) {
+                    if (!models.containsKey(referenced) && !isGenerated(referenced)) {
+                        note(origins.get(entry.getKey()), "nested class without marshaller: " + referenced);
+                        it.remove();
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        for (MarshallerModel model : models.values()) {
+            writeMarshaller(model, origins.get(model.getQualifiedMarshallerName()));
+        }
+        return false;
+    }
+
+    //---------------------------------------------------------------------
+    // Helper methods
+    //---------------------------------------------------------------------
+
+    private MarshallerModel createModel(TypeElement type) throws UnsupportedMappingException {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedMappingException("not a concrete class");
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            throw new UnsupportedMappingException("inner class");
+        }
+        if (!hasDefaultConstructor(type)) {
+            throw new UnsupportedMappingException("no accessible default constructor");
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        MarshallerModel model = new MarshallerModel(packageName, type.getQualifiedName().toString(),
+                getMarshallerSimpleName(type), getRootName(type));
+
+        // fields of superclasses go first, like in the documents written by Simple
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        for (TypeElement current = type; current != null; current = getSuperclass(current)) {
+            hierarchy.add(current);
+        }
+        Collections.reverse(hierarchy);
+
+        for (TypeElement current : hierarchy) {
+            checkClassAnnotations(current);
+            for (Element member : current.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD) {
+                    Property property = createProperty((VariableElement) member);
+                    if (property != null) {
+                        resolveAccessors(type, (VariableElement) member, property);
+                        model.properties.add(property);
+                    }
+                } else if (member.getKind() == ElementKind.METHOD || member.getKind() == ElementKind.CONSTRUCTOR) {
+                    checkExecutable((ExecutableElement) member);
+                }
+            }
+        }
+
+        boolean hasText = false;
+        boolean hasElements = false;
+        for (Property property : model.properties) {
+            hasText |= property.kind == PropertyKind.TEXT;
+            hasElements |= property.kind == PropertyKind.ELEMENT || property.kind == PropertyKind.LIST;
+        }
+        if (hasText && hasElements) {
+            throw new UnsupportedMappingException("text mixed with elements");
+        }
+        return model;
+    }
+
+    private Property createProperty(VariableElement field) throws UnsupportedMappingException {
+        List<AnnotationMirror> mappings = new ArrayList<AnnotationMirror>();
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            String name = getAnnotationName(mirror);
+            if (name.equals(TRANSIENT)) return null;
+            if (name.startsWith(SIMPLE_PACKAGE)) mappings.add(mirror);
+        }
+        if (mappings.isEmpty()) return null;
+
+        String fieldName = field.getSimpleName().toString();
+        if (mappings.size() > 1) {
+            throw new UnsupportedMappingException("several mappings of field " + fieldName);
+        }
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+            throw new UnsupportedMappingException("field " + fieldName + " is static or final");
+        }
+
+        AnnotationMirror mapping = mappings.get(0);
+        String annotation = getAnnotationName(mapping);
+        TypeMirror fieldType = field.asType();
+
+        if (annotation.equals(ATTRIBUTE) || annotation.equals(TEXT)) {
+            Value value = getValue(fieldType);
+            if (value == null || value.kind == ValueKind.OBJECT) {
+                throw new UnsupportedMappingException("unsupported type of field " + fieldName);
+            }
+            if (annotation.equals(TEXT)) {
+                return new Property(PropertyKind.TEXT, fieldName, null, getBoolean(mapping, "required"), value);
+            }
+            return new Property(PropertyKind.ATTRIBUTE, fieldName, getName(mapping, "name", fieldName),
+                    getBoolean(mapping, "required"), value);
+        }
+
+        if (annotation.equals(ELEMENT)) {
+            if (!isVoid(getType(mapping, "type"))) {
+                throw new UnsupportedMappingException("explicit type of field " + fieldName);
+            }
+            Value value = getValue(fieldType);
+            if (value == null) {
+                throw new UnsupportedMappingException("unsupported type of field " + fieldName);
+            }
+            return new Property(PropertyKind.ELEMENT, fieldName, getName(mapping, "name", fieldName),
+                    getBoolean(mapping, "required"), value);
+        }
+
+        if (annotation.equals(ELEMENT_LIST)) {
+            Property property = createListProperty(field, mapping, getBoolean(mapping, "inline"));
+            property.entries.add(createEntry(field, mapping));
+            return property;
+        }
+
+        if (annotation.equals(ELEMENT_LIST_UNION)) {
+            Property property = createListProperty(field, mapping, true);
+            for (AnnotationValue option : getList(mapping, "value")) {
+                AnnotationMirror entryMapping = (AnnotationMirror) option.getValue();
+                if (!getBoolean(entryMapping, "inline")) {
+                    throw new UnsupportedMappingException("union of wrapped lists in field " + fieldName);
+                }
+                property.entries.add(createEntry(field, entryMapping));
+            }
+            return property;
+        }
+
+        throw new UnsupportedMappingException("unsupported annotation @" + annotation.substring(SIMPLE_PACKAGE.length())
+                + " of field " + fieldName);
+    }
+
+    /**
+     * Looks up the bean accessors of a field in the mapped class. Getters are named <code>getName</code> or
+     * <code>isName</code>, setters <code>setName</code>; for a field named like <code>isName</code>, the
+     * accessors <code>isName</code>, <code>getName</code> and <code>setName</code> are accepted as well.
+     */
+    private void resolveAccessors(TypeElement type, VariableElement field, Property property)
+            throws UnsupportedMappingException {
+        String fieldName = field.getSimpleName().toString();
+        TypeMirror fieldType = field.asType();
+        List<String> names = new ArrayList<String>();
+        names.add(Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1));
+        if (fieldName.length() > 2 && fieldName.startsWith("is") && Character.isUpperCase(fieldName.charAt(2))) {
+            names.add(fieldName.substring(2));
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) continue;
+            if (!modifiers.contains(Modifier.PUBLIC) && !packageName.equals(processingEnv.getElementUtils()
+                    .getPackageOf(method).getQualifiedName().toString())) continue;
+
+            String methodName = method.getSimpleName().toString();
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (parameters.isEmpty() && processingEnv.getTypeUtils().isSameType(method.getReturnType(), fieldType)) {
+                for (String name : names) {
+                    if (methodName.equals("get" + name) || methodName.equals("is" + name)) {
+                        property.getter = methodName;
+                    }
+                }
+            } else if (parameters.size() == 1
+                    && processingEnv.getTypeUtils().isSameType(parameters.get(0).asType(), fieldType)) {
+                for (String name : names) {
+                    if (methodName.equals("set" + name)) property.setter = methodName;
+                }
+            }
+        }
+
+        property.typeName = fieldType.toString();
+        property.declaringType = ((TypeElement) field.getEnclosingElement()).getQualifiedName().toString();
+        if (property.getter == null && fieldType.getKind() == TypeKind.DECLARED
+                && !((DeclaredType) fieldType).getTypeArguments().isEmpty()) {
+            throw new UnsupportedMappingException("no getter of generic field " + fieldName);
+        }
+    }
+
+    private Property createListProperty(VariableElement field, AnnotationMirror mapping, boolean inline)
+            throws UnsupportedMappingException {
+        String fieldName = field.getSimpleName().toString();
+        TypeMirror fieldType = field.asType();
+        if (fieldType.getKind() != TypeKind.DECLARED || !isAssignable(fieldType, "java.util.Collection")) {
+            throw new UnsupportedMappingException("field " + fieldName + " is not a collection");
+        }
+        List<? extends TypeMirror> typeArguments = ((DeclaredType) fieldType).getTypeArguments();
+        if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+            throw new UnsupportedMappingException("raw or wildcard collection in field " + fieldName);
+        }
+
+        Property property = new Property(PropertyKind.LIST, fieldName, getName(mapping, "name", fieldName),
+                getBoolean(mapping, "required"), null);
+        property.inline = inline;
+        property.empty = getBoolean(mapping, "empty");
+        property.collectionType = getCollectionType(fieldType);
+        property.elementType = typeArguments.get(0).toString();
+        if (property.collectionType == null) {
+            throw new UnsupportedMappingException("unsupported collection in field " + fieldName);
+        }
+        return property;
+    }
+
+    private Entry createEntry(VariableElement field, AnnotationMirror mapping) throws UnsupportedMappingException {
+        String fieldName = field.getSimpleName().toString();
+        TypeMirror entryType = getType(mapping, "type");
+        if (isVoid(entryType)) {
+            entryType = ((DeclaredType) field.asType()).getTypeArguments().get(0);
+        }
+        Value value = getValue(entryType);
+        if (value == null || value.kind == ValueKind.PRIMITIVE) {
+            throw new UnsupportedMappingException("unsupported entry type of field " + fieldName);
+        }
+        TypeElement entryElement = (TypeElement) processingEnv.getTypeUtils().asElement(entryType);
+        return new Entry(getName(mapping, "entry", getRootName(entryElement)), value);
+    }
+
+    private Value getValue(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return new Value(ValueKind.PRIMITIVE, type.toString(), null);
+        }
+        if (type.getKind() != TypeKind.DECLARED) return null;
+
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(type);
+        String name = element.getQualifiedName().toString();
+        if (name.equals("java.lang.String")) {
+            return new Value(ValueKind.STRING, name, null);
+        }
+        if (PRIMITIVE_WRAPPERS.contains(name)) {
+            return new Value(ValueKind.BOXED, name, null);
+        }
+        if (element.getKind() == ElementKind.ENUM) {
+            return new Value(ValueKind.ENUM, name, null);
+        }
+        if (element.getKind() == ElementKind.CLASS && !name.startsWith("java.")) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+            String marshaller = getMarshallerSimpleName(element);
+            return new Value(ValueKind.OBJECT, name, packageName.length() == 0 ? marshaller : packageName + "." + marshaller);
+        }
+        return null;
+    }
+
+    private String getCollectionType(TypeMirror fieldType) {
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(fieldType);
+        if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return element.getQualifiedName().toString();
+        }
+        if (isAssignableFrom(fieldType, "java.util.TreeSet")) return "java.util.TreeSet";
+        if (isAssignableFrom(fieldType, "java.util.HashSet")) return "java.util.HashSet";
+        if (isAssignableFrom(fieldType, "java.util.ArrayList")) return "java.util.ArrayList";
+        return null;
+    }
+
+    private void checkClassAnnotations(TypeElement type) throws UnsupportedMappingException {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            String name = getAnnotationName(mirror);
+            if (name.startsWith(SIMPLE_PACKAGE) && !name.equals(ROOT)) {
+                throw new UnsupportedMappingException("unsupported annotation @" + name.substring(SIMPLE_PACKAGE.length()));
+            }
+        }
+    }
+
+    private void checkExecutable(ExecutableElement executable) throws UnsupportedMappingException {
+        List<Element> annotated = new ArrayList<Element>(executable.getParameters());
+        annotated.add(executable);
+        for (Element element : annotated) {
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                if (getAnnotationName(mirror).startsWith(SIMPLE_PACKAGE)) {
+                    throw new UnsupportedMappingException("annotated method " + executable.getSimpleName());
+                }
+            }
+        }
+    }
+
+    private boolean hasDefaultConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(superclass);
+        return element.getQualifiedName().toString().equals("java.lang.Object") ? null : element;
+    }
+
+    private TypeElement getEnclosingType(Element element) {
+        Element current = element;
+        while (current != null && !(current.getKind().isClass() && current instanceof TypeElement)) {
+            current = current.getEnclosingElement();
+        }
+        return (TypeElement) current;
+    }
+
+    /**
+     * Resolves the element name Simple uses for a class: the name of its <code>@Root</code>, or its simple name
+     * starting with a lower case letter unless it starts with an acronym.
+     */
+    private String getRootName(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (getAnnotationName(mirror).equals(ROOT)) {
+                String name = getString(mirror, "name");
+                if (name.length() > 0) return name;
+            }
+        }
+        char[] name = type.getSimpleName().toString().toCharArray();
+        boolean acronym = name.length > 1 && Character.isUpperCase(name[0]) && Character.isUpperCase(name[1]);
+        if (name.length > 0 && !acronym) {
+            name[0] = Character.toLowerCase(name[0]);
+        }
+        return new String(name);
+    }
+
+    private String getMarshallerSimpleName(TypeElement type) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        return binaryName.substring(binaryName.lastIndexOf('.') + 1) + MARSHALLER_SUFFIX;
+    }
+
+    private boolean isGenerated(String qualifiedName) {
+        return processingEnv.getElementUtils().getTypeElement(qualifiedName) != null;
+    }
+
+    private boolean isAssignable(TypeMirror type, String target) {
+        TypeElement targetElement = processingEnv.getElementUtils().getTypeElement(target);
+        return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(targetElement.asType()));
+    }
+
+    private boolean isAssignableFrom(TypeMirror type, String implementation) {
+        TypeElement implementationElement = processingEnv.getElementUtils().getTypeElement(implementation);
+        return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(implementationElement.asType()),
+                processingEnv.getTypeUtils().erasure(type));
+    }
+
+    private boolean isVoid(TypeMirror type) {
+        return type == null || type.getKind() == TypeKind.VOID
+                || (type.getKind() == TypeKind.DECLARED && type.toString().equals("java.lang.Void"));
+    }
+
+    private void writeMarshaller(MarshallerModel model, TypeElement origin) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(model.getQualifiedMarshallerName(), origin);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(new MarshallerWriter(model).write());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + model.getQualifiedMarshallerName() + ": " + ex.getMessage(), origin);
+        }
+    }
+
+    private void note(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "No XML marshaller generated for " + type.getQualifiedName() + ", " + reason, type);
+    }
+
+    //---------------------------------------------------------------------
+    // Annotation values
+    //---------------------------------------------------------------------
+
+    private static String getAnnotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private Object getAnnotationValue(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getString(AnnotationMirror mirror, String name) {
+        Object value = getAnnotationValue(mirror, name);
+        return value == null ? "" : value.toString();
+    }
+
+    private String getName(AnnotationMirror mirror, String name, String defaultName) {
+        String value = getString(mirror, name);
+        return value.length() > 0 ? value : defaultName;
+    }
+
+    private boolean getBoolean(AnnotationMirror mirror, String name) {
+        return Boolean.TRUE.equals(getAnnotationValue(mirror, name));
+    }
+
+    private TypeMirror getType(AnnotationMirror mirror, String name) {
+        Object value = getAnnotationValue(mirror, name);
+        return value instanceof TypeMirror ? (TypeMirror) value : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends AnnotationValue> getList(AnnotationMirror mirror, String name) {
+        Object value = getAnnotationValue(mirror, name);
+        return value instanceof List ? (List<? extends AnnotationValue>) value : Collections.<AnnotationValue>emptyList();
+    }
+
+    //---------------------------------------------------------------------
+    // Nested Classes
+    //---------------------------------------------------------------------
+
+    private static class UnsupportedMappingException extends Exception {
+        UnsupportedMappingException(String message) {
+            super(message);
+        }
+    }
+
+}